@@ -1,20 +1,33 @@
 package com.qty.log;
 
+import android.app.Application;
 import android.content.Context;
-import android.text.TextUtils;
-import android.util.Log;
+import android.os.Build;
 
 import com.qty.log.bean.QTLogLevel;
 import com.qty.log.crash.QTCrashHandler;
 import com.qty.log.handler.QTLogConfig;
 import com.qty.log.handler.QTLogFileManager;
+import com.qty.log.metrics.QTLogMetricsSnapshot;
+import com.qty.log.platform.QTAndroidDirectoryProvider;
+import com.qty.log.platform.QTLogcatSink;
+import com.qty.log.search.QTLogCursor;
+import com.qty.log.search.QTLogQuery;
+import com.qty.log.tail.QTLogTailListener;
+import com.qty.log.tail.QTLogTailSubscription;
+import com.qty.log.utils.Log;
+import com.qty.log.utils.TextUtils;
 
-import org.w3c.dom.Text;
+import java.io.FileInputStream;
+import java.io.IOException;
 
 /**
  * 日志管理类
  *
- * 用于初始化日志相关信息
+ * 用于初始化日志相关信息，是 QTLogEngine 在 Android 上的入口：
+ * 终端日志输出到 logcat，日志文件保存在 Android/data/应用包名/files/Documents/ 目录下。
+ * 初始化方法立即返回，读取配置文件、创建日志目录和清理过期日志文件在后台线程中执行，
+ * 初始化完成之前打印的日志会在初始化完成后写入，参见 {@link QTLogEngine#initAsync}。
  */
 public class QTLogManager {
 
@@ -30,10 +43,6 @@ public class QTLogManager {
      * Context 对象
      */
     private Context mContext;
-    /**
-     * 是否已经初始化
-     */
-    private boolean isInited;
 
     /**
      * 单例方法
@@ -45,7 +54,9 @@ public class QTLogManager {
     /**
      * 内部构造方法
      */
-    private QTLogManager() {}
+    private QTLogManager() {
+        QTLogEngine.getInstance().setSink(new QTLogcatSink());
+    }
 
     /**
      * 初始化方法
@@ -110,20 +121,56 @@ public class QTLogManager {
     public void init(Context context, String tag, QTLogLevel level, String timeFormat, String termLogFormat,
                      String fileLogFormat, int maxSaveDays, long maxSaveSize, boolean catchCrash,
                      boolean writeToFile, boolean enableConfig) {
-        if (TextUtils.isEmpty(tag) || level == null || TextUtils.isEmpty(timeFormat) || TextUtils.isEmpty(termLogFormat) || TextUtils.isEmpty(fileLogFormat)) {
-            Log.e(TAG, "init fail, Parameter error.");
-            return;
-        }
-        isInited = true;
         mContext = context;
-        QTLogConfig.getInstance().init(context, tag, level, timeFormat, termLogFormat, fileLogFormat, enableConfig);
-        QTLogFileManager.getInstance().init(context, maxSaveDays, maxSaveSize, writeToFile);
-        QTLogFileManager.getInstance().clearExpiredFiles();
-        if (catchCrash) {
+        QTLogEngine.getInstance().setProcessName(getProcessName(context));
+        boolean isStarted = QTLogEngine.getInstance().initAsync(new QTAndroidDirectoryProvider(context),
+                context.getPackageName(), tag, level, timeFormat, termLogFormat, fileLogFormat, maxSaveDays,
+                maxSaveSize, writeToFile, enableConfig);
+        if (isStarted && catchCrash) {
             Thread.setDefaultUncaughtExceptionHandler(new QTCrashHandler(Thread.getDefaultUncaughtExceptionHandler()));
         }
     }
 
+    /**
+     * 获取当前进程用于日志文件名的名称
+     * @param context Context 对象
+     * @return 返回进程名称，例如 "com.qty.sample:push" 返回 "push"；主进程或无法获取时返回 null
+     */
+    private static String getProcessName(Context context) {
+        String processName = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            processName = Application.getProcessName();
+        } else {
+            FileInputStream in = null;
+            try {
+                in = new FileInputStream("/proc/self/cmdline");
+                byte[] buffer = new byte[256];
+                int length = in.read(buffer);
+                int end = 0;
+                while (end < length && buffer[end] != 0) {
+                    end++;
+                }
+                processName = new String(buffer, 0, end, "UTF-8").trim();
+            } catch (IOException e) {
+                Log.e(TAG, "getProcessName=>Read process name error: ", e);
+            } finally {
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException ignore) {}
+                }
+            }
+        }
+        String packageName = context.getPackageName();
+        if (TextUtils.isEmpty(processName) || processName.equals(packageName)) {
+            return null;
+        }
+        if (processName.startsWith(packageName + ":")) {
+            return processName.substring(packageName.length() + 1);
+        }
+        return processName;
+    }
+
     /**
      * 获取 Context 对象
      * @return 返回 Context 对象
@@ -137,7 +184,75 @@ public class QTLogManager {
      * @return 如果已经初始化，返回 true；否则返回 false;
      */
     public boolean isInited() {
-        return isInited;
+        return QTLogEngine.getInstance().isInited();
+    }
+
+    /**
+     * 等待后台初始化完成
+     * @param timeoutMillis 最长等待时间，单位：毫秒
+     * @return 如果初始化已经完成，返回 true；否则返回 false
+     */
+    public boolean awaitInited(long timeoutMillis) {
+        return QTLogEngine.getInstance().awaitInited(timeoutMillis);
+    }
+
+    /**
+     * 获取日志系统运行指标快照
+     *
+     * 包括队列长度、每个级别的日志数量、丢弃数量、写入字节数、格式化耗时、写入耗时和写入线程延迟。
+     * @return 返回日志系统运行指标快照
+     */
+    public QTLogMetricsSnapshot getMetricsSnapshot() {
+        return QTLogEngine.getInstance().getMetricsSnapshot();
+    }
+
+    /**
+     * 按时间范围、级别和 TAG 查询日志文件中的日志，例如查询最近 10 分钟的日志：
+     * <pre>
+     *     long now = System.currentTimeMillis();
+     *     QTLogCursor cursor = QTLogManager.getInstance().search(new QTLogQuery(now - 10 * 60 * 1000, now));
+     *     try {
+     *         while (cursor.hasNext()) {
+     *             QTLogRecord record = cursor.next();
+     *         }
+     *     } finally {
+     *         cursor.close();
+     *     }
+     * </pre>
+     * @param query 查询条件
+     * @return 返回按需读取的查询结果，使用完成后需要关闭
+     */
+    public QTLogCursor search(QTLogQuery query) {
+        return QTLogEngine.getInstance().search(query);
+    }
+
+    /**
+     * 订阅默认通道的实时日志，用于在应用内显示日志
+     * @param listener 监听器，在后台线程中回调，更新界面时需要切换到主线程
+     * @return 返回订阅对象，不再需要时调用 close 取消订阅
+     */
+    public QTLogTailSubscription subscribe(QTLogTailListener listener) {
+        return QTLogEngine.getInstance().subscribe(listener);
+    }
+
+    /**
+     * 订阅日志通道的实时日志，可以先回放当前日志文件中指定时间之后的日志，再无缝切换到实时日志，例如显示最近 5 分钟及之后的日志：
+     * <pre>
+     *     QTLogTailSubscription subscription = QTLogManager.getInstance().subscribe(null,
+     *             System.currentTimeMillis() - 5 * 60 * 1000, new QTLogTailListener() {
+     *                 public void onEvents(List&lt;QTLogTailEvent&gt; events, long dropped) {
+     *                     ...
+     *                 }
+     *             });
+     * </pre>
+     * 监听器处理较慢时会丢弃最旧的日志，不会阻塞日志打印和写入。
+     * @param channel 日志通道名称，为 null 时订阅默认通道
+     * @param replayFromTime 回放的开始时间，单位：毫秒；小于 0 表示不回放
+     * @param listener 监听器，在后台线程中回调，更新界面时需要切换到主线程
+     * @return 返回订阅对象，不再需要时调用 close 取消订阅
+     */
+    public QTLogTailSubscription subscribe(String channel, long replayFromTime, QTLogTailListener listener) {
+        return QTLogEngine.getInstance().subscribe(channel, replayFromTime, listener);
     }
 
     /**
@@ -3,6 +3,7 @@ package com.qty.log.crash;
 import androidx.annotation.NonNull;
 
 import com.qty.log.QTLog;
+import com.qty.log.QTLogEngine;
 import com.qty.log.handler.QTLogFileManager;
 
 /**
@@ -11,6 +12,11 @@ import com.qty.log.handler.QTLogFileManager;
  */
 public class QTCrashHandler implements Thread.UncaughtExceptionHandler {
 
+    /**
+     * 等待日志引擎初始化完成的最长时间，单位：毫秒
+     */
+    private static final long INIT_WAIT_TIME = 1000;
+
     /**
      * 默认的崩溃异常处理对象
      */
@@ -33,7 +39,8 @@ public class QTCrashHandler implements Thread.UncaughtExceptionHandler {
     }
 
     /**
-     * 将捕获的异常添加到日志打印，然后停止向日志打印队列添加日志信息。
+     * 将捕获的异常添加到日志打印，日志引擎还没有初始化完成时最多等待 {@link #INIT_WAIT_TIME} 毫秒，
+     * 然后停止向日志打印队列添加日志信息。
      * 通过循环判断当前打印队列是否为空，如果为空就结束应用；否则休眠 100 毫秒。
      * @param t 异常线程
      * @param e 异常信息
@@ -42,6 +49,8 @@ public class QTCrashHandler implements Thread.UncaughtExceptionHandler {
     public void uncaughtException(@NonNull Thread t, @NonNull Throwable e) {
         Log.e("uncaughtException=>Thread: " + t.toString());
         Log.e("uncaughtException=>Exception: ", e);
+        // 日志引擎还在后台初始化时，等待初始化完成后崩溃日志才会加入打印队列
+        QTLogEngine.getInstance().awaitInited(INIT_WAIT_TIME);
         mFileManager.stopAddLogToQueue();
         while (!mFileManager.isLogQueueEmpty()) {
             try {
@@ -0,0 +1,31 @@
+package com.qty.log.platform;
+
+import android.content.Context;
+import android.os.Environment;
+
+import java.io.File;
+
+/**
+ * Android 日志目录提供类，日志根目录为 Android/data/应用包名/files/Documents/
+ * @hide
+ */
+public class QTAndroidDirectoryProvider implements QTLogDirectoryProvider {
+
+    /**
+     * Context 对象
+     */
+    private final Context mContext;
+
+    /**
+     * 构造方法
+     * @param context Context 对象
+     */
+    public QTAndroidDirectoryProvider(Context context) {
+        mContext = context;
+    }
+
+    @Override
+    public File getBaseDirectory() {
+        return mContext.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS);
+    }
+}
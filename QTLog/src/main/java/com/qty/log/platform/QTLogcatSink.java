@@ -0,0 +1,15 @@
+package com.qty.log.platform;
+
+import android.util.Log;
+
+/**
+ * 输出到 logcat 的终端日志输出
+ * @hide
+ */
+public class QTLogcatSink implements QTLogSink {
+
+    @Override
+    public void println(int priority, String tag, String msg) {
+        Log.println(priority, tag, msg);
+    }
+}
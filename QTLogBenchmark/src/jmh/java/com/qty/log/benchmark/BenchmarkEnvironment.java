@@ -0,0 +1,69 @@
+package com.qty.log.benchmark;
+
+import com.qty.log.QTLogEngine;
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.platform.QTFileDirectoryProvider;
+import com.qty.log.platform.QTLogSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * 基准测试运行环境：日志文件写入临时目录，终端日志不做任何 I/O
+ */
+public class BenchmarkEnvironment implements QTLogSink {
+
+    /**
+     * 临时根目录
+     */
+    private final File mRoot;
+    /**
+     * 最后一条终端日志，避免终端输出被 JIT 优化掉
+     */
+    private volatile String mLastMessage;
+
+    /**
+     * 构造方法
+     * @throws IOException 创建临时目录失败时抛出
+     */
+    public BenchmarkEnvironment() throws IOException {
+        mRoot = Files.createTempDirectory("qtlog-bench").toFile();
+    }
+
+    /**
+     * 初始化日志引擎
+     * @param termFormat    终端日志格式
+     * @param fileFormat    文件日志格式
+     * @param writeToFile   是否写入文件
+     */
+    public void init(String termFormat, String fileFormat, boolean writeToFile) {
+        QTLogEngine engine = QTLogEngine.getInstance();
+        engine.setSink(this);
+        engine.init(new QTFileDirectoryProvider(mRoot), "com.qty.log.benchmark", "Benchmark",
+                QTLogLevel.DEBUG_LEVEL, BenchmarkSupport.TIME_FORMAT, termFormat, fileFormat,
+                1, -1, writeToFile, false);
+    }
+
+    @Override
+    public void println(int priority, String tag, String msg) {
+        mLastMessage = msg;
+    }
+
+    /**
+     * 删除临时目录
+     */
+    public void delete() {
+        delete(mRoot);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,46 @@
+package com.qty.log.benchmark;
+
+import com.qty.log.handler.QTLogFileManager;
+
+/**
+ * 基准测试辅助方法
+ */
+final class BenchmarkSupport {
+
+    /**
+     * 带调用位置信息的文件日志格式
+     */
+    static final String LOCATION_FILE_FORMAT = "%d  %p  %L  %T(%l): [%c][%M]%m%n";
+    /**
+     * 带调用位置信息的终端日志格式
+     */
+    static final String LOCATION_TERMINAL_FORMAT = "[%c][%M]%m%n";
+    /**
+     * 不带调用位置信息的文件日志格式
+     */
+    static final String PLAIN_FILE_FORMAT = "%d %L/%T: %m%n";
+    /**
+     * 不带调用位置信息的终端日志格式
+     */
+    static final String PLAIN_TERMINAL_FORMAT = "%m";
+    /**
+     * 时间格式
+     */
+    static final String TIME_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
+    /**
+     * 测试日志内容
+     */
+    static final String MESSAGE = "onResponse=>code: 200, url: https://example.com/api/v1/items?page=3, cost: 87ms";
+
+    private BenchmarkSupport() {}
+
+    /**
+     * 等待日志队列写入完成，避免队列在迭代之间无限增长
+     */
+    static void awaitQueueDrained() throws InterruptedException {
+        QTLogFileManager manager = QTLogFileManager.getInstance();
+        while (!manager.isLogQueueEmpty()) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.qty.log.benchmark;
+
+import com.qty.log.QTLog;
+import com.qty.log.QTLogEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 结构化日志基准测试
+ *
+ * 对比文本布局和 JSON Lines 布局下带字段日志的打印开销，日志写入文件。
+ */
+@State(Scope.Benchmark)
+public class QTLogEventBenchmark {
+
+    /**
+     * 文件日志布局：text 或 json
+     */
+    @Param({"text", "json"})
+    public String layout;
+
+    private BenchmarkEnvironment mEnvironment;
+    private QTLog mLog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mEnvironment = new BenchmarkEnvironment();
+        mEnvironment.init(BenchmarkSupport.LOCATION_TERMINAL_FORMAT, BenchmarkSupport.LOCATION_FILE_FORMAT, true);
+        QTLogEngine.getInstance().setFileLogLayout(layout);
+        mLog = new QTLog(QTLogEventBenchmark.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() throws InterruptedException {
+        BenchmarkSupport.awaitQueueDrained();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        BenchmarkSupport.awaitQueueDrained();
+        mEnvironment.delete();
+    }
+
+    @Benchmark
+    public void structured() {
+        mLog.atInfo()
+                .with("userId", 10086L)
+                .with("path", "/api/v1/orders")
+                .with("cost", 12.5)
+                .with("success", true)
+                .log(BenchmarkSupport.MESSAGE);
+    }
+
+    @Benchmark
+    public void structuredDisabled() {
+        mLog.atDebug()
+                .with("userId", 10086L)
+                .with("path", "/api/v1/orders")
+                .with("cost", 12.5)
+                .with("success", true)
+                .log(BenchmarkSupport.MESSAGE);
+    }
+}
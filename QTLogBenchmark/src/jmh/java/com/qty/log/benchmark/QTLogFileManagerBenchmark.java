@@ -0,0 +1,72 @@
+package com.qty.log.benchmark;
+
+import com.qty.log.handler.QTLogFileManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+
+/**
+ * QTLogFileManager 基准测试
+ *
+ * enqueue 只测量调用线程把日志交给写入队列的开销；writeToDisk 测量一批日志从入队到写入文件的平均耗时。
+ */
+@State(Scope.Benchmark)
+public class QTLogFileManagerBenchmark {
+
+    /**
+     * writeToDisk 每次调用写入的日志数量
+     */
+    private static final int BATCH = 10000;
+
+    private BenchmarkEnvironment mEnvironment;
+    private QTLogFileManager mFileManager;
+    private long mTime;
+    private String mLine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mEnvironment = new BenchmarkEnvironment();
+        mEnvironment.init(BenchmarkSupport.PLAIN_TERMINAL_FORMAT, BenchmarkSupport.PLAIN_FILE_FORMAT, true);
+        mFileManager = QTLogFileManager.getInstance();
+        mTime = System.currentTimeMillis();
+        mLine = "2021-01-01 12:00:00.000 I/Benchmark      : " + BenchmarkSupport.MESSAGE + "\n";
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() throws InterruptedException {
+        BenchmarkSupport.awaitQueueDrained();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        BenchmarkSupport.awaitQueueDrained();
+        mEnvironment.delete();
+    }
+
+    @Benchmark
+    public void enqueue() {
+        mFileManager.addLogToQueue(mTime, mLine);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void enqueueContended() {
+        mFileManager.addLogToQueue(mTime, mLine);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void writeToDisk() throws InterruptedException {
+        for (int i = 0; i < BATCH; i++) {
+            mFileManager.addLogToQueue(mTime, mLine);
+        }
+        BenchmarkSupport.awaitQueueDrained();
+    }
+}
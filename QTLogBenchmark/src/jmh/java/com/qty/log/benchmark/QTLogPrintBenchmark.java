@@ -0,0 +1,103 @@
+package com.qty.log.benchmark;
+
+import com.qty.log.QTLog;
+import com.qty.log.QTLogEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * QTLog 打印路径基准测试
+ *
+ * 覆盖级别过滤、格式化（打印线程格式化或由写入线程延迟格式化）、调用位置获取（运行时获取堆栈或编译时注入）、
+ * 队列投递以及文件写入。
+ * 日志级别设置为 DEBUG，所以 i()/w() 会被打印，d() 会被过滤。
+ */
+@State(Scope.Benchmark)
+public class QTLogPrintBenchmark {
+
+    /**
+     * 日志格式：location 包含类名、方法名和行号，需要获取调用堆栈；plain 不包含
+     */
+    @Param({"location", "plain"})
+    public String format;
+    /**
+     * 是否写入文件
+     */
+    @Param({"false", "true"})
+    public boolean writeToFile;
+    /**
+     * 是否延迟格式化文件日志，为 true 时文件日志由写入线程格式化
+     */
+    @Param({"false", "true"})
+    public boolean deferred;
+
+    private BenchmarkEnvironment mEnvironment;
+    private QTLog mLog;
+    private Exception mException;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mEnvironment = new BenchmarkEnvironment();
+        boolean location = "location".equals(format);
+        mEnvironment.init(location ? BenchmarkSupport.LOCATION_TERMINAL_FORMAT : BenchmarkSupport.PLAIN_TERMINAL_FORMAT,
+                location ? BenchmarkSupport.LOCATION_FILE_FORMAT : BenchmarkSupport.PLAIN_FILE_FORMAT,
+                writeToFile);
+        QTLogEngine.getInstance().setDeferredFormat(deferred);
+        mLog = new QTLog(QTLogPrintBenchmark.class);
+        mException = new IllegalStateException("benchmark");
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() throws InterruptedException {
+        BenchmarkSupport.awaitQueueDrained();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        BenchmarkSupport.awaitQueueDrained();
+        mEnvironment.delete();
+    }
+
+    @Benchmark
+    public void enabled() {
+        mLog.i(BenchmarkSupport.MESSAGE);
+    }
+
+    /**
+     * 与 QTLogPlugin 改写后的调用相同，调用位置为编译时生成的常量
+     */
+    @Benchmark
+    public void enabledInjectedLocation() {
+        mLog.printAt(BenchmarkSupport.MESSAGE, null, 4, "com.qty.log.benchmark.QTLogPrintBenchmark",
+                "enabledInjectedLocation", "QTLogPrintBenchmark.java", 70);
+    }
+
+    @Benchmark
+    public void enabledWithThrowable() {
+        mLog.w(BenchmarkSupport.MESSAGE, mException);
+    }
+
+    @Benchmark
+    public void disabled() {
+        mLog.d(BenchmarkSupport.MESSAGE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void enabledContended() {
+        mLog.i(BenchmarkSupport.MESSAGE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void disabledContended() {
+        mLog.d(BenchmarkSupport.MESSAGE);
+    }
+}
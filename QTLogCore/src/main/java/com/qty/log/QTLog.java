@@ -0,0 +1,593 @@
+package com.qty.log;
+
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.filter.QTLogFilter;
+import com.qty.log.format.QTJsonLayout;
+import com.qty.log.format.QTLogLayout;
+import com.qty.log.format.QTThrowableRenderer;
+import com.qty.log.format.QTTimeFormatter;
+import com.qty.log.handler.QTLogChannel;
+import com.qty.log.handler.QTLogConfig;
+import com.qty.log.handler.QTLogEntry;
+import com.qty.log.handler.QTLogFileManager;
+import com.qty.log.metrics.QTLogMetrics;
+import com.qty.log.utils.Log;
+
+import java.util.regex.Pattern;
+
+/**
+ * 日志打印类
+ *
+ * 日志格式如下：
+ *  %T TAG
+ *  %d 日期，如果设置了日志，则需要给出日志格式，例如：%d -format="yyyy-MM-dd HH:mm:ss.sss"
+ *  %c 类名
+ *  %C 完整类名
+ *  %p 包名
+ *  %t 线程名
+ *  %L 日志类型
+ *  %f 文件名
+ *  %M 方法名
+ *  %l 行号
+ *  %m 日志内容
+ *  %X 日志上下文，参见 {@link QTLogContext}
+ *  %n 换行
+ *
+ * 需要附加结构化字段时使用 {@link #atInfo()} 等方法，参见 {@link QTLogEvent}；
+ * 统计代码耗时时使用 {@link #startSpan(String)}，参见 {@link QTLogSpan}。
+ *
+ * 日志级别开启后先按 log.config 中的 LOG_FILTER 规则过滤（参见 {@link QTLogFilter}），被过滤的日志不会被格式化和写入。
+ *
+ * %c、%C、%f、%M、%l 需要调用位置，只有日志格式中包含这些格式符（或者使用 JSON 布局）时才在运行时获取调用堆栈。
+ * 使用 QTLogPlugin 编译的代码在编译时生成调用位置，通过 {@link #printAt} 打印，不需要获取调用堆栈。
+ *
+ * 日志格式化到每个线程复用的缓冲区中，写入文件的日志复制到日志队列中可复用的日志对象，打印日志时不创建中间字符串。
+ * 开启延迟格式化（{@link QTLogEngine#setDeferredFormat(boolean)}）时，文件日志只记录原始内容，由写入线程格式化。
+ *
+ * 日志引擎初始化完成之前打印的日志先保存在有上限的缓冲区中，初始化完成后按原来的时间和线程名重新打印；
+ * 初始化完成之前创建的对象在初始化完成后第一次打印日志时才读取日志级别和日志格式。
+ */
+public class QTLog {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLog.class.getSimpleName();
+    /**
+     * 每个线程的格式化缓冲区
+     */
+    private static final ThreadLocal<FormatBuffer> BUFFERS = new ThreadLocal<>();
+
+    /**
+     * 日志配置对象
+     */
+    private QTLogConfig mConfig;
+    /**
+     * 日志文件管理器
+     */
+    private QTLogFileManager mFileManager;
+    /**
+     * 当前使用日志的类
+     */
+    private Class mClazz;
+    /**
+     * 日志 TAG
+     */
+    private String mTag;
+    /**
+     * 日志级别
+     */
+    private QTLogLevel mLevel;
+    /**
+     * 终端日志格式
+     */
+    private String mTerminalLogFormat;
+    /**
+     * 文件日志格式
+     */
+    private String mFileLogFormat;
+    /**
+     * 日志写入的通道，第一次写入文件时根据通道路由规则获取
+     */
+    private QTLogChannel mChannel;
+    /**
+     * 编译后的终端日志布局
+     */
+    private QTLogLayout mTerminalLayout;
+    /**
+     * 编译后的文件日志布局
+     */
+    private QTLogLayout mFileLayout;
+    /**
+     * 是否已经根据日志配置确定日志级别和日志格式，日志引擎初始化完成之前创建的对象在第一次打印时确定
+     */
+    private volatile boolean isResolved;
+
+    /**
+     * 构造方法
+     * @param clazz 类对象
+     */
+    public QTLog(Class clazz) {
+        this(clazz, null, null, null, null);
+    }
+
+    /**
+     * 构造方法
+     * @param clazz 类对象
+     * @param tag   日志 TAG，可以用于将日志路由到指定的日志通道
+     */
+    public QTLog(Class clazz, String tag) {
+        this(clazz, tag, null, null, null);
+    }
+
+    /**
+     * 构造方法
+     * @param clazz 类对象
+     * @param tag   日志 TAG
+     * @param level 日志级别
+     * @param termFormat   终端日志格式
+     * @param fileFormat  文件日志格式
+     */
+    private QTLog(Class clazz, String tag, QTLogLevel level, String termFormat, String fileFormat) {
+        mConfig = QTLogConfig.getInstance();
+        mFileManager = QTLogFileManager.getInstance();
+        mClazz = clazz;
+        mTag = tag;
+        mLevel = level;
+        mTerminalLogFormat = termFormat;
+        mFileLogFormat = fileFormat;
+        if (QTLogEngine.getInstance().isInited()) {
+            resolve();
+            isResolved = true;
+        }
+    }
+
+    /**
+     * 根据日志配置确定日志 TAG、日志级别和日志格式，需要在日志配置读取完成之后调用，多次调用只在第一次生效
+     */
+    private synchronized void resolve() {
+        if (mFileLayout != null) {
+            return;
+        }
+        if (mTag == null) {
+            mTag = mConfig.getTag();
+        }
+        if (mLevel == null) {
+            mLevel = mConfig.getLevel(mClazz);
+        }
+        if (mTerminalLogFormat == null) {
+            mTerminalLogFormat = mConfig.getTerminalLogFormat();
+        }
+        if (mFileLogFormat == null) {
+            mFileLogFormat = mConfig.getFileLogFormat();
+        }
+        mTerminalLayout = new QTLogLayout(mTerminalLogFormat);
+        mFileLayout = new QTLogLayout(mFileLogFormat);
+    }
+
+    /**
+     * 判断是否可以按日志配置打印日志，日志引擎初始化完成后第一次调用时确定日志级别和日志格式
+     * @return 如果日志引擎已经初始化完成，返回 true；否则返回 false
+     */
+    private boolean isReady() {
+        if (isResolved) {
+            return true;
+        }
+        if (!QTLogEngine.getInstance().isInited()) {
+            return false;
+        }
+        resolve();
+        isResolved = true;
+        return true;
+    }
+
+    /**
+     * 打印错误日志
+     * @param msg 错误日志信息
+     */
+    public void e(String msg) {
+        print(QTLogLevel.ERROR_LEVEL, msg, null);
+    }
+
+    /**
+     * 打印错误日志
+     * @param msg   错误日志信息
+     * @param tr    错误跟踪对象
+     */
+    public void e(String msg, Throwable tr) {
+        print(QTLogLevel.ERROR_LEVEL, msg, tr);
+    }
+
+    /**
+     * 打印警告日志信息
+     * @param msg   警告日志信息
+     */
+    public void w(String msg) {
+        print(QTLogLevel.WARN_LEVEL, msg, null);
+    }
+
+    /**
+     * 打印警告日志信息
+     * @param msg   警告日志信息
+     * @param tr    错误跟踪对象
+     */
+    public void w(String msg, Throwable tr) {
+        print(QTLogLevel.WARN_LEVEL, msg, tr);
+    }
+
+    /**
+     * 打印信息日志信息
+     * @param msg 信息日志信息
+     */
+    public void i(String msg) {
+        print(QTLogLevel.INFO_LEVEL, msg, null);
+    }
+
+    /**
+     * 打印信息日志信息
+     * @param msg   信息日志信息
+     * @param tr    错误跟踪对象
+     */
+    public void i(String msg, Throwable tr) {
+        print(QTLogLevel.INFO_LEVEL, msg, tr);
+    }
+
+    /**
+     * 打印调试日志信息
+     * @param msg   调试日志信息
+     */
+    public void d(String msg) {
+        print(QTLogLevel.DEBUG_LEVEL, msg, null);
+    }
+
+    /**
+     * 打印调试日志信息
+     * @param msg 调试日志信息
+     * @param tr    错误跟踪对象
+     */
+    public void d(String msg, Throwable tr) {
+        print(QTLogLevel.DEBUG_LEVEL, msg, tr);
+    }
+
+    /**
+     * 打印详情日志信息
+     * @param msg 详情日志信息
+     */
+    public void v(String msg) {
+        print(QTLogLevel.VERBOSE_LEVEL, msg, null);
+    }
+
+    /**
+     * 打印详情日志信息
+     * @param msg 详情日志信息
+     * @param tr 错误跟踪对象
+     */
+    public void v(String msg, Throwable tr) {
+        print(QTLogLevel.VERBOSE_LEVEL, msg, tr);
+    }
+
+    /**
+     * 打印日志，调用位置由 QTLogPlugin 在编译时生成，QTLogPlugin 会将 e()、w()、i()、d()、v() 的调用替换为该方法
+     * @param msg   日志信息
+     * @param tr    错误跟踪对象，可以为 null
+     * @param level 日志级别的原始值，参见 {@link QTLogLevel#rawValue()}
+     * @param className  调用位置的完整类名
+     * @param methodName 调用位置的方法名
+     * @param fileName   调用位置的文件名，可以为 null
+     * @param lineNumber 调用位置的行号，没有行号信息时为负数
+     * @hide
+     */
+    public void printAt(String msg, Throwable tr, int level, String className, String methodName,
+                        String fileName, int lineNumber) {
+        QTLogLevel logLevel = QTLogLevel.fromRawValue(level);
+        if (logLevel == null) {
+            Log.e(TAG, "printAt=>Unknown level " + level);
+            return;
+        }
+        if (!isReady() || logLevel.rawValue() > mLevel.rawValue()) {
+            print(logLevel, msg, tr, null, new StackTraceElement(className, methodName, fileName, lineNumber));
+        }
+    }
+
+    /**
+     * 开始一条带结构化字段的错误日志
+     * @return 返回日志事件，日志级别未开启时返回不记录任何内容的空事件
+     */
+    public QTLogEvent atError() {
+        return at(QTLogLevel.ERROR_LEVEL);
+    }
+
+    /**
+     * 开始一条带结构化字段的警告日志
+     * @return 返回日志事件，日志级别未开启时返回不记录任何内容的空事件
+     */
+    public QTLogEvent atWarn() {
+        return at(QTLogLevel.WARN_LEVEL);
+    }
+
+    /**
+     * 开始一条带结构化字段的信息日志
+     * @return 返回日志事件，日志级别未开启时返回不记录任何内容的空事件
+     */
+    public QTLogEvent atInfo() {
+        return at(QTLogLevel.INFO_LEVEL);
+    }
+
+    /**
+     * 开始一条带结构化字段的调试日志
+     * @return 返回日志事件，日志级别未开启时返回不记录任何内容的空事件
+     */
+    public QTLogEvent atDebug() {
+        return at(QTLogLevel.DEBUG_LEVEL);
+    }
+
+    /**
+     * 开始一条带结构化字段的详情日志
+     * @return 返回日志事件，日志级别未开启时返回不记录任何内容的空事件
+     */
+    public QTLogEvent atVerbose() {
+        return at(QTLogLevel.VERBOSE_LEVEL);
+    }
+
+    /**
+     * 开始一条带结构化字段的日志
+     * @param level 日志级别
+     * @return 返回日志事件，日志级别未开启时返回不记录任何内容的空事件
+     */
+    private QTLogEvent at(QTLogLevel level) {
+        if (!isReady() || level.rawValue() > mLevel.rawValue()) {
+            return new QTLogEvent(this, level);
+        }
+        return QTLogEvent.DISABLED;
+    }
+
+    /**
+     * 开始一个耗时统计区间，结束后耗时按名称累计，定期输出汇总日志，参见 {@link QTLogSpan}
+     * @param name 区间名称，例如 "db.query"
+     * @return 返回耗时统计区间，INFO 级别未开启时返回不记录任何内容的空区间
+     */
+    public QTLogSpan startSpan(String name) {
+        if (name == null || !isLoggable(QTLogLevel.INFO_LEVEL)) {
+            return QTLogSpan.DISABLED;
+        }
+        return new QTLogSpan(name, System.nanoTime());
+    }
+
+    /**
+     * 判断日志级别是否开启，日志引擎初始化完成之前日志级别还不确定，总是返回 true
+     * @param level 日志级别
+     * @return 如果开启，返回 true；否则返回 false
+     */
+    public boolean isLoggable(QTLogLevel level) {
+        return !isReady() || level.rawValue() > mLevel.rawValue();
+    }
+
+    /**
+     * 日志打印方法
+     * @param level 日志级别
+     * @param msg   日志信息
+     * @param tr    日志错误跟踪对象
+     */
+    private void print(QTLogLevel level, String msg, Throwable tr) {
+        print(level, msg, tr, null);
+    }
+
+    /**
+     * 日志打印方法
+     * @param level 日志级别
+     * @param msg   日志信息
+     * @param tr    日志错误跟踪对象
+     * @param event 结构化日志事件，可以为 null
+     */
+    void print(QTLogLevel level, String msg, Throwable tr, QTLogEvent event) {
+        print(level, msg, tr, event, null);
+    }
+
+    /**
+     * 日志打印方法
+     * @param level 日志级别
+     * @param msg   日志信息
+     * @param tr    日志错误跟踪对象
+     * @param event 结构化日志事件，可以为 null
+     * @param location 编译时生成的调用位置，为 null 时在需要时获取调用堆栈
+     */
+    void print(QTLogLevel level, String msg, Throwable tr, QTLogEvent event, StackTraceElement location) {
+        if (!isReady()) {
+            // 日志引擎还没有初始化完成，先保存原始内容，初始化完成后再打印
+            QTLogPreInitBuffer.Record record = new QTLogPreInitBuffer.Record(this, level, msg, tr, event,
+                    location != null ? location : getStackTraceElement(), System.currentTimeMillis(),
+                    Thread.currentThread().getName(), QTLogContext.current());
+            if (!QTLogEngine.getInstance().addPreInitLog(record)) {
+                // 保存时初始化刚好完成，直接打印
+                replay(record);
+            }
+            return;
+        }
+        print(level, msg, tr, event, location, System.currentTimeMillis(), Thread.currentThread().getName(),
+                QTLogContext.current());
+    }
+
+    /**
+     * 打印日志引擎初始化完成之前保存的日志，使用原来的时间、线程名、调用位置和上下文
+     *
+     * 日志引擎重新打印保存的日志时还没有标记为初始化完成，此时只确定日志格式，不标记为已就绪，
+     * 其他线程新打印的日志继续保存到缓冲区中，保证在之前保存的日志之后打印。
+     * @param record 初始化完成之前保存的日志
+     */
+    void replay(QTLogPreInitBuffer.Record record) {
+        if (!isReady()) {
+            resolve();
+        }
+        print(record.mLevel, record.mMessage, record.mThrowable, record.mEvent, record.mLocation, record.mTime,
+                record.mThread, record.mContext);
+    }
+
+    /**
+     * 日志打印方法
+     * @param level 日志级别
+     * @param msg   日志信息
+     * @param tr    日志错误跟踪对象
+     * @param event 结构化日志事件，可以为 null
+     * @param location 调用位置，为 null 时在需要时获取调用堆栈
+     * @param time  日志时间，单位：毫秒
+     * @param thread 线程名
+     * @param context 日志上下文
+     */
+    private void print(QTLogLevel level, String msg, Throwable tr, QTLogEvent event, StackTraceElement location,
+                       long time, String thread, QTLogContext.Snapshot context) {
+        if (level.rawValue() > mLevel.rawValue()) {
+            // 过滤规则在格式化和加入队列之前判断
+            QTLogFilter filter = mConfig.getFilter();
+            if (!filter.isEmpty() && filter.isFiltered(mTag, thread, msg, context)) {
+                return;
+            }
+            QTLogMetrics metrics = QTLogMetrics.getInstance();
+            metrics.onEvent(level);
+            long start = System.nanoTime();
+            boolean isJson = mConfig.isJsonLayout();
+            StackTraceElement ste = location;
+            if (ste == null && (mTerminalLayout.isLocationNeeded() || mFileLayout.isLocationNeeded() || isJson)) {
+                ste = getStackTraceElement();
+            }
+            // 异常堆栈只输出一次，文件日志和终端日志共用
+            String trace = tr != null ? QTThrowableRenderer.render(tr, mConfig.getMaxStackFrames()) : null;
+            String timeFormat = mConfig.getTimeFormat();
+            QTLogChannel channel = mChannel;
+            if (channel == null || channel.isClosed()) {
+                channel = mFileManager.getChannel(mTag, mClazz);
+                mChannel = channel;
+            }
+            // 序号在格式化之前获取，同一线程打印的日志序号递增，写入顺序不同时也可以按序号还原打印顺序
+            long sequence = channel != null ? channel.nextSequence() : 0;
+            FormatBuffer buffer = FormatBuffer.acquire();
+            try {
+                boolean isDeferred = mConfig.isDeferredFormat();
+                StringBuilder fileMsg = buffer.mFileMessage;
+                if (isDeferred) {
+                    // 只记录原始内容，由写入线程格式化
+                    buffer.mRaw.setRaw(isJson ? null : mFileLayout, level, time, sequence, mTag, thread, ste, msg,
+                            trace, context, event);
+                } else if (isJson) {
+                    String packageName = QTLogEngine.getInstance().getPackageName();
+                    QTJsonLayout.append(fileMsg, time, sequence, buffer.mTimeFormatter.format(timeFormat, time),
+                            level, mTag, packageName != null ? packageName : "Unknow", thread, ste, msg, trace, context, event);
+                } else {
+                    mFileLayout.append(fileMsg, buffer.mTimeFormatter, timeFormat, level, time, sequence, mTag,
+                            thread, ste, msg, trace, context, event);
+                }
+                StringBuilder logMsg = buffer.mTerminalMessage;
+                mTerminalLayout.append(logMsg, buffer.mTimeFormatter, timeFormat, level, time, sequence, mTag,
+                        thread, ste, msg, trace, context, event);
+                metrics.onFormat(System.nanoTime() - start);
+                if (isDeferred) {
+                    mFileManager.addLogToQueue(channel, buffer.mRaw);
+                } else {
+                    mFileManager.addLogToQueue(channel, level, time, fileMsg);
+                }
+                // 终端输出接口需要字符串
+                Log.println(level.rawValue(), mTag, logMsg.toString());
+            } finally {
+                buffer.release();
+            }
+        }
+    }
+
+    /**
+     * 获取运行环境的堆栈信息
+     * @return 返回堆栈信息
+     */
+    private StackTraceElement getStackTraceElement() {
+        Throwable ex = new Throwable();
+        StackTraceElement[] stackElements = ex.getStackTrace();
+        StackTraceElement ele = null;
+        if (stackElements != null)
+            for (int i = 0; i < stackElements.length; ) {
+                String className = stackElements[i].getClassName();
+                if (className.equals(QTLog.class.getName()) || className.equals(QTLogEvent.class.getName())) {
+                    i++;
+                    continue;
+                }
+                ele = stackElements[i];
+                break;
+            }
+        return ele;
+    }
+
+    /**
+     * 每个线程的格式化缓冲区
+     *
+     * 打印日志时复用同一个线程的缓冲区。格式化过程中可能再次打印日志（例如异常的 toString() 中打印日志），
+     * 这时缓冲区正在使用，嵌套的打印使用临时创建的缓冲区。
+     */
+    private static final class FormatBuffer {
+
+        /**
+         * 缓冲区的初始容量
+         */
+        private static final int INITIAL_CAPACITY = 512;
+        /**
+         * 释放时保留的最大容量，超过该容量的缓冲区在释放时重新创建，避免偶尔出现的超长日志长期占用内存
+         */
+        private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+        /**
+         * 文件日志缓冲区
+         */
+        private StringBuilder mFileMessage = new StringBuilder(INITIAL_CAPACITY);
+        /**
+         * 终端日志缓冲区
+         */
+        private StringBuilder mTerminalMessage = new StringBuilder(INITIAL_CAPACITY);
+        /**
+         * 时间格式化对象
+         */
+        private final QTTimeFormatter mTimeFormatter = new QTTimeFormatter();
+        /**
+         * 延迟格式化时记录日志原始内容的对象，加入队列时复制
+         */
+        private final QTLogEntry mRaw = new QTLogEntry();
+        /**
+         * 是否正在使用
+         */
+        private boolean isInUse;
+
+        /**
+         * 获取当前线程的缓冲区
+         * @return 返回缓冲区，使用完成后需要调用 {@link #release()}
+         */
+        static FormatBuffer acquire() {
+            FormatBuffer buffer = BUFFERS.get();
+            if (buffer == null) {
+                buffer = new FormatBuffer();
+                BUFFERS.set(buffer);
+            } else if (buffer.isInUse) {
+                buffer = new FormatBuffer();
+            }
+            buffer.isInUse = true;
+            return buffer;
+        }
+
+        /**
+         * 释放缓冲区
+         */
+        void release() {
+            mFileMessage = reset(mFileMessage);
+            mTerminalMessage = reset(mTerminalMessage);
+            mRaw.clearRaw();
+            isInUse = false;
+        }
+
+        /**
+         * 清空缓冲区
+         * @param sb 缓冲区
+         * @return 返回清空后的缓冲区
+         */
+        private static StringBuilder reset(StringBuilder sb) {
+            if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+                return new StringBuilder(INITIAL_CAPACITY);
+            }
+            sb.setLength(0);
+            return sb;
+        }
+    }
+}
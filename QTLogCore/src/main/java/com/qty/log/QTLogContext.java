@@ -0,0 +1,337 @@
+package com.qty.log;
+
+import com.qty.log.format.QTJsonLayout;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * 日志上下文（Mapped Diagnostic Context）
+ *
+ * 为当前线程设置请求 ID、会话 ID、跟踪 ID 等信息，日志格式中的 %X 会输出当前线程的上下文，例如：
+ * <pre>
+ *     QTLogContext.put("traceId", traceId);
+ *     try {
+ *         mLog.i("request start");    // 输出 ... traceId=9f3c ... request start
+ *     } finally {
+ *         QTLogContext.remove("traceId");
+ *     }
+ * </pre>
+ * 上下文保存在线程本地变量中，每次修改都会生成新的不可变快照（写时复制），打印日志时直接使用当前快照，
+ * 快照的输出内容只计算一次，上下文没有变化时打印日志不会产生额外的对象。
+ * 切换线程时使用 {@link #wrap(Runnable)}、{@link #wrap(Executor)} 等方法将上下文传递到新的线程，
+ * 例如 handler.post(QTLogContext.wrap(runnable))。
+ */
+public class QTLogContext {
+
+    /**
+     * 当前线程的上下文快照
+     */
+    private static final ThreadLocal<Snapshot> CONTEXT = new ThreadLocal<>();
+
+    /**
+     * 私有构造方法
+     */
+    private QTLogContext() {}
+
+    /**
+     * 设置当前线程的上下文
+     * @param key   键
+     * @param value 值，为 null 时删除该键
+     */
+    public static void put(String key, String value) {
+        if (key == null) {
+            return;
+        }
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        Snapshot current = current();
+        int index = current.indexOf(key);
+        if (index >= 0 && value.equals(current.mValues[index])) {
+            return;
+        }
+        int size = current.mKeys.length;
+        String[] keys;
+        String[] values;
+        if (index >= 0) {
+            keys = current.mKeys;
+            values = current.mValues.clone();
+            values[index] = value;
+        } else {
+            keys = new String[size + 1];
+            values = new String[size + 1];
+            System.arraycopy(current.mKeys, 0, keys, 0, size);
+            System.arraycopy(current.mValues, 0, values, 0, size);
+            keys[size] = key;
+            values[size] = value;
+        }
+        CONTEXT.set(new Snapshot(keys, values));
+    }
+
+    /**
+     * 获取当前线程的上下文
+     * @param key 键
+     * @return 返回值，如果不存在，则返回 null
+     */
+    public static String get(String key) {
+        return current().get(key);
+    }
+
+    /**
+     * 删除当前线程的上下文
+     * @param key 键
+     */
+    public static void remove(String key) {
+        Snapshot current = current();
+        int index = current.indexOf(key);
+        if (index < 0) {
+            return;
+        }
+        int size = current.mKeys.length;
+        if (size == 1) {
+            CONTEXT.remove();
+            return;
+        }
+        String[] keys = new String[size - 1];
+        String[] values = new String[size - 1];
+        System.arraycopy(current.mKeys, 0, keys, 0, index);
+        System.arraycopy(current.mValues, 0, values, 0, index);
+        System.arraycopy(current.mKeys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(current.mValues, index + 1, values, index, size - index - 1);
+        CONTEXT.set(new Snapshot(keys, values));
+    }
+
+    /**
+     * 清空当前线程的上下文
+     */
+    public static void clear() {
+        CONTEXT.remove();
+    }
+
+    /**
+     * 获取当前线程的上下文快照，快照不可修改，可以传递给其他线程
+     * @return 返回上下文快照，没有上下文时返回空快照
+     */
+    public static Snapshot current() {
+        Snapshot snapshot = CONTEXT.get();
+        return snapshot != null ? snapshot : Snapshot.EMPTY;
+    }
+
+    /**
+     * 将当前线程的上下文替换为指定的快照
+     * @param snapshot 上下文快照，为 null 时清空上下文
+     */
+    public static void restore(Snapshot snapshot) {
+        if (snapshot == null || snapshot.isEmpty()) {
+            CONTEXT.remove();
+        } else {
+            CONTEXT.set(snapshot);
+        }
+    }
+
+    /**
+     * 包装 Runnable，运行时使用包装时所在线程的上下文，运行结束后恢复运行线程原来的上下文
+     * @param runnable 要包装的 Runnable
+     * @return 返回包装后的 Runnable
+     */
+    public static Runnable wrap(final Runnable runnable) {
+        final Snapshot captured = current();
+        return new Runnable() {
+            @Override
+            public void run() {
+                Snapshot previous = current();
+                restore(captured);
+                try {
+                    runnable.run();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * 包装 Callable，运行时使用包装时所在线程的上下文，运行结束后恢复运行线程原来的上下文
+     * @param callable 要包装的 Callable
+     * @param <T> 返回值类型
+     * @return 返回包装后的 Callable
+     */
+    public static <T> Callable<T> wrap(final Callable<T> callable) {
+        final Snapshot captured = current();
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                Snapshot previous = current();
+                restore(captured);
+                try {
+                    return callable.call();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * 包装 Executor，提交任务时将提交线程的上下文传递给任务
+     * @param executor 要包装的 Executor
+     * @return 返回包装后的 Executor
+     */
+    public static Executor wrap(final Executor executor) {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                executor.execute(wrap(command));
+            }
+        };
+    }
+
+    /**
+     * 日志上下文快照
+     *
+     * 不可修改，输出内容在第一次使用时计算并缓存。
+     */
+    public static final class Snapshot {
+
+        /**
+         * 空快照
+         */
+        static final Snapshot EMPTY = new Snapshot(new String[0], new String[0]);
+
+        /**
+         * 键数组
+         */
+        private final String[] mKeys;
+        /**
+         * 值数组
+         */
+        private final String[] mValues;
+        /**
+         * 缓存的文本输出
+         */
+        private String mText;
+        /**
+         * 缓存的 JSON 输出
+         */
+        private String mJson;
+
+        /**
+         * 构造方法
+         * @param keys   键数组
+         * @param values 值数组
+         */
+        private Snapshot(String[] keys, String[] values) {
+            mKeys = keys;
+            mValues = values;
+        }
+
+        /**
+         * 查找键的下标
+         * @param key 键
+         * @return 返回下标，如果不存在，则返回 -1
+         */
+        private int indexOf(String key) {
+            for (int i = 0; i < mKeys.length; i++) {
+                if (mKeys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 获取值
+         * @param key 键
+         * @return 返回值，如果不存在，则返回 null
+         */
+        public String get(String key) {
+            int index = indexOf(key);
+            return index >= 0 ? mValues[index] : null;
+        }
+
+        /**
+         * 获取上下文数量
+         * @return 返回上下文数量
+         */
+        public int size() {
+            return mKeys.length;
+        }
+
+        /**
+         * 判断是否为空
+         * @return 如果为空，返回 true；否则返回 false
+         */
+        public boolean isEmpty() {
+            return mKeys.length == 0;
+        }
+
+        /**
+         * 获取键
+         * @param index 下标
+         * @return 返回键
+         */
+        public String getKey(int index) {
+            return mKeys[index];
+        }
+
+        /**
+         * 获取值
+         * @param index 下标
+         * @return 返回值
+         */
+        public String getValue(int index) {
+            return mValues[index];
+        }
+
+        /**
+         * 获取文本输出，格式为 key1=value1 key2=value2，用于 %X
+         * @return 返回文本输出，空快照返回空字符串
+         */
+        public String toText() {
+            String text = mText;
+            if (text == null) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < mKeys.length; i++) {
+                    if (i > 0) {
+                        sb.append(' ');
+                    }
+                    sb.append(mKeys[i]).append('=').append(mValues[i]);
+                }
+                text = sb.toString();
+                mText = text;
+            }
+            return text;
+        }
+
+        /**
+         * 获取 JSON 对象输出，格式为 {"key1":"value1","key2":"value2"}
+         * @return 返回 JSON 对象输出
+         */
+        public String toJson() {
+            String json = mJson;
+            if (json == null) {
+                StringBuilder sb = new StringBuilder();
+                sb.append('{');
+                for (int i = 0; i < mKeys.length; i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    QTJsonLayout.appendString(sb, mKeys[i]);
+                    sb.append(':');
+                    QTJsonLayout.appendString(sb, mValues[i]);
+                }
+                sb.append('}');
+                json = sb.toString();
+                mJson = json;
+            }
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return toText();
+        }
+    }
+}
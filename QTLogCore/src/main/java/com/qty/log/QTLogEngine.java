@@ -0,0 +1,509 @@
+package com.qty.log;
+
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.filter.QTLogRedactor;
+import com.qty.log.handler.QTLogConfig;
+import com.qty.log.handler.QTLogFileManager;
+import com.qty.log.metrics.QTHistogramSnapshot;
+import com.qty.log.metrics.QTLogMetrics;
+import com.qty.log.metrics.QTLogMetricsSnapshot;
+import com.qty.log.platform.QTConsoleSink;
+import com.qty.log.platform.QTLogDirectoryProvider;
+import com.qty.log.platform.QTLogSink;
+import com.qty.log.search.QTLogAnalyzer;
+import com.qty.log.search.QTLogCursor;
+import com.qty.log.search.QTLogQuery;
+import com.qty.log.search.QTLogSearcher;
+import com.qty.log.search.QTLogStats;
+import com.qty.log.tail.QTLogTail;
+import com.qty.log.tail.QTLogTailListener;
+import com.qty.log.tail.QTLogTailSubscription;
+import com.qty.log.upload.QTLogExporter;
+import com.qty.log.utils.Log;
+import com.qty.log.utils.TextUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 日志引擎
+ *
+ * 负责初始化日志配置和日志文件管理，不依赖 Android，可以直接在纯 Java 环境中使用：
+ * <pre>
+ *     QTLogEngine.getInstance().init(new QTFileDirectoryProvider(new File("/var/log/app")),
+ *             "server", "TAG", QTLogLevel.ALL_LEVEL);
+ * </pre>
+ * Android 应用请使用 QTLogManager 初始化。
+ *
+ * 在主线程中初始化时可以使用 {@link #initAsync}，读取配置文件、创建日志目录和清理过期日志文件都在后台线程中执行，
+ * 初始化完成之前打印的日志先保存在有上限的缓冲区中，初始化完成后重新打印。
+ */
+public class QTLogEngine {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogEngine.class.getSimpleName();
+    /**
+     * QTLogEngine 实例
+     */
+    private static final QTLogEngine INSTANCE = QTLogEngineInstance.sInstance;
+
+    /**
+     * 终端日志输出
+     */
+    private volatile QTLogSink mSink = new QTConsoleSink();
+    /**
+     * 日志目录提供对象
+     */
+    private QTLogDirectoryProvider mDirectoryProvider;
+    /**
+     * 应用包名，用于 %p 格式
+     */
+    private String mPackageName;
+    /**
+     * 是否已经初始化
+     */
+    private volatile boolean isInited;
+    /**
+     * 初始化完成之前打印的日志
+     */
+    private final QTLogPreInitBuffer mPreInitBuffer = new QTLogPreInitBuffer(QTLogPreInitBuffer.DEFAULT_CAPACITY);
+    /**
+     * 初始化状态锁
+     */
+    private final Object mLock = new Object();
+    /**
+     * 是否已经读取日志配置，读取之前修改的配置保存在 mPendingSettings 中
+     */
+    private boolean isConfigLoaded;
+    /**
+     * 读取日志配置之前修改的配置，读取配置之后按顺序执行，避免被配置文件覆盖
+     */
+    private final ArrayList<Runnable> mPendingSettings = new ArrayList<>();
+    /**
+     * 是否已经完成初始化，包括重新打印初始化完成之前保存的日志
+     */
+    private boolean isInitFinished;
+
+    /**
+     * 单例方法
+     * @return 返回 QTLogEngine 对象
+     */
+    public static QTLogEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 内部构造方法
+     */
+    private QTLogEngine() {}
+
+    /**
+     * 初始化方法
+     * @param directoryProvider 日志目录提供对象
+     * @param packageName   应用包名
+     * @param tag   日志 TAG
+     * @param level 日志级别
+     */
+    public void init(QTLogDirectoryProvider directoryProvider, String packageName, String tag, QTLogLevel level) {
+        init(directoryProvider, packageName, tag, level, QTLogConfig.DEFAULT_TIME_FORMAT,
+                QTLogConfig.DEFAULT_TERMINAL_LOG_FORMAT, QTLogConfig.DEFAULT_FILE_LOG_FORMAT,
+                QTLogFileManager.DEFAULT_MAX_SAVE_DAYS, -1, true, true);
+    }
+
+    /**
+     * 初始化方法
+     * @param directoryProvider 日志目录提供对象
+     * @param packageName   应用包名
+     * @param tag   日志 TAG
+     * @param level 日志级别
+     * @param timeFormat 日志日期格式
+     * @param termLogFormat 终端日志格式
+     * @param fileLogFormat 文件日志格式
+     * @param maxSaveDays   日志文件最大存储天数
+     * @param maxSaveSize   日志文件最大存储空间大小
+     * @param writeToFile   是否将日志写入文件
+     * @param enableConfig  是否允许使用 log.config 配置文件
+     */
+    public void init(QTLogDirectoryProvider directoryProvider, String packageName, String tag, QTLogLevel level,
+                     String timeFormat, String termLogFormat, String fileLogFormat, int maxSaveDays,
+                     long maxSaveSize, boolean writeToFile, boolean enableConfig) {
+        if (!checkParameters(directoryProvider, tag, level, timeFormat, termLogFormat, fileLogFormat)) {
+            return;
+        }
+        initInternal(directoryProvider, packageName, tag, level, timeFormat, termLogFormat, fileLogFormat,
+                maxSaveDays, maxSaveSize, writeToFile, enableConfig);
+    }
+
+    /**
+     * 在后台线程中初始化，立即返回
+     *
+     * 读取配置文件、创建日志目录、创建日志通道和清理过期日志文件都在后台线程中执行。初始化完成之前打印的日志保存在
+     * 有上限的缓冲区中（最多 256 条，超出时丢弃最旧的日志），
+     * 初始化完成后按原来的时间、线程名和上下文重新打印；初始化完成之前修改的配置在读取配置文件之后生效。
+     * @param directoryProvider 日志目录提供对象
+     * @param packageName   应用包名
+     * @param tag   日志 TAG
+     * @param level 日志级别
+     * @param timeFormat 日志日期格式
+     * @param termLogFormat 终端日志格式
+     * @param fileLogFormat 文件日志格式
+     * @param maxSaveDays   日志文件最大存储天数
+     * @param maxSaveSize   日志文件最大存储空间大小
+     * @param writeToFile   是否将日志写入文件
+     * @param enableConfig  是否允许使用 log.config 配置文件
+     * @return 如果参数正确、已经开始初始化，返回 true；否则返回 false
+     */
+    public boolean initAsync(final QTLogDirectoryProvider directoryProvider, final String packageName,
+                             final String tag, final QTLogLevel level, final String timeFormat,
+                             final String termLogFormat, final String fileLogFormat, final int maxSaveDays,
+                             final long maxSaveSize, final boolean writeToFile, final boolean enableConfig) {
+        if (!checkParameters(directoryProvider, tag, level, timeFormat, termLogFormat, fileLogFormat)) {
+            return false;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                initInternal(directoryProvider, packageName, tag, level, timeFormat, termLogFormat, fileLogFormat,
+                        maxSaveDays, maxSaveSize, writeToFile, enableConfig);
+            }
+        }, "QTLog-init");
+        thread.start();
+        return true;
+    }
+
+    /**
+     * 检查初始化参数
+     * @param directoryProvider 日志目录提供对象
+     * @param tag   日志 TAG
+     * @param level 日志级别
+     * @param timeFormat 日志日期格式
+     * @param termLogFormat 终端日志格式
+     * @param fileLogFormat 文件日志格式
+     * @return 如果参数正确，返回 true；否则返回 false
+     */
+    private boolean checkParameters(QTLogDirectoryProvider directoryProvider, String tag, QTLogLevel level,
+                                    String timeFormat, String termLogFormat, String fileLogFormat) {
+        if (directoryProvider == null || TextUtils.isEmpty(tag) || level == null || TextUtils.isEmpty(timeFormat)
+                || TextUtils.isEmpty(termLogFormat) || TextUtils.isEmpty(fileLogFormat)) {
+            Log.e(TAG, "init fail, Parameter error.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 执行初始化，然后重新打印初始化完成之前保存的日志
+     * @param directoryProvider 日志目录提供对象
+     * @param packageName   应用包名
+     * @param tag   日志 TAG
+     * @param level 日志级别
+     * @param timeFormat 日志日期格式
+     * @param termLogFormat 终端日志格式
+     * @param fileLogFormat 文件日志格式
+     * @param maxSaveDays   日志文件最大存储天数
+     * @param maxSaveSize   日志文件最大存储空间大小
+     * @param writeToFile   是否将日志写入文件
+     * @param enableConfig  是否允许使用 log.config 配置文件
+     */
+    private synchronized void initInternal(QTLogDirectoryProvider directoryProvider, String packageName, String tag,
+                                           QTLogLevel level, String timeFormat, String termLogFormat,
+                                           String fileLogFormat, int maxSaveDays, long maxSaveSize,
+                                           boolean writeToFile, boolean enableConfig) {
+        mDirectoryProvider = directoryProvider;
+        mPackageName = packageName;
+        QTLogConfig.getInstance().init(directoryProvider, tag, level, timeFormat, termLogFormat, fileLogFormat, enableConfig);
+        synchronized (mLock) {
+            for (int i = 0; i < mPendingSettings.size(); i++) {
+                mPendingSettings.get(i).run();
+            }
+            mPendingSettings.clear();
+            isConfigLoaded = true;
+        }
+        QTLogFileManager.getInstance().init(directoryProvider, maxSaveDays, maxSaveSize, writeToFile);
+        replayPreInitLogs();
+        synchronized (mLock) {
+            isInitFinished = true;
+            mLock.notifyAll();
+        }
+        QTLogFileManager.getInstance().clearExpiredFiles();
+    }
+
+    /**
+     * 重新打印初始化完成之前保存的日志，然后标记为初始化完成
+     *
+     * 重新打印期间其他线程打印的日志继续保存到缓冲区中，在缓冲区为空并关闭的同时标记为初始化完成，
+     * 保证之后直接打印的日志都在保存的日志之后。
+     */
+    private void replayPreInitLogs() {
+        while (true) {
+            QTLogPreInitBuffer.Record[] records;
+            synchronized (mPreInitBuffer) {
+                records = mPreInitBuffer.drain();
+                if (records.length == 0) {
+                    isInited = true;
+                    break;
+                }
+            }
+            for (int i = 0; i < records.length; i++) {
+                records[i].mLog.replay(records[i]);
+            }
+        }
+        long dropped = mPreInitBuffer.getDropped();
+        if (dropped > 0) {
+            Log.w(TAG, "replayPreInitLogs=>" + dropped + " logs printed before init were dropped.");
+        }
+    }
+
+    /**
+     * 保存初始化完成之前打印的日志
+     * @param record 日志的原始内容
+     * @return 保存成功返回 true；初始化已经完成返回 false
+     */
+    boolean addPreInitLog(QTLogPreInitBuffer.Record record) {
+        return mPreInitBuffer.add(record);
+    }
+
+    /**
+     * 等待初始化完成，用于需要确保日志已经写入队列的场景，例如崩溃处理
+     * @param timeoutMillis 最长等待时间，单位：毫秒
+     * @return 如果初始化已经完成，返回 true；否则返回 false
+     */
+    public boolean awaitInited(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (mLock) {
+            while (!isInitFinished) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    mLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 修改日志配置，读取日志配置之前修改的配置在读取之后生效，避免被配置文件覆盖
+     * @param setting 修改配置的操作
+     */
+    private void applySetting(Runnable setting) {
+        synchronized (mLock) {
+            if (!isConfigLoaded) {
+                mPendingSettings.add(setting);
+                return;
+            }
+        }
+        setting.run();
+    }
+
+    /**
+     * 设置当前进程的名称，多进程应用需要在初始化之前调用，非主进程的日志写入 yyyy-MM-dd@进程名.log，
+     * 避免多个进程追加写入同一个文件，查询日志时会按时间合并所有进程的日志
+     * @param processName 进程名称，例如 "push"，为 null 表示主进程
+     */
+    public void setProcessName(String processName) {
+        QTLogFileManager.getInstance().setProcessName(processName);
+    }
+
+    /**
+     * 设置终端日志输出
+     * @param sink 终端日志输出对象
+     */
+    public void setSink(QTLogSink sink) {
+        if (sink != null) {
+            mSink = sink;
+        }
+    }
+
+    /**
+     * 设置文件日志布局，会覆盖配置文件中的 FILE_LOG_LAYOUT，初始化完成之前调用时在读取配置文件之后生效
+     * @param layout {@link QTLogConfig#LAYOUT_TEXT} 或 {@link QTLogConfig#LAYOUT_JSON}
+     */
+    public void setFileLogLayout(final String layout) {
+        applySetting(new Runnable() {
+            @Override
+            public void run() {
+                QTLogConfig.getInstance().setFileLogLayout(layout);
+            }
+        });
+    }
+
+    /**
+     * 设置每个异常最多输出的堆栈帧数，会覆盖配置文件中的 MAX_STACK_FRAMES，初始化完成之前调用时在读取配置文件之后生效
+     * @param maxStackFrames 最大帧数，超出的部分合并为 "... N more"，小于或等于 0 表示不限制
+     */
+    public void setMaxStackFrames(final int maxStackFrames) {
+        applySetting(new Runnable() {
+            @Override
+            public void run() {
+                QTLogConfig.getInstance().setMaxStackFrames(maxStackFrames);
+            }
+        });
+    }
+
+    /**
+     * 设置是否延迟格式化文件日志，会覆盖配置文件中的 DEFERRED_FORMAT，初始化完成之前调用时在读取配置文件之后生效
+     * @param deferredFormat 为 true 时打印线程只记录日志的原始内容，由写入线程按文件日志格式格式化，
+     *                       可以减少打印线程的耗时；终端日志仍然在打印线程中格式化
+     */
+    public void setDeferredFormat(final boolean deferredFormat) {
+        applySetting(new Runnable() {
+            @Override
+            public void run() {
+                QTLogConfig.getInstance().setDeferredFormat(deferredFormat);
+            }
+        });
+    }
+
+    /**
+     * 设置日志缓冲内存预算，会覆盖配置文件中的 MAX_BUFFER_SIZE，初始化完成之前调用时在读取配置文件之后生效
+     * @param maxBufferSize 所有通道中等待写入的日志最多占用的内存，单位：字节，小于或等于 0 表示不限制；
+     *                      超过 1/2 时丢弃 VERBOSE 日志，超过 3/4 时丢弃 DEBUG 日志，超过预算时打印线程短暂等待，
+     *                      仍然不足时丢弃日志，丢弃的数量会记录到日志文件中
+     */
+    public void setMaxBufferSize(final long maxBufferSize) {
+        applySetting(new Runnable() {
+            @Override
+            public void run() {
+                QTLogConfig.getInstance().setMaxBufferSize(maxBufferSize);
+            }
+        });
+    }
+
+    /**
+     * 设置耗时统计区间汇总日志的输出间隔，默认为 60 秒
+     * @param intervalMillis 输出间隔，单位：毫秒，小于或等于 0 表示不定期输出，只在调用 {@link #reportSpans()} 时输出
+     */
+    public void setSpanReportInterval(long intervalMillis) {
+        QTLogSpans.getInstance().setReportInterval(intervalMillis);
+    }
+
+    /**
+     * 立即为每个耗时统计区间名称输出一条汇总日志，输出后重新开始统计，例如在应用进入后台时调用
+     */
+    public void reportSpans() {
+        QTLogSpans.getInstance().report();
+    }
+
+    /**
+     * 获取每个耗时统计区间名称在当前统计时间段内的耗时分布
+     * @return 返回区间名称到耗时直方图快照的映射，耗时单位：纳秒
+     */
+    public Map<String, QTHistogramSnapshot> getSpanSnapshots() {
+        return QTLogSpans.getInstance().snapshot();
+    }
+
+    /**
+     * 获取 log.config 中每条日志脱敏规则（LOG_REDACT）替换的次数
+     * @return 返回规则名称（例如 email、key:token）到替换次数的映射，没有配置脱敏规则时返回空的映射
+     */
+    public Map<String, Long> getRedactionHits() {
+        QTLogRedactor redactor = QTLogConfig.getInstance().getRedactor();
+        return redactor != null ? redactor.getHits() : new HashMap<String, Long>();
+    }
+
+    /**
+     * 获取终端日志输出
+     * @return 返回终端日志输出对象
+     */
+    public QTLogSink getSink() {
+        return mSink;
+    }
+
+    /**
+     * 获取日志目录提供对象
+     * @return 返回日志目录提供对象，未初始化时返回 null
+     */
+    public QTLogDirectoryProvider getDirectoryProvider() {
+        return mDirectoryProvider;
+    }
+
+    /**
+     * 获取应用包名
+     * @return 返回应用包名
+     */
+    public String getPackageName() {
+        return mPackageName;
+    }
+
+    /**
+     * 判断是否已经初始化
+     * @return 如果已经初始化，返回 true；否则返回 false;
+     */
+    public boolean isInited() {
+        return isInited;
+    }
+
+    /**
+     * 获取日志系统运行指标快照
+     * @return 返回日志系统运行指标快照
+     */
+    public QTLogMetricsSnapshot getMetricsSnapshot() {
+        return QTLogMetrics.getInstance().snapshot();
+    }
+
+    /**
+     * 按时间范围、级别和 TAG 查询日志文件中的日志
+     * @param query 查询条件
+     * @return 返回按需读取的查询结果，使用完成后需要关闭
+     */
+    public QTLogCursor search(QTLogQuery query) {
+        return new QTLogSearcher().search(query);
+    }
+
+    /**
+     * 并行统计日志通道的所有日志文件，会阻塞直到统计完成，不要在主线程中调用
+     * @param channel 日志通道名称，为 null 时统计默认通道
+     * @param topN 返回的错误日志模板数量
+     * @return 返回统计结果，参见 {@link QTLogStats}
+     */
+    public QTLogStats analyze(String channel, int topN) {
+        return QTLogAnalyzer.getInstance().analyze(channel, topN);
+    }
+
+    /**
+     * 将时间范围内的日志文件导出为一个 tar 或 zip 文件，会阻塞直到导出完成，不要在主线程中调用
+     * @param query 查询条件，只使用时间范围和日志通道
+     * @param output 输出文件，后缀为 .zip 时导出为 zip 格式，否则导出为 tar 格式
+     * @return 返回导出的日志文件数量，导出失败时返回 -1
+     */
+    public int exportLogs(QTLogQuery query, File output) {
+        return new QTLogExporter().export(query, output);
+    }
+
+    /**
+     * 订阅默认通道的实时日志
+     * @param listener 监听器
+     * @return 返回订阅对象，不再需要时调用 close 取消订阅
+     */
+    public QTLogTailSubscription subscribe(QTLogTailListener listener) {
+        return subscribe(null, -1, listener);
+    }
+
+    /**
+     * 订阅日志通道的实时日志，可以先回放当前日志文件中指定时间之后的日志，再无缝切换到实时日志
+     * @param channel 日志通道名称，为 null 时订阅默认通道
+     * @param replayFromTime 回放的开始时间，单位：毫秒；小于 0 表示不回放
+     * @param listener 监听器
+     * @return 返回订阅对象，不再需要时调用 close 取消订阅
+     */
+    public QTLogTailSubscription subscribe(String channel, long replayFromTime, QTLogTailListener listener) {
+        return QTLogTail.getInstance().subscribe(channel, replayFromTime, QTLogTail.DEFAULT_CAPACITY, listener);
+    }
+
+    /**
+     * 内部静态类
+     */
+    private static class QTLogEngineInstance {
+        private static final QTLogEngine sInstance = new QTLogEngine();
+    }
+}
@@ -0,0 +1,320 @@
+package com.qty.log;
+
+import com.qty.log.bean.QTLogLevel;
+
+/**
+ * 结构化日志事件
+ *
+ * 通过 {@link QTLog#atInfo()} 等方法获取，为日志附加带类型的键值对字段，例如：
+ * <pre>
+ *     mLog.atInfo()
+ *             .with("userId", userId)
+ *             .with("cost", cost)
+ *             .with("success", true)
+ *             .log("request finished");
+ * </pre>
+ * 文本格式的日志中字段以 key=value 的形式追加到日志内容之后；JSON Lines 格式的日志中字段作为
+ * JSON 对象的属性输出，参见 {@link com.qty.log.format.QTJsonLayout}。
+ * 日志级别未开启时返回的是不记录任何内容的空事件，不会产生额外的对象。
+ * 事件对象不是线程安全的，不能在多个线程之间共享，调用 log 方法后不能再使用。
+ */
+public class QTLogEvent {
+
+    /**
+     * 字段类型：字符串
+     */
+    public static final int TYPE_STRING = 0;
+    /**
+     * 字段类型：整数
+     */
+    public static final int TYPE_LONG = 1;
+    /**
+     * 字段类型：浮点数
+     */
+    public static final int TYPE_DOUBLE = 2;
+    /**
+     * 字段类型：布尔值
+     */
+    public static final int TYPE_BOOLEAN = 3;
+    /**
+     * 日志级别未开启时使用的空事件
+     */
+    static final QTLogEvent DISABLED = new QTLogEvent(null, null);
+    /**
+     * 字段数组的初始大小
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * 打印日志的对象，为 null 时表示空事件
+     */
+    private final QTLog mLog;
+    /**
+     * 日志级别
+     */
+    private final QTLogLevel mLevel;
+    /**
+     * 字段名数组
+     */
+    private String[] mKeys;
+    /**
+     * 字段类型数组
+     */
+    private int[] mTypes;
+    /**
+     * 字符串字段值数组
+     */
+    private String[] mStrings;
+    /**
+     * 数值字段值数组，浮点数保存为 IEEE 754 位，布尔值保存为 0 或 1
+     */
+    private long[] mValues;
+    /**
+     * 字段数量
+     */
+    private int mSize;
+    /**
+     * 错误跟踪对象
+     */
+    private Throwable mThrowable;
+
+    /**
+     * 构造方法
+     * @param log   打印日志的对象
+     * @param level 日志级别
+     */
+    QTLogEvent(QTLog log, QTLogLevel level) {
+        mLog = log;
+        mLevel = level;
+    }
+
+    /**
+     * 添加字符串字段
+     * @param key   字段名
+     * @param value 字段值，可以为 null
+     * @return 返回事件对象本身
+     */
+    public QTLogEvent with(String key, String value) {
+        if (mLog != null) {
+            int index = add(key, TYPE_STRING);
+            mStrings[index] = value;
+        }
+        return this;
+    }
+
+    /**
+     * 添加对象字段，使用对象的 toString 方法转换为字符串
+     * @param key   字段名
+     * @param value 字段值，可以为 null
+     * @return 返回事件对象本身
+     */
+    public QTLogEvent with(String key, Object value) {
+        if (mLog != null) {
+            int index = add(key, TYPE_STRING);
+            mStrings[index] = value != null ? value.toString() : null;
+        }
+        return this;
+    }
+
+    /**
+     * 添加整数字段
+     * @param key   字段名
+     * @param value 字段值
+     * @return 返回事件对象本身
+     */
+    public QTLogEvent with(String key, long value) {
+        if (mLog != null) {
+            int index = add(key, TYPE_LONG);
+            mValues[index] = value;
+        }
+        return this;
+    }
+
+    /**
+     * 添加浮点数字段
+     * @param key   字段名
+     * @param value 字段值
+     * @return 返回事件对象本身
+     */
+    public QTLogEvent with(String key, double value) {
+        if (mLog != null) {
+            int index = add(key, TYPE_DOUBLE);
+            mValues[index] = Double.doubleToRawLongBits(value);
+        }
+        return this;
+    }
+
+    /**
+     * 添加布尔值字段
+     * @param key   字段名
+     * @param value 字段值
+     * @return 返回事件对象本身
+     */
+    public QTLogEvent with(String key, boolean value) {
+        if (mLog != null) {
+            int index = add(key, TYPE_BOOLEAN);
+            mValues[index] = value ? 1 : 0;
+        }
+        return this;
+    }
+
+    /**
+     * 设置错误跟踪对象
+     * @param tr 错误跟踪对象
+     * @return 返回事件对象本身
+     */
+    public QTLogEvent withThrowable(Throwable tr) {
+        if (mLog != null) {
+            mThrowable = tr;
+        }
+        return this;
+    }
+
+    /**
+     * 打印日志
+     * @param msg 日志信息
+     */
+    public void log(String msg) {
+        if (mLog != null) {
+            mLog.print(mLevel, msg, mThrowable, this);
+        }
+    }
+
+    /**
+     * 打印日志，调用位置由 QTLogPlugin 在编译时生成，QTLogPlugin 会将 log() 的调用替换为该方法
+     * @param msg 日志信息
+     * @param className  调用位置的完整类名
+     * @param methodName 调用位置的方法名
+     * @param fileName   调用位置的文件名，可以为 null
+     * @param lineNumber 调用位置的行号，没有行号信息时为负数
+     * @hide
+     */
+    public void logAt(String msg, String className, String methodName, String fileName, int lineNumber) {
+        if (mLog != null) {
+            mLog.print(mLevel, msg, mThrowable, this,
+                    new StackTraceElement(className, methodName, fileName, lineNumber));
+        }
+    }
+
+    /**
+     * 添加字段，数组空间不足时扩容
+     * @param key  字段名
+     * @param type 字段类型
+     * @return 返回字段下标
+     */
+    private int add(String key, int type) {
+        if (mKeys == null) {
+            mKeys = new String[INITIAL_CAPACITY];
+            mTypes = new int[INITIAL_CAPACITY];
+            mStrings = new String[INITIAL_CAPACITY];
+            mValues = new long[INITIAL_CAPACITY];
+        } else if (mSize == mKeys.length) {
+            int capacity = mSize * 2;
+            String[] keys = new String[capacity];
+            int[] types = new int[capacity];
+            String[] strings = new String[capacity];
+            long[] values = new long[capacity];
+            System.arraycopy(mKeys, 0, keys, 0, mSize);
+            System.arraycopy(mTypes, 0, types, 0, mSize);
+            System.arraycopy(mStrings, 0, strings, 0, mSize);
+            System.arraycopy(mValues, 0, values, 0, mSize);
+            mKeys = keys;
+            mTypes = types;
+            mStrings = strings;
+            mValues = values;
+        }
+        mKeys[mSize] = key;
+        mTypes[mSize] = type;
+        return mSize++;
+    }
+
+    /**
+     * 获取字段数量
+     * @return 返回字段数量
+     */
+    public int getFieldCount() {
+        return mSize;
+    }
+
+    /**
+     * 获取字段名
+     * @param index 字段下标
+     * @return 返回字段名
+     */
+    public String getKey(int index) {
+        return mKeys[index];
+    }
+
+    /**
+     * 获取字段类型
+     * @param index 字段下标
+     * @return 返回字段类型，TYPE_STRING、TYPE_LONG、TYPE_DOUBLE 或 TYPE_BOOLEAN
+     */
+    public int getType(int index) {
+        return mTypes[index];
+    }
+
+    /**
+     * 获取字符串字段值
+     * @param index 字段下标
+     * @return 返回字段值
+     */
+    public String getString(int index) {
+        return mStrings[index];
+    }
+
+    /**
+     * 获取整数字段值
+     * @param index 字段下标
+     * @return 返回字段值
+     */
+    public long getLong(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * 获取浮点数字段值
+     * @param index 字段下标
+     * @return 返回字段值
+     */
+    public double getDouble(int index) {
+        return Double.longBitsToDouble(mValues[index]);
+    }
+
+    /**
+     * 获取布尔值字段值
+     * @param index 字段下标
+     * @return 返回字段值
+     */
+    public boolean getBoolean(int index) {
+        return mValues[index] != 0;
+    }
+
+    /**
+     * 将字段以 key=value 的形式追加到文本日志中，字段之间使用空格隔开
+     * @param sb 日志内容
+     * @hide
+     */
+    public void appendText(StringBuilder sb) {
+        for (int i = 0; i < mSize; i++) {
+            sb.append(' ').append(mKeys[i]).append('=');
+            switch (mTypes[i]) {
+                case TYPE_LONG:
+                    sb.append(mValues[i]);
+                    break;
+
+                case TYPE_DOUBLE:
+                    sb.append(Double.longBitsToDouble(mValues[i]));
+                    break;
+
+                case TYPE_BOOLEAN:
+                    sb.append(mValues[i] != 0);
+                    break;
+
+                default:
+                    sb.append(mStrings[i]);
+                    break;
+            }
+        }
+    }
+}
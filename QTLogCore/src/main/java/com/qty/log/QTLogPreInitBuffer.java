@@ -0,0 +1,164 @@
+package com.qty.log;
+
+import com.qty.log.bean.QTLogLevel;
+
+/**
+ * 初始化完成之前打印的日志缓冲区
+ *
+ * 日志引擎初始化完成之前，日志级别、日志格式和日志通道都还不确定，打印的日志先记录原始内容保存在这里，
+ * 初始化完成后由 {@link QTLogEngine} 反复调用 {@link #drain()} 取出并按原来的时间、线程名和上下文重新打印，
+ * 直到缓冲区为空时关闭缓冲区。
+ * 缓冲区的容量有上限，超出时丢弃最旧的日志，所以应用一直没有初始化日志引擎时也不会持续占用内存。
+ * @hide
+ */
+class QTLogPreInitBuffer {
+
+    /**
+     * 默认容量
+     */
+    static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * 缓冲区
+     */
+    private final Record[] mRecords;
+    /**
+     * 最旧的日志的位置
+     */
+    private int mHead;
+    /**
+     * 缓冲区中的日志数量
+     */
+    private int mSize;
+    /**
+     * 因为缓冲区已满丢弃的日志数量
+     */
+    private long mDropped;
+    /**
+     * 是否已经关闭，关闭之后不再接受新的日志
+     */
+    private boolean isDrained;
+
+    /**
+     * 构造方法
+     * @param capacity 容量
+     */
+    QTLogPreInitBuffer(int capacity) {
+        mRecords = new Record[capacity];
+    }
+
+    /**
+     * 保存一条日志，缓冲区已满时丢弃最旧的日志
+     * @param record 日志的原始内容
+     * @return 保存成功返回 true；缓冲区已经关闭（初始化已经完成）返回 false，此时调用者需要直接打印
+     */
+    synchronized boolean add(Record record) {
+        if (isDrained) {
+            return false;
+        }
+        if (mSize == mRecords.length) {
+            mRecords[mHead] = record;
+            mHead = (mHead + 1) % mRecords.length;
+            mDropped++;
+        } else {
+            mRecords[(mHead + mSize) % mRecords.length] = record;
+            mSize++;
+        }
+        return true;
+    }
+
+    /**
+     * 按打印顺序取出所有日志，缓冲区为空时关闭缓冲区，之后不再接受新的日志
+     * @return 返回缓冲区中的日志，返回空数组表示缓冲区已经关闭
+     */
+    synchronized Record[] drain() {
+        if (mSize == 0) {
+            isDrained = true;
+        }
+        Record[] records = new Record[mSize];
+        for (int i = 0; i < mSize; i++) {
+            int slot = (mHead + i) % mRecords.length;
+            records[i] = mRecords[slot];
+            mRecords[slot] = null;
+        }
+        mHead = 0;
+        mSize = 0;
+        return records;
+    }
+
+    /**
+     * 获取因为缓冲区已满丢弃的日志数量
+     * @return 返回丢弃的日志数量
+     */
+    synchronized long getDropped() {
+        return mDropped;
+    }
+
+    /**
+     * 初始化完成之前打印的一条日志
+     */
+    static class Record {
+
+        /**
+         * 打印日志的对象
+         */
+        final QTLog mLog;
+        /**
+         * 日志级别
+         */
+        final QTLogLevel mLevel;
+        /**
+         * 日志信息
+         */
+        final String mMessage;
+        /**
+         * 日志错误跟踪对象
+         */
+        final Throwable mThrowable;
+        /**
+         * 结构化日志事件
+         */
+        final QTLogEvent mEvent;
+        /**
+         * 日志调用位置
+         */
+        final StackTraceElement mLocation;
+        /**
+         * 日志时间，单位：毫秒
+         */
+        final long mTime;
+        /**
+         * 线程名
+         */
+        final String mThread;
+        /**
+         * 日志上下文
+         */
+        final QTLogContext.Snapshot mContext;
+
+        /**
+         * 构造方法
+         * @param log   打印日志的对象
+         * @param level 日志级别
+         * @param msg   日志信息
+         * @param tr    日志错误跟踪对象，可以为 null
+         * @param event 结构化日志事件，可以为 null
+         * @param location 日志调用位置，可以为 null
+         * @param time  日志时间，单位：毫秒
+         * @param thread 线程名
+         * @param context 日志上下文
+         */
+        Record(QTLog log, QTLogLevel level, String msg, Throwable tr, QTLogEvent event, StackTraceElement location,
+               long time, String thread, QTLogContext.Snapshot context) {
+            mLog = log;
+            mLevel = level;
+            mMessage = msg;
+            mThrowable = tr;
+            mEvent = event;
+            mLocation = location;
+            mTime = time;
+            mThread = thread;
+            mContext = context;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.qty.log;
+
+/**
+ * 耗时统计区间
+ *
+ * 通过 {@link QTLog#startSpan(String)} 开始，调用 {@link #end()} 结束，例如：
+ * <pre>
+ *     QTLogSpan span = mLog.startSpan("db.query");
+ *     try {
+ *         ...
+ *     } finally {
+ *         span.end();
+ *     }
+ * </pre>
+ * 也可以使用 try-with-resources。耗时使用 System.nanoTime() 计算，不受系统时间调整的影响。
+ * 结束时不打印日志，耗时按名称累计到直方图中，定期为每个名称输出一条汇总日志（次数、平均值、p50、p90、p99、
+ * 最大值，输出间隔参见 {@link QTLogEngine#setSpanReportInterval(long)}），所以可以在频繁调用的代码中使用。
+ * 通过 {@link #startSpan(String)} 开始子区间，子区间的名称为 "父区间名称/子区间名称"。
+ * 日志级别未开启 INFO 时返回不记录任何内容的空区间。区间对象不是线程安全的，不能在多个线程之间共享。
+ */
+public class QTLogSpan implements AutoCloseable {
+
+    /**
+     * 日志级别未开启时使用的空区间
+     */
+    static final QTLogSpan DISABLED = new QTLogSpan(null, 0);
+
+    /**
+     * 区间名称，为 null 时表示空区间
+     */
+    private final String mName;
+    /**
+     * 开始时间，单位：纳秒
+     */
+    private final long mStartNanos;
+    /**
+     * 是否已经结束
+     */
+    private boolean isEnded;
+
+    /**
+     * 构造方法
+     * @param name 区间名称
+     * @param startNanos 开始时间，单位：纳秒
+     */
+    QTLogSpan(String name, long startNanos) {
+        mName = name;
+        mStartNanos = startNanos;
+    }
+
+    /**
+     * 开始一个子区间
+     * @param name 子区间名称
+     * @return 返回子区间，名称为 "父区间名称/子区间名称"
+     */
+    public QTLogSpan startSpan(String name) {
+        if (mName == null) {
+            return DISABLED;
+        }
+        return new QTLogSpan(mName + "/" + name, System.nanoTime());
+    }
+
+    /**
+     * 结束区间，将耗时累计到区间名称对应的直方图中，重复调用时只记录第一次
+     * @return 返回区间耗时，单位：纳秒；空区间或者已经结束时返回 0
+     */
+    public long end() {
+        if (mName == null || isEnded) {
+            return 0;
+        }
+        isEnded = true;
+        long nanos = System.nanoTime() - mStartNanos;
+        QTLogSpans.getInstance().record(mName, nanos);
+        return nanos;
+    }
+
+    /**
+     * 结束区间，与 {@link #end()} 相同
+     */
+    @Override
+    public void close() {
+        end();
+    }
+
+    /**
+     * 获取区间名称
+     * @return 返回区间名称，空区间返回 null
+     */
+    public String getName() {
+        return mName;
+    }
+}
@@ -0,0 +1,198 @@
+package com.qty.log;
+
+import com.qty.log.metrics.QTHistogramSnapshot;
+import com.qty.log.metrics.QTLatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 耗时统计区间的汇总
+ *
+ * 按区间名称将 {@link QTLogSpan} 的耗时累计到直方图中，每隔 {@link #DEFAULT_REPORT_INTERVAL} 毫秒
+ * （可以通过 {@link QTLogEngine#setSpanReportInterval(long)} 修改）为每个名称输出一条 INFO 日志，例如：
+ * <pre>
+ *     span db.query count=120 meanUs=850 p50Us=640 p90Us=1536 p99Us=4096 maxUs=5210
+ * </pre>
+ * 汇总日志的字段以结构化字段输出，JSON Lines 布局中可以直接按字段分析。每次输出后直方图清零，
+ * 所以每条汇总日志只统计一个时间段；该时间段内没有记录的名称不输出，并移除对应的直方图。
+ * 同时统计的名称最多 {@link #MAX_NAMES} 个，超出后新名称的耗时都累计到 {@link #OVERFLOW_NAME} 中，
+ * 避免名称中带有 ID 等变化内容时直方图无限增长。
+ * @hide
+ */
+class QTLogSpans {
+
+    /**
+     * 默认的汇总日志输出间隔，单位：毫秒
+     */
+    static final long DEFAULT_REPORT_INTERVAL = 60 * 1000;
+    /**
+     * 同时统计的区间名称的最大数量，不包括 {@link #OVERFLOW_NAME}
+     */
+    static final int MAX_NAMES = 256;
+    /**
+     * 区间名称数量超过 {@link #MAX_NAMES} 时，新名称的耗时累计使用的名称
+     */
+    static final String OVERFLOW_NAME = "span.overflow";
+
+    /**
+     * 区间名称到耗时直方图的映射
+     */
+    private final ConcurrentHashMap<String, QTLatencyHistogram> mHistograms = new ConcurrentHashMap<>();
+    /**
+     * 汇总日志输出间隔，单位：毫秒，小于或等于 0 表示不定期输出
+     */
+    private long mReportInterval = DEFAULT_REPORT_INTERVAL;
+    /**
+     * 定期输出汇总日志的定时器
+     */
+    private Timer mTimer;
+    /**
+     * 定时器是否已经启动
+     */
+    private volatile boolean isStarted;
+    /**
+     * 输出汇总日志的对象
+     */
+    private QTLog mLog;
+
+    /**
+     * 构造方法
+     */
+    private QTLogSpans() {}
+
+    /**
+     * 获取 QTLogSpans 单例
+     * @return 返回 QTLogSpans 单例
+     */
+    static QTLogSpans getInstance() {
+        return QTLogSpansInstance.sInstance;
+    }
+
+    /**
+     * 记录一次区间耗时，第一次记录时启动定时器
+     * @param name 区间名称，名称数量已经达到 {@link #MAX_NAMES} 时新名称使用 {@link #OVERFLOW_NAME}
+     * @param nanos 耗时，单位：纳秒
+     */
+    void record(String name, long nanos) {
+        QTLatencyHistogram histogram = mHistograms.get(name);
+        if (histogram == null && mHistograms.size() >= MAX_NAMES) {
+            name = OVERFLOW_NAME;
+            histogram = mHistograms.get(name);
+        }
+        if (histogram == null) {
+            QTLatencyHistogram created = new QTLatencyHistogram();
+            histogram = mHistograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(nanos);
+        if (!isStarted) {
+            startTimer();
+        }
+    }
+
+    /**
+     * 设置汇总日志输出间隔，会重新启动定时器
+     * @param intervalMillis 输出间隔，单位：毫秒，小于或等于 0 表示不定期输出，只在调用 {@link #report()} 时输出
+     */
+    synchronized void setReportInterval(long intervalMillis) {
+        mReportInterval = intervalMillis;
+        if (isStarted) {
+            stopTimer();
+            startTimer();
+        }
+    }
+
+    /**
+     * 启动定时器
+     */
+    private synchronized void startTimer() {
+        if (isStarted) {
+            return;
+        }
+        isStarted = true;
+        if (mReportInterval <= 0) {
+            return;
+        }
+        mTimer = new Timer("QTLog-span", true);
+        mTimer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                report();
+            }
+        }, mReportInterval, mReportInterval);
+    }
+
+    /**
+     * 停止定时器
+     */
+    private synchronized void stopTimer() {
+        if (mTimer != null) {
+            mTimer.cancel();
+            mTimer = null;
+        }
+        isStarted = false;
+    }
+
+    /**
+     * 为每个区间名称输出一条汇总日志并清零直方图，按名称排序，移除这个时间段内没有记录的名称
+     */
+    synchronized void report() {
+        if (mHistograms.isEmpty()) {
+            return;
+        }
+        if (mLog == null) {
+            mLog = new QTLog(QTLogSpans.class);
+        }
+        ArrayList<String> names = new ArrayList<>(mHistograms.keySet());
+        Collections.sort(names);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            QTLatencyHistogram histogram = mHistograms.get(name);
+            QTHistogramSnapshot snapshot = histogram.snapshotAndReset();
+            if (snapshot.getCount() == 0) {
+                mHistograms.remove(name, histogram);
+                if (histogram.snapshot().getCount() > 0) {
+                    // 移除时刚好有新的记录，重新加入，下一次汇总时输出
+                    mHistograms.putIfAbsent(name, histogram);
+                }
+                continue;
+            }
+            mLog.atInfo()
+                    .with("span", name)
+                    .with("count", snapshot.getCount())
+                    .with("meanUs", snapshot.getMean() / 1000)
+                    .with("p50Us", snapshot.getPercentile(50) / 1000)
+                    .with("p90Us", snapshot.getPercentile(90) / 1000)
+                    .with("p99Us", snapshot.getPercentile(99) / 1000)
+                    .with("maxUs", snapshot.getMax() / 1000)
+                    .log("span " + name);
+        }
+    }
+
+    /**
+     * 获取每个区间名称当前时间段的耗时统计，不会清零
+     * @return 返回区间名称到直方图快照的映射
+     */
+    Map<String, QTHistogramSnapshot> snapshot() {
+        HashMap<String, QTHistogramSnapshot> snapshots = new HashMap<>();
+        for (Map.Entry<String, QTLatencyHistogram> entry : mHistograms.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * 内部类，单例实现辅助类
+     */
+    private static class QTLogSpansInstance {
+        public static final QTLogSpans sInstance = new QTLogSpans();
+    }
+}
@@ -0,0 +1,59 @@
+package com.qty.log.bean;
+
+/**
+ * 日志通道配置
+ *
+ * 每个通道拥有独立的日志队列、写入线程和日志文件目录（logs/通道名/）。
+ * @hide
+ */
+public class QTChannelConfig {
+
+    /**
+     * 通道名称
+     */
+    private String mName;
+    /**
+     * 日志文件保存天数，小于或等于 0 表示使用全局设置
+     */
+    private int mMaxSaveDays;
+    /**
+     * 日志文件保存的总文件大小，单位：Byte，小于或等于 0 表示使用全局设置
+     */
+    private long mMaxSaveSize;
+
+    /**
+     * 构造方法
+     * @param name 通道名称
+     * @param maxSaveDays 日志文件保存天数
+     * @param maxSaveSize 日志文件保存的总文件大小
+     */
+    public QTChannelConfig(String name, int maxSaveDays, long maxSaveSize) {
+        mName = name;
+        mMaxSaveDays = maxSaveDays;
+        mMaxSaveSize = maxSaveSize;
+    }
+
+    /**
+     * 获取通道名称
+     * @return 返回通道名称
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * 获取日志文件保存天数
+     * @return 返回日志文件保存天数
+     */
+    public int getMaxSaveDays() {
+        return mMaxSaveDays;
+    }
+
+    /**
+     * 获取日志文件保存的总文件大小
+     * @return 返回日志文件保存的总文件大小
+     */
+    public long getMaxSaveSize() {
+        return mMaxSaveSize;
+    }
+}
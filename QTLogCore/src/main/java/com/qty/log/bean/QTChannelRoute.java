@@ -0,0 +1,82 @@
+package com.qty.log.bean;
+
+/**
+ * 日志通道路由规则
+ *
+ * 根据日志 TAG 或者打印日志的类所在的包，将日志写入指定的通道。
+ * @hide
+ */
+public class QTChannelRoute {
+
+    /**
+     * 按 TAG 路由
+     */
+    public static final int TYPE_TAG = 0;
+    /**
+     * 按包名路由
+     */
+    public static final int TYPE_PACKAGE = 1;
+
+    /**
+     * 路由类型
+     */
+    private int mType;
+    /**
+     * TAG 或者包名
+     */
+    private String mKey;
+    /**
+     * 通道名称
+     */
+    private String mChannel;
+
+    /**
+     * 构造方法
+     * @param type 路由类型
+     * @param key  TAG 或者包名
+     * @param channel 通道名称
+     */
+    public QTChannelRoute(int type, String key, String channel) {
+        mType = type;
+        mKey = key;
+        mChannel = channel;
+    }
+
+    /**
+     * 获取路由类型
+     * @return 返回路由类型
+     */
+    public int getType() {
+        return mType;
+    }
+
+    /**
+     * 获取 TAG 或者包名
+     * @return 返回 TAG 或者包名
+     */
+    public String getKey() {
+        return mKey;
+    }
+
+    /**
+     * 获取通道名称
+     * @return 返回通道名称
+     */
+    public String getChannel() {
+        return mChannel;
+    }
+
+    /**
+     * 判断日志是否匹配该路由
+     * @param tag 日志 TAG
+     * @param className 打印日志的类名，可以为 null
+     * @return 如果匹配，返回 true；否则返回 false
+     */
+    public boolean matches(String tag, String className) {
+        if (mType == TYPE_TAG) {
+            return mKey.equals(tag);
+        }
+        return className != null && className.startsWith(mKey)
+                && (className.length() == mKey.length() || className.charAt(mKey.length()) == '.');
+    }
+}
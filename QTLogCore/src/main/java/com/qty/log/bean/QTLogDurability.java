@@ -0,0 +1,136 @@
+package com.qty.log.bean;
+
+/**
+ * 日志持久化策略
+ *
+ * 写入线程每批日志都会将缓冲区写入文件，但数据可能仍在系统缓存中，断电或者系统崩溃时会丢失。
+ * 该策略决定写入线程何时调用 FileChannel.force 将日志文件内容强制写入存储设备，
+ * 配置方式参见 {@link com.qty.log.handler.QTLogConfig} 中的 LOG_DURABILITY 和 CHANNEL_DURABILITY。
+ * @hide
+ */
+public class QTLogDurability {
+
+    /**
+     * 不强制写入存储设备，由系统决定何时写入，吞吐量最高
+     */
+    public static final int MODE_NONE = 0;
+    /**
+     * 距离上一次强制写入超过指定时间或者指定字节数时，在一批日志写入后强制写入
+     */
+    public static final int MODE_PERIODIC = 1;
+    /**
+     * 一批日志中包含 ERROR 日志时在写入后立即强制写入，同时可以设置定期强制写入
+     */
+    public static final int MODE_ERROR = 2;
+
+    /**
+     * 定期强制写入的默认时间间隔，单位：毫秒
+     */
+    public static final long DEFAULT_INTERVAL = 1000;
+    /**
+     * 定期强制写入的默认字节数
+     */
+    public static final long DEFAULT_BYTES = 64 * 1024;
+
+    /**
+     * 不强制写入存储设备的策略，没有配置时使用
+     */
+    public static final QTLogDurability NONE = new QTLogDurability(null, MODE_NONE, 0, 0);
+
+    /**
+     * 通道名称，为 null 表示所有没有单独配置的通道
+     */
+    private String mChannel;
+    /**
+     * 持久化模式
+     */
+    private int mMode;
+    /**
+     * 强制写入的时间间隔，单位：毫秒，小于或等于 0 表示不按时间强制写入
+     */
+    private long mInterval;
+    /**
+     * 强制写入的字节数，小于或等于 0 表示不按字节数强制写入
+     */
+    private long mBytes;
+
+    /**
+     * 构造方法
+     * @param channel  通道名称，为 null 表示所有没有单独配置的通道
+     * @param mode     持久化模式
+     * @param interval 强制写入的时间间隔，单位：毫秒
+     * @param bytes    强制写入的字节数
+     */
+    public QTLogDurability(String channel, int mode, long interval, long bytes) {
+        mChannel = channel;
+        mMode = mode;
+        mInterval = interval;
+        mBytes = bytes;
+    }
+
+    /**
+     * 获取通道名称
+     * @return 返回通道名称，为 null 表示所有没有单独配置的通道
+     */
+    public String getChannel() {
+        return mChannel;
+    }
+
+    /**
+     * 获取持久化模式
+     * @return 返回持久化模式
+     */
+    public int getMode() {
+        return mMode;
+    }
+
+    /**
+     * 获取强制写入的时间间隔
+     * @return 返回时间间隔，单位：毫秒
+     */
+    public long getInterval() {
+        return mInterval;
+    }
+
+    /**
+     * 获取强制写入的字节数
+     * @return 返回字节数
+     */
+    public long getBytes() {
+        return mBytes;
+    }
+
+    /**
+     * 判断写入一批日志后是否需要强制写入存储设备
+     * @param hasError 这批日志中是否包含 ERROR 日志
+     * @param elapsed  距离上一次强制写入的时间，单位：毫秒
+     * @param bytes    上一次强制写入之后写入的字节数，为 0 时不需要强制写入
+     * @return 如果需要，返回 true；否则返回 false
+     */
+    public boolean needSync(boolean hasError, long elapsed, long bytes) {
+        if (mMode == MODE_NONE || bytes <= 0) {
+            return false;
+        }
+        if (mMode == MODE_ERROR && hasError) {
+            return true;
+        }
+        return (mInterval > 0 && elapsed >= mInterval) || (mBytes > 0 && bytes >= mBytes);
+    }
+
+    /**
+     * 获取策略名称，与配置文件中的写法相同
+     * @return 返回策略名称
+     */
+    public String getName() {
+        switch (mMode) {
+            case MODE_PERIODIC:
+                return "periodic:" + mInterval + ":" + mBytes;
+
+            case MODE_ERROR:
+                return "error:" + mInterval + ":" + mBytes;
+
+            default:
+                return "none";
+        }
+    }
+}
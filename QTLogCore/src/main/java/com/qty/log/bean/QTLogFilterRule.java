@@ -0,0 +1,76 @@
+package com.qty.log.bean;
+
+/**
+ * 日志过滤规则
+ *
+ * 匹配规则的日志不会被格式化和写入，配置方式参见 {@link com.qty.log.handler.QTLogConfig} 中的 LOG_FILTER。
+ * @hide
+ */
+public class QTLogFilterRule {
+
+    /**
+     * 按 TAG 过滤，TAG 完全相同时匹配
+     */
+    public static final int TYPE_TAG = 0;
+    /**
+     * 按线程名过滤，线程名以指定内容开头时匹配
+     */
+    public static final int TYPE_THREAD = 1;
+    /**
+     * 按关键字过滤，日志信息包含指定内容时匹配
+     */
+    public static final int TYPE_KEYWORD = 2;
+    /**
+     * 按日志上下文过滤，上下文中指定键的值完全相同时匹配
+     */
+    public static final int TYPE_CONTEXT = 3;
+
+    /**
+     * 规则类型
+     */
+    private int mType;
+    /**
+     * TAG、线程名前缀、关键字或者上下文的键
+     */
+    private String mKey;
+    /**
+     * 上下文的值，其他类型的规则为 null
+     */
+    private String mValue;
+
+    /**
+     * 构造方法
+     * @param type 规则类型
+     * @param key  TAG、线程名前缀、关键字或者上下文的键
+     * @param value 上下文的值，其他类型的规则为 null
+     */
+    public QTLogFilterRule(int type, String key, String value) {
+        mType = type;
+        mKey = key;
+        mValue = value;
+    }
+
+    /**
+     * 获取规则类型
+     * @return 返回规则类型
+     */
+    public int getType() {
+        return mType;
+    }
+
+    /**
+     * 获取 TAG、线程名前缀、关键字或者上下文的键
+     * @return 返回规则的键
+     */
+    public String getKey() {
+        return mKey;
+    }
+
+    /**
+     * 获取上下文的值
+     * @return 返回上下文的值，其他类型的规则返回 null
+     */
+    public String getValue() {
+        return mValue;
+    }
+}
@@ -34,6 +34,11 @@ public enum QTLogLevel {
      */
     ERROR_LEVEL(6, "E");
 
+    /**
+     * 所有枚举值，避免每次调用 values() 复制数组
+     */
+    private static final QTLogLevel[] VALUES = values();
+
     /**
      * 枚举的原始值
      */
@@ -68,4 +73,19 @@ public enum QTLogLevel {
     public String nameValue() {
         return this.name;
     }
+
+    /**
+     * 根据原始值获取枚举
+     *
+     * @param raw 枚举的原始值
+     * @return 返回枚举，如果原始值无效，则返回 null
+     */
+    public static QTLogLevel fromRawValue(int raw) {
+        for (QTLogLevel level : VALUES) {
+            if (level.raw == raw) {
+                return level;
+            }
+        }
+        return null;
+    }
 }
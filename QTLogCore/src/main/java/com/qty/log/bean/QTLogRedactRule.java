@@ -0,0 +1,76 @@
+package com.qty.log.bean;
+
+/**
+ * 日志脱敏规则
+ *
+ * 写入日志文件前将匹配规则的内容替换为 "***"，配置方式参见 {@link com.qty.log.handler.QTLogConfig} 中的 LOG_REDACT。
+ * @hide
+ */
+public class QTLogRedactRule {
+
+    /**
+     * 邮箱地址
+     */
+    public static final int TYPE_EMAIL = 0;
+    /**
+     * 电话号码，以 '1' 开头的 11 位手机号码、以 '0' 开头并在区号后使用 '-' 分隔的 10 到 12 位固定电话号码
+     * 或者以 '+' 开头的 7 到 15 位号码，前后不能是字母、数字或小数点
+     */
+    public static final int TYPE_PHONE = 1;
+    /**
+     * 指定键的值，键不区分大小写，键前面不能是字母、数字或下划线，例如 token=xxx、"userId":"xxx"
+     */
+    public static final int TYPE_KEY = 2;
+
+    /**
+     * 规则类型
+     */
+    private int mType;
+    /**
+     * 键，其他类型的规则为 null
+     */
+    private String mKey;
+
+    /**
+     * 构造方法
+     * @param type 规则类型
+     * @param key  键，其他类型的规则为 null
+     */
+    public QTLogRedactRule(int type, String key) {
+        mType = type;
+        mKey = key;
+    }
+
+    /**
+     * 获取规则类型
+     * @return 返回规则类型
+     */
+    public int getType() {
+        return mType;
+    }
+
+    /**
+     * 获取键
+     * @return 返回键，其他类型的规则返回 null
+     */
+    public String getKey() {
+        return mKey;
+    }
+
+    /**
+     * 获取规则名称，与配置文件中的写法相同
+     * @return 返回规则名称，例如 email、phone、key:token
+     */
+    public String getName() {
+        switch (mType) {
+            case TYPE_EMAIL:
+                return "email";
+
+            case TYPE_PHONE:
+                return "phone";
+
+            default:
+                return "key:" + mKey;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.qty.log.filter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 多关键字匹配器（Aho-Corasick 自动机）
+ *
+ * 所有关键字编译成一个确定的状态转移表，匹配时只需要从头到尾扫描一次文本，
+ * 耗时只与文本长度有关，与关键字的数量无关。关键字中没有出现的字符统一映射为同一个输入，
+ * 所以状态转移表的大小为 状态数 ×（关键字中不同字符数 + 1）。
+ * 编译后的对象是不可变的，可以在多个线程中同时使用。
+ * @hide
+ */
+public class QTKeywordMatcher {
+
+    /**
+     * ASCII 字符的数量
+     */
+    private static final int ASCII_SIZE = 128;
+
+    /**
+     * ASCII 字符到输入编号的映射，0 表示关键字中没有出现的字符
+     */
+    private final int[] mAsciiIndex = new int[ASCII_SIZE];
+    /**
+     * 非 ASCII 字符到输入编号的映射
+     */
+    private final HashMap<Character, Integer> mOtherIndex = new HashMap<>();
+    /**
+     * 输入的数量（包括表示其他字符的 0）
+     */
+    private final int mAlphabetSize;
+    /**
+     * 状态转移表，下标为 状态 × mAlphabetSize + 输入编号
+     */
+    private final int[] mNext;
+    /**
+     * 到达该状态时是否匹配了至少一个关键字
+     */
+    private final boolean[] isMatched;
+    /**
+     * 到达该状态时匹配的关键字在关键字列表中的下标，没有匹配时为 -1
+     */
+    private final int[] mKeywordIndex;
+
+    /**
+     * 构造方法，编译关键字
+     * @param keywords 关键字列表，忽略空字符串
+     */
+    public QTKeywordMatcher(List<String> keywords) {
+        int alphabetSize = 1;
+        for (int i = 0; i < keywords.size(); i++) {
+            String keyword = keywords.get(i);
+            for (int j = 0; j < keyword.length(); j++) {
+                char c = keyword.charAt(j);
+                if (c < ASCII_SIZE) {
+                    if (mAsciiIndex[c] == 0) {
+                        mAsciiIndex[c] = alphabetSize++;
+                    }
+                } else if (!mOtherIndex.containsKey(c)) {
+                    mOtherIndex.put(c, alphabetSize++);
+                }
+            }
+        }
+        mAlphabetSize = alphabetSize;
+
+        // 建立字典树，-1 表示没有转移
+        ArrayList<int[]> trie = new ArrayList<>();
+        ArrayList<Integer> matched = new ArrayList<>();
+        trie.add(newState(alphabetSize));
+        matched.add(-1);
+        for (int i = 0; i < keywords.size(); i++) {
+            String keyword = keywords.get(i);
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int j = 0; j < keyword.length(); j++) {
+                int input = indexOf(keyword.charAt(j));
+                if (trie.get(state)[input] < 0) {
+                    trie.get(state)[input] = trie.size();
+                    trie.add(newState(alphabetSize));
+                    matched.add(-1);
+                }
+                state = trie.get(state)[input];
+            }
+            if (matched.get(state) < 0) {
+                matched.set(state, i);
+            }
+        }
+
+        // 按广度优先顺序计算失败转移，并把缺失的转移补全为确定的状态转移表
+        int stateCount = trie.size();
+        mNext = new int[stateCount * alphabetSize];
+        isMatched = new boolean[stateCount];
+        mKeywordIndex = new int[stateCount];
+        int[] fail = new int[stateCount];
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for (int input = 0; input < alphabetSize; input++) {
+            int next = trie.get(0)[input];
+            if (next > 0) {
+                mNext[input] = next;
+                fail[next] = 0;
+                queue[tail++] = next;
+            } else {
+                mNext[input] = 0;
+            }
+        }
+        mKeywordIndex[0] = -1;
+        while (head < tail) {
+            int state = queue[head++];
+            // 自身没有结束的关键字时，使用失败转移状态匹配的关键字（较短的后缀）
+            mKeywordIndex[state] = matched.get(state) >= 0 ? matched.get(state) : mKeywordIndex[fail[state]];
+            isMatched[state] = mKeywordIndex[state] >= 0;
+            for (int input = 0; input < alphabetSize; input++) {
+                int next = trie.get(state)[input];
+                if (next > 0) {
+                    fail[next] = mNext[fail[state] * alphabetSize + input];
+                    mNext[state * alphabetSize + input] = next;
+                    queue[tail++] = next;
+                } else {
+                    mNext[state * alphabetSize + input] = mNext[fail[state] * alphabetSize + input];
+                }
+            }
+        }
+    }
+
+    /**
+     * 创建一个没有任何转移的状态
+     * @param alphabetSize 输入的数量
+     * @return 返回状态的转移数组
+     */
+    private static int[] newState(int alphabetSize) {
+        int[] state = new int[alphabetSize];
+        for (int i = 0; i < alphabetSize; i++) {
+            state[i] = -1;
+        }
+        return state;
+    }
+
+    /**
+     * 获取字符的输入编号
+     * @param c 字符
+     * @return 返回输入编号，关键字中没有出现的字符返回 0
+     */
+    private int indexOf(char c) {
+        if (c < ASCII_SIZE) {
+            return mAsciiIndex[c];
+        }
+        if (mOtherIndex.isEmpty()) {
+            return 0;
+        }
+        Integer index = mOtherIndex.get(c);
+        return index != null ? index : 0;
+    }
+
+    /**
+     * 获取读入一个字符后的状态，初始状态为 0
+     * @param state 当前状态
+     * @param c 字符
+     * @return 返回下一个状态
+     */
+    public int next(int state, char c) {
+        return mNext[state * mAlphabetSize + indexOf(c)];
+    }
+
+    /**
+     * 获取到达状态时匹配的关键字
+     * @param state 状态
+     * @return 返回关键字在关键字列表中的下标，没有匹配时返回 -1
+     */
+    public int matchedIndex(int state) {
+        return mKeywordIndex[state];
+    }
+
+    /**
+     * 判断文本中是否包含任意一个关键字
+     * @param text 文本，可以为 null
+     * @return 如果包含，返回 true；否则返回 false
+     */
+    public boolean matches(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            state = mNext[state * mAlphabetSize + indexOf(text.charAt(i))];
+            if (isMatched[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,112 @@
+package com.qty.log.filter;
+
+import com.qty.log.QTLogContext;
+import com.qty.log.bean.QTLogFilterRule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译后的日志过滤器
+ *
+ * 由 log.config 中的 LOG_FILTER 规则编译而成：所有关键字规则编译成一个 {@link QTKeywordMatcher}，
+ * 日志信息只扫描一次；TAG、线程名和日志上下文规则编译成扁平的数组，按顺序比较。
+ * 任意一条规则匹配时日志被过滤。QTLog 在确定日志级别开启之后、格式化和加入队列之前调用 {@link #isFiltered}。
+ * 编译后的对象是不可变的，可以在多个线程中同时使用。
+ * @hide
+ */
+public class QTLogFilter {
+
+    /**
+     * 没有任何规则的过滤器
+     */
+    public static final QTLogFilter EMPTY = new QTLogFilter(new ArrayList<QTLogFilterRule>());
+
+    /**
+     * 关键字以外的规则类型
+     */
+    private final int[] mTypes;
+    /**
+     * 关键字以外的规则的键
+     */
+    private final String[] mKeys;
+    /**
+     * 关键字以外的规则的值
+     */
+    private final String[] mValues;
+    /**
+     * 关键字匹配器，没有关键字规则时为 null
+     */
+    private final QTKeywordMatcher mKeywordMatcher;
+
+    /**
+     * 构造方法，编译过滤规则
+     * @param rules 过滤规则
+     */
+    public QTLogFilter(List<QTLogFilterRule> rules) {
+        ArrayList<String> keywords = new ArrayList<>();
+        int count = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).getType() == QTLogFilterRule.TYPE_KEYWORD) {
+                keywords.add(rules.get(i).getKey());
+            } else {
+                count++;
+            }
+        }
+        mTypes = new int[count];
+        mKeys = new String[count];
+        mValues = new String[count];
+        int index = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            QTLogFilterRule rule = rules.get(i);
+            if (rule.getType() != QTLogFilterRule.TYPE_KEYWORD) {
+                mTypes[index] = rule.getType();
+                mKeys[index] = rule.getKey();
+                mValues[index] = rule.getValue();
+                index++;
+            }
+        }
+        mKeywordMatcher = keywords.isEmpty() ? null : new QTKeywordMatcher(keywords);
+    }
+
+    /**
+     * 判断是否没有任何规则
+     * @return 如果没有规则，返回 true；否则返回 false
+     */
+    public boolean isEmpty() {
+        return mTypes.length == 0 && mKeywordMatcher == null;
+    }
+
+    /**
+     * 判断日志是否被过滤
+     * @param tag    日志 TAG
+     * @param thread 线程名
+     * @param msg    日志信息
+     * @param context 日志上下文
+     * @return 如果匹配任意一条规则，返回 true；否则返回 false
+     */
+    public boolean isFiltered(String tag, String thread, String msg, QTLogContext.Snapshot context) {
+        for (int i = 0; i < mTypes.length; i++) {
+            switch (mTypes[i]) {
+                case QTLogFilterRule.TYPE_TAG:
+                    if (mKeys[i].equals(tag)) {
+                        return true;
+                    }
+                    break;
+
+                case QTLogFilterRule.TYPE_THREAD:
+                    if (thread != null && thread.startsWith(mKeys[i])) {
+                        return true;
+                    }
+                    break;
+
+                case QTLogFilterRule.TYPE_CONTEXT:
+                    if (context != null && mValues[i].equals(context.get(mKeys[i]))) {
+                        return true;
+                    }
+                    break;
+            }
+        }
+        return mKeywordMatcher != null && mKeywordMatcher.matches(msg);
+    }
+}
@@ -0,0 +1,549 @@
+package com.qty.log.filter;
+
+import com.qty.log.bean.QTLogRedactRule;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 编译后的日志脱敏器
+ *
+ * 由 log.config 中的 LOG_REDACT 规则编译而成，日志写入线程在日志格式化之后、写入文件之前调用 {@link #redact}，
+ * 打印日志的线程不需要做任何处理。所有键规则编译成一个 {@link QTKeywordMatcher}，与邮箱、电话号码规则一起
+ * 从头到尾扫描一次日志内容（键不区分大小写）；没有匹配时不复制日志内容，只有匹配时才将脱敏后的内容写入 {@link Buffer}。
+ * 每条规则单独记录替换的次数，参见 {@link #getHits()}。
+ *
+ * 以 {@link #JSON_PREFIX} 开头的日志按 JSON Lines 布局处理：邮箱和电话号码只在字符串中查找，
+ * 所以 ts、seq、line 等数字属性和结构化日志的数字字段不会被替换；没有引号的值替换为带引号的 "***"，
+ * 保证替换后仍然是有效的 JSON。
+ * 规则编译后不可变，可以在多个日志通道的写入线程中同时使用。
+ * @hide
+ */
+public class QTLogRedactor {
+
+    /**
+     * 替换敏感内容使用的字符串
+     */
+    public static final String MASK = "***";
+    /**
+     * JSON Lines 布局中替换没有引号的值使用的字符串
+     */
+    private static final String QUOTED_MASK = "\"" + MASK + "\"";
+    /**
+     * JSON Lines 布局的日志开头，参见 {@link com.qty.log.format.QTJsonLayout}
+     */
+    private static final String JSON_PREFIX = "{\"ts\":";
+
+    /**
+     * 手机号码的位数，以 '1' 开头
+     */
+    private static final int MOBILE_PHONE_DIGITS = 11;
+    /**
+     * 带区号的固定电话号码（以 '0' 开头，区号后使用 '-' 分隔）的最少位数
+     */
+    private static final int MIN_LANDLINE_PHONE_DIGITS = 10;
+    /**
+     * 带区号的固定电话号码的最多位数
+     */
+    private static final int MAX_LANDLINE_PHONE_DIGITS = 12;
+    /**
+     * 以 '+' 开头的电话号码（包含国家代码）的最少位数
+     */
+    private static final int MIN_INTERNATIONAL_PHONE_DIGITS = 7;
+    /**
+     * 以 '+' 开头的电话号码的最多位数
+     */
+    private static final int MAX_INTERNATIONAL_PHONE_DIGITS = 15;
+
+    /**
+     * 脱敏规则
+     */
+    private final QTLogRedactRule[] mRules;
+    /**
+     * 每条规则替换的次数
+     */
+    private final AtomicLong[] mHits;
+    /**
+     * 邮箱规则的下标，没有邮箱规则时为 -1
+     */
+    private final int mEmailRule;
+    /**
+     * 电话号码规则的下标，没有电话号码规则时为 -1
+     */
+    private final int mPhoneRule;
+    /**
+     * 键匹配器，没有键规则时为 null
+     */
+    private final QTKeywordMatcher mKeyMatcher;
+    /**
+     * 键匹配器中每个键对应的规则下标
+     */
+    private final int[] mKeyRules;
+    /**
+     * 键匹配器中每个键的长度
+     */
+    private final int[] mKeyLengths;
+
+    /**
+     * 构造方法，编译脱敏规则
+     * @param rules 脱敏规则
+     */
+    public QTLogRedactor(List<QTLogRedactRule> rules) {
+        mRules = rules.toArray(new QTLogRedactRule[rules.size()]);
+        mHits = new AtomicLong[mRules.length];
+        int emailRule = -1;
+        int phoneRule = -1;
+        ArrayList<String> keys = new ArrayList<>();
+        ArrayList<Integer> keyRules = new ArrayList<>();
+        for (int i = 0; i < mRules.length; i++) {
+            mHits[i] = new AtomicLong();
+            switch (mRules[i].getType()) {
+                case QTLogRedactRule.TYPE_EMAIL:
+                    if (emailRule < 0) {
+                        emailRule = i;
+                    }
+                    break;
+
+                case QTLogRedactRule.TYPE_PHONE:
+                    if (phoneRule < 0) {
+                        phoneRule = i;
+                    }
+                    break;
+
+                case QTLogRedactRule.TYPE_KEY:
+                    keys.add(mRules[i].getKey().toLowerCase(Locale.US));
+                    keyRules.add(i);
+                    break;
+            }
+        }
+        mEmailRule = emailRule;
+        mPhoneRule = phoneRule;
+        mKeyMatcher = keys.isEmpty() ? null : new QTKeywordMatcher(keys);
+        mKeyRules = new int[keyRules.size()];
+        mKeyLengths = new int[keyRules.size()];
+        for (int i = 0; i < mKeyRules.length; i++) {
+            mKeyRules[i] = keyRules.get(i);
+            mKeyLengths[i] = keys.get(i).length();
+        }
+    }
+
+    /**
+     * 对一条日志脱敏
+     * @param chars 日志内容
+     * @param length 日志内容的长度
+     * @param out 保存脱敏后内容的缓冲区，只在有内容被替换时写入
+     * @return 如果有内容被替换，返回 true，脱敏后的内容保存在 out 中；否则返回 false，out 中的内容无效
+     */
+    public boolean redact(char[] chars, int length, Buffer out) {
+        out.mLength = 0;
+        boolean json = startsWith(chars, length, JSON_PREFIX);
+        // JSON Lines 布局中当前字符是否在字符串中，以及上一个字符是否为字符串中的转义字符 '\'
+        boolean inString = false;
+        boolean escaped = false;
+        // chars 中 copied 之前的内容已经写入 out
+        int copied = 0;
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (json) {
+                if (escaped) {
+                    escaped = false;
+                } else if (inString && c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = !inString;
+                }
+            }
+            int rule = -1;
+            int start = 0;
+            int end = 0;
+            String mask = MASK;
+            if (mKeyMatcher != null) {
+                state = mKeyMatcher.next(state, c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+                int keyword = mKeyMatcher.matchedIndex(state);
+                int keyStart = keyword >= 0 ? i - mKeyLengths[keyword] + 1 : 0;
+                if (keyword >= 0 && (keyStart == 0 || !isIdentifierChar(chars[keyStart - 1]))) {
+                    start = findValueStart(chars, i + 1, length);
+                    if (start > 0) {
+                        boolean quoted = !json || isInString(chars, i + 1, start, inString);
+                        end = quoted ? findValueEnd(chars, start, length) : findJsonValueEnd(chars, start, length);
+                        if (end > start) {
+                            rule = mKeyRules[keyword];
+                            inString = json && quoted;
+                            if (!quoted) {
+                                mask = QUOTED_MASK;
+                            }
+                        }
+                    }
+                }
+            }
+            if (rule < 0 && c == '@' && mEmailRule >= 0 && (!json || inString)) {
+                start = i;
+                while (start > copied && isEmailLocalChar(chars[start - 1])) {
+                    start--;
+                }
+                end = findDomainEnd(chars, i + 1, length);
+                if (start < i && end > 0) {
+                    rule = mEmailRule;
+                }
+            }
+            if (rule < 0 && mPhoneRule >= 0 && (!json || inString) && (c == '+' || isDigit(c))
+                    && (i == 0 || !isNumberChar(chars[i - 1]))) {
+                end = findPhoneEnd(chars, i, length);
+                if (end > 0) {
+                    start = i;
+                    rule = mPhoneRule;
+                }
+            }
+            if (rule >= 0) {
+                out.append(chars, copied, start - copied);
+                out.append(mask);
+                copied = end;
+                i = end - 1;
+                state = 0;
+                escaped = false;
+                mHits[rule].incrementAndGet();
+            }
+        }
+        if (copied == 0) {
+            return false;
+        }
+        out.append(chars, copied, length - copied);
+        return true;
+    }
+
+    /**
+     * 判断日志内容是否以指定字符串开头
+     * @param chars 日志内容
+     * @param length 日志内容的长度
+     * @param prefix 开头的字符串
+     * @return 如果是，返回 true；否则返回 false
+     */
+    private static boolean startsWith(char[] chars, int length, String prefix) {
+        if (length < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chars[i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断 JSON Lines 布局中指定位置是否在字符串中
+     * @param chars 日志内容
+     * @param index 开始位置，该位置不在转义字符之后
+     * @param end 需要判断的位置
+     * @param inString 开始位置是否在字符串中
+     * @return 如果在字符串中，返回 true；否则返回 false
+     */
+    private static boolean isInString(char[] chars, int index, int end, boolean inString) {
+        for (; index < end; index++) {
+            if (inString && chars[index] == '\\') {
+                index++;
+            } else if (chars[index] == '"') {
+                inString = !inString;
+            }
+        }
+        return inString;
+    }
+
+    /**
+     * 查找键后面的值的开始位置，键和值使用 '=' 或 ':' 隔开，前后可以有空格和引号，例如 token=xxx、"token": "xxx"
+     * @param chars 日志内容
+     * @param index 键后面的位置
+     * @param length 日志内容的长度
+     * @return 返回值的开始位置，键后面不是 '=' 或 ':' 时返回 -1
+     */
+    private static int findValueStart(char[] chars, int index, int length) {
+        while (index < length && isQuoteOrSpace(chars[index])) {
+            index++;
+        }
+        if (index >= length || (chars[index] != '=' && chars[index] != ':')) {
+            return -1;
+        }
+        index++;
+        while (index < length && isQuoteOrSpace(chars[index])) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * 查找值的结束位置，值在空白字符、引号、分隔符或者括号处结束
+     * @param chars 日志内容
+     * @param index 值的开始位置
+     * @param length 日志内容的长度
+     * @return 返回值的结束位置
+     */
+    private static int findValueEnd(char[] chars, int index, int length) {
+        while (index < length) {
+            char c = chars[index];
+            if (c <= ' ' || c == ',' || c == ';' || c == '&' || c == '"' || c == '\'' || c == '\\'
+                    || c == '}' || c == ')' || c == ']' || c == '>') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * 查找 JSON Lines 布局中没有引号的值的结束位置，值为对象或数组时查找对应的结束括号
+     * @param chars 日志内容
+     * @param index 值的开始位置
+     * @param length 日志内容的长度
+     * @return 返回值的结束位置，对象或数组没有结束时返回 -1
+     */
+    private static int findJsonValueEnd(char[] chars, int index, int length) {
+        char c = chars[index];
+        if (c != '{' && c != '[') {
+            while (index < length && chars[index] > ' ' && chars[index] != ',' && chars[index] != '}'
+                    && chars[index] != ']') {
+                index++;
+            }
+            return index;
+        }
+        int depth = 0;
+        boolean inString = false;
+        for (; index < length; index++) {
+            c = chars[index];
+            if (inString) {
+                if (c == '\\') {
+                    index++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return index + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 查找电话号码的结束位置，支持以下格式，数字之间可以使用 '-' 分隔：
+     * 以 '1' 开头的 11 位手机号码、以 '0' 开头并在区号（3 到 4 位）后分隔的 10 到 12 位固定电话号码、
+     * 以 '+' 开头的 7 到 15 位号码。日期、时间戳、行号、耗时等普通数字不符合这些格式。
+     * @param chars 日志内容
+     * @param index 号码的开始位置（'+' 或者数字）
+     * @param length 日志内容的长度
+     * @return 返回号码的结束位置，不是电话号码时返回 -1
+     */
+    private static int findPhoneEnd(char[] chars, int index, int length) {
+        boolean international = chars[index] == '+';
+        int end = international ? index + 1 : index;
+        int digits = 0;
+        int firstGroup = 0;
+        boolean separated = false;
+        while (true) {
+            int groupStart = end;
+            while (end < length && isDigit(chars[end])) {
+                end++;
+            }
+            if (end == groupStart) {
+                break;
+            }
+            if (digits == 0) {
+                firstGroup = end - groupStart;
+            }
+            digits += end - groupStart;
+            if (end + 1 < length && chars[end] == '-' && isDigit(chars[end + 1])) {
+                separated = true;
+                end++;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0 || (end < length && isNumberChar(chars[end]))) {
+            return -1;
+        }
+        char first = chars[international ? index + 1 : index];
+        if (international) {
+            return digits >= MIN_INTERNATIONAL_PHONE_DIGITS && digits <= MAX_INTERNATIONAL_PHONE_DIGITS ? end : -1;
+        }
+        if (first == '1' && digits == MOBILE_PHONE_DIGITS) {
+            return end;
+        }
+        if (first == '0' && separated && firstGroup >= 3 && firstGroup <= 4
+                && digits >= MIN_LANDLINE_PHONE_DIGITS && digits <= MAX_LANDLINE_PHONE_DIGITS) {
+            return end;
+        }
+        return -1;
+    }
+
+    /**
+     * 查找邮箱域名的结束位置，域名至少包含一个 '.'，最后一段至少两个字符
+     * @param chars 日志内容
+     * @param index '@' 后面的位置
+     * @param length 日志内容的长度
+     * @return 返回域名的结束位置，不是有效的域名时返回 -1
+     */
+    private static int findDomainEnd(char[] chars, int index, int length) {
+        int end = index;
+        while (end < length && (isAsciiLetterOrDigit(chars[end]) || chars[end] == '-' || chars[end] == '.')) {
+            end++;
+        }
+        while (end > index && chars[end - 1] == '.') {
+            end--;
+        }
+        int dot = end - 1;
+        while (dot > index && chars[dot] != '.') {
+            dot--;
+        }
+        if (dot <= index || end - dot - 1 < 2) {
+            return -1;
+        }
+        return end;
+    }
+
+    /**
+     * 判断是否为引号、反斜杠（JSON 布局中转义的引号）或者空格
+     * @param c 字符
+     * @return 如果是，返回 true；否则返回 false
+     */
+    private static boolean isQuoteOrSpace(char c) {
+        return c == ' ' || c == '"' || c == '\'' || c == '\\';
+    }
+
+    /**
+     * 判断是否为标识符中的字符（ASCII 字母、数字和下划线），键前面是这些字符时不匹配，例如键 id 不匹配 paid 和 uuid
+     * @param c 字符
+     * @return 如果是，返回 true；否则返回 false
+     */
+    private static boolean isIdentifierChar(char c) {
+        return isAsciiLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * 判断是否为邮箱用户名中可以使用的字符
+     * @param c 字符
+     * @return 如果是，返回 true；否则返回 false
+     */
+    private static boolean isEmailLocalChar(char c) {
+        return isAsciiLetterOrDigit(c) || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    /**
+     * 判断是否为电话号码前后不能出现的字符（字母、数字和小数点），避免替换单词和小数中的数字
+     * @param c 字符
+     * @return 如果是，返回 true；否则返回 false
+     */
+    private static boolean isNumberChar(char c) {
+        return isAsciiLetterOrDigit(c) || c == '.';
+    }
+
+    /**
+     * 判断是否为数字
+     * @param c 字符
+     * @return 如果是，返回 true；否则返回 false
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * 判断是否为 ASCII 字母或数字，中文等字符不算，所以 "手机号13800000000" 中的号码也会被替换
+     * @param c 字符
+     * @return 如果是，返回 true；否则返回 false
+     */
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * 获取每条规则替换的次数
+     * @return 返回规则名称到替换次数的映射，按配置文件中的顺序排列
+     */
+    public Map<String, Long> getHits() {
+        LinkedHashMap<String, Long> hits = new LinkedHashMap<>();
+        for (int i = 0; i < mRules.length; i++) {
+            Long count = hits.get(mRules[i].getName());
+            hits.put(mRules[i].getName(), (count != null ? count : 0) + mHits[i].get());
+        }
+        return hits;
+    }
+
+    /**
+     * 保存脱敏后内容的缓冲区，由写入线程持有并重复使用
+     */
+    public static class Buffer {
+
+        /**
+         * 内容
+         */
+        private char[] mChars = new char[512];
+        /**
+         * 内容的长度
+         */
+        private int mLength;
+
+        /**
+         * 追加字符
+         * @param chars 字符数组
+         * @param offset 开始位置
+         * @param length 长度
+         */
+        void append(char[] chars, int offset, int length) {
+            ensureCapacity(mLength + length);
+            System.arraycopy(chars, offset, mChars, mLength, length);
+            mLength += length;
+        }
+
+        /**
+         * 追加字符串
+         * @param str 字符串
+         */
+        void append(String str) {
+            ensureCapacity(mLength + str.length());
+            str.getChars(0, str.length(), mChars, mLength);
+            mLength += str.length();
+        }
+
+        /**
+         * 确保容量足够
+         * @param capacity 需要的容量
+         */
+        private void ensureCapacity(int capacity) {
+            if (capacity > mChars.length) {
+                char[] chars = new char[Math.max(capacity, mChars.length * 2)];
+                System.arraycopy(mChars, 0, chars, 0, mLength);
+                mChars = chars;
+            }
+        }
+
+        /**
+         * 获取内容
+         * @return 返回内容数组，有效长度参见 {@link #length()}
+         */
+        public char[] getChars() {
+            return mChars;
+        }
+
+        /**
+         * 获取内容的长度
+         * @return 返回内容的长度
+         */
+        public int length() {
+            return mLength;
+        }
+
+        /**
+         * 获取缓冲区的容量
+         * @return 返回缓冲区的容量
+         */
+        public int capacity() {
+            return mChars.length;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.qty.log.format;
+
+import com.qty.log.QTLogContext;
+import com.qty.log.QTLogEvent;
+import com.qty.log.bean.QTLogLevel;
+
+/**
+ * JSON Lines 日志格式
+ *
+ * 每条日志输出为一行 JSON 对象，属性按固定顺序输出，结构化日志的字段紧跟在固定属性之后：
+ * <pre>
+ *     {"ts":1700000000000,"time":"2023-11-15 06:13:20.020","level":"I","tag":"TAG","pkg":"com.qty.sample",
+ *      "thread":"main","class":"MainActivity","method":"onCreate","file":"MainActivity.java","line":25,
+ *      "msg":"request finished","error":"java.lang.RuntimeException: ...","mdc":{"traceId":"9f3c"},
+ *      "userId":10086,"success":true}
+ * </pre>
+ * ts 为毫秒时间戳，error 仅在有错误跟踪对象时输出，mdc 为日志上下文，仅在上下文不为空时输出，
+ * 无法获取调用位置时不输出 class、method、file 和 line。
+ * 字段名不要与固定属性重名。内容直接写入 StringBuilder，不使用中间集合和反射。
+ * @hide
+ */
+public class QTJsonLayout {
+
+    /**
+     * 十六进制字符
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * 私有构造方法
+     */
+    private QTJsonLayout() {}
+
+    /**
+     * 将一条日志以 JSON 对象的形式追加到 sb 中，以换行符结尾
+     * @param sb    输出缓冲区
+     * @param time  日志时间，单位：毫秒
+     * @param sequence 日志在通道中的序号，大于 0 时输出 seq 字段
+     * @param formattedTime 按日志时间格式格式化后的时间
+     * @param level 日志级别
+     * @param tag   日志 TAG
+     * @param packageName 应用包名
+     * @param thread 线程名
+     * @param ste   日志调用位置，可以为 null
+     * @param msg   日志信息
+     * @param error 错误跟踪信息，可以为 null
+     * @param context 日志上下文，可以为 null
+     * @param event 结构化日志事件，可以为 null
+     */
+    public static void append(StringBuilder sb, long time, long sequence, CharSequence formattedTime,
+                              QTLogLevel level, String tag, String packageName, String thread,
+                              StackTraceElement ste, String msg, String error, QTLogContext.Snapshot context,
+                              QTLogEvent event) {
+        sb.append("{\"ts\":").append(time);
+        if (sequence > 0) {
+            sb.append(",\"seq\":").append(sequence);
+        }
+        sb.append(",\"time\":");
+        appendString(sb, formattedTime);
+        sb.append(",\"level\":");
+        appendString(sb, level.nameValue());
+        sb.append(",\"tag\":");
+        appendString(sb, tag);
+        sb.append(",\"pkg\":");
+        appendString(sb, packageName);
+        sb.append(",\"thread\":");
+        appendString(sb, thread);
+        if (ste != null) {
+            String className = ste.getClassName();
+            sb.append(",\"class\":");
+            appendString(sb, className.substring(className.lastIndexOf('.') + 1));
+            sb.append(",\"method\":");
+            appendString(sb, ste.getMethodName());
+            sb.append(",\"file\":");
+            appendString(sb, ste.getFileName());
+            sb.append(",\"line\":").append(ste.getLineNumber());
+        }
+        sb.append(",\"msg\":");
+        appendString(sb, msg);
+        if (error != null) {
+            sb.append(",\"error\":");
+            appendString(sb, error);
+        }
+        if (context != null && !context.isEmpty()) {
+            sb.append(",\"mdc\":").append(context.toJson());
+        }
+        if (event != null) {
+            for (int i = 0; i < event.getFieldCount(); i++) {
+                sb.append(',');
+                appendString(sb, event.getKey(i));
+                sb.append(':');
+                switch (event.getType(i)) {
+                    case QTLogEvent.TYPE_LONG:
+                        sb.append(event.getLong(i));
+                        break;
+
+                    case QTLogEvent.TYPE_DOUBLE:
+                        double value = event.getDouble(i);
+                        if (Double.isNaN(value) || Double.isInfinite(value)) {
+                            // JSON 不支持 NaN 和 Infinity
+                            appendString(sb, String.valueOf(value));
+                        } else {
+                            sb.append(value);
+                        }
+                        break;
+
+                    case QTLogEvent.TYPE_BOOLEAN:
+                        sb.append(event.getBoolean(i));
+                        break;
+
+                    default:
+                        appendString(sb, event.getString(i));
+                        break;
+                }
+            }
+        }
+        sb.append("}\n");
+    }
+
+    /**
+     * 追加 JSON 字符串，包括两边的引号
+     * @param sb    输出缓冲区
+     * @param value 字符串，为 null 时输出 null
+     */
+    public static void appendString(StringBuilder sb, CharSequence value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != 0x2028 && c != 0x2029) {
+                continue;
+            }
+            sb.append(value, start, i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+
+                case '\n':
+                    sb.append("\\n");
+                    break;
+
+                case '\r':
+                    sb.append("\\r");
+                    break;
+
+                case '\t':
+                    sb.append("\\t");
+                    break;
+
+                default:
+                    sb.append("\\u").append(HEX[(c >> 12) & 0xF]).append(HEX[(c >> 8) & 0xF])
+                            .append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+                    break;
+            }
+            start = i + 1;
+        }
+        sb.append(value, start, length);
+        sb.append('"');
+    }
+
+    /**
+     * 读取一行 JSON 日志中第一个指定名称的字符串属性
+     *
+     * 固定属性总是在结构化字段之前输出，所以按名称查找第一个匹配的属性即可。
+     * @param line JSON 日志行
+     * @param name 属性名
+     * @return 返回属性值，如果不存在或不是字符串，则返回 null
+     */
+    public static String readString(String line, String name) {
+        int index = findValue(line, name);
+        if (index < 0 || index >= line.length() || line.charAt(index) != '"') {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = index + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\' || i + 1 >= line.length()) {
+                sb.append(c);
+                continue;
+            }
+            char e = line.charAt(++i);
+            switch (e) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+
+                case 'r':
+                    sb.append('\r');
+                    break;
+
+                case 't':
+                    sb.append('\t');
+                    break;
+
+                case 'b':
+                    sb.append('\b');
+                    break;
+
+                case 'f':
+                    sb.append('\f');
+                    break;
+
+                case 'u':
+                    if (i + 4 >= line.length()) {
+                        return null;
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException ex) {
+                        return null;
+                    }
+                    i += 4;
+                    break;
+
+                default:
+                    sb.append(e);
+                    break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取一行 JSON 日志中第一个指定名称的整数属性
+     * @param line JSON 日志行
+     * @param name 属性名
+     * @param defaultValue 默认值
+     * @return 返回属性值，如果不存在或不是整数，则返回默认值
+     */
+    public static long readLong(String line, String name, long defaultValue) {
+        int index = findValue(line, name);
+        if (index < 0) {
+            return defaultValue;
+        }
+        int end = index;
+        if (end < line.length() && line.charAt(end) == '-') {
+            end++;
+        }
+        while (end < line.length() && line.charAt(end) >= '0' && line.charAt(end) <= '9') {
+            end++;
+        }
+        try {
+            return Long.parseLong(line.substring(index, end));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 查找属性值的开始位置
+     * @param line JSON 日志行
+     * @param name 属性名
+     * @return 返回属性值的开始位置，如果不存在，则返回 -1
+     */
+    private static int findValue(String line, String name) {
+        if (!line.startsWith("{")) {
+            return -1;
+        }
+        String key = "\"" + name + "\":";
+        int index = line.indexOf(key);
+        while (index > 0) {
+            char prev = line.charAt(index - 1);
+            if (prev == '{' || prev == ',') {
+                return index + key.length();
+            }
+            index = line.indexOf(key, index + 1);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,188 @@
+package com.qty.log.format;
+
+import com.qty.log.QTLogContext;
+import com.qty.log.QTLogEngine;
+import com.qty.log.QTLogEvent;
+import com.qty.log.bean.QTLogLevel;
+
+/**
+ * 编译后的文本日志布局
+ *
+ * 按照 {@link QTLogPattern} 编译后的格式符和文字输出一条日志，不需要每次重新解析格式字符串。
+ * 日志的所有内容（级别、时间、TAG、线程名、调用位置、日志信息等）都由参数传入，
+ * 所以既可以在打印线程中格式化，也可以由写入线程延迟格式化。
+ * @hide
+ */
+public class QTLogLayout {
+
+    /**
+     * 换行符
+     */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    /**
+     * 位置信息缺失时输出的内容
+     */
+    private static final String UNKNOWN = "Unknow";
+    /**
+     * TAG 的最小宽度，不足时在右侧补空格
+     */
+    private static final int TAG_WIDTH = 15;
+    /**
+     * 行号的最小宽度，不足时在左侧补空格
+     */
+    private static final int LINE_NUMBER_WIDTH = 4;
+
+    /**
+     * 编译后的日志格式
+     */
+    private final QTLogPattern mPattern;
+    /**
+     * 是否需要调用位置
+     */
+    private final boolean isLocationNeeded;
+
+    /**
+     * 构造方法
+     * @param format 日志格式字符串
+     */
+    public QTLogLayout(String format) {
+        mPattern = QTLogPattern.compile(format);
+        isLocationNeeded = mPattern.contains('c') || mPattern.contains('C') || mPattern.contains('f')
+                || mPattern.contains('M') || mPattern.contains('l');
+    }
+
+    /**
+     * 获取日志格式字符串
+     * @return 返回日志格式字符串
+     */
+    public String getFormat() {
+        return mPattern.getFormat();
+    }
+
+    /**
+     * 判断日志格式是否需要调用位置
+     * @return 如果包含 %c、%C、%f、%M 或 %l，返回 true；否则返回 false
+     */
+    public boolean isLocationNeeded() {
+        return isLocationNeeded;
+    }
+
+    /**
+     * 将一条日志按格式追加到 sb 中
+     * @param sb    输出缓冲区
+     * @param timeFormatter 时间格式化对象
+     * @param timeFormat 日志时间格式
+     * @param level 日志级别
+     * @param time  日志时间，单位：毫秒
+     * @param sequence 日志在通道中的序号，参见 {@link com.qty.log.handler.QTLogChannel#nextSequence()}
+     * @param tag   日志 TAG
+     * @param thread 线程名
+     * @param ste   日志调用位置，可以为 null
+     * @param msg   日志信息
+     * @param trace 异常堆栈，可以为 null
+     * @param context 日志上下文
+     * @param event 结构化日志事件，可以为 null
+     */
+    public void append(StringBuilder sb, QTTimeFormatter timeFormatter, String timeFormat, QTLogLevel level,
+                       long time, long sequence, String tag, String thread, StackTraceElement ste, String msg, String trace,
+                       QTLogContext.Snapshot context, QTLogEvent event) {
+        int count = mPattern.getTokenCount();
+        for (int i = 0; i < count; i++) {
+            sb.append(mPattern.getLiteral(i));
+            switch (mPattern.getToken(i)) {
+                case 'd':	// 日期时间
+                    sb.append(timeFormatter.format(timeFormat, time));
+                    break;
+
+                case 'T':	// TAG
+                    String value = String.valueOf(tag);
+                    sb.append(value);
+                    for (int j = value.length(); j < TAG_WIDTH; j++) {
+                        sb.append(' ');
+                    }
+                    break;
+
+                case 'c':	// 类名
+                    if (ste != null) {
+                        String className = ste.getClassName();
+                        sb.append(className, className.lastIndexOf('.') + 1, className.length());
+                    } else {
+                        sb.append(UNKNOWN);
+                    }
+                    break;
+
+                case 'C':	// 完整类名
+                    sb.append(ste != null ? ste.getClassName() : UNKNOWN);
+                    break;
+
+                case 'p':	// 包名
+                    String packageName = QTLogEngine.getInstance().getPackageName();
+                    sb.append(packageName != null ? packageName : UNKNOWN);
+                    break;
+
+                case 't':	// 线程名
+                    sb.append(thread);
+                    break;
+
+                case 'L':	// 日志级别
+                    sb.append(level.nameValue());
+                    break;
+
+                case 'f':	// 文件名
+                    sb.append(ste != null ? ste.getFileName() : UNKNOWN);
+                    break;
+
+                case 'M':	// 方法名
+                    sb.append(ste != null ? ste.getMethodName() : UNKNOWN);
+                    break;
+
+                case 'l':	// 行号
+                    if (ste != null) {
+                        appendLineNumber(sb, ste.getLineNumber());
+                    } else {
+                        sb.append(UNKNOWN);
+                    }
+                    break;
+
+                case 'm':	// 日志内容，异常堆栈紧跟在日志内容之后，每一帧单独一行
+                    sb.append(msg);
+                    if (event != null) {
+                        event.appendText(sb);
+                    }
+                    if (trace != null) {
+                        sb.append(LINE_SEPARATOR).append(trace);
+                    }
+                    break;
+
+                case 'N':	// 日志序号
+                    sb.append(sequence);
+                    break;
+
+                case 'X':	// 日志上下文
+                    sb.append(context.toText());
+                    break;
+
+                case 'n':	// 换行
+                    sb.append(LINE_SEPARATOR);
+                    break;
+            }
+        }
+        sb.append(mPattern.getTrailingLiteral());
+    }
+
+    /**
+     * 追加行号，与 String.format("%4d", lineNumber) 相同，不足 4 位时在左侧补空格
+     * @param sb 输出缓冲区
+     * @param lineNumber 行号
+     */
+    private static void appendLineNumber(StringBuilder sb, int lineNumber) {
+        int digits = lineNumber < 0 ? 2 : 1;
+        for (int value = Math.abs(lineNumber); value >= 10; value /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < LINE_NUMBER_WIDTH; i++) {
+            sb.append(' ');
+        }
+        sb.append(lineNumber);
+    }
+}
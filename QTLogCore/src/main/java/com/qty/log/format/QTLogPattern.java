@@ -0,0 +1,130 @@
+package com.qty.log.format;
+
+import java.util.ArrayList;
+
+/**
+ * 编译后的日志格式
+ *
+ * 将日志格式字符串（例如 "%d  %p  %L  %T(%l): [%c][%M]%m%n"）拆分为文字部分和格式符，
+ * 格式符之前的文字通过 {@link #getLiteral(int)} 获取，最后一个格式符之后的文字通过
+ * {@link #getTrailingLiteral()} 获取。不支持的格式符按普通文字处理。
+ * @hide
+ */
+public class QTLogPattern {
+
+    /**
+     * 支持的格式符
+     */
+    private static final String TOKENS = "dTcCptLfMlmXNn";
+
+    /**
+     * 原始格式字符串
+     */
+    private final String mFormat;
+    /**
+     * 格式符数组
+     */
+    private final char[] mTokens;
+    /**
+     * 文字数组，比格式符数组多一个元素，最后一个元素为最后一个格式符之后的文字
+     */
+    private final String[] mLiterals;
+
+    /**
+     * 构造方法
+     * @param format 原始格式字符串
+     * @param tokens 格式符数组
+     * @param literals 文字数组
+     */
+    private QTLogPattern(String format, char[] tokens, String[] literals) {
+        mFormat = format;
+        mTokens = tokens;
+        mLiterals = literals;
+    }
+
+    /**
+     * 编译日志格式
+     * @param format 日志格式字符串
+     * @return 返回编译后的日志格式
+     */
+    public static QTLogPattern compile(String format) {
+        ArrayList<Character> tokens = new ArrayList<>();
+        ArrayList<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < format.length()) {
+            char c = format.charAt(i);
+            if (c == '%' && i + 1 < format.length() && TOKENS.indexOf(format.charAt(i + 1)) >= 0) {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                tokens.add(format.charAt(i + 1));
+                i += 2;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        literals.add(literal.toString());
+        char[] tokenArray = new char[tokens.size()];
+        for (int j = 0; j < tokenArray.length; j++) {
+            tokenArray[j] = tokens.get(j);
+        }
+        return new QTLogPattern(format, tokenArray, literals.toArray(new String[0]));
+    }
+
+    /**
+     * 获取原始格式字符串
+     * @return 返回原始格式字符串
+     */
+    public String getFormat() {
+        return mFormat;
+    }
+
+    /**
+     * 获取格式符数量
+     * @return 返回格式符数量
+     */
+    public int getTokenCount() {
+        return mTokens.length;
+    }
+
+    /**
+     * 获取格式符
+     * @param index 格式符下标
+     * @return 返回格式符，不包含 % 字符
+     */
+    public char getToken(int index) {
+        return mTokens[index];
+    }
+
+    /**
+     * 获取格式符之前的文字
+     * @param index 格式符下标
+     * @return 返回格式符之前的文字，可能为空字符串
+     */
+    public String getLiteral(int index) {
+        return mLiterals[index];
+    }
+
+    /**
+     * 获取最后一个格式符之后的文字
+     * @return 返回最后一个格式符之后的文字，可能为空字符串
+     */
+    public String getTrailingLiteral() {
+        return mLiterals[mTokens.length];
+    }
+
+    /**
+     * 判断是否包含指定的格式符
+     * @param token 格式符，不包含 % 字符
+     * @return 如果包含，返回 true；否则返回 false
+     */
+    public boolean contains(char token) {
+        for (char t : mTokens) {
+            if (t == token) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
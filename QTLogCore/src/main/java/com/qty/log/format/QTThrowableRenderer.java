@@ -0,0 +1,246 @@
+package com.qty.log.format;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 异常堆栈输出类
+ *
+ * 输出格式与 Throwable.printStackTrace() 相同，但直接写入 StringBuilder，不经过 PrintWriter 和 StringWriter：
+ * <pre>
+ *     java.lang.IllegalStateException: request failed
+ *         at com.qty.sample.Api.call(Api.java:42)
+ *         ... 12 more
+ *     Caused by: java.io.IOException: timeout
+ *         at com.qty.sample.Http.read(Http.java:88)
+ *         ... 20 more
+ * </pre>
+ * 原因异常（Caused by）与外层异常末尾相同的帧合并为 "... N more"，每个异常最多输出指定数量的帧，超出的部分同样合并。
+ * 异常风暴时同一个位置会反复抛出相同的异常，输出结果按异常类型、信息和堆栈缓存，相同的异常只输出一次。
+ * 包含 Suppressed 异常的堆栈不缓存。
+ * @hide
+ */
+public class QTThrowableRenderer {
+
+    /**
+     * 换行符
+     */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    /**
+     * 缓存的异常堆栈数量
+     */
+    private static final int CACHE_SIZE = 32;
+    /**
+     * 单个异常堆栈缓存的最大长度，超过该长度的不缓存
+     */
+    private static final int MAX_CACHED_LENGTH = 16 * 1024;
+    /**
+     * 异常堆栈缓存，按最近使用顺序淘汰
+     */
+    private static final Map<Key, String> CACHE = new LinkedHashMap<Key, String>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * 私有构造方法
+     */
+    private QTThrowableRenderer() {}
+
+    /**
+     * 获取异常堆栈
+     * @param t 异常对象
+     * @param maxFrames 每个异常最多输出的帧数，小于或等于 0 表示不限制
+     * @return 返回异常堆栈，不以换行符结尾
+     */
+    public static String render(Throwable t, int maxFrames) {
+        Key key = Key.create(t, maxFrames);
+        if (key != null) {
+            String cached;
+            synchronized (CACHE) {
+                cached = CACHE.get(key);
+            }
+            if (cached != null) {
+                return cached;
+            }
+        }
+        StringBuilder sb = new StringBuilder(1024);
+        Set<Throwable> printed = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        printed.add(t);
+        StackTraceElement[] trace = key != null ? key.mTraces[0] : t.getStackTrace();
+        sb.append(t);
+        appendFrames(sb, trace, null, "", maxFrames);
+        appendEnclosed(sb, t, trace, "", maxFrames, printed);
+        String text = sb.toString();
+        if (key != null && text.length() <= MAX_CACHED_LENGTH) {
+            synchronized (CACHE) {
+                CACHE.put(key, text);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * 输出异常的 Suppressed 异常和原因异常
+     * @param sb 输出缓冲区
+     * @param t 异常对象
+     * @param trace 异常对象的堆栈
+     * @param prefix 行前缀
+     * @param maxFrames 每个异常最多输出的帧数
+     * @param printed 已经输出的异常，用于避免循环引用
+     */
+    private static void appendEnclosed(StringBuilder sb, Throwable t, StackTraceElement[] trace, String prefix,
+                                       int maxFrames, Set<Throwable> printed) {
+        for (Throwable suppressed : t.getSuppressed()) {
+            appendCause(sb, suppressed, trace, "Suppressed: ", prefix + "\t", maxFrames, printed);
+        }
+        Throwable cause = t.getCause();
+        if (cause != null) {
+            appendCause(sb, cause, trace, "Caused by: ", prefix, maxFrames, printed);
+        }
+    }
+
+    /**
+     * 输出原因异常或 Suppressed 异常
+     * @param sb 输出缓冲区
+     * @param t 异常对象
+     * @param enclosingTrace 外层异常的堆栈
+     * @param caption 标题
+     * @param prefix 行前缀
+     * @param maxFrames 每个异常最多输出的帧数
+     * @param printed 已经输出的异常，用于避免循环引用
+     */
+    private static void appendCause(StringBuilder sb, Throwable t, StackTraceElement[] enclosingTrace,
+                                    String caption, String prefix, int maxFrames, Set<Throwable> printed) {
+        sb.append(LINE_SEPARATOR);
+        if (!printed.add(t)) {
+            sb.append(prefix).append(caption).append("[CIRCULAR REFERENCE:").append(t).append(']');
+            return;
+        }
+        StackTraceElement[] trace = t.getStackTrace();
+        sb.append(prefix).append(caption).append(t);
+        appendFrames(sb, trace, enclosingTrace, prefix, maxFrames);
+        appendEnclosed(sb, t, trace, prefix, maxFrames, printed);
+    }
+
+    /**
+     * 输出堆栈帧，与外层异常末尾相同的帧以及超过最大帧数的帧合并为 "... N more"
+     * @param sb 输出缓冲区
+     * @param trace 堆栈
+     * @param enclosingTrace 外层异常的堆栈，为 null 表示没有外层异常
+     * @param prefix 行前缀
+     * @param maxFrames 最多输出的帧数
+     */
+    private static void appendFrames(StringBuilder sb, StackTraceElement[] trace, StackTraceElement[] enclosingTrace,
+                                     String prefix, int maxFrames) {
+        int m = trace.length - 1;
+        if (enclosingTrace != null) {
+            int n = enclosingTrace.length - 1;
+            while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+                m--;
+                n--;
+            }
+        }
+        int count = m + 1;
+        if (maxFrames > 0 && count > maxFrames) {
+            count = maxFrames;
+        }
+        for (int i = 0; i < count; i++) {
+            sb.append(LINE_SEPARATOR).append(prefix).append("\tat ").append(trace[i]);
+        }
+        int more = trace.length - count;
+        if (more > 0) {
+            sb.append(LINE_SEPARATOR).append(prefix).append("\t... ").append(more).append(" more");
+        }
+    }
+
+    /**
+     * 缓存的键，包括异常链中每个异常的描述和堆栈
+     */
+    private static final class Key {
+
+        /**
+         * 每个异常的描述（toString）
+         */
+        private final String[] mDescriptions;
+        /**
+         * 每个异常的堆栈
+         */
+        private final StackTraceElement[][] mTraces;
+        /**
+         * 每个异常最多输出的帧数
+         */
+        private final int mMaxFrames;
+        /**
+         * 哈希值
+         */
+        private final int mHash;
+
+        /**
+         * 构造方法
+         * @param descriptions 每个异常的描述
+         * @param traces 每个异常的堆栈
+         * @param maxFrames 每个异常最多输出的帧数
+         */
+        private Key(String[] descriptions, StackTraceElement[][] traces, int maxFrames) {
+            mDescriptions = descriptions;
+            mTraces = traces;
+            mMaxFrames = maxFrames;
+            int hash = maxFrames;
+            for (int i = 0; i < descriptions.length; i++) {
+                hash = 31 * hash + String.valueOf(descriptions[i]).hashCode();
+                hash = 31 * hash + Arrays.hashCode(traces[i]);
+            }
+            mHash = hash;
+        }
+
+        /**
+         * 创建异常的缓存键
+         * @param t 异常对象
+         * @param maxFrames 每个异常最多输出的帧数
+         * @return 返回缓存键，异常包含 Suppressed 异常或循环引用时返回 null
+         */
+        static Key create(Throwable t, int maxFrames) {
+            int count = 0;
+            for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+                if (cause.getSuppressed().length > 0 || ++count > 16) {
+                    return null;
+                }
+            }
+            String[] descriptions = new String[count];
+            StackTraceElement[][] traces = new StackTraceElement[count][];
+            Throwable cause = t;
+            for (int i = 0; i < count; i++) {
+                descriptions[i] = cause.toString();
+                traces[i] = cause.getStackTrace();
+                cause = cause.getCause();
+            }
+            return new Key(descriptions, traces, maxFrames);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mHash == key.mHash && mMaxFrames == key.mMaxFrames
+                    && Arrays.equals(mDescriptions, key.mDescriptions)
+                    && Arrays.deepEquals(mTraces, key.mTraces);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.qty.log.format;
+
+import java.text.FieldPosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 日志时间格式化类
+ *
+ * 格式化结果保存在可复用的缓冲区中，同一时间（时间格式不包含毫秒时为同一秒）的日志直接复用上一次的结果，
+ * 格式化时不创建新的字符串。时间格式改变时重新创建日期格式化对象。
+ * 该类不是线程安全的，每个打印线程使用自己的对象。
+ * @hide
+ */
+public class QTTimeFormatter {
+
+    /**
+     * 日期格式化对象
+     */
+    private SimpleDateFormat mFormat;
+    /**
+     * 时间格式
+     */
+    private String mPattern;
+    /**
+     * 时间格式是否包含毫秒
+     */
+    private boolean hasMillisecond;
+    /**
+     * 格式化使用的日期对象
+     */
+    private final Date mDate = new Date();
+    /**
+     * 格式化结果
+     */
+    private final StringBuffer mBuffer = new StringBuffer(32);
+    /**
+     * 格式化使用的字段位置
+     */
+    private final FieldPosition mPosition = new FieldPosition(0);
+    /**
+     * 上一次格式化的时间，时间格式不包含毫秒时为秒数
+     */
+    private long mLastTime = Long.MIN_VALUE;
+
+    /**
+     * 格式化时间
+     * @param pattern 时间格式，与 SimpleDateFormat 相同
+     * @param time 时间，单位：毫秒
+     * @return 返回格式化结果，在下一次调用之前有效
+     */
+    public CharSequence format(String pattern, long time) {
+        if (!pattern.equals(mPattern)) {
+            mFormat = new SimpleDateFormat(pattern);
+            mPattern = pattern;
+            hasMillisecond = pattern.indexOf('S') >= 0;
+            mLastTime = Long.MIN_VALUE;
+        }
+        long key = hasMillisecond ? time : (time >= 0 ? time / 1000 : (time - 999) / 1000);
+        if (key != mLastTime) {
+            mBuffer.setLength(0);
+            mDate.setTime(time);
+            mFormat.format(mDate, mBuffer, mPosition);
+            mLastTime = key;
+        }
+        return mBuffer;
+    }
+}
@@ -0,0 +1,1087 @@
+package com.qty.log.handler;
+
+import com.qty.log.QTLogContext;
+import com.qty.log.bean.QTLogDurability;
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.filter.QTLogRedactor;
+import com.qty.log.format.QTLogLayout;
+import com.qty.log.format.QTTimeFormatter;
+import com.qty.log.metrics.QTLogMetrics;
+import com.qty.log.tail.QTLogTail;
+import com.qty.log.utils.FileUtils;
+import com.qty.log.utils.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileLock;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志通道
+ *
+ * 每个通道拥有独立的环形缓冲区、写入线程和日志文件目录，按天生成日志文件，并按通道设置清理过期日志。
+ * 默认通道的日志文件保存在 logs 目录下，其他通道保存在 logs/通道名/ 目录下。
+ * 主进程的日志文件名为 yyyy-MM-dd.log，其他进程为 yyyy-MM-dd@进程名.log，每个进程只追加写入自己的文件，
+ * 多个进程的日志不会交错，查询时再按时间合并。清理过期日志时使用文件锁，同一时间只有一个进程执行清理。
+ * @hide
+ */
+public class QTLogChannel {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogChannel.class.getSimpleName();
+    /**
+     * 默认通道名称
+     */
+    public static final String DEFAULT_CHANNEL = "default";
+    /**
+     * 默认日志队列容量
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    /**
+     * 日志文件后缀
+     */
+    public static final String LOG_FILE_SUFFIX = ".log";
+    /**
+     * 日志文件名中日期与进程名之间的分隔符
+     */
+    public static final char PROCESS_SEPARATOR = '@';
+    /**
+     * 日志文件名中日期的长度（yyyy-MM-dd）
+     */
+    public static final int FILE_DATE_LENGTH = 10;
+    /**
+     * 清理过期日志时使用的锁文件名
+     */
+    private static final String CLEAN_LOCK_FILE = ".clean.lock";
+    /**
+     * 日志文件停止写入后，需要经过这段时间才认为已经关闭，用于避免跨天时少量晚到的日志重新打开前一天的文件，单位：毫秒
+     */
+    private static final long SEGMENT_CLOSE_DELAY = 60 * 1000;
+    /**
+     * 高优先级队列的最小容量，实际容量为日志队列容量的 1/8
+     */
+    private static final int MIN_PRIORITY_QUEUE_CAPACITY = 64;
+
+    /**
+     * 通道名称
+     */
+    private final String mName;
+    /**
+     * 日志文件目录
+     */
+    private final File mDirectory;
+    /**
+     * 日志文件保存天数，单位：天，小于或等于 0 表示不设置
+     */
+    private final int mMaxSaveDays;
+    /**
+     * 日志文件保存的总文件大小，单位：Byte，小于或等于 0 表示不设置
+     */
+    private final long mMaxSaveSize;
+    /**
+     * 当前进程的名称，用于生成日志文件名，为 null 表示主进程
+     */
+    private final String mProcessName;
+    /**
+     * 日志队列
+     */
+    private final QTLogRingBuffer mQueue;
+    /**
+     * WARN 和 ERROR 日志的高优先级队列，写入线程每批先写入该队列中的日志
+     */
+    private final QTLogRingBuffer mPriorityQueue;
+    /**
+     * 最近分配的日志序号
+     */
+    private final AtomicLong mSequence = new AtomicLong();
+    /**
+     * 日志写入线程
+     */
+    private volatile WriteThread mWriteThread;
+    /**
+     * 写入线程当前正在写入的日志文件
+     */
+    private volatile File mCurrentLogFile;
+    /**
+     * 已经写入并刷新到文件中的位置，写入线程还没有写入过日志时为 null
+     */
+    private volatile QTLogFilePosition mWrittenPosition;
+    /**
+     * 通道是否已经关闭（重新初始化后旧的通道会被关闭）
+     */
+    private volatile boolean isClosed;
+    /**
+     * 等待写入的日志在内存预算中占用的大小，单位：字节
+     */
+    private final AtomicLong mPendingSize = new AtomicLong();
+    /**
+     * 因为内存预算丢弃的 VERBOSE 日志数量，写入线程记录到日志文件后清零
+     */
+    private final AtomicLong mDroppedVerbose = new AtomicLong();
+    /**
+     * 因为内存预算丢弃的 DEBUG 日志数量，写入线程记录到日志文件后清零
+     */
+    private final AtomicLong mDroppedDebug = new AtomicLong();
+    /**
+     * 因为超出内存预算或者日志队列已满丢弃的日志数量，写入线程记录到日志文件后清零
+     */
+    private final AtomicLong mDroppedOverflow = new AtomicLong();
+    /**
+     * 因为存储较慢、空间不足或者无法写入丢弃的日志数量，写入线程记录到日志文件后清零
+     */
+    private final AtomicLong mDroppedStorage = new AtomicLong();
+    /**
+     * 存储状态监测对象
+     */
+    private final QTLogStorageMonitor mStorage;
+
+    /**
+     * 构造方法
+     * @param name  通道名称
+     * @param directory 日志文件目录
+     * @param maxSaveDays   日志文件保存天数
+     * @param maxSaveSize   日志文件保存的总文件大小
+     * @param queueCapacity 日志队列容量
+     * @param processName 当前进程的名称，为 null 表示主进程
+     */
+    public QTLogChannel(String name, File directory, int maxSaveDays, long maxSaveSize, int queueCapacity,
+                        String processName) {
+        mName = name;
+        mDirectory = directory;
+        mMaxSaveDays = maxSaveDays;
+        mMaxSaveSize = maxSaveSize;
+        mProcessName = processName;
+        mQueue = new QTLogRingBuffer(queueCapacity);
+        mPriorityQueue = new QTLogRingBuffer(Math.max(MIN_PRIORITY_QUEUE_CAPACITY, queueCapacity / 8));
+        mStorage = new QTLogStorageMonitor(name);
+    }
+
+    /**
+     * 获取通道名称
+     * @return 返回通道名称
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * 获取日志文件目录
+     * @return 返回日志文件目录
+     */
+    public File getDirectory() {
+        return mDirectory;
+    }
+
+    /**
+     * 获取当前进程的名称
+     * @return 返回进程名称，主进程返回 null
+     */
+    public String getProcessName() {
+        return mProcessName;
+    }
+
+    /**
+     * 获取当前进程在指定日期的日志文件
+     * @param date 日期
+     * @return 返回日志文件
+     */
+    public File getLogFile(Date date) {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+        String name = sdf.format(date);
+        if (mProcessName != null) {
+            name += PROCESS_SEPARATOR + mProcessName;
+        }
+        return new File(mDirectory, name + LOG_FILE_SUFFIX);
+    }
+
+    /**
+     * 获取日志文件名中的日期
+     * @param file 日志文件
+     * @return 返回 yyyy-MM-dd 格式的日期，如果文件名不是日志文件名，则返回 null
+     */
+    public static String getLogFileDate(File file) {
+        String name = file.getName();
+        if (name.length() < FILE_DATE_LENGTH + LOG_FILE_SUFFIX.length() || !name.endsWith(LOG_FILE_SUFFIX)) {
+            return null;
+        }
+        return name.substring(0, FILE_DATE_LENGTH);
+    }
+
+    /**
+     * 获取日志文件名中的进程名称
+     * @param file 日志文件
+     * @return 返回进程名称，主进程的日志文件返回 null
+     */
+    public static String getLogFileProcess(File file) {
+        String name = file.getName();
+        int index = name.indexOf(PROCESS_SEPARATOR);
+        if (index != FILE_DATE_LENGTH || !name.endsWith(LOG_FILE_SUFFIX)) {
+            return null;
+        }
+        return name.substring(index + 1, name.length() - LOG_FILE_SUFFIX.length());
+    }
+
+    /**
+     * 将日志添加到通道的日志队列中，日志内容会被复制，返回后调用者可以复用 msg
+     * 超出内存预算时按 {@link QTLogMemoryBudget} 的规则丢弃日志或者短暂等待。
+     * @param level 日志级别，为 null 时不按级别丢弃
+     * @param time  日志时间，单位：毫秒
+     * @param msg   日志信息
+     * @return 添加成功返回 true；超出内存预算或者队列已满返回 false
+     */
+    public boolean offer(QTLogLevel level, long time, CharSequence msg) {
+        ensureWriteThread();
+        long size = QTLogEntry.sizeOf(msg);
+        if (!acquire(level, size)) {
+            return false;
+        }
+        if (isPriority(level) && mPriorityQueue.offer(level, time, msg, size)) {
+            return onPriorityOffer(size);
+        }
+        return onOffer(mQueue.offer(level, time, msg, size), size);
+    }
+
+    /**
+     * 将未格式化的日志添加到通道的日志队列中，由写入线程按文件日志布局格式化
+     * 超出内存预算时按 {@link QTLogMemoryBudget} 的规则丢弃日志或者短暂等待。
+     * @param raw 通过 {@link QTLogEntry#setRaw} 记录的日志，返回后调用者可以复用
+     * @return 添加成功返回 true；超出内存预算或者队列已满返回 false
+     */
+    public boolean offer(QTLogEntry raw) {
+        ensureWriteThread();
+        long size = raw.rawSize();
+        if (!acquire(raw.getLevel(), size)) {
+            return false;
+        }
+        if (isPriority(raw.getLevel()) && mPriorityQueue.offer(raw, size)) {
+            return onPriorityOffer(size);
+        }
+        return onOffer(mQueue.offer(raw, size), size);
+    }
+
+    /**
+     * 分配下一个日志序号，序号在通道内递增，从 1 开始
+     *
+     * WARN 和 ERROR 日志通过高优先级队列先于之前的低级别日志写入，每个队列内同一线程的日志保持打印顺序，
+     * 所以日志文件中的顺序可能与打印顺序不同，可以通过格式符 %N 或 JSON 日志的 seq 字段按序号还原打印顺序。
+     * @return 返回日志序号
+     */
+    public long nextSequence() {
+        return mSequence.incrementAndGet();
+    }
+
+    /**
+     * 判断日志是否加入高优先级队列
+     * @param level 日志级别，为 null 时不加入
+     * @return 如果是 WARN 或 ERROR 日志，返回 true；否则返回 false
+     */
+    private static boolean isPriority(QTLogLevel level) {
+        return level != null && level.rawValue() >= QTLogLevel.WARN_LEVEL.rawValue();
+    }
+
+    /**
+     * 记录日志加入高优先级队列，并唤醒在日志队列上等待的写入线程
+     * @param size 日志占用的内存，单位：字节
+     * @return 返回 true
+     */
+    private boolean onPriorityOffer(long size) {
+        mQueue.wakeUp();
+        return onOffer(true, size);
+    }
+
+    /**
+     * 写入线程没有运行时启动写入线程
+     */
+    private void ensureWriteThread() {
+        WriteThread writeThread = mWriteThread;
+        if (writeThread == null || writeThread.isStop()) {
+            startWriteThread();
+        }
+    }
+
+    /**
+     * 为日志申请内存预算，申请失败时记录丢弃的日志
+     * @param level 日志级别
+     * @param size  日志占用的内存，单位：字节
+     * @return 申请成功返回 true；否则返回 false
+     */
+    private boolean acquire(QTLogLevel level, long size) {
+        if (mStorage.isDropped(level)) {
+            mDroppedStorage.incrementAndGet();
+            QTLogMetrics.getInstance().onDropped();
+            return false;
+        }
+        int result = QTLogMemoryBudget.getInstance().acquire(level, size);
+        if (result == QTLogMemoryBudget.ACQUIRED) {
+            mPendingSize.addAndGet(size);
+            return true;
+        }
+        if (result == QTLogMemoryBudget.DROPPED_VERBOSE) {
+            mDroppedVerbose.incrementAndGet();
+        } else if (result == QTLogMemoryBudget.DROPPED_DEBUG) {
+            mDroppedDebug.incrementAndGet();
+        } else {
+            mDroppedOverflow.incrementAndGet();
+        }
+        QTLogMetrics.getInstance().onDropped();
+        return false;
+    }
+
+    /**
+     * 记录日志加入队列的结果，加入失败时释放申请的内存预算
+     * @param isAdded 是否加入成功
+     * @param size 日志占用的内存，单位：字节
+     * @return 返回 isAdded
+     */
+    private boolean onOffer(boolean isAdded, long size) {
+        if (isAdded) {
+            QTLogMetrics.getInstance().onEnqueue();
+        } else {
+            releaseSize(size);
+            mDroppedOverflow.incrementAndGet();
+            QTLogMetrics.getInstance().onDropped();
+        }
+        return isAdded;
+    }
+
+    /**
+     * 释放内存预算
+     * @param size 释放的内存，单位：字节
+     */
+    private void releaseSize(long size) {
+        mPendingSize.addAndGet(-size);
+        QTLogMemoryBudget.getInstance().release(size);
+    }
+
+    /**
+     * 获取等待写入的日志占用的内存
+     * @return 返回该通道中等待写入的日志在内存预算中占用的大小，单位：字节
+     */
+    public long getPendingSize() {
+        return mPendingSize.get();
+    }
+
+    /**
+     * 判断日志队列是否为空
+     * @return 如果日志队列为空并且没有正在写入的日志，返回 true；否则返回 false
+     */
+    public boolean isQueueEmpty() {
+        return mQueue.isEmpty() && mPriorityQueue.isEmpty();
+    }
+
+    /**
+     * 判断通道是否空闲
+     * @return 如果日志队列为空，或者写入线程已经退出（队列中的日志不会再被写入），返回 true；否则返回 false
+     */
+    public boolean isIdle() {
+        WriteThread writeThread = mWriteThread;
+        return isQueueEmpty() || writeThread == null || writeThread.isStop();
+    }
+
+    /**
+     * 关闭通道，写入线程会在写完队列中的日志后退出
+     */
+    public synchronized void stop() {
+        isClosed = true;
+        if (mWriteThread != null) {
+            mWriteThread.stopThread();
+        }
+    }
+
+    /**
+     * 判断通道是否已经关闭
+     * @return 如果通道已经关闭，返回 true；否则返回 false
+     */
+    public boolean isClosed() {
+        return isClosed;
+    }
+
+    /**
+     * 清除过期日志文件，其他进程正在清理时直接返回
+     */
+    public void clearExpiredFiles() {
+        if (!mDirectory.exists() || (mMaxSaveDays <= 0 && mMaxSaveSize <= 0)) {
+            return;
+        }
+        FileLock lock = FileUtils.tryLock(new File(mDirectory, CLEAN_LOCK_FILE));
+        if (lock == null) {
+            Log.i(TAG, "clearExpiredFiles=>Channel " + mName + " is cleaning by other process.");
+            return;
+        }
+        try {
+            if (mMaxSaveDays > 0) {
+                clearExpiredFilesByDay();
+            } else {
+                clearExpiredFilesBySize();
+            }
+        } finally {
+            FileUtils.unlock(lock);
+        }
+    }
+
+    /**
+     * 根据时间清除过期日志文件
+     */
+    public void clearExpiredFilesByDay() {
+        File[] files = listLogFiles();
+        if (files == null) {
+            Log.e(TAG, "clearExpiredFilesByDay=>Can't list log file directory of channel " + mName);
+            return;
+        }
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+        Calendar earyDay = Calendar.getInstance();
+        earyDay.add(Calendar.DAY_OF_MONTH, -mMaxSaveDays);
+        String earyLogFileName = sdf.format(earyDay.getTime());
+        for (int i = 0; i < files.length; i++) {
+            String date = getLogFileDate(files[i]);
+            if (date != null && date.compareTo(earyLogFileName) <= 0) {
+                try {
+                    files[i].delete();
+                    QTLogIndex.getIndexFile(files[i]).delete();
+                } catch (Exception e) {
+                    Log.e(TAG, "clearExpiredFilesByDay=>Delete file "
+                            + files[i].getName() + " error: ", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 根据存储空间清除过期日志文件，所有进程的日志文件一起计算大小，今天的日志文件可能正在被写入，不会被删除
+     */
+    public void clearExpiredFilesBySize() {
+        File[] logs = listLogFiles();
+        if (logs == null) {
+            Log.e(TAG, "clearExpiredFilesBySize=>Can't list log file directory of channel " + mName);
+            return;
+        }
+        long size = 0;
+        for (File log : logs) {
+            size += log.length();
+        }
+        if (size > mMaxSaveSize) {
+            Arrays.sort(logs, new Comparator<File>() {
+                @Override
+                public int compare(File o1, File o2) {
+                    return o1.getName().compareTo(o2.getName());
+                }
+            });
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+            String today = sdf.format(Calendar.getInstance().getTime());
+            ArrayList<String> files = new ArrayList<>();
+            for (int i = 0; i < logs.length; i++) {
+                String date = getLogFileDate(logs[i]);
+                if (date != null && date.compareTo(today) < 0) {
+                    files.add(logs[i].getAbsolutePath());
+                }
+            }
+            File file = null;
+            while (size > mMaxSaveSize / 2 && files.size() > 0) {
+                file = new File(files.get(0));
+                long deleteSize = file.length();
+                try {
+                    file.delete();
+                    QTLogIndex.getIndexFile(file).delete();
+                    size -= deleteSize;
+                    files.remove(0);
+                } catch (Exception e) {
+                    Log.e(TAG, "clearExpiredFilesBySize=>Delete file "
+                            + file.getName() + " error: ", e);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取通道目录下的日志文件（不包括子通道目录）
+     * @return 返回日志文件数组，如果目录无法访问，则返回 null
+     */
+    public File[] listLogFiles() {
+        return FileUtils.listFiles(mDirectory, LOG_FILE_SUFFIX);
+    }
+
+    /**
+     * 获取已经写入并刷新到文件中的位置，该位置之后写入的日志都会通知实时日志订阅者
+     * @return 返回写入位置，写入线程还没有写入过日志时返回 null
+     */
+    public QTLogFilePosition getWrittenPosition() {
+        return mWrittenPosition;
+    }
+
+    /**
+     * 获取通道的日志持久化策略，通过配置文件中的 LOG_DURABILITY 和 CHANNEL_DURABILITY 设置
+     * @return 返回持久化策略
+     */
+    public QTLogDurability getDurability() {
+        return QTLogConfig.getInstance().getDurability(mName);
+    }
+
+    /**
+     * 获取存储模式名称，存储较慢、空间不足或者无法写入时写入线程会自动切换模式，恢复后回到 NORMAL
+     * @return 返回 NORMAL、SLOW、LOW_SPACE 或 MEMORY_ONLY
+     */
+    public String getStorageMode() {
+        return QTLogStorageMonitor.getModeName(mStorage.getMode());
+    }
+
+    /**
+     * 判断日志文件是否已经关闭（不会再被写入线程写入）
+     *
+     * 日志文件按天生成，早于今天、不是写入线程当前正在写入的文件，并且最后修改时间超过一分钟的文件认为已经关闭。
+     * 其他进程的日志文件同样按日期和最后修改时间判断。
+     * @param file 通道目录下的日志文件
+     * @return 如果已经关闭，返回 true；否则返回 false
+     */
+    public boolean isSegmentClosed(File file) {
+        if (file.equals(mCurrentLogFile)) {
+            return false;
+        }
+        String date = getLogFileDate(file);
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+        String today = sdf.format(Calendar.getInstance().getTime());
+        if (date == null || date.compareTo(today) >= 0) {
+            return false;
+        }
+        return System.currentTimeMillis() - file.lastModified() > SEGMENT_CLOSE_DELAY;
+    }
+
+    /**
+     * 启动写入线程
+     */
+    private synchronized void startWriteThread() {
+        if (mWriteThread == null || mWriteThread.isStop()) {
+            mWriteThread = new WriteThread();
+            mWriteThread.start();
+        }
+    }
+
+    private class WriteThread extends Thread {
+
+        /**
+         * 在没有日志写入时，线程等待的最长时间
+         */
+        private static final int SLEEP_TIME = 500;
+        /**
+         * 格式化缓冲区保留的最大容量，超过时重新创建
+         */
+        private static final int MAX_BUFFER_CAPACITY = 16 * 1024;
+        /**
+         * 记录丢弃日志数量的最小间隔，单位：毫秒
+         */
+        private static final long DROP_NOTICE_INTERVAL = 1000;
+        /**
+         * 存储较慢时为了合并成更大的批次，每批日志写入前额外等待的时间，单位：毫秒
+         */
+        private static final long SLOW_BATCH_DELAY = 200;
+        /**
+         * 无法写入文件时内存中最多保留的日志字符数，超过时丢弃最早的日志
+         */
+        private static final int MAX_BACKLOG_CHARS = 128 * 1024;
+
+        /**
+         * 是否停止线程
+         */
+        private volatile boolean isStop;
+        /**
+         * 记录丢弃日志数量的日志
+         */
+        private final QTLogEntry mNotice = new QTLogEntry();
+        /**
+         * 记录丢弃日志数量时使用的文件日志布局
+         */
+        private QTLogLayout mNoticeLayout;
+        /**
+         * 上一次记录丢弃日志数量的时间，单位：毫秒
+         */
+        private long mLastNoticeTime;
+        /**
+         * 日志文件写入对象，文件还没有打开或者写入出错后为 null
+         */
+        private QTLogFileWriter mWriter;
+        /**
+         * 当前日志文件
+         */
+        private File mLogFile;
+        /**
+         * 当前日志文件对应日期的开始时间和结束时间
+         */
+        private final long[] mLogFileDay = new long[2];
+        /**
+         * 日志索引
+         */
+        private final QTLogIndex mIndex = new QTLogIndex();
+        /**
+         * 上一次强制写入存储设备之后写入当前日志文件的字节数
+         */
+        private long mUnsyncedBytes;
+        /**
+         * 上一次强制写入存储设备的时间，单位：毫秒
+         */
+        private long mLastSyncTime;
+        /**
+         * 无法写入文件时保留在内存中的日志，按时间顺序排列
+         */
+        private final ArrayDeque<BacklogLine> mBacklog = new ArrayDeque<>();
+        /**
+         * 内存中保留的日志字符数
+         */
+        private int mBacklogChars;
+
+        /**
+         * 构造方法
+         */
+        WriteThread() {
+            super("QTLog-" + mName);
+        }
+
+        @Override
+        public void run() {
+            Log.d(TAG, "run=>Write thread of channel " + mName + " start....");
+            try {
+                long now = System.currentTimeMillis();
+                try {
+                    openLogFile(now);
+                } catch (IOException e) {
+                    Log.e(TAG, "run=>Unabled open log file: " + e);
+                    mStorage.onError(now);
+                }
+                QTLogMetrics metrics = QTLogMetrics.getInstance();
+                QTLogTail tail = QTLogTail.getInstance();
+                // 延迟格式化的日志在写入线程中格式化
+                StringBuilder buffer = new StringBuilder(512);
+                QTTimeFormatter timeFormatter = new QTTimeFormatter();
+                // 脱敏后的日志内容
+                QTLogRedactor.Buffer redacted = new QTLogRedactor.Buffer();
+                while (true) {
+                    int count = mQueue.await(SLEEP_TIME);
+                    // 高优先级队列加入日志时会唤醒等待，先读取日志队列再读取高优先级队列，不会漏掉唤醒
+                    int priority = mPriorityQueue.size();
+                    now = System.currentTimeMillis();
+                    mStorage.checkSpace(mDirectory, now);
+                    if (count == 0 && priority == 0) {
+                        if (isStop) {
+                            // 退出前不再等待重试时间，尽量写入内存中保留的日志
+                            if (recover(now, true)) {
+                                writeDropNotice(buffer, timeFormatter, true);
+                                mWriter.flush();
+                                sync(false, true);
+                            }
+                            break;
+                        }
+                        if (recover(now, false)) {
+                            mWriter.flush();
+                            // 定期强制写入时，没有新日志也要按时间间隔强制写入之前的日志
+                            sync(false, false);
+                        }
+                        continue;
+                    }
+                    if (mStorage.getMode() == QTLogStorageMonitor.MODE_SLOW && priority == 0 && !isStop) {
+                        // 存储较慢时等待更多日志，合并成更大的批次写入，减少刷新次数，有高优先级日志时不等待
+                        try {
+                            Thread.sleep(SLOW_BATCH_DELAY);
+                        } catch (InterruptedException ignore) {}
+                        count = mQueue.size();
+                        priority = mPriorityQueue.size();
+                    }
+                    // 每批先写入高优先级队列中的日志，再写入日志队列中的日志
+                    int total = priority + count;
+                    long start = System.nanoTime();
+                    long bytes = 0;
+                    try {
+                        boolean writable = recover(now, false);
+                        // 只有存在实时日志订阅者时才记录每条日志的位置
+                        boolean publish = writable && tail.hasSubscribers();
+                        long[] offsets = publish ? new long[total] : null;
+                        File[] files = publish ? new File[total] : null;
+                        String[] texts = publish ? new String[total] : null;
+                        QTLogRedactor redactor = QTLogConfig.getInstance().getRedactor();
+                        // 本批次中已经写入写入对象但还没有刷新到文件的日志数量，写入出错时记为丢弃
+                        int unflushed = 0;
+                        // 本批次中是否包含 ERROR 日志，日志级别在格式化之前读取
+                        boolean hasError = false;
+                        for (int i = 0; i < total; i++) {
+                            QTLogEntry log = getEntry(i, priority);
+                            try {
+                                metrics.onDequeue(System.nanoTime() - log.getEnqueueNanos());
+                                hasError |= log.getLevel() == QTLogLevel.ERROR_LEVEL;
+                                log.format(buffer, timeFormatter);
+                                char[] chars = log.getChars();
+                                int length = log.length();
+                                if (redactor != null && redactor.redact(chars, length, redacted)) {
+                                    chars = redacted.getChars();
+                                    length = redacted.length();
+                                }
+                                if (writable) {
+                                    try {
+                                        long position = writeLine(log.getTime(), chars, length);
+                                        if (publish) {
+                                            offsets[i] = position;
+                                            files[i] = mLogFile;
+                                            texts[i] = new String(chars, 0, length);
+                                        }
+                                        bytes += mWriter.position() - position;
+                                        unflushed++;
+                                        continue;
+                                    } catch (IOException e) {
+                                        onWriteError(e, unflushed);
+                                        unflushed = 0;
+                                        writable = false;
+                                        publish = false;
+                                    }
+                                }
+                                addToBacklog(log.getTime(), new String(chars, 0, length));
+                            } catch (RuntimeException e) {
+                                // 单条日志格式化或者脱敏出错时丢弃这条日志，不影响同一批次中的其他日志
+                                Log.e(TAG, "run=>Unable write log: ", e);
+                                mDroppedStorage.incrementAndGet();
+                            }
+                        }
+                        if (writable) {
+                            try {
+                                bytes += writeDropNotice(buffer, timeFormatter, false);
+                                mWriter.flush();
+                                mIndex.flush();
+                                sync(hasError, false);
+                                mStorage.onWrite(System.nanoTime() - start);
+                            } catch (IOException e) {
+                                onWriteError(e, unflushed);
+                                publish = false;
+                            }
+                        }
+                        if (publish) {
+                            for (int i = 0; i < total; i++) {
+                                if (texts[i] != null) {
+                                    tail.publish(mName, files[i], offsets[i], getEntry(i, priority).getTime(),
+                                            texts[i]);
+                                }
+                            }
+                        }
+                        if (mWriter != null) {
+                            mWrittenPosition = new QTLogFilePosition(mLogFile, mWriter.position());
+                        }
+                    } finally {
+                        // 出现异常时也要释放本批次的日志，避免日志队列一直处于已满状态
+                        releaseSize(mPriorityQueue.release(priority) + mQueue.release(count));
+                    }
+                    if (buffer.capacity() > MAX_BUFFER_CAPACITY) {
+                        buffer = new StringBuilder(512);
+                    }
+                    if (redacted.capacity() > MAX_BUFFER_CAPACITY) {
+                        redacted = new QTLogRedactor.Buffer();
+                    }
+                    metrics.onWrite(bytes, System.nanoTime() - start);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "run=>error: ", e);
+            } finally {
+                if (mWriter != null) {
+                    mWriter.close();
+                    mWriter = null;
+                }
+                mIndex.close();
+            }
+            isStop = true;
+            Log.i(TAG, "run=>Write log thread of channel " + mName + " end.");
+        }
+
+        /**
+         * 读取本批次中的一条日志
+         * @param index 日志在本批次中的下标，高优先级队列中的日志在前
+         * @param priority 本批次中高优先级队列中的日志数量
+         * @return 返回日志
+         */
+        private QTLogEntry getEntry(int index, int priority) {
+            return index < priority ? mPriorityQueue.get(index) : mQueue.get(index - priority);
+        }
+
+        /**
+         * 在可以写入文件时确保日志文件已经打开，并先写入内存中保留的日志。
+         * 写入出错后只在到达重试时间时重试，重试成功后恢复写入
+         * @param now 当前时间，单位：毫秒
+         * @param force 是否忽略重试时间，线程停止前使用
+         * @return 如果可以写入文件，返回 true；否则返回 false
+         */
+        private boolean recover(long now, boolean force) {
+            boolean retry = mStorage.isFailed() && (force || mStorage.shouldRetry(now));
+            if (!mStorage.isWritable() && !retry) {
+                return false;
+            }
+            try {
+                if (mWriter == null) {
+                    openLogFile(now);
+                }
+                if (!mBacklog.isEmpty()) {
+                    while (!mBacklog.isEmpty()) {
+                        BacklogLine line = mBacklog.peekFirst();
+                        writeLine(line.mTime, line.mText.toCharArray(), line.mText.length());
+                        mBacklog.pollFirst();
+                        mBacklogChars -= line.mText.length();
+                    }
+                    mWriter.flush();
+                    mIndex.flush();
+                }
+                if (retry) {
+                    Log.i(TAG, "recover=>Channel " + mName + " is writable again.");
+                    mStorage.onRecovered();
+                }
+                return true;
+            } catch (IOException e) {
+                onWriteError(e, 0);
+                return false;
+            }
+        }
+
+        /**
+         * 处理写入错误：关闭日志文件并进入 MEMORY_ONLY 模式，写入线程不退出
+         * @param e 写入错误
+         * @param lost 已经写入写入对象但没有刷新到文件、因此丢失的日志数量
+         */
+        private void onWriteError(IOException e, int lost) {
+            Log.e(TAG, "onWriteError=>Write log file of channel " + mName + " error: " + e);
+            if (lost > 0) {
+                mDroppedStorage.addAndGet(lost);
+            }
+            mUnsyncedBytes = 0;
+            if (mWriter != null) {
+                mWriter.close();
+                mWriter = null;
+            }
+            mStorage.onError(System.currentTimeMillis());
+        }
+
+        /**
+         * 无法写入文件时将日志保留在内存中，超过 {@link #MAX_BACKLOG_CHARS} 时丢弃最早的日志
+         * @param time 日志时间，单位：毫秒
+         * @param text 格式化后的日志
+         */
+        private void addToBacklog(long time, String text) {
+            mBacklog.addLast(new BacklogLine(time, text));
+            mBacklogChars += text.length();
+            while (mBacklogChars > MAX_BACKLOG_CHARS && mBacklog.size() > 1) {
+                mBacklogChars -= mBacklog.pollFirst().mText.length();
+                mDroppedStorage.incrementAndGet();
+            }
+        }
+
+        /**
+         * 打开日志时间对应的日志文件
+         * @param time 日志时间，单位：毫秒
+         * @throws IOException 打开失败时抛出
+         */
+        private void openLogFile(long time) throws IOException {
+            if (mWriter != null) {
+                // 切换日志文件前先将前一个文件中还没有强制写入的日志写入存储设备
+                sync(false, true);
+                mWriter.close();
+                mWriter = null;
+            }
+            File logFile = getLogFile(time, mLogFileDay);
+            if (logFile == null) {
+                throw new IOException("Unabled open log file in " + mDirectory);
+            }
+            mWriter = openWriter(logFile, mIndex);
+            mLogFile = logFile;
+        }
+
+        /**
+         * 写入一条日志，日志时间与当前日志文件不在同一天时切换日志文件
+         * @param time 日志时间，单位：毫秒
+         * @param chars 日志内容
+         * @param length 日志内容的长度
+         * @return 返回日志在文件中的位置
+         * @throws IOException 写入失败时抛出
+         */
+        private long writeLine(long time, char[] chars, int length) throws IOException {
+            if (mWriter == null || needSwitchLogFile(mLogFileDay, time)) {
+                openLogFile(time);
+            }
+            long position = mWriter.position();
+            mIndex.onRecord(time, position);
+            mUnsyncedBytes += mWriter.write(chars, 0, length);
+            return position;
+        }
+
+        /**
+         * 按通道的持久化策略将日志文件内容强制写入存储设备，强制写入的耗时计入本批次的写入耗时
+         * @param hasError 本批次中是否包含 ERROR 日志
+         * @param force 是否只要策略不是 none 就强制写入，切换日志文件和线程停止前使用
+         * @throws IOException 写入失败时抛出
+         */
+        private void sync(boolean hasError, boolean force) throws IOException {
+            if (mWriter == null || mUnsyncedBytes <= 0) {
+                return;
+            }
+            QTLogDurability durability = QTLogConfig.getInstance().getDurability(mName);
+            long now = System.currentTimeMillis();
+            boolean needSync = force ? durability.getMode() != QTLogDurability.MODE_NONE
+                    : durability.needSync(hasError, now - mLastSyncTime, mUnsyncedBytes);
+            if (needSync) {
+                mWriter.sync();
+                mUnsyncedBytes = 0;
+                mLastSyncTime = now;
+            }
+        }
+
+        /**
+         * 如果有丢弃的日志，在日志文件中写入一条 WARN 日志记录丢弃的数量，
+         * 持续丢弃时每 {@link #DROP_NOTICE_INTERVAL} 毫秒最多记录一次
+         * @param buffer 格式化使用的缓冲区
+         * @param timeFormatter 时间格式化对象
+         * @param force 是否忽略记录间隔，线程停止前使用
+         * @return 返回写入的字节数
+         * @throws IOException 写入失败时抛出
+         */
+        private int writeDropNotice(StringBuilder buffer, QTTimeFormatter timeFormatter, boolean force)
+                throws IOException {
+            if (mDroppedVerbose.get() == 0 && mDroppedDebug.get() == 0 && mDroppedOverflow.get() == 0
+                    && mDroppedStorage.get() == 0) {
+                return 0;
+            }
+            long time = System.currentTimeMillis();
+            if (!force && time - mLastNoticeTime < DROP_NOTICE_INTERVAL) {
+                return 0;
+            }
+            mLastNoticeTime = time;
+            long verbose = mDroppedVerbose.getAndSet(0);
+            long debug = mDroppedDebug.getAndSet(0);
+            long overflow = mDroppedOverflow.getAndSet(0);
+            long storage = mDroppedStorage.getAndSet(0);
+            QTLogConfig config = QTLogConfig.getInstance();
+            QTLogLayout layout = null;
+            if (!config.isJsonLayout()) {
+                String format = config.getFileLogFormat();
+                if (mNoticeLayout == null || !mNoticeLayout.getFormat().equals(format)) {
+                    mNoticeLayout = new QTLogLayout(format);
+                }
+                layout = mNoticeLayout;
+            }
+            String msg = null;
+            if (verbose > 0 || debug > 0 || overflow > 0) {
+                msg = "Dropped logs because the memory budget was exceeded: verbose=" + verbose
+                        + ", debug=" + debug + ", overflow=" + overflow;
+            }
+            if (storage > 0) {
+                String storageMsg = "Dropped " + storage + " logs because the storage was slow, full or not writable";
+                msg = msg == null ? storageMsg : msg + "; " + storageMsg;
+            }
+            mNotice.setRaw(layout, QTLogLevel.WARN_LEVEL, time, nextSequence(), TAG, getName(), null, msg, null,
+                    QTLogContext.current(), null);
+            mNotice.format(buffer, timeFormatter);
+            long position = writeLine(time, mNotice.getChars(), mNotice.length());
+            return (int) (mWriter.position() - position);
+        }
+
+        /**
+         * 打开日志文件和对应的索引文件
+         * @param logFile 日志文件
+         * @param index 日志索引
+         * @return 返回日志文件写入对象
+         * @throws IOException 打开文件失败时抛出
+         */
+        private QTLogFileWriter openWriter(File logFile, QTLogIndex index) throws IOException {
+            QTLogFileWriter writer = new QTLogFileWriter(logFile);
+            mCurrentLogFile = logFile;
+            mWrittenPosition = new QTLogFilePosition(logFile, writer.position());
+            try {
+                index.open(logFile);
+            } catch (IOException e) {
+                Log.e(TAG, "openWriter=>Open index file error: ", e);
+            }
+            return writer;
+        }
+
+        /**
+         * 停止线程
+         */
+        public void stopThread() {
+            isStop = true;
+            mQueue.wakeUp();
+        }
+
+        /**
+         * 判断线程是否停止
+         * @return 如果线程已经停止，返回 true；否则返回 false
+         */
+        public boolean isStop() {
+            return isStop;
+        }
+
+        /**
+         * 获取日志文件对象
+         * @param time 日志时间，单位：毫秒
+         * @param day 用于返回日志文件对应日期的开始时间和结束时间，单位：毫秒
+         * @return 返回日志文件对象，如果获取失败，则返回 null.
+         */
+        private File getLogFile(long time, long[] day) {
+            if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+                Log.e(TAG, "getLogFile=>Unable create log file directory " + mDirectory);
+                return null;
+            }
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(time);
+            File file = QTLogChannel.this.getLogFile(calendar.getTime());
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            day[0] = calendar.getTimeInMillis();
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            day[1] = calendar.getTimeInMillis();
+            if (!file.exists() || !file.isFile()) {
+                try {
+                    file.createNewFile();
+                } catch (IOException e) {
+                    Log.e(TAG, "getLogFile=>error: ", e);
+                    file = null;
+                }
+            }
+            return file;
+        }
+
+        /**
+         * 判断是否需要切换日志文件
+         * 当当前日志文件与日志信息中的时间不在同一天时，将会切换用于记录日志的文件。
+         * @param day 当前日志文件对应日期的开始时间和结束时间
+         * @param time 当前日志时间，单位：毫秒
+         * @return 如果需要切换日志文件，则返回 true；否则返回 false
+         */
+        private boolean needSwitchLogFile(long[] day, long time) {
+            return time < day[0] || time >= day[1];
+        }
+    }
+
+    /**
+     * 无法写入文件时保留在内存中的一条日志
+     */
+    private static class BacklogLine {
+        /**
+         * 日志时间，单位：毫秒
+         */
+        private final long mTime;
+        /**
+         * 格式化后的日志
+         */
+        private final String mText;
+
+        /**
+         * 构造方法
+         * @param time 日志时间，单位：毫秒
+         * @param text 格式化后的日志
+         */
+        BacklogLine(long time, String text) {
+            mTime = time;
+            mText = text;
+        }
+    }
+}
@@ -0,0 +1,946 @@
+package com.qty.log.handler;
+
+import com.qty.log.bean.QTChannelConfig;
+import com.qty.log.bean.QTChannelRoute;
+import com.qty.log.bean.QTClassLevel;
+import com.qty.log.bean.QTLogDurability;
+import com.qty.log.bean.QTLogFilterRule;
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.bean.QTLogRedactRule;
+import com.qty.log.bean.QTPackageLevel;
+import com.qty.log.filter.QTLogFilter;
+import com.qty.log.filter.QTLogRedactor;
+import com.qty.log.platform.QTLogDirectoryProvider;
+import com.qty.log.utils.Log;
+import com.qty.log.utils.TextUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * 日志配置信息类
+ *
+ * log.properties 日志配置文件格式如下：
+ *
+ * # 日志 TAG
+ * LOG_TAG="TAG"
+ *
+ * # 日志级别优先级（从低到高） none > error > wran > info > debug > verbose
+ * # 设置当前日志级别
+ * LOG_LEVEL=debug
+ *
+ * # 日志日期格式
+ * TIME_FORMAT=yyyy-MM-dd HH:mm:ss.sss
+ *
+ * # 日志格式
+ * # %T TAG
+ * # %d 日期，如果设置了日志，则需要给出日志格式，例如：%d -format="yyyy-MM-dd HH:mm:ss.sss"
+ * # %c 类名
+ * # %C 完整类名
+ * # %p 包名
+ * # %t 线程名
+ * # %L 日志类型
+ * # %f 文件名
+ * # %M 方法名
+ * # %l 行号
+ * # %m 日志内容
+ * # %X 日志上下文（QTLogContext），格式为 key1=value1 key2=value2
+ * # %n 换行
+ * # 终端中的日志格式
+ * TERMINAL_LOG_FORMAT=[%c][%M]%m
+ * # 文件中的日志格式
+ * FILE_LOG_FORMAT=%d %p %L/%T(%l): [%c][%M]%m%n
+ *
+ * # 文件中的日志布局（text 或 json），json 表示每条日志输出为一行 JSON 对象，此时忽略 FILE_LOG_FORMAT
+ * FILE_LOG_LAYOUT=json
+ *
+ * # 每个异常最多输出的堆栈帧数，超出的部分合并为 "... N more"，小于或等于 0 表示不限制
+ * MAX_STACK_FRAMES=30
+ *
+ * # 是否延迟格式化文件日志，true 表示打印线程只记录日志的原始内容，由写入线程按文件日志格式格式化
+ * DEFERRED_FORMAT=true
+ *
+ * # 等待写入的日志最多占用的内存（字节），超过 1/2 时丢弃 VERBOSE 日志，超过 3/4 时丢弃 DEBUG 日志，小于或等于 0 表示不限制
+ * MAX_BUFFER_SIZE=4194304
+ *
+ * # %n 指定包名的级别（包名和日志级别使用冒号隔开，中间不能有空格）
+ * PACKAGE_LOG_LEVEL=com.qty.log:info
+ *
+ * # 类的日志级别（类名需要是完整的类名（包含包名），类名与日志级别使用冒号隔开，中间不能有空格）
+ * CLASS_LOG_LEVEL=com.qty.log.Log:wran
+ *
+ * # 日志通道（通道名:最大保存天数:最大保存空间，天数和空间小于或等于 0 表示使用全局设置）
+ * LOG_CHANNEL=network:3:0
+ *
+ * # 按 TAG 将日志写入通道（TAG:通道名）
+ * CHANNEL_TAG_ROUTE=NET:network
+ *
+ * # 按包名将日志写入通道（包名:通道名，包含子包）
+ * CHANNEL_PACKAGE_ROUTE=com.qty.net:network
+ *
+ * # 日志过滤规则，匹配任意一条规则的日志不会被格式化和写入（可以配置多条）
+ * # tag:TAG 完全相同；thread:线程名前缀；keyword:日志信息包含的关键字；context:上下文的键:值
+ * LOG_FILTER=tag:HEARTBEAT
+ * LOG_FILTER=thread:OkHttp
+ * LOG_FILTER=keyword:password
+ * LOG_FILTER=context:env:test
+ *
+ * # 日志脱敏规则，写入日志文件前将匹配的内容替换为 ***（可以配置多条，只作用于日志文件）
+ * # email：邮箱地址；phone：11 位手机号码、带区号的固定电话号码（例如 010-12345678）或以 + 开头的 7 到 15 位号码；
+ * # key:键 为键后面的值（键不区分大小写，键前面不能是字母、数字或下划线），例如 token=xxx、"userId":"xxx"
+ * LOG_REDACT=email
+ * LOG_REDACT=phone
+ * LOG_REDACT=key:token
+ * LOG_REDACT=key:userId
+ *
+ * # 日志持久化策略，决定何时将日志文件内容强制写入存储设备（FileChannel.force），避免断电或系统崩溃时丢失日志
+ * # none：不强制写入（默认）；periodic:间隔毫秒:字节数：距离上一次强制写入超过间隔或字节数时强制写入，
+ * # 省略时为 1000 毫秒和 65536 字节，0 表示不按该条件；error:间隔毫秒:字节数：包含 ERROR 日志的批次立即强制写入，
+ * # 省略间隔和字节数时只在 ERROR 日志时强制写入
+ * LOG_DURABILITY=periodic:1000:65536
+ *
+ * # 单个通道的日志持久化策略（通道名:策略），覆盖 LOG_DURABILITY
+ * CHANNEL_DURABILITY=network:error
+ *
+ * @hide
+ */
+public class QTLogConfig {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogConfig.class.getSimpleName();
+    /**
+     * 日志配置文件名
+     */
+    private static final String LOG_CONFIG_FILE_NAME = "log.config";
+    /**
+     * 解析后的日志配置缓存文件名
+     */
+    private static final String LOG_CONFIG_CACHE_FILE_NAME = "log.config.cache";
+    /**
+     * 默认时间格式
+     */
+    public static final String DEFAULT_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss.sss";
+    /**
+     * 默认终端打印日志格式
+     */
+    public static final String DEFAULT_TERMINAL_LOG_FORMAT = "[%c][%M]%m%n";
+    /**
+     * 默认文件打印日志格式
+     */
+    public static final String DEFAULT_FILE_LOG_FORMAT = "%d  %p  %L  %T(%l): [%c][%M]%m%n";
+    /**
+     * 日志配置文件中 TAG 的标签名
+     */
+    private static final String LOG_TAG = "LOG_TAG";
+    /**
+     * 日志配置文件中日志级别的标签名
+     */
+    private static final String LEVEL_TAG = "LOG_LEVEL";
+    /**
+     * 日志配置文件中时间格式的标签名
+     */
+    private static final String TIME_FORMAT_TAG = "TIME_FORMAT";
+    /**
+     * 日志配置文件中终端打印格式的标签名
+     */
+    private static final String TERMINAL_LOG_FORMAT_TAG = "TERMINAL_LOG_FORMAT";
+    /**
+     * 日志配置文件中文件打印格式的标签名
+     */
+    private static final String FILE_LOG_FORMAT_TAG = "FILE_LOG_FORMAT";
+    /**
+     * 日志配置文件中文件日志布局的标签名
+     */
+    private static final String FILE_LOG_LAYOUT_TAG = "FILE_LOG_LAYOUT";
+    /**
+     * 文本日志布局，按照 FILE_LOG_FORMAT 格式输出
+     */
+    public static final String LAYOUT_TEXT = "text";
+    /**
+     * JSON Lines 日志布局，每条日志输出为一行 JSON 对象
+     */
+    public static final String LAYOUT_JSON = "json";
+    /**
+     * 日志配置文件中异常堆栈最大帧数的标签名
+     */
+    private static final String MAX_STACK_FRAMES_TAG = "MAX_STACK_FRAMES";
+    /**
+     * 日志配置文件中延迟格式化的标签名
+     */
+    private static final String DEFERRED_FORMAT_TAG = "DEFERRED_FORMAT";
+    /**
+     * 日志配置文件中日志缓冲内存预算的标签名
+     */
+    private static final String MAX_BUFFER_SIZE_TAG = "MAX_BUFFER_SIZE";
+    /**
+     * 默认的日志缓冲内存预算，单位：字节
+     */
+    public static final long DEFAULT_MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+    /**
+     * 日志配置文件中包日志级别的标签名
+     */
+    private static final String PACKAGE_LEVEL_TAG = "PACKAGE_LOG_LEVEL";
+    /**
+     * 日志配置文件中类日志级别的标签名
+     */
+    private static final String CLASS_LEVEL_TAG = "CLASS_LOG_LEVEL";
+    /**
+     * 日志配置文件中日志通道的标签名
+     */
+    private static final String CHANNEL_TAG = "LOG_CHANNEL";
+    /**
+     * 日志配置文件中按 TAG 路由日志通道的标签名
+     */
+    private static final String CHANNEL_TAG_ROUTE_TAG = "CHANNEL_TAG_ROUTE";
+    /**
+     * 日志配置文件中按包名路由日志通道的标签名
+     */
+    private static final String CHANNEL_PACKAGE_ROUTE_TAG = "CHANNEL_PACKAGE_ROUTE";
+    /**
+     * 日志配置文件中日志过滤规则的标签名
+     */
+    private static final String LOG_FILTER_TAG = "LOG_FILTER";
+    /**
+     * 日志配置文件中日志脱敏规则的标签名
+     */
+    private static final String LOG_REDACT_TAG = "LOG_REDACT";
+    /**
+     * 日志配置文件中日志持久化策略的标签名
+     */
+    private static final String LOG_DURABILITY_TAG = "LOG_DURABILITY";
+    /**
+     * 日志配置文件中单个通道日志持久化策略的标签名
+     */
+    private static final String CHANNEL_DURABILITY_TAG = "CHANNEL_DURABILITY";
+    /**
+     * QTLogConfig实例
+     */
+    private static final QTLogConfig INSTANCE = QTLogConfigInstance.sInstance;
+
+    /**
+     * 日志目录提供对象
+     */
+    private QTLogDirectoryProvider mDirectoryProvider;
+    /**
+     * 日志 TAG
+     */
+    private String mTag;
+    /**
+     * 日志级别
+     */
+    private QTLogLevel mLevel;
+    /**
+     * 是否允许使用 log.properties 的配置
+     */
+    private boolean enableConfig;
+    /**
+     * 时间格式
+     */
+    private String mTimeFormat;
+    /**
+     * 终端日志打印格式
+     */
+    private String mTerminalLogFormat;
+    /**
+     * 文件日志打印格式
+     */
+    private String mFileLogFormat;
+    /**
+     * 文件日志布局
+     */
+    private volatile String mFileLogLayout;
+    /**
+     * 每个异常最多输出的堆栈帧数，小于或等于 0 表示不限制
+     */
+    private volatile int mMaxStackFrames;
+    /**
+     * 是否延迟格式化文件日志
+     */
+    private volatile boolean isDeferredFormat;
+    /**
+     * 等待写入的日志最多占用的内存，单位：字节，小于或等于 0 表示不限制
+     */
+    private volatile long mMaxBufferSize;
+    /**
+     * 类的日志级别集合
+     */
+    private ArrayList<QTClassLevel> mClassLevels;
+    /**
+     * 包名的日志级别集合
+     */
+    private ArrayList<QTPackageLevel> mPackageLevels;
+    /**
+     * 类名到日志级别的索引
+     */
+    private HashMap<String, QTLogLevel> mClassLevelIndex;
+    /**
+     * 包名到日志级别的索引
+     */
+    private HashMap<String, QTLogLevel> mPackageLevelIndex;
+    /**
+     * 日志通道配置集合
+     */
+    private ArrayList<QTChannelConfig> mChannels;
+    /**
+     * 日志通道路由规则集合
+     */
+    private ArrayList<QTChannelRoute> mChannelRoutes;
+    /**
+     * 编译后的日志过滤器
+     */
+    private volatile QTLogFilter mFilter;
+    /**
+     * 编译后的日志脱敏器，没有配置脱敏规则时为 null
+     */
+    private volatile QTLogRedactor mRedactor;
+    /**
+     * 所有没有单独配置的通道使用的日志持久化策略
+     */
+    private volatile QTLogDurability mDurability;
+    /**
+     * 通道名称到日志持久化策略的索引
+     */
+    private volatile HashMap<String, QTLogDurability> mChannelDurabilities;
+
+    /**
+     * 单例实现
+     * @return 返回 QTLogConfig 对象
+     */
+    public static QTLogConfig getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 内部构造方法
+     */
+    private QTLogConfig() {}
+
+    /**
+     * 初始化方法
+     * @param directoryProvider 日志目录提供对象
+     * @param tag   日志 tag
+     * @param level 日志级别
+     * @param timeFormat 日志日期格式
+     * @param termLogFormat 终端日志格式
+     * @param fileLogFormat 文件日志格式
+     * @param enableConfig  是否允许使用 log.properties 的配置
+     */
+    public void init(QTLogDirectoryProvider directoryProvider, String tag, QTLogLevel level, String timeFormat,
+                     String termLogFormat, String fileLogFormat, boolean enableConfig) {
+        mDirectoryProvider = directoryProvider;
+        mTag = tag;
+        mLevel = level;
+        this.enableConfig = enableConfig;
+        mTimeFormat = timeFormat;
+        mTerminalLogFormat = termLogFormat;
+        mFileLogFormat = fileLogFormat;
+        mFileLogLayout = LAYOUT_TEXT;
+        mMaxStackFrames = 0;
+        isDeferredFormat = false;
+        mMaxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
+        mClassLevels = new ArrayList<>();
+        mPackageLevels = new ArrayList<>();
+        mChannels = new ArrayList<>();
+        mChannelRoutes = new ArrayList<>();
+        mClassLevelIndex = new HashMap<>();
+        mPackageLevelIndex = new HashMap<>();
+        mFilter = QTLogFilter.EMPTY;
+        mRedactor = null;
+        mDurability = QTLogDurability.NONE;
+        mChannelDurabilities = new HashMap<>();
+        if (enableConfig) {
+            parserConfigFile();
+        } else {
+            Log.i(TAG, "init=>Disabled use log config file.");
+        }
+    }
+
+    /**
+     * 获取日志 TAG
+     * @return 返回 TAG
+     */
+    public String getTag() {
+        return mTag;
+    }
+
+    /**
+     * 获取日志级别
+     *
+     * 根据 clazz 对象获取日志级别，如果 clazz 为 null，则直接返回顶级日志级别。
+     * 如果在类日志级别集合中找到该类，则使用该类的日志级别；如果没有找到，
+     * 则在包日志级别集合中查找，如果找到则使用包的日志级别，否则使用顶级的日志级别
+     * @param clazz 当前的类
+     * @return  返回日志级别
+     */
+    public QTLogLevel getLevel(Class clazz) {
+        if (clazz == null) {
+            return mLevel;
+        }
+        String className = clazz.getName();
+        QTLogLevel level = mClassLevelIndex.get(className);
+        if (level != null) {
+            return level;
+        }
+        if (!mPackageLevelIndex.isEmpty()) {
+            int index = className.lastIndexOf('.');
+            level = mPackageLevelIndex.get(index > 0 ? className.substring(0, index) : "");
+            if (level != null) {
+                return level;
+            }
+        }
+        return mLevel;
+    }
+
+    /**
+     * 获取时间格式
+     * @return 返回时间格式
+     */
+    public String getTimeFormat() {
+        return mTimeFormat;
+    }
+
+    /**
+     * 获取终端日志打印格式
+     * @return 返回终端日志打印格式
+     */
+    public String getTerminalLogFormat() {
+        return mTerminalLogFormat;
+    }
+
+    /**
+     * 获取文件日志打印格式
+     * @return 返回文件日志打印格式
+     */
+    public String getFileLogFormat() {
+        return mFileLogFormat;
+    }
+
+    /**
+     * 获取文件日志布局
+     * @return 返回 LAYOUT_TEXT 或 LAYOUT_JSON
+     */
+    public String getFileLogLayout() {
+        return mFileLogLayout;
+    }
+
+    /**
+     * 设置文件日志布局
+     * @param layout LAYOUT_TEXT 或 LAYOUT_JSON
+     */
+    public void setFileLogLayout(String layout) {
+        if (LAYOUT_TEXT.equals(layout) || LAYOUT_JSON.equals(layout)) {
+            mFileLogLayout = layout;
+        } else {
+            Log.e(TAG, "setFileLogLayout=>Unknown layout \"" + layout + "\".");
+        }
+    }
+
+    /**
+     * 判断文件日志是否使用 JSON Lines 布局
+     * @return 如果是，返回 true；否则返回 false
+     */
+    public boolean isJsonLayout() {
+        return LAYOUT_JSON.equals(mFileLogLayout);
+    }
+
+    /**
+     * 获取每个异常最多输出的堆栈帧数
+     * @return 返回最大帧数，小于或等于 0 表示不限制
+     */
+    public int getMaxStackFrames() {
+        return mMaxStackFrames;
+    }
+
+    /**
+     * 设置每个异常最多输出的堆栈帧数
+     * @param maxStackFrames 最大帧数，小于或等于 0 表示不限制
+     */
+    public void setMaxStackFrames(int maxStackFrames) {
+        mMaxStackFrames = maxStackFrames;
+    }
+
+    /**
+     * 判断是否延迟格式化文件日志
+     * @return 如果打印线程只记录日志的原始内容、由写入线程格式化，返回 true；否则返回 false
+     */
+    public boolean isDeferredFormat() {
+        return isDeferredFormat;
+    }
+
+    /**
+     * 设置是否延迟格式化文件日志
+     * @param deferredFormat 为 true 时打印线程只记录日志的原始内容，由写入线程按文件日志格式格式化
+     */
+    public void setDeferredFormat(boolean deferredFormat) {
+        isDeferredFormat = deferredFormat;
+    }
+
+    /**
+     * 获取日志缓冲内存预算
+     * @return 返回等待写入的日志最多占用的内存，单位：字节，小于或等于 0 表示不限制
+     */
+    public long getMaxBufferSize() {
+        return mMaxBufferSize;
+    }
+
+    /**
+     * 设置日志缓冲内存预算
+     * @param maxBufferSize 等待写入的日志最多占用的内存，单位：字节，小于或等于 0 表示不限制
+     */
+    public void setMaxBufferSize(long maxBufferSize) {
+        mMaxBufferSize = maxBufferSize;
+    }
+
+    /**
+     * 获取日志通道配置集合
+     * @return 返回日志通道配置集合
+     */
+    public ArrayList<QTChannelConfig> getChannels() {
+        return mChannels;
+    }
+
+    /**
+     * 获取编译后的日志过滤器
+     * @return 返回日志过滤器，没有配置过滤规则时返回 {@link QTLogFilter#EMPTY}
+     */
+    public QTLogFilter getFilter() {
+        return mFilter;
+    }
+
+    /**
+     * 获取编译后的日志脱敏器
+     * @return 返回日志脱敏器，没有配置脱敏规则时返回 null
+     */
+    public QTLogRedactor getRedactor() {
+        return mRedactor;
+    }
+
+    /**
+     * 获取日志通道的持久化策略
+     * @param channel 通道名称
+     * @return 返回通道单独配置的策略，没有单独配置时返回 LOG_DURABILITY 配置的策略，都没有配置时返回
+     *         {@link QTLogDurability#NONE}
+     */
+    public QTLogDurability getDurability(String channel) {
+        QTLogDurability durability = mChannelDurabilities.get(channel);
+        return durability != null ? durability : mDurability;
+    }
+
+    /**
+     * 获取日志应该写入的通道
+     *
+     * 按照配置文件中的顺序匹配路由规则，第一个匹配的规则生效。
+     * @param tag   日志 TAG
+     * @param clazz 打印日志的类，可以为 null
+     * @return 返回通道名称，如果没有匹配的规则，则返回 null，表示写入默认通道
+     */
+    public String getChannelName(String tag, Class clazz) {
+        String className = clazz != null ? clazz.getName() : null;
+        for (int i = 0; i < mChannelRoutes.size(); i++) {
+            QTChannelRoute route = mChannelRoutes.get(i);
+            if (route.matches(tag, className)) {
+                return route.getChannel();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取日志配置文件，日志文件位于日志根目录下（Android 上为 Android/data/应用包名/files/Documents/ 目录）
+     *
+     * 配置文件没有变化时直接读取上次解析后保存的二进制缓存（log.config.cache），否则解析配置文件并更新缓存。
+     */
+    private void parserConfigFile() {
+        File file = mDirectoryProvider.getBaseDirectory();
+        if (file == null) {
+            Log.e(TAG, "parserConfigFile=>Can't get log base directory.");
+            return;
+        }
+        File configFile = new File(file.getAbsolutePath() + File.separator + LOG_CONFIG_FILE_NAME);
+        Log.d(TAG, "parserConfigFile=>config file: " + configFile.getAbsolutePath());
+        if (configFile.exists() && configFile.isFile()) {
+            File cacheFile = new File(file.getAbsolutePath() + File.separator + LOG_CONFIG_CACHE_FILE_NAME);
+            QTLogConfigSnapshot snapshot = QTLogConfigSnapshot.read(cacheFile, configFile);
+            if (snapshot == null) {
+                snapshot = parserConfigFile(configFile);
+                if (snapshot != null) {
+                    snapshot.write(cacheFile, configFile);
+                }
+            } else {
+                Log.d(TAG, "parserConfigFile=>Use config cache: " + cacheFile.getAbsolutePath());
+            }
+            if (snapshot != null) {
+                apply(snapshot);
+            }
+        } else {
+            Log.e(TAG, "parserConfigFile=>Config file is not exist!!!");
+        }
+    }
+
+    /**
+     * 使用解析后的日志配置，只覆盖配置文件中出现的配置项
+     * @param snapshot 解析后的日志配置
+     */
+    private void apply(QTLogConfigSnapshot snapshot) {
+        if (snapshot.has(QTLogConfigSnapshot.FLAG_TAG)) {
+            mTag = snapshot.mTag;
+        }
+        if (snapshot.has(QTLogConfigSnapshot.FLAG_LEVEL)) {
+            mLevel = snapshot.mLevel;
+        }
+        if (snapshot.has(QTLogConfigSnapshot.FLAG_TIME_FORMAT)) {
+            mTimeFormat = snapshot.mTimeFormat;
+        }
+        if (snapshot.has(QTLogConfigSnapshot.FLAG_TERMINAL_LOG_FORMAT)) {
+            mTerminalLogFormat = snapshot.mTerminalLogFormat;
+        }
+        if (snapshot.has(QTLogConfigSnapshot.FLAG_FILE_LOG_FORMAT)) {
+            mFileLogFormat = snapshot.mFileLogFormat;
+        }
+        if (snapshot.has(QTLogConfigSnapshot.FLAG_FILE_LOG_LAYOUT)) {
+            setFileLogLayout(snapshot.mFileLogLayout);
+        }
+        if (snapshot.has(QTLogConfigSnapshot.FLAG_MAX_STACK_FRAMES)) {
+            mMaxStackFrames = snapshot.mMaxStackFrames;
+        }
+        if (snapshot.has(QTLogConfigSnapshot.FLAG_DEFERRED_FORMAT)) {
+            isDeferredFormat = snapshot.isDeferredFormat;
+        }
+        if (snapshot.has(QTLogConfigSnapshot.FLAG_MAX_BUFFER_SIZE)) {
+            mMaxBufferSize = snapshot.mMaxBufferSize;
+        }
+        mClassLevels = snapshot.mClassLevels;
+        mPackageLevels = snapshot.mPackageLevels;
+        mChannels = snapshot.mChannels;
+        mChannelRoutes = snapshot.mChannelRoutes;
+        buildLevelIndex();
+        mFilter = snapshot.mFilterRules.isEmpty() ? QTLogFilter.EMPTY : new QTLogFilter(snapshot.mFilterRules);
+        mRedactor = snapshot.mRedactRules.isEmpty() ? null : new QTLogRedactor(snapshot.mRedactRules);
+        // 同一个通道配置多次时最后一次配置生效
+        QTLogDurability durability = QTLogDurability.NONE;
+        HashMap<String, QTLogDurability> channelDurabilities = new HashMap<>();
+        for (QTLogDurability item : snapshot.mDurabilities) {
+            if (item.getChannel() == null) {
+                durability = item;
+            } else {
+                channelDurabilities.put(item.getChannel(), item);
+            }
+        }
+        mChannelDurabilities = channelDurabilities;
+        mDurability = durability;
+    }
+
+    /**
+     * 建立类日志级别和包日志级别的索引，配置文件中同一个类或包出现多次时第一次出现的配置生效
+     */
+    private void buildLevelIndex() {
+        HashMap<String, QTLogLevel> classLevelIndex = new HashMap<>();
+        for (int i = mClassLevels.size() - 1; i >= 0; i--) {
+            classLevelIndex.put(mClassLevels.get(i).getClassName(), mClassLevels.get(i).getLevel());
+        }
+        HashMap<String, QTLogLevel> packageLevelIndex = new HashMap<>();
+        for (int i = mPackageLevels.size() - 1; i >= 0; i--) {
+            packageLevelIndex.put(mPackageLevels.get(i).getPackageName(), mPackageLevels.get(i).getLevel());
+        }
+        mClassLevelIndex = classLevelIndex;
+        mPackageLevelIndex = packageLevelIndex;
+    }
+
+    /**
+     * 逐行解析日志配置文件
+     * @param configFile 日志配置文件
+     * @return 返回解析后的日志配置，读取失败时返回 null
+     */
+    private QTLogConfigSnapshot parserConfigFile(File configFile) {
+        QTLogConfigSnapshot snapshot = new QTLogConfigSnapshot();
+        try (BufferedReader br = new BufferedReader(new FileReader(configFile))) {
+            String line = null;
+            while ((line = br.readLine()) != null) {
+                if (TextUtils.isEmpty(line) || line.startsWith("#")) {
+                    continue;
+                }
+                String[] strs = line.split("=", 2);
+                if (strs.length == 2 && !TextUtils.isEmpty(strs[1]) && !TextUtils.isEmpty(strs[0])) {
+                    switch (strs[0].trim()) {
+                        case LOG_TAG:
+                            snapshot.mTag = strs[1].trim();
+                            snapshot.mFlags |= QTLogConfigSnapshot.FLAG_TAG;
+                            break;
+
+                        case LEVEL_TAG:
+                            try {
+                                snapshot.mLevel = QTLogLevel.valueOf(strs[1].trim().toUpperCase());
+                                snapshot.mFlags |= QTLogConfigSnapshot.FLAG_LEVEL;
+                            } catch (Exception e) {
+                                Log.e(TAG, "parserConfigFile=>Switching log level error: ", e);
+                            }
+                            break;
+
+                        case TIME_FORMAT_TAG:
+                            snapshot.mTimeFormat = strs[1].trim();
+                            snapshot.mFlags |= QTLogConfigSnapshot.FLAG_TIME_FORMAT;
+                            break;
+
+                        case TERMINAL_LOG_FORMAT_TAG:
+                            snapshot.mTerminalLogFormat = strs[1].trim();
+                            snapshot.mFlags |= QTLogConfigSnapshot.FLAG_TERMINAL_LOG_FORMAT;
+                            break;
+
+                        case FILE_LOG_FORMAT_TAG:
+                            snapshot.mFileLogFormat = strs[1].trim();
+                            snapshot.mFlags |= QTLogConfigSnapshot.FLAG_FILE_LOG_FORMAT;
+                            break;
+
+                        case FILE_LOG_LAYOUT_TAG:
+                            snapshot.mFileLogLayout = strs[1].trim().toLowerCase();
+                            snapshot.mFlags |= QTLogConfigSnapshot.FLAG_FILE_LOG_LAYOUT;
+                            break;
+
+                        case MAX_STACK_FRAMES_TAG:
+                            try {
+                                snapshot.mMaxStackFrames = Integer.parseInt(strs[1].trim());
+                                snapshot.mFlags |= QTLogConfigSnapshot.FLAG_MAX_STACK_FRAMES;
+                            } catch (NumberFormatException e) {
+                                Log.e(TAG, "parserConfigFile=>\"" + line + "\" is not a max stack frames config.");
+                            }
+                            break;
+
+                        case DEFERRED_FORMAT_TAG:
+                            snapshot.isDeferredFormat = Boolean.parseBoolean(strs[1].trim());
+                            snapshot.mFlags |= QTLogConfigSnapshot.FLAG_DEFERRED_FORMAT;
+                            break;
+
+                        case MAX_BUFFER_SIZE_TAG:
+                            try {
+                                snapshot.mMaxBufferSize = Long.parseLong(strs[1].trim());
+                                snapshot.mFlags |= QTLogConfigSnapshot.FLAG_MAX_BUFFER_SIZE;
+                            } catch (NumberFormatException e) {
+                                Log.e(TAG, "parserConfigFile=>\"" + line + "\" is not a max buffer size config.");
+                            }
+                            break;
+
+                        case PACKAGE_LEVEL_TAG:
+                            try {
+                                String[] info = strs[1].trim().split(":");
+                                if (info.length == 2 && !TextUtils.isEmpty(info[0]) && !TextUtils.isEmpty(info[1])) {
+                                    String packageName = info[0].trim();
+                                    QTLogLevel level = QTLogLevel.valueOf(info[1].trim());
+                                    QTPackageLevel pl = new QTPackageLevel(packageName, level);
+                                    snapshot.mPackageLevels.add(pl);
+                                } else {
+                                    Log.e(TAG, "parserConfigFile=>\"" + line + "\" is not a package level config.");
+                                }
+                            } catch (Exception e) {
+                                Log.e(TAG, "parserConfigFile=>Switching package log level error: ", e);
+                            }
+                            break;
+
+                        case CLASS_LEVEL_TAG:
+                            try {
+                                String[] info = strs[1].trim().split(":");
+                                if (info.length == 2 && !TextUtils.isEmpty(info[0]) && !TextUtils.isEmpty(info[1])) {
+                                    String className = info[0].trim();
+                                    QTLogLevel level = QTLogLevel.valueOf(info[1].trim());
+                                    QTClassLevel pl = new QTClassLevel(className, level);
+                                    snapshot.mClassLevels.add(pl);
+                                } else {
+                                    Log.e(TAG, "parserConfigFile=>\"" + line + "\" is not a class level config.");
+                                }
+                            } catch (Exception e) {
+                                Log.e(TAG, "parserConfigFile=>Switching class log level error: ", e);
+                            }
+                            break;
+
+                        case CHANNEL_TAG:
+                            try {
+                                String[] info = strs[1].trim().split(":");
+                                if (info.length >= 1 && info.length <= 3 && !TextUtils.isEmpty(info[0].trim())) {
+                                    int maxSaveDays = info.length > 1 ? Integer.parseInt(info[1].trim()) : -1;
+                                    long maxSaveSize = info.length > 2 ? Long.parseLong(info[2].trim()) : -1;
+                                    snapshot.mChannels.add(new QTChannelConfig(info[0].trim(), maxSaveDays, maxSaveSize));
+                                } else {
+                                    Log.e(TAG, "parserConfigFile=>\"" + line + "\" is not a channel config.");
+                                }
+                            } catch (Exception e) {
+                                Log.e(TAG, "parserConfigFile=>Parse channel config error: ", e);
+                            }
+                            break;
+
+                        case CHANNEL_TAG_ROUTE_TAG:
+                        case CHANNEL_PACKAGE_ROUTE_TAG:
+                            String[] route = strs[1].trim().split(":");
+                            if (route.length == 2 && !TextUtils.isEmpty(route[0].trim()) && !TextUtils.isEmpty(route[1].trim())) {
+                                int type = CHANNEL_TAG_ROUTE_TAG.equals(strs[0].trim())
+                                        ? QTChannelRoute.TYPE_TAG : QTChannelRoute.TYPE_PACKAGE;
+                                snapshot.mChannelRoutes.add(new QTChannelRoute(type, route[0].trim(), route[1].trim()));
+                            } else {
+                                Log.e(TAG, "parserConfigFile=>\"" + line + "\" is not a channel route config.");
+                            }
+                            break;
+
+                        case LOG_FILTER_TAG:
+                            QTLogFilterRule rule = parserFilterRule(strs[1].trim());
+                            if (rule != null) {
+                                snapshot.mFilterRules.add(rule);
+                            } else {
+                                Log.e(TAG, "parserConfigFile=>\"" + line + "\" is not a log filter config.");
+                            }
+                            break;
+
+                        case LOG_REDACT_TAG:
+                            QTLogRedactRule redactRule = parserRedactRule(strs[1].trim());
+                            if (redactRule != null) {
+                                snapshot.mRedactRules.add(redactRule);
+                            } else {
+                                Log.e(TAG, "parserConfigFile=>\"" + line + "\" is not a log redact config.");
+                            }
+                            break;
+
+                        case LOG_DURABILITY_TAG:
+                        case CHANNEL_DURABILITY_TAG:
+                            QTLogDurability durability = null;
+                            if (LOG_DURABILITY_TAG.equals(strs[0].trim())) {
+                                durability = parserDurability(null, strs[1].trim());
+                            } else {
+                                String[] info = strs[1].trim().split(":", 2);
+                                if (info.length == 2 && !TextUtils.isEmpty(info[0].trim())) {
+                                    durability = parserDurability(info[0].trim(), info[1].trim());
+                                }
+                            }
+                            if (durability != null) {
+                                snapshot.mDurabilities.add(durability);
+                            } else {
+                                Log.e(TAG, "parserConfigFile=>\"" + line + "\" is not a log durability config.");
+                            }
+                            break;
+
+                        default:
+                            Log.e(TAG, "parserConfigFile=>Unknown configuration \"" + line + "\".");
+                            break;
+                    }
+                } else {
+                    Log.e(TAG, "parserConfigFile=>\"" + line  + "\" incorrect format");
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "parserConfigFile=>Read config file error: ", e);
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * 解析日志过滤规则
+     * @param value 过滤规则，格式为 tag:TAG、thread:线程名前缀、keyword:关键字 或 context:键:值
+     * @return 返回过滤规则，格式不正确时返回 null
+     */
+    private static QTLogFilterRule parserFilterRule(String value) {
+        String[] info = value.split(":", 2);
+        if (info.length != 2 || TextUtils.isEmpty(info[1])) {
+            return null;
+        }
+        switch (info[0].trim().toLowerCase()) {
+            case "tag":
+                return new QTLogFilterRule(QTLogFilterRule.TYPE_TAG, info[1], null);
+
+            case "thread":
+                return new QTLogFilterRule(QTLogFilterRule.TYPE_THREAD, info[1], null);
+
+            case "keyword":
+                return new QTLogFilterRule(QTLogFilterRule.TYPE_KEYWORD, info[1], null);
+
+            case "context":
+                String[] context = info[1].split(":", 2);
+                if (context.length == 2 && !TextUtils.isEmpty(context[0]) && !TextUtils.isEmpty(context[1])) {
+                    return new QTLogFilterRule(QTLogFilterRule.TYPE_CONTEXT, context[0], context[1]);
+                }
+                return null;
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 解析日志脱敏规则
+     * @param value 脱敏规则，格式为 email、phone 或 key:键
+     * @return 返回脱敏规则，格式不正确时返回 null
+     */
+    private static QTLogRedactRule parserRedactRule(String value) {
+        String[] info = value.split(":", 2);
+        switch (info[0].trim().toLowerCase()) {
+            case "email":
+                return info.length == 1 ? new QTLogRedactRule(QTLogRedactRule.TYPE_EMAIL, null) : null;
+
+            case "phone":
+                return info.length == 1 ? new QTLogRedactRule(QTLogRedactRule.TYPE_PHONE, null) : null;
+
+            case "key":
+                if (info.length == 2 && !TextUtils.isEmpty(info[1].trim())) {
+                    return new QTLogRedactRule(QTLogRedactRule.TYPE_KEY, info[1].trim());
+                }
+                return null;
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 解析日志持久化策略
+     * @param channel 通道名称，为 null 表示所有没有单独配置的通道
+     * @param value 持久化策略，格式为 none、periodic[:间隔毫秒[:字节数]] 或 error[:间隔毫秒[:字节数]]
+     * @return 返回持久化策略，格式不正确时返回 null
+     */
+    private static QTLogDurability parserDurability(String channel, String value) {
+        String[] info = value.split(":");
+        if (info.length > 3) {
+            return null;
+        }
+        int mode;
+        long interval;
+        long bytes;
+        switch (info[0].trim().toLowerCase()) {
+            case "none":
+                return info.length == 1 ? new QTLogDurability(channel, QTLogDurability.MODE_NONE, 0, 0) : null;
+
+            case "periodic":
+                mode = QTLogDurability.MODE_PERIODIC;
+                interval = QTLogDurability.DEFAULT_INTERVAL;
+                bytes = QTLogDurability.DEFAULT_BYTES;
+                break;
+
+            case "error":
+                mode = QTLogDurability.MODE_ERROR;
+                interval = 0;
+                bytes = 0;
+                break;
+
+            default:
+                return null;
+        }
+        try {
+            if (info.length > 1) {
+                interval = Long.parseLong(info[1].trim());
+            }
+            if (info.length > 2) {
+                bytes = Long.parseLong(info[2].trim());
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return new QTLogDurability(channel, mode, interval, bytes);
+    }
+
+    /**
+     * 内部类，单例实现
+     */
+    private static class QTLogConfigInstance {
+        private static final QTLogConfig sInstance = new QTLogConfig();
+    }
+}
@@ -0,0 +1,384 @@
+package com.qty.log.handler;
+
+import com.qty.log.bean.QTChannelConfig;
+import com.qty.log.bean.QTChannelRoute;
+import com.qty.log.bean.QTClassLevel;
+import com.qty.log.bean.QTLogDurability;
+import com.qty.log.bean.QTLogFilterRule;
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.bean.QTLogRedactRule;
+import com.qty.log.bean.QTPackageLevel;
+import com.qty.log.utils.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * 解析后的日志配置
+ *
+ * 日志配置文件解析后保存为二进制缓存文件（log.config.cache），缓存文件记录配置文件的长度和修改时间，
+ * 配置文件没有变化时下次启动直接一次读取缓存文件，不需要再逐行解析配置文件。缓存文件格式：
+ * <pre>
+ *     魔数 'QTLC'、版本号、配置文件长度、配置文件修改时间、配置文件中出现的配置项（位标志）、
+ *     各项配置的值、类日志级别、包日志级别、日志通道、通道路由规则、日志过滤规则、日志脱敏规则、日志持久化策略
+ * </pre>
+ * 版本号不同、配置文件已经修改或者缓存文件损坏时忽略缓存，重新解析配置文件。
+ * @hide
+ */
+class QTLogConfigSnapshot {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogConfigSnapshot.class.getSimpleName();
+    /**
+     * 缓存文件魔数 'QTLC'
+     */
+    private static final int MAGIC = 0x51544C43;
+    /**
+     * 缓存文件版本号，缓存格式变化时需要修改
+     */
+    private static final int VERSION = 4;
+    /**
+     * 缓存文件的最大长度，超过时认为缓存文件已经损坏
+     */
+    private static final int MAX_CACHE_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * 配置文件中设置了 LOG_TAG
+     */
+    static final int FLAG_TAG = 1;
+    /**
+     * 配置文件中设置了 LOG_LEVEL
+     */
+    static final int FLAG_LEVEL = 1 << 1;
+    /**
+     * 配置文件中设置了 TIME_FORMAT
+     */
+    static final int FLAG_TIME_FORMAT = 1 << 2;
+    /**
+     * 配置文件中设置了 TERMINAL_LOG_FORMAT
+     */
+    static final int FLAG_TERMINAL_LOG_FORMAT = 1 << 3;
+    /**
+     * 配置文件中设置了 FILE_LOG_FORMAT
+     */
+    static final int FLAG_FILE_LOG_FORMAT = 1 << 4;
+    /**
+     * 配置文件中设置了 FILE_LOG_LAYOUT
+     */
+    static final int FLAG_FILE_LOG_LAYOUT = 1 << 5;
+    /**
+     * 配置文件中设置了 MAX_STACK_FRAMES
+     */
+    static final int FLAG_MAX_STACK_FRAMES = 1 << 6;
+    /**
+     * 配置文件中设置了 DEFERRED_FORMAT
+     */
+    static final int FLAG_DEFERRED_FORMAT = 1 << 7;
+    /**
+     * 配置文件中设置了 MAX_BUFFER_SIZE
+     */
+    static final int FLAG_MAX_BUFFER_SIZE = 1 << 8;
+
+    /**
+     * 配置文件中出现的配置项
+     */
+    int mFlags;
+    /**
+     * 日志 TAG
+     */
+    String mTag;
+    /**
+     * 日志级别
+     */
+    QTLogLevel mLevel;
+    /**
+     * 时间格式
+     */
+    String mTimeFormat;
+    /**
+     * 终端日志格式
+     */
+    String mTerminalLogFormat;
+    /**
+     * 文件日志格式
+     */
+    String mFileLogFormat;
+    /**
+     * 文件日志布局
+     */
+    String mFileLogLayout;
+    /**
+     * 每个异常最多输出的堆栈帧数
+     */
+    int mMaxStackFrames;
+    /**
+     * 是否延迟格式化文件日志
+     */
+    boolean isDeferredFormat;
+    /**
+     * 日志缓冲内存预算
+     */
+    long mMaxBufferSize;
+    /**
+     * 类的日志级别集合
+     */
+    final ArrayList<QTClassLevel> mClassLevels = new ArrayList<>();
+    /**
+     * 包名的日志级别集合
+     */
+    final ArrayList<QTPackageLevel> mPackageLevels = new ArrayList<>();
+    /**
+     * 日志通道配置集合
+     */
+    final ArrayList<QTChannelConfig> mChannels = new ArrayList<>();
+    /**
+     * 日志通道路由规则集合
+     */
+    final ArrayList<QTChannelRoute> mChannelRoutes = new ArrayList<>();
+    /**
+     * 日志过滤规则集合
+     */
+    final ArrayList<QTLogFilterRule> mFilterRules = new ArrayList<>();
+    /**
+     * 日志脱敏规则集合
+     */
+    final ArrayList<QTLogRedactRule> mRedactRules = new ArrayList<>();
+    /**
+     * 日志持久化策略集合
+     */
+    final ArrayList<QTLogDurability> mDurabilities = new ArrayList<>();
+
+    /**
+     * 判断配置文件中是否设置了某个配置项
+     * @param flag 配置项的位标志
+     * @return 如果设置了，返回 true；否则返回 false
+     */
+    boolean has(int flag) {
+        return (mFlags & flag) != 0;
+    }
+
+    /**
+     * 读取缓存文件
+     * @param cacheFile 缓存文件
+     * @param configFile 配置文件
+     * @return 返回解析后的日志配置；缓存文件不存在、已经过期或者已经损坏时返回 null
+     */
+    static QTLogConfigSnapshot read(File cacheFile, File configFile) {
+        long length = cacheFile.length();
+        if (!cacheFile.isFile() || length <= 0 || length > MAX_CACHE_SIZE) {
+            return null;
+        }
+        byte[] data = new byte[(int) length];
+        try (FileInputStream in = new FileInputStream(cacheFile)) {
+            int offset = 0;
+            while (offset < data.length) {
+                int count = in.read(data, offset, data.length - offset);
+                if (count < 0) {
+                    return null;
+                }
+                offset += count;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "read=>Read config cache error: " + e);
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != configFile.length()
+                    || in.readLong() != configFile.lastModified()) {
+                return null;
+            }
+            QTLogConfigSnapshot snapshot = new QTLogConfigSnapshot();
+            snapshot.mFlags = in.readInt();
+            snapshot.mTag = readString(in);
+            snapshot.mLevel = readLevel(in);
+            snapshot.mTimeFormat = readString(in);
+            snapshot.mTerminalLogFormat = readString(in);
+            snapshot.mFileLogFormat = readString(in);
+            snapshot.mFileLogLayout = readString(in);
+            snapshot.mMaxStackFrames = in.readInt();
+            snapshot.isDeferredFormat = in.readBoolean();
+            snapshot.mMaxBufferSize = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                snapshot.mClassLevels.add(new QTClassLevel(in.readUTF(), readLevel(in)));
+            }
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                snapshot.mPackageLevels.add(new QTPackageLevel(in.readUTF(), readLevel(in)));
+            }
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                snapshot.mChannels.add(new QTChannelConfig(in.readUTF(), in.readInt(), in.readLong()));
+            }
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                snapshot.mChannelRoutes.add(new QTChannelRoute(in.readInt(), in.readUTF(), in.readUTF()));
+            }
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                snapshot.mFilterRules.add(new QTLogFilterRule(in.readInt(), in.readUTF(), readString(in)));
+            }
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                snapshot.mRedactRules.add(new QTLogRedactRule(in.readInt(), readString(in)));
+            }
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                snapshot.mDurabilities.add(new QTLogDurability(readString(in), in.readInt(), in.readLong(),
+                        in.readLong()));
+            }
+            return snapshot;
+        } catch (Exception e) {
+            Log.w(TAG, "read=>Invalid config cache " + cacheFile + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * 保存缓存文件，先写入临时文件再重命名，避免缓存文件写入一半
+     * @param cacheFile 缓存文件
+     * @param configFile 配置文件
+     */
+    void write(File cacheFile, File configFile) {
+        File tmp = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(configFile.length());
+            out.writeLong(configFile.lastModified());
+            out.writeInt(mFlags);
+            writeString(out, mTag);
+            writeLevel(out, mLevel);
+            writeString(out, mTimeFormat);
+            writeString(out, mTerminalLogFormat);
+            writeString(out, mFileLogFormat);
+            writeString(out, mFileLogLayout);
+            out.writeInt(mMaxStackFrames);
+            out.writeBoolean(isDeferredFormat);
+            out.writeLong(mMaxBufferSize);
+            out.writeInt(mClassLevels.size());
+            for (int i = 0; i < mClassLevels.size(); i++) {
+                out.writeUTF(mClassLevels.get(i).getClassName());
+                writeLevel(out, mClassLevels.get(i).getLevel());
+            }
+            out.writeInt(mPackageLevels.size());
+            for (int i = 0; i < mPackageLevels.size(); i++) {
+                out.writeUTF(mPackageLevels.get(i).getPackageName());
+                writeLevel(out, mPackageLevels.get(i).getLevel());
+            }
+            out.writeInt(mChannels.size());
+            for (int i = 0; i < mChannels.size(); i++) {
+                QTChannelConfig channel = mChannels.get(i);
+                out.writeUTF(channel.getName());
+                out.writeInt(channel.getMaxSaveDays());
+                out.writeLong(channel.getMaxSaveSize());
+            }
+            out.writeInt(mChannelRoutes.size());
+            for (int i = 0; i < mChannelRoutes.size(); i++) {
+                QTChannelRoute route = mChannelRoutes.get(i);
+                out.writeInt(route.getType());
+                out.writeUTF(route.getKey());
+                out.writeUTF(route.getChannel());
+            }
+            out.writeInt(mFilterRules.size());
+            for (int i = 0; i < mFilterRules.size(); i++) {
+                QTLogFilterRule rule = mFilterRules.get(i);
+                out.writeInt(rule.getType());
+                out.writeUTF(rule.getKey());
+                writeString(out, rule.getValue());
+            }
+            out.writeInt(mRedactRules.size());
+            for (int i = 0; i < mRedactRules.size(); i++) {
+                out.writeInt(mRedactRules.get(i).getType());
+                writeString(out, mRedactRules.get(i).getKey());
+            }
+            out.writeInt(mDurabilities.size());
+            for (int i = 0; i < mDurabilities.size(); i++) {
+                QTLogDurability durability = mDurabilities.get(i);
+                writeString(out, durability.getChannel());
+                out.writeInt(durability.getMode());
+                out.writeLong(durability.getInterval());
+                out.writeLong(durability.getBytes());
+            }
+            out.flush();
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                bytes.writeTo(fos);
+            }
+            if (cacheFile.exists() && !cacheFile.delete()) {
+                Log.w(TAG, "write=>Unable replace config cache " + cacheFile);
+                tmp.delete();
+                return;
+            }
+            if (!tmp.renameTo(cacheFile)) {
+                Log.w(TAG, "write=>Unable rename " + tmp + " to " + cacheFile);
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "write=>Write config cache error: " + e);
+            tmp.delete();
+        }
+    }
+
+    /**
+     * 写入可以为 null 的字符串
+     * @param out 输出流
+     * @param value 字符串
+     * @throws IOException 写入失败时抛出
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * 读取可以为 null 的字符串
+     * @param in 输入流
+     * @return 返回字符串
+     * @throws IOException 读取失败时抛出
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * 写入日志级别，使用日志级别的原始值
+     * @param out 输出流
+     * @param level 日志级别，可以为 null
+     * @throws IOException 写入失败时抛出
+     */
+    private static void writeLevel(DataOutputStream out, QTLogLevel level) throws IOException {
+        out.writeByte(level != null ? level.rawValue() : -1);
+    }
+
+    /**
+     * 读取日志级别
+     * @param in 输入流
+     * @return 返回日志级别，可以为 null
+     * @throws IOException 读取失败或者日志级别无效时抛出
+     */
+    private static QTLogLevel readLevel(DataInputStream in) throws IOException {
+        int value = in.readByte();
+        if (value < 0) {
+            return null;
+        }
+        QTLogLevel level = QTLogLevel.fromRawValue(value);
+        if (level == null) {
+            throw new IOException("Unknown level " + value);
+        }
+        return level;
+    }
+}
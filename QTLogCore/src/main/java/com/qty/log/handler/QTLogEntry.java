@@ -0,0 +1,323 @@
+package com.qty.log.handler;
+
+import com.qty.log.QTLogContext;
+import com.qty.log.QTLogEngine;
+import com.qty.log.QTLogEvent;
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.format.QTJsonLayout;
+import com.qty.log.format.QTLogLayout;
+import com.qty.log.format.QTTimeFormatter;
+
+/**
+ * 日志队列中的一条日志
+ *
+ * 日志内容复制到可复用的字符数组中，写入完成后对象回到日志队列的对象池，下一条日志继续使用，
+ * 所以打印日志时不需要为每条日志创建新的对象。只能在持有日志队列锁（生产者）或者在
+ * {@link QTLogRingBuffer#release(int)} 之前（消费者）访问。
+ *
+ * 延迟格式化时打印线程只通过 {@link #setRaw} 记录日志的原始内容（级别、时间、TAG、线程名、调用位置、日志信息等），
+ * 由写入线程调用 {@link #format(StringBuilder, QTTimeFormatter)} 按文件日志布局格式化。
+ * @hide
+ */
+public class QTLogEntry {
+
+    /**
+     * 字符数组的初始容量
+     */
+    private static final int INITIAL_CAPACITY = 256;
+    /**
+     * 回收时保留的字符数组最大容量，超过该容量的数组在回收时丢弃，避免偶尔出现的超长日志长期占用内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 4 * 1024;
+    /**
+     * 估算内存占用时每条日志的固定开销，单位：字节
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+    /**
+     * 估算内存占用时未格式化日志中日志信息以外内容（时间、级别、调用位置等）的长度
+     */
+    private static final int RAW_FORMAT_LENGTH = 128;
+
+    /**
+     * 日志时间，单位：毫秒
+     */
+    private long mTime;
+    /**
+     * 加入队列的时间，单位：纳秒
+     */
+    private long mEnqueueNanos;
+    /**
+     * 日志在通道中的序号，已经格式化的日志为 0
+     */
+    private long mSequence;
+    /**
+     * 日志内容
+     */
+    private char[] mChars = new char[INITIAL_CAPACITY];
+    /**
+     * 日志内容的长度
+     */
+    private int mLength;
+    /**
+     * 日志在内存预算中占用的大小，单位：字节
+     */
+    private long mSize;
+    /**
+     * 是否还没有格式化
+     */
+    private boolean isRaw;
+    /**
+     * 文件日志布局，为 null 时使用 JSON Lines 布局
+     */
+    private QTLogLayout mLayout;
+    /**
+     * 日志级别
+     */
+    private QTLogLevel mLevel;
+    /**
+     * 日志 TAG
+     */
+    private String mTag;
+    /**
+     * 线程名
+     */
+    private String mThread;
+    /**
+     * 日志调用位置
+     */
+    private StackTraceElement mLocation;
+    /**
+     * 日志信息
+     */
+    private String mMessage;
+    /**
+     * 异常堆栈
+     */
+    private String mTrace;
+    /**
+     * 日志上下文
+     */
+    private QTLogContext.Snapshot mContext;
+    /**
+     * 结构化日志事件
+     */
+    private QTLogEvent mEvent;
+
+    /**
+     * 估算已经格式化的日志占用的内存
+     * @param msg 日志内容
+     * @return 返回占用的内存，单位：字节
+     */
+    public static long sizeOf(CharSequence msg) {
+        return ENTRY_OVERHEAD + 2L * msg.length();
+    }
+
+    /**
+     * 估算未格式化的日志格式化后占用的内存
+     * @return 返回占用的内存，单位：字节
+     */
+    public long rawSize() {
+        long length = RAW_FORMAT_LENGTH;
+        if (mMessage != null) {
+            length += mMessage.length();
+        }
+        if (mTrace != null) {
+            length += mTrace.length();
+        }
+        return ENTRY_OVERHEAD + 2 * length;
+    }
+
+    /**
+     * 设置日志在内存预算中占用的大小
+     * @param size 占用的内存，单位：字节
+     */
+    void setSize(long size) {
+        mSize = size;
+    }
+
+    /**
+     * 获取日志在内存预算中占用的大小
+     * @return 返回占用的内存，单位：字节
+     */
+    public long getSize() {
+        return mSize;
+    }
+
+    /**
+     * 获取日志级别，延迟格式化的日志在 {@link #format(StringBuilder, QTTimeFormatter)} 之后返回 null
+     * @return 返回日志级别，没有指定日志级别时返回 null
+     */
+    public QTLogLevel getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * 设置已经格式化的日志内容
+     * @param level 日志级别，可以为 null
+     * @param time 日志时间，单位：毫秒
+     * @param msg 日志信息
+     */
+    void set(QTLogLevel level, long time, CharSequence msg) {
+        setChars(msg);
+        mLevel = level;
+        mTime = time;
+        mEnqueueNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录日志的原始内容，不进行格式化
+     * @param layout 文件日志布局，为 null 时使用 JSON Lines 布局
+     * @param level 日志级别
+     * @param time  日志时间，单位：毫秒
+     * @param sequence 日志在通道中的序号，参见 {@link QTLogChannel#nextSequence()}
+     * @param tag   日志 TAG
+     * @param thread 线程名
+     * @param location 日志调用位置，可以为 null
+     * @param msg   日志信息
+     * @param trace 异常堆栈，可以为 null
+     * @param context 日志上下文
+     * @param event 结构化日志事件，可以为 null
+     */
+    public void setRaw(QTLogLayout layout, QTLogLevel level, long time, long sequence, String tag, String thread,
+                       StackTraceElement location, String msg, String trace, QTLogContext.Snapshot context,
+                       QTLogEvent event) {
+        isRaw = true;
+        mLayout = layout;
+        mLevel = level;
+        mTime = time;
+        mSequence = sequence;
+        mTag = tag;
+        mThread = thread;
+        mLocation = location;
+        mMessage = msg;
+        mTrace = trace;
+        mContext = context;
+        mEvent = event;
+    }
+
+    /**
+     * 复制另一条日志的原始内容
+     * @param raw 通过 {@link #setRaw} 记录的日志
+     */
+    void setRaw(QTLogEntry raw) {
+        setRaw(raw.mLayout, raw.mLevel, raw.mTime, raw.mSequence, raw.mTag, raw.mThread, raw.mLocation,
+                raw.mMessage, raw.mTrace, raw.mContext, raw.mEvent);
+        mLength = 0;
+        mEnqueueNanos = System.nanoTime();
+    }
+
+    /**
+     * 按文件日志布局格式化日志的原始内容，由写入线程调用，已经格式化的日志不做处理
+     * @param sb 格式化使用的缓冲区
+     * @param timeFormatter 时间格式化对象
+     */
+    void format(StringBuilder sb, QTTimeFormatter timeFormatter) {
+        if (!isRaw) {
+            return;
+        }
+        sb.setLength(0);
+        String timeFormat = QTLogConfig.getInstance().getTimeFormat();
+        if (mLayout != null) {
+            mLayout.append(sb, timeFormatter, timeFormat, mLevel, mTime, mSequence, mTag, mThread, mLocation,
+                    mMessage, mTrace, mContext, mEvent);
+        } else {
+            String packageName = QTLogEngine.getInstance().getPackageName();
+            QTJsonLayout.append(sb, mTime, mSequence, timeFormatter.format(timeFormat, mTime), mLevel, mTag,
+                    packageName != null ? packageName : "Unknow", mThread, mLocation, mMessage, mTrace,
+                    mContext, mEvent);
+        }
+        setChars(sb);
+        clearRaw();
+    }
+
+    /**
+     * 复制日志内容到字符数组中
+     * @param msg 日志内容
+     */
+    private void setChars(CharSequence msg) {
+        int length = msg.length();
+        if (length > mChars.length) {
+            mChars = new char[Math.max(length, mChars.length * 2)];
+        }
+        if (msg instanceof String) {
+            ((String) msg).getChars(0, length, mChars, 0);
+        } else if (msg instanceof StringBuilder) {
+            ((StringBuilder) msg).getChars(0, length, mChars, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                mChars[i] = msg.charAt(i);
+            }
+        }
+        mLength = length;
+    }
+
+    /**
+     * 清除原始内容的引用，避免回收后的对象继续引用日志信息
+     */
+    public void clearRaw() {
+        isRaw = false;
+        mLayout = null;
+        mLevel = null;
+        mTag = null;
+        mThread = null;
+        mLocation = null;
+        mMessage = null;
+        mTrace = null;
+        mContext = null;
+        mEvent = null;
+    }
+
+    /**
+     * 回收对象，清空日志内容
+     */
+    void recycle() {
+        if (mChars.length > MAX_RETAINED_CAPACITY) {
+            mChars = new char[INITIAL_CAPACITY];
+        }
+        mLength = 0;
+        mSize = 0;
+        mSequence = 0;
+        clearRaw();
+    }
+
+    /**
+     * 获取日志时间
+     * @return 返回日志时间，单位：毫秒
+     */
+    public long getTime() {
+        return mTime;
+    }
+
+    /**
+     * 获取加入队列的时间
+     * @return 返回加入队列的时间，单位：纳秒
+     */
+    public long getEnqueueNanos() {
+        return mEnqueueNanos;
+    }
+
+    /**
+     * 获取保存日志内容的字符数组，有效内容为前 {@link #length()} 个字符
+     * @return 返回字符数组
+     */
+    public char[] getChars() {
+        return mChars;
+    }
+
+    /**
+     * 获取日志内容的长度
+     * @return 返回日志内容的长度
+     */
+    public int length() {
+        return mLength;
+    }
+
+    /**
+     * 获取日志内容，会创建新的字符串
+     * @return 返回日志内容
+     */
+    @Override
+    public String toString() {
+        return new String(mChars, 0, mLength);
+    }
+}
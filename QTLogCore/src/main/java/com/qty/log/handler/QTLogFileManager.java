@@ -0,0 +1,348 @@
+package com.qty.log.handler;
+
+import com.qty.log.bean.QTChannelConfig;
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.metrics.QTLogMetrics;
+import com.qty.log.platform.QTLogDirectoryProvider;
+import com.qty.log.utils.FileUtils;
+import com.qty.log.utils.Log;
+import com.qty.log.utils.TextUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * 日志文件管理类
+ *
+ * 日志按通道写入文件，每个通道有独立的日志队列和写入线程。没有配置路由规则的日志写入默认通道，
+ * 默认通道的日志文件保存在 logs 目录下，其他通道保存在 logs/通道名/ 目录下，
+ * 通道和路由规则在 log.config 中配置，参见 {@link QTLogConfig}。
+ * 多进程应用需要在初始化之前调用 {@link #setProcessName(String)}，每个进程写入自己的日志文件。
+ * @hide
+ */
+public class QTLogFileManager {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogFileManager.class.getSimpleName();
+    /**
+     * 默认最大日志文件存储天数, 默认：7天
+     */
+    public static final int DEFAULT_MAX_SAVE_DAYS = 7;
+    /**
+     * 默认总日志文件保存空间大小，默认：100MB
+     */
+    public static final long DEFAULT_MAX_SAVE_SIZE = 100 * 1024 * 1024;
+    /**
+     * 清除过期日志文件时间间隔
+     */
+    private static final long CLEAN_TIME_INTERVAL = 60 * 60 * 1000;
+    /**
+     * QTLogFileManager 对象
+     */
+    private static final QTLogFileManager INSTANCE = QTLogFileManagerInstance.sInstance;
+
+    /**
+     * 日志目录提供对象
+     */
+    private QTLogDirectoryProvider mDirectoryProvider;
+    /**
+     * 日志文件保存天数，单位：天，小于或等于 0 表示不设置
+     */
+    private int mMaxSaveDays;
+    /**
+     * 日志文件保存的总文件大小，单位：Byte，小于或等于 0 表示不设置
+     */
+    private long mMaxSaveSize;
+    /**
+     * 当前进程的名称，用于生成日志文件名，为 null 表示主进程
+     */
+    private volatile String mProcessName;
+    /**
+     * 是否将日志写入文件中
+     */
+    private boolean writeToFile;
+    /**
+     * 默认日志通道
+     */
+    private volatile QTLogChannel mDefaultChannel;
+    /**
+     * 日志通道集合，键为通道名称
+     */
+    private volatile HashMap<String, QTLogChannel> mChannels = new HashMap<>();
+    /**
+     * 日志清理定时器
+     */
+    private Timer mCleanTimer;
+    /**
+     * 日志清除任务
+     */
+    private TimerTask mCleanTask;
+    /**
+     * 是否停止向日志队列中添加日志
+     */
+    private boolean stopAddLogToQueue;
+
+    /**
+     * 单例方法
+     * @return 返回 QTLogFileManager
+     */
+    public static QTLogFileManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 内部构造方法
+     */
+    private QTLogFileManager() {}
+
+    /**
+     * 初始化方法
+     * @param directoryProvider 日志目录提供对象
+     * @param maxSaveDays 最大保存天数
+     * @param maxSaveSize 最大保存空间大小
+     * @param writeToFile   是否将日志写入文件
+     */
+    public void init(QTLogDirectoryProvider directoryProvider, int maxSaveDays, long maxSaveSize, boolean writeToFile) {
+        mDirectoryProvider = directoryProvider;
+        mMaxSaveDays = maxSaveDays;
+        mMaxSaveSize = maxSaveSize;
+        this.writeToFile = writeToFile;
+        createChannels();
+        if (writeToFile) {
+            startCleanExpiredFilesTimer();
+        }
+    }
+
+    /**
+     * 设置当前进程的名称，需要在初始化之前调用。非主进程的日志写入 yyyy-MM-dd@进程名.log，
+     * 进程名中除字母、数字、'.'、'_'、'-' 以外的字符会被替换为 '_'
+     * @param processName 进程名称，例如 "push"，为 null 或空字符串表示主进程
+     */
+    public void setProcessName(String processName) {
+        if (TextUtils.isEmpty(processName)) {
+            mProcessName = null;
+            return;
+        }
+        StringBuilder sb = new StringBuilder(processName.length());
+        for (int i = 0; i < processName.length(); i++) {
+            char c = processName.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '_' || c == '-') {
+                sb.append(c);
+            } else {
+                sb.append('_');
+            }
+        }
+        mProcessName = sb.toString();
+    }
+
+    /**
+     * 获取当前进程的名称
+     * @return 返回进程名称，主进程返回 null
+     */
+    public String getProcessName() {
+        return mProcessName;
+    }
+
+    /**
+     * 根据日志配置创建日志通道，已经存在的通道会在写完队列中的日志后停止
+     */
+    private void createChannels() {
+        QTLogChannel oldDefault = mDefaultChannel;
+        HashMap<String, QTLogChannel> oldChannels = mChannels;
+        String logDir = FileUtils.getLogFileDirectory(mDirectoryProvider);
+        if (logDir == null) {
+            Log.e(TAG, "createChannels=>Can't get log file directory.");
+            logDir = "";
+        }
+        File root = new File(logDir);
+        HashMap<String, QTLogChannel> channels = new HashMap<>();
+        List<QTChannelConfig> configs = QTLogConfig.getInstance().getChannels();
+        for (int i = 0; i < configs.size(); i++) {
+            QTChannelConfig config = configs.get(i);
+            if (QTLogChannel.DEFAULT_CHANNEL.equals(config.getName())) {
+                Log.e(TAG, "createChannels=>Channel name \"" + config.getName() + "\" is reserved.");
+                continue;
+            }
+            int maxSaveDays = config.getMaxSaveDays();
+            long maxSaveSize = config.getMaxSaveSize();
+            if (maxSaveDays <= 0 && maxSaveSize <= 0) {
+                maxSaveDays = mMaxSaveDays;
+                maxSaveSize = mMaxSaveSize;
+            }
+            channels.put(config.getName(), new QTLogChannel(config.getName(),
+                    new File(root, config.getName()), maxSaveDays, maxSaveSize,
+                    QTLogChannel.DEFAULT_QUEUE_CAPACITY, mProcessName));
+        }
+        mChannels = channels;
+        mDefaultChannel = new QTLogChannel(QTLogChannel.DEFAULT_CHANNEL, root, mMaxSaveDays, mMaxSaveSize,
+                QTLogChannel.DEFAULT_QUEUE_CAPACITY, mProcessName);
+        if (oldDefault != null) {
+            oldDefault.stop();
+        }
+        for (QTLogChannel channel : oldChannels.values()) {
+            channel.stop();
+        }
+    }
+
+    /**
+     * 获取日志应该写入的通道
+     * @param tag   日志 TAG
+     * @param clazz 打印日志的类，可以为 null
+     * @return 返回日志通道，未初始化时返回 null
+     */
+    public QTLogChannel getChannel(String tag, Class clazz) {
+        String name = QTLogConfig.getInstance().getChannelName(tag, clazz);
+        if (name != null) {
+            QTLogChannel channel = mChannels.get(name);
+            if (channel != null) {
+                return channel;
+            }
+            Log.w(TAG, "getChannel=>Channel " + name + " is not configured, use default channel.");
+        }
+        return mDefaultChannel;
+    }
+
+    /**
+     * 获取所有日志通道（包括默认通道）
+     * @return 返回日志通道集合
+     */
+    public List<QTLogChannel> getChannels() {
+        ArrayList<QTLogChannel> channels = new ArrayList<>();
+        if (mDefaultChannel != null) {
+            channels.add(mDefaultChannel);
+        }
+        channels.addAll(mChannels.values());
+        return channels;
+    }
+
+    /**
+     * 停止向日志队列中添加日志
+     */
+    public void stopAddLogToQueue() {
+        stopAddLogToQueue = true;
+    }
+
+    /**
+     * 判断日志队列是否为空
+     * @return 如果所有通道的日志队列都为空，返回 true；否则返回 false
+     */
+    public boolean isLogQueueEmpty() {
+        List<QTLogChannel> channels = getChannels();
+        for (int i = 0; i < channels.size(); i++) {
+            if (!channels.get(i).isIdle()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 清除所有通道的过期日志文件
+     */
+    public void clearExpiredFiles() {
+        Log.i(TAG, "clearExpiredFiles()...");
+        List<QTLogChannel> channels = getChannels();
+        for (int i = 0; i < channels.size(); i++) {
+            channels.get(i).clearExpiredFiles();
+        }
+    }
+
+    /**
+     * 启动清除过期日志文件定时器
+     */
+    public void startCleanExpiredFilesTimer() {
+        if (mCleanTimer != null) {
+            mCleanTimer.cancel();
+        }
+        if (mCleanTask != null) {
+            mCleanTask.cancel();
+        }
+        mCleanTimer = new Timer();
+        mCleanTask = new TimerTask() {
+            @Override
+            public void run() {
+                clearExpiredFiles();
+                startCleanExpiredFilesTimer();
+            }
+        };
+        mCleanTimer.schedule(mCleanTask, CLEAN_TIME_INTERVAL);
+    }
+
+    /**
+     * 将要打印的日志添加到默认通道的日志打印队列中
+     * @param time  日志时间
+     * @param msg   日志信息
+     */
+    public void addLogToQueue(Calendar time, String msg) {
+        addLogToQueue(mDefaultChannel, null, time.getTimeInMillis(), msg);
+    }
+
+    /**
+     * 将要打印的日志添加到默认通道的日志打印队列中
+     * @param time  日志时间，单位：毫秒
+     * @param msg   日志信息，返回后可以复用
+     */
+    public void addLogToQueue(long time, CharSequence msg) {
+        addLogToQueue(mDefaultChannel, null, time, msg);
+    }
+
+    /**
+     * 将要打印的日志添加到指定通道的日志打印队列中，日志内容复制到队列中可复用的日志对象，返回后可以复用 msg
+     * @param channel   日志通道
+     * @param level 日志级别，用于超出内存预算时按级别丢弃，为 null 时不按级别丢弃
+     * @param time  日志时间，单位：毫秒
+     * @param msg   日志信息
+     */
+    public void addLogToQueue(QTLogChannel channel, QTLogLevel level, long time, CharSequence msg) {
+        if (canAddLogToQueue(channel)) {
+            channel.offer(level, time, msg);
+        }
+    }
+
+    /**
+     * 将未格式化的日志添加到指定通道的日志打印队列中，由通道的写入线程格式化，返回后可以复用 raw
+     * @param channel   日志通道
+     * @param raw   通过 {@link QTLogEntry#setRaw} 记录的日志
+     */
+    public void addLogToQueue(QTLogChannel channel, QTLogEntry raw) {
+        if (canAddLogToQueue(channel)) {
+            channel.offer(raw);
+        }
+    }
+
+    /**
+     * 判断是否可以将日志添加到通道的日志打印队列中
+     * @param channel 日志通道
+     * @return 如果可以添加，返回 true；否则返回 false
+     */
+    private boolean canAddLogToQueue(QTLogChannel channel) {
+        if (!writeToFile) {
+            // 没有开启写入文件，不需要每条日志都输出警告
+            return false;
+        }
+        if (!stopAddLogToQueue && channel != null) {
+            return true;
+        }
+        if (stopAddLogToQueue) {
+            QTLogMetrics.getInstance().onDropped();
+        }
+        Log.w(TAG, "addLogToQueue=>unabled add, writeToFile = "
+                + writeToFile + ", isStop: " + stopAddLogToQueue);
+        return false;
+    }
+
+    /**
+     * 内部类，单例实现辅助类
+     */
+    private static class QTLogFileManagerInstance {
+        public static final QTLogFileManager sInstance = new QTLogFileManager();
+    }
+}
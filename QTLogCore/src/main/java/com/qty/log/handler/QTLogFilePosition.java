@@ -0,0 +1,47 @@
+package com.qty.log.handler;
+
+import java.io.File;
+
+/**
+ * 日志文件位置
+ *
+ * 表示写入线程已经写入并刷新到日志文件中的位置，位置之前的日志都是完整的。
+ * @hide
+ */
+public class QTLogFilePosition {
+
+    /**
+     * 日志文件
+     */
+    private final File mFile;
+    /**
+     * 文件中的偏移
+     */
+    private final long mOffset;
+
+    /**
+     * 构造方法
+     * @param file 日志文件
+     * @param offset 文件中的偏移
+     */
+    public QTLogFilePosition(File file, long offset) {
+        mFile = file;
+        mOffset = offset;
+    }
+
+    /**
+     * 获取日志文件
+     * @return 返回日志文件
+     */
+    public File getFile() {
+        return mFile;
+    }
+
+    /**
+     * 获取文件中的偏移
+     * @return 返回偏移，单位：Byte
+     */
+    public long getOffset() {
+        return mOffset;
+    }
+}
@@ -0,0 +1,148 @@
+package com.qty.log.handler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 日志文件写入类
+ *
+ * 以 UTF-8 编码追加写入日志，并记录当前写入位置（字节偏移），用于生成日志索引。
+ * 字符直接编码到可复用的写入缓冲区中，不为每条日志创建字节数组，无法编码的字符（单独的代理字符）写为 '?'，
+ * 与 String.getBytes() 相同。
+ * @hide
+ */
+public class QTLogFileWriter {
+
+    /**
+     * 写入缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * 日志文件
+     */
+    private final File mFile;
+    /**
+     * 文件输出流
+     */
+    private final FileOutputStream mOutput;
+    /**
+     * 写入缓冲区
+     */
+    private final byte[] mBuffer = new byte[BUFFER_SIZE];
+    /**
+     * 写入缓冲区中的字节数
+     */
+    private int mCount;
+    /**
+     * 当前写入位置
+     */
+    private long mPosition;
+
+    /**
+     * 构造方法，以追加方式打开日志文件
+     * @param file 日志文件
+     * @throws IOException 打开文件失败时抛出
+     */
+    public QTLogFileWriter(File file) throws IOException {
+        mFile = file;
+        mPosition = file.length();
+        mOutput = new FileOutputStream(file, true);
+    }
+
+    /**
+     * 获取日志文件
+     * @return 返回日志文件
+     */
+    public File getFile() {
+        return mFile;
+    }
+
+    /**
+     * 获取当前写入位置
+     * @return 返回当前写入位置
+     */
+    public long position() {
+        return mPosition;
+    }
+
+    /**
+     * 写入日志
+     * @param chars 日志内容
+     * @param offset 日志内容在数组中的开始位置
+     * @param length 日志内容的长度
+     * @return 返回写入的字节数
+     * @throws IOException 写入失败时抛出
+     */
+    public int write(char[] chars, int offset, int length) throws IOException {
+        byte[] buffer = mBuffer;
+        int count = mCount;
+        int start = count;
+        int bytes = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (count > BUFFER_SIZE - 4) {
+                mOutput.write(buffer, 0, count);
+                bytes += count - start;
+                count = 0;
+                start = 0;
+            }
+            char c = chars[i];
+            if (c < 0x80) {
+                buffer[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[count++] = (byte) (0xc0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                int codePoint = Character.toCodePoint(c, chars[++i]);
+                buffer[count++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buffer[count++] = '?';
+            } else {
+                buffer[count++] = (byte) (0xe0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        bytes += count - start;
+        mCount = count;
+        mPosition += bytes;
+        return bytes;
+    }
+
+    /**
+     * 将缓冲区中的数据写入文件
+     * @throws IOException 写入失败时抛出
+     */
+    public void flush() throws IOException {
+        if (mCount > 0) {
+            mOutput.write(mBuffer, 0, mCount);
+            mCount = 0;
+        }
+    }
+
+    /**
+     * 将缓冲区中的数据写入文件，并强制将文件内容写入存储设备（不包括修改时间等元数据，相当于 fdatasync）
+     * @throws IOException 写入失败时抛出
+     */
+    public void sync() throws IOException {
+        flush();
+        mOutput.getChannel().force(false);
+    }
+
+    /**
+     * 关闭文件
+     */
+    public void close() {
+        try {
+            flush();
+        } catch (Exception ignore) {}
+        try {
+            mOutput.close();
+        } catch (Exception ignore) {}
+    }
+}
@@ -0,0 +1,216 @@
+package com.qty.log.handler;
+
+import com.qty.log.utils.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * 日志文件的稀疏时间索引
+ *
+ * 每个日志文件 yyyy-MM-dd.log 旁边有一个同名的 yyyy-MM-dd.idx 索引文件，写入线程每写入 4KB 日志
+ * 或者日志时间进入新的一秒时，记录一条索引（时间，日志在文件中的字节偏移）。索引文件格式：
+ * <pre>
+ *     文件头：int 魔数 'QTLI'，int 版本号
+ *     索引项：long 时间（毫秒），long 偏移
+ * </pre>
+ * 索引项中的时间是截止到该日志为止所有日志时间的最大值，所以索引项按时间有序，并且偏移之前的日志
+ * 时间都不大于该索引项的时间，查找时可以直接二分定位。
+ * @hide
+ */
+public class QTLogIndex {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogIndex.class.getSimpleName();
+    /**
+     * 索引文件后缀
+     */
+    public static final String INDEX_FILE_SUFFIX = ".idx";
+    /**
+     * 索引文件魔数 'QTLI'
+     */
+    private static final int MAGIC = 0x51544C49;
+    /**
+     * 索引文件版本号
+     */
+    private static final int VERSION = 1;
+    /**
+     * 文件头长度
+     */
+    private static final int HEADER_SIZE = 8;
+    /**
+     * 索引项长度
+     */
+    private static final int ENTRY_SIZE = 16;
+    /**
+     * 两个索引项之间的最大日志字节数
+     */
+    private static final long INDEX_INTERVAL_BYTES = 4 * 1024;
+    /**
+     * 两个索引项之间的最大时间间隔，单位：毫秒
+     */
+    private static final long INDEX_INTERVAL_MILLIS = 1000;
+
+    /**
+     * 索引文件输出流
+     */
+    private DataOutputStream mOutput;
+    /**
+     * 最后一条索引的偏移
+     */
+    private long mLastOffset = -1;
+    /**
+     * 最后一条索引的时间（按秒）
+     */
+    private long mLastSecond = -1;
+    /**
+     * 已写入日志的最大时间
+     */
+    private long mMaxTime = Long.MIN_VALUE;
+
+    /**
+     * 获取日志文件对应的索引文件
+     * @param logFile 日志文件
+     * @return 返回索引文件
+     */
+    public static File getIndexFile(File logFile) {
+        String name = logFile.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        return new File(logFile.getParentFile(), name + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * 打开日志文件对应的索引文件，如果索引文件不存在或为空，则写入文件头
+     * @param logFile 日志文件
+     * @throws IOException 打开文件失败时抛出
+     */
+    public void open(File logFile) throws IOException {
+        close();
+        File indexFile = getIndexFile(logFile);
+        boolean isNew = indexFile.length() < HEADER_SIZE;
+        if (isNew && indexFile.exists()) {
+            indexFile.delete();
+        }
+        mOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)));
+        if (isNew) {
+            mOutput.writeInt(MAGIC);
+            mOutput.writeInt(VERSION);
+        }
+        mLastOffset = -1;
+        mLastSecond = -1;
+        mMaxTime = isNew ? Long.MIN_VALUE : readLastTime(indexFile);
+    }
+
+    /**
+     * 读取索引文件中最后一条索引的时间，使追加的索引仍然按时间有序
+     * @param indexFile 索引文件
+     * @return 返回最后一条索引的时间，如果没有索引项，则返回 Long.MIN_VALUE
+     */
+    private static long readLastTime(File indexFile) {
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r")) {
+            long count = (raf.length() - HEADER_SIZE) / ENTRY_SIZE;
+            if (count <= 0) {
+                return Long.MIN_VALUE;
+            }
+            raf.seek(HEADER_SIZE + (count - 1) * ENTRY_SIZE);
+            return raf.readLong();
+        } catch (IOException e) {
+            Log.e(TAG, "readLastTime=>Read index file error: ", e);
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * 在写入一条日志之前调用，按需记录索引项
+     * @param time  日志时间，单位：毫秒
+     * @param offset 日志在文件中的偏移
+     * @throws IOException 写入失败时抛出
+     */
+    public void onRecord(long time, long offset) throws IOException {
+        if (time > mMaxTime) {
+            mMaxTime = time;
+        }
+        if (mOutput == null) {
+            return;
+        }
+        long second = time / INDEX_INTERVAL_MILLIS;
+        if (mLastOffset < 0 || offset - mLastOffset >= INDEX_INTERVAL_BYTES || second != mLastSecond) {
+            mOutput.writeLong(mMaxTime);
+            mOutput.writeLong(offset);
+            mLastOffset = offset;
+            mLastSecond = second;
+        }
+    }
+
+    /**
+     * 将缓冲区中的索引写入文件，需要在日志文件刷新之后调用
+     * @throws IOException 写入失败时抛出
+     */
+    public void flush() throws IOException {
+        if (mOutput != null) {
+            mOutput.flush();
+        }
+    }
+
+    /**
+     * 关闭索引文件
+     */
+    public void close() {
+        if (mOutput != null) {
+            try {
+                mOutput.close();
+            } catch (Exception ignore) {}
+            mOutput = null;
+        }
+    }
+
+    /**
+     * 查找日志文件中第一条时间可能不小于 time 的日志的偏移
+     *
+     * 返回的位置之前的日志时间都小于 time。如果索引文件不存在或已损坏，返回 0，从文件开头读取。
+     * @param logFile 日志文件
+     * @param time  时间，单位：毫秒
+     * @return 返回日志文件中的偏移
+     */
+    public static long findOffset(File logFile, long time) {
+        File indexFile = getIndexFile(logFile);
+        if (!indexFile.isFile()) {
+            return 0;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r")) {
+            if (raf.length() < HEADER_SIZE || raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+                Log.w(TAG, "findOffset=>Invalid index file " + indexFile);
+                return 0;
+            }
+            long count = (raf.length() - HEADER_SIZE) / ENTRY_SIZE;
+            long low = 0;
+            long high = count - 1;
+            long offset = 0;
+            // 查找最后一个时间小于 time 的索引项
+            while (low <= high) {
+                long mid = (low + high) >>> 1;
+                raf.seek(HEADER_SIZE + mid * ENTRY_SIZE);
+                long entryTime = raf.readLong();
+                if (entryTime < time) {
+                    offset = raf.readLong();
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return offset <= logFile.length() ? offset : 0;
+        } catch (IOException e) {
+            Log.e(TAG, "findOffset=>Read index file error: ", e);
+            return 0;
+        }
+    }
+}
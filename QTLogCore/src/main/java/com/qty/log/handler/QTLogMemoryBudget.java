@@ -0,0 +1,161 @@
+package com.qty.log.handler;
+
+import com.qty.log.bean.QTLogLevel;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志缓冲内存预算
+ *
+ * 统计所有通道中等待写入的日志占用的内存，超出预算时按以下顺序降级：
+ * <pre>
+ *     占用超过预算的 1/2：丢弃 VERBOSE 日志
+ *     占用超过预算的 3/4：丢弃 DEBUG 日志
+ *     占用超过预算：打印线程最多等待 {@link #MAX_BLOCK_TIME} 毫秒，等待写入线程释放内存，仍然不足时丢弃日志
+ * </pre>
+ * 没有等待写入的日志时，单条超过预算的日志仍然允许加入队列，避免超长日志永远无法写入。
+ * 预算通过 log.properties 中的 MAX_BUFFER_SIZE 或 {@link com.qty.log.QTLogEngine#setMaxBufferSize(long)} 设置，
+ * 小于或等于 0 表示不限制。
+ * @hide
+ */
+public class QTLogMemoryBudget {
+
+    /**
+     * 申请成功
+     */
+    public static final int ACQUIRED = 0;
+    /**
+     * 超过 VERBOSE 日志的阈值，日志被丢弃
+     */
+    public static final int DROPPED_VERBOSE = 1;
+    /**
+     * 超过 DEBUG 日志的阈值，日志被丢弃
+     */
+    public static final int DROPPED_DEBUG = 2;
+    /**
+     * 等待后仍然超过预算，日志被丢弃
+     */
+    public static final int DROPPED_OVERFLOW = 3;
+    /**
+     * 超过预算时打印线程最长等待时间，单位：毫秒
+     */
+    public static final long MAX_BLOCK_TIME = 100;
+
+    /**
+     * 已经占用的内存，单位：字节
+     */
+    private final AtomicLong mUsed = new AtomicLong();
+    /**
+     * 等待释放内存的锁
+     */
+    private final Object mLock = new Object();
+    /**
+     * 正在等待释放内存的线程数量
+     */
+    private volatile int mWaiters;
+
+    /**
+     * 构造方法
+     */
+    private QTLogMemoryBudget() {}
+
+    /**
+     * 获取 QTLogMemoryBudget 单例
+     * @return 返回 QTLogMemoryBudget 单例
+     */
+    public static QTLogMemoryBudget getInstance() {
+        return QTLogMemoryBudgetInstance.sInstance;
+    }
+
+    /**
+     * 获取已经占用的内存
+     * @return 返回等待写入的日志占用的内存，单位：字节
+     */
+    public long getUsed() {
+        return mUsed.get();
+    }
+
+    /**
+     * 为一条日志申请内存
+     * @param level 日志级别，为 null 时不按级别丢弃
+     * @param size  日志占用的内存，单位：字节
+     * @return 返回 {@link #ACQUIRED}、{@link #DROPPED_VERBOSE}、{@link #DROPPED_DEBUG} 或 {@link #DROPPED_OVERFLOW}
+     */
+    public int acquire(QTLogLevel level, long size) {
+        long budget = QTLogConfig.getInstance().getMaxBufferSize();
+        if (budget <= 0) {
+            mUsed.addAndGet(size);
+            return ACQUIRED;
+        }
+        long used = mUsed.get() + size;
+        if (level == QTLogLevel.VERBOSE_LEVEL && used > budget / 2) {
+            return DROPPED_VERBOSE;
+        }
+        if (level == QTLogLevel.DEBUG_LEVEL && used > budget / 4 * 3) {
+            return DROPPED_DEBUG;
+        }
+        if (tryAcquire(budget, size)) {
+            return ACQUIRED;
+        }
+        long deadline = System.nanoTime() + MAX_BLOCK_TIME * 1000000L;
+        synchronized (mLock) {
+            mWaiters++;
+            try {
+                while (!tryAcquire(budget, size)) {
+                    long remaining = (deadline - System.nanoTime()) / 1000000L;
+                    if (remaining <= 0) {
+                        return DROPPED_OVERFLOW;
+                    }
+                    mLock.wait(remaining);
+                }
+                return ACQUIRED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return DROPPED_OVERFLOW;
+            } finally {
+                mWaiters--;
+            }
+        }
+    }
+
+    /**
+     * 在不超过预算时占用内存
+     * @param budget 内存预算
+     * @param size 需要占用的内存
+     * @return 如果占用成功，返回 true；否则返回 false
+     */
+    private boolean tryAcquire(long budget, long size) {
+        while (true) {
+            long used = mUsed.get();
+            if (used > 0 && used + size > budget) {
+                return false;
+            }
+            if (mUsed.compareAndSet(used, used + size)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放内存，唤醒正在等待的线程
+     * @param size 释放的内存，单位：字节
+     */
+    public void release(long size) {
+        if (size <= 0) {
+            return;
+        }
+        mUsed.addAndGet(-size);
+        if (mWaiters > 0) {
+            synchronized (mLock) {
+                mLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 内部类，单例实现辅助类
+     */
+    private static class QTLogMemoryBudgetInstance {
+        public static final QTLogMemoryBudget sInstance = new QTLogMemoryBudget();
+    }
+}
@@ -0,0 +1,214 @@
+package com.qty.log.handler;
+
+import com.qty.log.bean.QTLogLevel;
+
+/**
+ * 有界环形缓冲区，多个生产者、单个消费者
+ *
+ * 生产者通过 {@link #offer(QTLogLevel, long, CharSequence, long)} 或 {@link #offer(QTLogEntry, long)} 写入，日志内容复制到
+ * {@link QTLogEntry} 中，缓冲区满时直接返回 false，不会阻塞调用线程。消费者通过 {@link #await(long)} 等待数据，
+ * 然后用 {@link #get(int)} 读取、处理完成后再调用 {@link #release(int)} 释放，所以在处理期间 {@link #isEmpty()} 仍然返回 false。
+ * 释放的 {@link QTLogEntry} 放回对象池供之后的日志复用。对象池的大小有上限，正常情况下队列中的日志远少于上限，
+ * 打印日志时不会创建新的对象；日志突增超过上限时多出的对象由垃圾回收器回收，不会长期占用内存。
+ * @hide
+ */
+public class QTLogRingBuffer {
+
+    /**
+     * 对象池的最大容量
+     */
+    private static final int MAX_POOL_SIZE = 1024;
+
+    /**
+     * 缓冲区
+     */
+    private final QTLogEntry[] mItems;
+    /**
+     * 下标掩码
+     */
+    private final int mMask;
+    /**
+     * 已释放、可以复用的日志对象
+     */
+    private final QTLogEntry[] mPool;
+    /**
+     * 对象池中的对象数量
+     */
+    private int mPoolSize;
+    /**
+     * 消费位置
+     */
+    private long mHead;
+    /**
+     * 写入位置
+     */
+    private long mTail;
+    /**
+     * 消费者是否正在等待
+     */
+    private boolean isWaiting;
+    /**
+     * 是否有还没有被消费者处理的唤醒，{@link #wakeUp()} 在消费者开始等待之前调用时，下一次等待立即返回
+     */
+    private boolean isWakeUpPending;
+
+    /**
+     * 构造方法
+     * @param capacity 容量，会向上取整为 2 的幂
+     */
+    public QTLogRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mItems = new QTLogEntry[size];
+        mMask = size - 1;
+        mPool = new QTLogEntry[Math.min(size, MAX_POOL_SIZE)];
+    }
+
+    /**
+     * 获取缓冲区容量
+     * @return 返回缓冲区容量
+     */
+    public int capacity() {
+        return mItems.length;
+    }
+
+    /**
+     * 写入日志，日志内容在返回前复制完成，调用者可以继续复用 msg
+     * @param level 日志级别，可以为 null
+     * @param time 日志时间，单位：毫秒
+     * @param msg 日志信息
+     * @param size 日志在内存预算中占用的大小，单位：字节
+     * @return 写入成功返回 true；缓冲区已满返回 false
+     */
+    public synchronized boolean offer(QTLogLevel level, long time, CharSequence msg, long size) {
+        QTLogEntry entry = obtain();
+        if (entry == null) {
+            return false;
+        }
+        entry.set(level, time, msg);
+        entry.setSize(size);
+        publish(entry);
+        return true;
+    }
+
+    /**
+     * 写入未格式化的日志，只复制原始内容的引用，由消费者格式化
+     * @param raw 通过 {@link QTLogEntry#setRaw} 记录的日志，返回后调用者可以继续复用
+     * @param size 日志在内存预算中占用的大小，单位：字节
+     * @return 写入成功返回 true；缓冲区已满返回 false
+     */
+    public synchronized boolean offer(QTLogEntry raw, long size) {
+        QTLogEntry entry = obtain();
+        if (entry == null) {
+            return false;
+        }
+        entry.setRaw(raw);
+        entry.setSize(size);
+        publish(entry);
+        return true;
+    }
+
+    /**
+     * 获取一个空闲的日志对象，需要持有锁
+     * @return 返回日志对象，缓冲区已满时返回 null
+     */
+    private QTLogEntry obtain() {
+        if (mTail - mHead == mItems.length) {
+            return null;
+        }
+        if (mPoolSize > 0) {
+            QTLogEntry entry = mPool[--mPoolSize];
+            mPool[mPoolSize] = null;
+            return entry;
+        }
+        return new QTLogEntry();
+    }
+
+    /**
+     * 将日志对象放入缓冲区并唤醒消费者，需要持有锁
+     * @param entry 日志对象
+     */
+    private void publish(QTLogEntry entry) {
+        mItems[(int) (mTail & mMask)] = entry;
+        mTail++;
+        if (isWaiting) {
+            notify();
+        }
+    }
+
+    /**
+     * 等待可读取的数据，只能由消费者线程调用
+     * @param timeoutMillis 最长等待时间，单位：毫秒
+     * @return 返回可读取的数据数量，超时或被中断时可能为 0
+     */
+    public synchronized int await(long timeoutMillis) {
+        if (mTail == mHead && !isWakeUpPending) {
+            isWaiting = true;
+            try {
+                wait(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                isWaiting = false;
+            }
+        }
+        isWakeUpPending = false;
+        return (int) (mTail - mHead);
+    }
+
+    /**
+     * 唤醒正在等待的消费者，消费者没有在等待时下一次 {@link #await(long)} 立即返回
+     */
+    public synchronized void wakeUp() {
+        isWakeUpPending = true;
+        notifyAll();
+    }
+
+    /**
+     * 读取数据，只能由消费者线程在 {@link #await(long)} 之后调用
+     * @param index 相对于消费位置的下标，必须小于 await 的返回值
+     * @return 返回数据，在 {@link #release(int)} 之后不能再使用
+     */
+    public QTLogEntry get(int index) {
+        return mItems[(int) ((mHead + index) & mMask)];
+    }
+
+    /**
+     * 释放已经处理完成的数据，只能由消费者线程调用
+     * @param count 释放的数量
+     * @return 返回释放的日志在内存预算中占用的总大小，单位：字节
+     */
+    public synchronized long release(int count) {
+        long size = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((mHead + i) & mMask);
+            QTLogEntry entry = mItems[slot];
+            mItems[slot] = null;
+            size += entry.getSize();
+            if (mPoolSize < mPool.length) {
+                entry.recycle();
+                mPool[mPoolSize++] = entry;
+            }
+        }
+        mHead += count;
+        return size;
+    }
+
+    /**
+     * 获取缓冲区中的数据数量（包括正在处理的数据）
+     * @return 返回数据数量
+     */
+    public synchronized int size() {
+        return (int) (mTail - mHead);
+    }
+
+    /**
+     * 判断缓冲区是否为空
+     * @return 如果缓冲区中没有数据且没有正在处理的数据，返回 true；否则返回 false
+     */
+    public synchronized boolean isEmpty() {
+        return mTail == mHead;
+    }
+}
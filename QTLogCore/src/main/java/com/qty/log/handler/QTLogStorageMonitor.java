@@ -0,0 +1,265 @@
+package com.qty.log.handler;
+
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.utils.Log;
+
+import java.io.File;
+
+/**
+ * 日志存储状态监测类
+ *
+ * 每个日志通道一个，由写入线程记录每批日志的写入耗时、定期检查日志目录的剩余空间并记录写入错误，据此决定存储模式：
+ * <pre>
+ *     NORMAL      正常写入
+ *     SLOW        写入较慢：合并成更大的批次写入，丢弃 VERBOSE 日志
+ *     LOW_SPACE   剩余空间不足：丢弃 VERBOSE 和 DEBUG 日志
+ *     MEMORY_ONLY 剩余空间几乎耗尽或者写入出错：丢弃 VERBOSE 和 DEBUG 日志，其他日志只保留最近的一部分在内存中，
+ *                 写入出错时按指数退避重新尝试写入，成功后将内存中的日志写入文件并恢复
+ * </pre>
+ * 写入耗时和剩余空间恢复正常后自动回到 NORMAL 模式。写入线程更新状态，打印日志的线程只读取模式。
+ */
+class QTLogStorageMonitor {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogStorageMonitor.class.getSimpleName();
+
+    /**
+     * 正常写入
+     */
+    static final int MODE_NORMAL = 0;
+    /**
+     * 写入较慢
+     */
+    static final int MODE_SLOW = 1;
+    /**
+     * 剩余空间不足
+     */
+    static final int MODE_LOW_SPACE = 2;
+    /**
+     * 只保留在内存中
+     */
+    static final int MODE_MEMORY_ONLY = 3;
+
+    /**
+     * 每批日志的平均写入耗时超过该值时进入 SLOW 模式，单位：纳秒
+     */
+    private static final long SLOW_WRITE_NANOS = 200 * 1000 * 1000L;
+    /**
+     * 每批日志的平均写入耗时低于该值时退出 SLOW 模式，单位：纳秒
+     */
+    private static final long FAST_WRITE_NANOS = 50 * 1000 * 1000L;
+    /**
+     * 剩余空间低于该值时进入 LOW_SPACE 模式，单位：字节
+     */
+    private static final long LOW_FREE_SPACE = 20 * 1024 * 1024;
+    /**
+     * 剩余空间低于该值时进入 MEMORY_ONLY 模式，单位：字节
+     */
+    private static final long MIN_FREE_SPACE = 5 * 1024 * 1024;
+    /**
+     * 检查剩余空间的间隔，单位：毫秒
+     */
+    private static final long SPACE_CHECK_INTERVAL = 5 * 1000;
+    /**
+     * 写入出错后第一次重试的等待时间，单位：毫秒
+     */
+    private static final long INITIAL_BACKOFF = 1000;
+    /**
+     * 写入出错后重试的最长等待时间，单位：毫秒
+     */
+    private static final long MAX_BACKOFF = 60 * 1000;
+
+    /**
+     * 通道名称
+     */
+    private final String mName;
+    /**
+     * 当前模式
+     */
+    private volatile int mMode = MODE_NORMAL;
+    /**
+     * 写入耗时的指数移动平均值，单位：纳秒
+     */
+    private long mAverageWriteNanos;
+    /**
+     * 写入是否较慢
+     */
+    private boolean isSlow;
+    /**
+     * 最近一次检查到的剩余空间，单位：字节，没有检查过时为 Long.MAX_VALUE
+     */
+    private long mFreeSpace = Long.MAX_VALUE;
+    /**
+     * 上一次检查剩余空间的时间，单位：毫秒
+     */
+    private long mLastSpaceCheckTime;
+    /**
+     * 写入是否出错
+     */
+    private boolean isFailed;
+    /**
+     * 下一次重试的等待时间，单位：毫秒
+     */
+    private long mBackoff = INITIAL_BACKOFF;
+    /**
+     * 下一次允许重试的时间，单位：毫秒
+     */
+    private long mNextRetryTime;
+
+    /**
+     * 构造方法
+     * @param name 通道名称
+     */
+    QTLogStorageMonitor(String name) {
+        mName = name;
+    }
+
+    /**
+     * 记录一批日志的写入耗时（包括刷新到文件）
+     * @param nanos 写入耗时，单位：纳秒
+     */
+    void onWrite(long nanos) {
+        mAverageWriteNanos = mAverageWriteNanos == 0 ? nanos : (mAverageWriteNanos * 7 + nanos) / 8;
+        if (!isSlow && mAverageWriteNanos > SLOW_WRITE_NANOS) {
+            isSlow = true;
+            updateMode();
+        } else if (isSlow && mAverageWriteNanos < FAST_WRITE_NANOS) {
+            isSlow = false;
+            updateMode();
+        }
+    }
+
+    /**
+     * 检查日志目录的剩余空间，距离上一次检查不足 {@link #SPACE_CHECK_INTERVAL} 时不检查
+     * @param directory 日志目录
+     * @param now 当前时间，单位：毫秒
+     */
+    void checkSpace(File directory, long now) {
+        if (now - mLastSpaceCheckTime < SPACE_CHECK_INTERVAL && now >= mLastSpaceCheckTime) {
+            return;
+        }
+        mLastSpaceCheckTime = now;
+        long freeSpace = directory.getUsableSpace();
+        // 目录不存在或者无法访问时返回 0，不作为空间不足处理，由写入错误处理
+        mFreeSpace = freeSpace > 0 ? freeSpace : Long.MAX_VALUE;
+        updateMode();
+    }
+
+    /**
+     * 记录写入错误，进入 MEMORY_ONLY 模式，等待时间加倍
+     * @param now 当前时间，单位：毫秒
+     */
+    void onError(long now) {
+        if (isFailed) {
+            mBackoff = Math.min(mBackoff * 2, MAX_BACKOFF);
+        }
+        isFailed = true;
+        mNextRetryTime = now + mBackoff;
+        updateMode();
+    }
+
+    /**
+     * 判断是否可以重试写入
+     * @param now 当前时间，单位：毫秒
+     * @return 如果写入出错并且已经到了重试时间，返回 true；否则返回 false
+     */
+    boolean shouldRetry(long now) {
+        return isFailed && now >= mNextRetryTime && mFreeSpace >= MIN_FREE_SPACE;
+    }
+
+    /**
+     * 重试写入成功，清除错误状态
+     */
+    void onRecovered() {
+        if (isFailed) {
+            isFailed = false;
+            mBackoff = INITIAL_BACKOFF;
+            updateMode();
+        }
+    }
+
+    /**
+     * 判断写入是否出错
+     * @return 如果写入出错并且还没有恢复，返回 true；否则返回 false
+     */
+    boolean isFailed() {
+        return isFailed;
+    }
+
+    /**
+     * 根据写入耗时、剩余空间和写入错误重新计算模式
+     */
+    private void updateMode() {
+        int mode;
+        if (isFailed || mFreeSpace < MIN_FREE_SPACE) {
+            mode = MODE_MEMORY_ONLY;
+        } else if (mFreeSpace < LOW_FREE_SPACE) {
+            mode = MODE_LOW_SPACE;
+        } else if (isSlow) {
+            mode = MODE_SLOW;
+        } else {
+            mode = MODE_NORMAL;
+        }
+        if (mode != mMode) {
+            Log.w(TAG, "updateMode=>Storage mode of channel " + mName + " changed from " + getModeName(mMode)
+                    + " to " + getModeName(mode) + ", averageWriteMs=" + mAverageWriteNanos / 1000000
+                    + ", freeSpace=" + (mFreeSpace == Long.MAX_VALUE ? -1 : mFreeSpace) + ", failed=" + isFailed);
+            mMode = mode;
+        }
+    }
+
+    /**
+     * 获取当前模式
+     * @return 返回当前模式
+     */
+    int getMode() {
+        return mMode;
+    }
+
+    /**
+     * 判断当前模式下是否可以写入文件
+     * @return 如果不是 MEMORY_ONLY 模式，返回 true；否则返回 false
+     */
+    boolean isWritable() {
+        return mMode != MODE_MEMORY_ONLY;
+    }
+
+    /**
+     * 判断当前模式下是否丢弃指定级别的日志
+     * @param level 日志级别，为 null 时不丢弃
+     * @return 如果丢弃，返回 true；否则返回 false
+     */
+    boolean isDropped(QTLogLevel level) {
+        int mode = mMode;
+        if (mode == MODE_NORMAL || level == null) {
+            return false;
+        }
+        if (mode == MODE_SLOW) {
+            return level.rawValue() <= QTLogLevel.VERBOSE_LEVEL.rawValue();
+        }
+        return level.rawValue() <= QTLogLevel.DEBUG_LEVEL.rawValue();
+    }
+
+    /**
+     * 获取模式名称
+     * @param mode 模式
+     * @return 返回模式名称
+     */
+    static String getModeName(int mode) {
+        switch (mode) {
+            case MODE_SLOW:
+                return "SLOW";
+
+            case MODE_LOW_SPACE:
+                return "LOW_SPACE";
+
+            case MODE_MEMORY_ONLY:
+                return "MEMORY_ONLY";
+
+            default:
+                return "NORMAL";
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.qty.log.metrics;
+
+/**
+ * 延迟直方图快照
+ */
+public class QTHistogramSnapshot {
+
+    /**
+     * 每个桶的计数
+     */
+    private final long[] mBuckets;
+    /**
+     * 记录总次数
+     */
+    private final long mCount;
+    /**
+     * 记录总耗时，单位：纳秒
+     */
+    private final long mSum;
+    /**
+     * 最大耗时，单位：纳秒
+     */
+    private final long mMax;
+
+    /**
+     * 构造方法
+     * @param buckets   每个桶的计数
+     * @param count 记录总次数
+     * @param sum   记录总耗时
+     * @param max   最大耗时
+     */
+    QTHistogramSnapshot(long[] buckets, long count, long sum, long max) {
+        mBuckets = buckets;
+        mCount = count;
+        mSum = sum;
+        mMax = max;
+    }
+
+    /**
+     * 获取记录总次数
+     * @return 返回记录总次数
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * 获取最大耗时
+     * @return 返回最大耗时，单位：纳秒
+     */
+    public long getMax() {
+        return mMax;
+    }
+
+    /**
+     * 获取平均耗时
+     * @return 返回平均耗时，单位：纳秒
+     */
+    public long getMean() {
+        return mCount == 0 ? 0 : mSum / mCount;
+    }
+
+    /**
+     * 获取百分位耗时
+     * @param percentile 百分位，取值范围 0 ~ 100
+     * @return 返回百分位耗时的估计值（所在桶的上界），单位：纳秒
+     */
+    public long getPercentile(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(mCount * Math.min(100, Math.max(0, percentile)) / 100);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < mBuckets.length; i++) {
+            seen += mBuckets[i];
+            if (seen >= rank) {
+                return Math.min(QTLatencyHistogram.bucketUpperBound(i), mMax);
+            }
+        }
+        return mMax;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + mCount + ", mean=" + getMean() + "ns, p50=" + getPercentile(50)
+                + "ns, p99=" + getPercentile(99) + "ns, max=" + mMax + "ns";
+    }
+}
@@ -0,0 +1,116 @@
+package com.qty.log.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图
+ *
+ * 采用对数线性分桶：每个 2 的幂区间再平均分成 4 个子桶，误差不超过 25%。
+ * 记录一次数据只需要一次数组原子累加，适合在日志打印路径上使用。
+ * @hide
+ */
+public class QTLatencyHistogram {
+
+    /**
+     * 每个 2 的幂区间的子桶数量（以 2 为底的对数）
+     */
+    private static final int SUB_BUCKET_BITS = 2;
+    /**
+     * 每个 2 的幂区间的子桶数量
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * 桶的数量，可以覆盖 long 的所有正数
+     */
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    /**
+     * 每个桶的计数
+     */
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+    /**
+     * 记录总耗时
+     */
+    private final QTStripedCounter mSum = new QTStripedCounter();
+    /**
+     * 记录的最大值
+     */
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     * @param nanos 耗时，单位：纳秒
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        mBuckets.getAndIncrement(bucketIndex(nanos));
+        mSum.add(nanos);
+        long max = mMax.get();
+        while (nanos > max && !mMax.compareAndSet(max, nanos)) {
+            max = mMax.get();
+        }
+    }
+
+    /**
+     * 获取直方图快照
+     * @return 返回直方图快照
+     */
+    public QTHistogramSnapshot snapshot() {
+        long[] buckets = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = mBuckets.get(i);
+            count += buckets[i];
+        }
+        return new QTHistogramSnapshot(buckets, count, mSum.sum(), mMax.get());
+    }
+
+    /**
+     * 获取直方图快照并清零，用于按时间段统计
+     *
+     * 与 {@link #record(long)} 同时调用时，正在记录的数据可能只有一部分计入本次快照（例如只计入分桶，
+     * 耗时总和计入下一次快照），对统计结果的影响可以忽略。
+     * @return 返回清零前的直方图快照
+     */
+    public QTHistogramSnapshot snapshotAndReset() {
+        long[] buckets = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = mBuckets.getAndSet(i, 0);
+            count += buckets[i];
+        }
+        return new QTHistogramSnapshot(buckets, count, mSum.sumThenReset(), mMax.getAndSet(0));
+    }
+
+    /**
+     * 获取数值所在桶的下标
+     * @param value 数值
+     * @return 返回桶的下标
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + (msb - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + sub;
+    }
+
+    /**
+     * 获取桶的上界（不包含）
+     * @param index 桶的下标
+     * @return 返回桶的上界
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index + 1;
+        }
+        int msb = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS;
+        int sub = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long upper = (long) (SUB_BUCKET_COUNT + sub + 1) << (msb - SUB_BUCKET_BITS);
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,148 @@
+package com.qty.log.metrics;
+
+import com.qty.log.bean.QTLogLevel;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志系统自身的运行指标
+ *
+ * 由 QTLog 和 QTLogFileManager 在打印和写入日志时更新，通过 {@link #snapshot()} 获取快照。
+ * @hide
+ */
+public class QTLogMetrics {
+
+    /**
+     * QTLogMetrics 实例
+     */
+    private static final QTLogMetrics INSTANCE = QTLogMetricsInstance.sInstance;
+
+    /**
+     * 指标开始统计的时间，单位：纳秒
+     */
+    private final long mStartNanos = System.nanoTime();
+    /**
+     * 每个日志级别的日志数量
+     */
+    private final QTStripedCounter[] mEvents;
+    /**
+     * 丢弃的日志数量
+     */
+    private final QTStripedCounter mDropped = new QTStripedCounter();
+    /**
+     * 写入文件的字节数
+     */
+    private final QTStripedCounter mBytesWritten = new QTStripedCounter();
+    /**
+     * 日志队列当前长度
+     */
+    private final AtomicLong mQueueDepth = new AtomicLong();
+    /**
+     * 日志队列历史最大长度
+     */
+    private final AtomicLong mPeakQueueDepth = new AtomicLong();
+    /**
+     * 日志格式化耗时
+     */
+    private final QTLatencyHistogram mFormatTime = new QTLatencyHistogram();
+    /**
+     * 日志写入并刷新到文件的耗时
+     */
+    private final QTLatencyHistogram mFlushLatency = new QTLatencyHistogram();
+    /**
+     * 日志从加入队列到写入文件的延迟
+     */
+    private final QTLatencyHistogram mWriterLag = new QTLatencyHistogram();
+
+    /**
+     * 单例方法
+     * @return 返回 QTLogMetrics 对象
+     */
+    public static QTLogMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 内部构造方法
+     */
+    private QTLogMetrics() {
+        mEvents = new QTStripedCounter[QTLogLevel.values().length];
+        for (int i = 0; i < mEvents.length; i++) {
+            mEvents[i] = new QTStripedCounter();
+        }
+    }
+
+    /**
+     * 记录一条被打印的日志
+     * @param level 日志级别
+     */
+    public void onEvent(QTLogLevel level) {
+        mEvents[level.ordinal()].increment();
+    }
+
+    /**
+     * 记录一次日志格式化耗时
+     * @param nanos 耗时，单位：纳秒
+     */
+    public void onFormat(long nanos) {
+        mFormatTime.record(nanos);
+    }
+
+    /**
+     * 记录一条被丢弃的日志
+     */
+    public void onDropped() {
+        mDropped.increment();
+    }
+
+    /**
+     * 记录日志加入队列
+     */
+    public void onEnqueue() {
+        long depth = mQueueDepth.incrementAndGet();
+        long peak = mPeakQueueDepth.get();
+        while (depth > peak && !mPeakQueueDepth.compareAndSet(peak, depth)) {
+            peak = mPeakQueueDepth.get();
+        }
+    }
+
+    /**
+     * 记录日志从队列中取出
+     * @param lagNanos 日志在队列中等待的时间，单位：纳秒
+     */
+    public void onDequeue(long lagNanos) {
+        mQueueDepth.decrementAndGet();
+        mWriterLag.record(lagNanos);
+    }
+
+    /**
+     * 记录一次写入文件
+     * @param bytes 写入的字节数
+     * @param nanos 写入并刷新的耗时，单位：纳秒
+     */
+    public void onWrite(long bytes, long nanos) {
+        mBytesWritten.add(bytes);
+        mFlushLatency.record(nanos);
+    }
+
+    /**
+     * 获取指标快照
+     * @return 返回指标快照
+     */
+    public QTLogMetricsSnapshot snapshot() {
+        long[] events = new long[mEvents.length];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = mEvents[i].sum();
+        }
+        return new QTLogMetricsSnapshot(System.nanoTime() - mStartNanos, events, mDropped.sum(),
+                mBytesWritten.sum(), mQueueDepth.get(), mPeakQueueDepth.get(),
+                mFormatTime.snapshot(), mFlushLatency.snapshot(), mWriterLag.snapshot());
+    }
+
+    /**
+     * 内部类，单例实现
+     */
+    private static class QTLogMetricsInstance {
+        private static final QTLogMetrics sInstance = new QTLogMetrics();
+    }
+}
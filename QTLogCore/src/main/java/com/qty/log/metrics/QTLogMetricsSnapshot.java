@@ -0,0 +1,180 @@
+package com.qty.log.metrics;
+
+import com.qty.log.bean.QTLogLevel;
+
+/**
+ * 日志系统运行指标快照
+ *
+ * 快照中的计数均为累计值，计算速率时需要传入上一次的快照，例如：
+ * <pre>
+ *     QTLogMetricsSnapshot last = QTLogEngine.getInstance().getMetricsSnapshot();
+ *     ...
+ *     QTLogMetricsSnapshot now = QTLogEngine.getInstance().getMetricsSnapshot();
+ *     double errorsPerSecond = now.getEventsPerSecond(QTLogLevel.ERROR_LEVEL, last);
+ * </pre>
+ */
+public class QTLogMetricsSnapshot {
+
+    /**
+     * 指标统计的时长，单位：纳秒
+     */
+    private final long mUptimeNanos;
+    /**
+     * 每个日志级别的日志数量，下标为 QTLogLevel 的序号
+     */
+    private final long[] mEvents;
+    /**
+     * 丢弃的日志数量
+     */
+    private final long mDropped;
+    /**
+     * 写入文件的字节数
+     */
+    private final long mBytesWritten;
+    /**
+     * 日志队列当前长度
+     */
+    private final long mQueueDepth;
+    /**
+     * 日志队列历史最大长度
+     */
+    private final long mPeakQueueDepth;
+    /**
+     * 日志格式化耗时
+     */
+    private final QTHistogramSnapshot mFormatTime;
+    /**
+     * 日志写入并刷新到文件的耗时
+     */
+    private final QTHistogramSnapshot mFlushLatency;
+    /**
+     * 日志从加入队列到写入文件的延迟
+     */
+    private final QTHistogramSnapshot mWriterLag;
+
+    /**
+     * 构造方法
+     */
+    QTLogMetricsSnapshot(long uptimeNanos, long[] events, long dropped, long bytesWritten,
+                         long queueDepth, long peakQueueDepth, QTHistogramSnapshot formatTime,
+                         QTHistogramSnapshot flushLatency, QTHistogramSnapshot writerLag) {
+        mUptimeNanos = uptimeNanos;
+        mEvents = events;
+        mDropped = dropped;
+        mBytesWritten = bytesWritten;
+        mQueueDepth = queueDepth;
+        mPeakQueueDepth = peakQueueDepth;
+        mFormatTime = formatTime;
+        mFlushLatency = flushLatency;
+        mWriterLag = writerLag;
+    }
+
+    /**
+     * 获取指标统计的时长
+     * @return 返回统计时长，单位：纳秒
+     */
+    public long getUptimeNanos() {
+        return mUptimeNanos;
+    }
+
+    /**
+     * 获取指定级别的日志数量
+     * @param level 日志级别
+     * @return 返回日志数量
+     */
+    public long getEvents(QTLogLevel level) {
+        return mEvents[level.ordinal()];
+    }
+
+    /**
+     * 获取所有级别的日志数量
+     * @return 返回日志数量
+     */
+    public long getTotalEvents() {
+        long total = 0;
+        for (long events : mEvents) {
+            total += events;
+        }
+        return total;
+    }
+
+    /**
+     * 获取指定级别每秒的日志数量
+     * @param level 日志级别
+     * @param previous 上一次的快照，为 null 时计算从开始统计到现在的平均值
+     * @return 返回每秒的日志数量
+     */
+    public double getEventsPerSecond(QTLogLevel level, QTLogMetricsSnapshot previous) {
+        long events = getEvents(level);
+        long nanos = mUptimeNanos;
+        if (previous != null) {
+            events -= previous.getEvents(level);
+            nanos -= previous.mUptimeNanos;
+        }
+        return nanos <= 0 ? 0 : events * 1e9 / nanos;
+    }
+
+    /**
+     * 获取丢弃的日志数量
+     * @return 返回丢弃的日志数量
+     */
+    public long getDropped() {
+        return mDropped;
+    }
+
+    /**
+     * 获取写入文件的字节数
+     * @return 返回写入文件的字节数
+     */
+    public long getBytesWritten() {
+        return mBytesWritten;
+    }
+
+    /**
+     * 获取日志队列当前长度
+     * @return 返回日志队列长度
+     */
+    public long getQueueDepth() {
+        return mQueueDepth;
+    }
+
+    /**
+     * 获取日志队列历史最大长度
+     * @return 返回日志队列历史最大长度
+     */
+    public long getPeakQueueDepth() {
+        return mPeakQueueDepth;
+    }
+
+    /**
+     * 获取日志格式化耗时
+     * @return 返回日志格式化耗时直方图
+     */
+    public QTHistogramSnapshot getFormatTime() {
+        return mFormatTime;
+    }
+
+    /**
+     * 获取日志写入并刷新到文件的耗时
+     * @return 返回写入耗时直方图
+     */
+    public QTHistogramSnapshot getFlushLatency() {
+        return mFlushLatency;
+    }
+
+    /**
+     * 获取日志从加入队列到写入文件的延迟
+     * @return 返回写入线程延迟直方图
+     */
+    public QTHistogramSnapshot getWriterLag() {
+        return mWriterLag;
+    }
+
+    @Override
+    public String toString() {
+        return "events=" + getTotalEvents() + ", dropped=" + mDropped + ", bytesWritten=" + mBytesWritten
+                + ", queueDepth=" + mQueueDepth + ", peakQueueDepth=" + mPeakQueueDepth
+                + ", format={" + mFormatTime + "}, flush={" + mFlushLatency
+                + "}, writerLag={" + mWriterLag + "}";
+    }
+}
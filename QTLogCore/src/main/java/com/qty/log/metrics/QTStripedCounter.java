@@ -0,0 +1,94 @@
+package com.qty.log.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段计数器
+ *
+ * 与 LongAdder 的思路一致：按线程将累加操作分散到多个计数单元上，读取时再求和，
+ * 从而避免多线程同时写日志时在同一个 AtomicLong 上竞争。由于 LongAdder 需要 API 24，
+ * 这里使用 AtomicLongArray 实现，并在计数单元之间填充空位，避免伪共享。
+ * @hide
+ */
+public class QTStripedCounter {
+
+    /**
+     * 每个计数单元占用的 long 数量（8 个 long 为 64 字节，即一个缓存行）
+     */
+    private static final int CELL_PADDING = 8;
+    /**
+     * 最大分段数量
+     */
+    private static final int MAX_STRIPES = 64;
+
+    /**
+     * 计数单元数组
+     */
+    private final AtomicLongArray mCells;
+    /**
+     * 分段掩码
+     */
+    private final int mMask;
+
+    /**
+     * 构造方法，分段数量根据 CPU 核心数确定
+     */
+    public QTStripedCounter() {
+        int stripes = 1;
+        int cpus = Runtime.getRuntime().availableProcessors() * 2;
+        while (stripes < cpus && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        mMask = stripes - 1;
+        mCells = new AtomicLongArray(stripes * CELL_PADDING);
+    }
+
+    /**
+     * 计数加一
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * 累加计数
+     * @param value 累加值
+     */
+    public void add(long value) {
+        mCells.getAndAdd(cellIndex(), value);
+    }
+
+    /**
+     * 获取计数总和
+     * @return 返回所有计数单元的和
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i <= mMask; i++) {
+            sum += mCells.get(i * CELL_PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * 获取计数总和并清零，与 {@link #add(long)} 同时调用时累加值只会计入本次或下一次的结果
+     * @return 返回清零前所有计数单元的和
+     */
+    public long sumThenReset() {
+        long sum = 0;
+        for (int i = 0; i <= mMask; i++) {
+            sum += mCells.getAndSet(i * CELL_PADDING, 0);
+        }
+        return sum;
+    }
+
+    /**
+     * 获取当前线程对应的计数单元下标
+     * @return 返回计数单元下标
+     */
+    private int cellIndex() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+        return (hash & mMask) * CELL_PADDING;
+    }
+}
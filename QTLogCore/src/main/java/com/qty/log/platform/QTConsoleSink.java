@@ -0,0 +1,23 @@
+package com.qty.log.platform;
+
+import java.io.PrintStream;
+
+/**
+ * 控制台日志输出，纯 Java 环境下的默认终端日志输出
+ *
+ * WARN 和 ERROR 级别输出到标准错误流，其他级别输出到标准输出流。
+ */
+public class QTConsoleSink implements QTLogSink {
+
+    /**
+     * 日志优先级对应的名称，下标为日志优先级
+     */
+    private static final String[] PRIORITY_NAMES = {"?", "?", "V", "D", "I", "W", "E", "A"};
+
+    @Override
+    public void println(int priority, String tag, String msg) {
+        String name = priority >= 0 && priority < PRIORITY_NAMES.length ? PRIORITY_NAMES[priority] : "?";
+        PrintStream out = priority >= 5 ? System.err : System.out;
+        out.println(name + "/" + tag + ": " + msg);
+    }
+}
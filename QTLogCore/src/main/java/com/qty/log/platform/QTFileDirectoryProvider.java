@@ -0,0 +1,27 @@
+package com.qty.log.platform;
+
+import java.io.File;
+
+/**
+ * 使用固定目录的日志目录提供类，用于纯 Java 环境
+ */
+public class QTFileDirectoryProvider implements QTLogDirectoryProvider {
+
+    /**
+     * 日志根目录
+     */
+    private final File mBaseDirectory;
+
+    /**
+     * 构造方法
+     * @param baseDirectory 日志根目录
+     */
+    public QTFileDirectoryProvider(File baseDirectory) {
+        mBaseDirectory = baseDirectory;
+    }
+
+    @Override
+    public File getBaseDirectory() {
+        return mBaseDirectory;
+    }
+}
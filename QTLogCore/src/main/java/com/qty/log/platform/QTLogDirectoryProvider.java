@@ -0,0 +1,17 @@
+package com.qty.log.platform;
+
+import java.io.File;
+
+/**
+ * 日志目录提供接口
+ *
+ * 日志配置文件 log.config 和日志文件目录 logs 都位于该接口返回的根目录下。
+ */
+public interface QTLogDirectoryProvider {
+
+    /**
+     * 获取日志根目录
+     * @return 返回日志根目录，如果获取失败，则返回 null
+     */
+    File getBaseDirectory();
+}
@@ -0,0 +1,17 @@
+package com.qty.log.platform;
+
+/**
+ * 终端日志输出接口
+ *
+ * Android 上由 QTLogcatSink 输出到 logcat，纯 Java 环境下默认由 {@link QTConsoleSink} 输出到控制台。
+ */
+public interface QTLogSink {
+
+    /**
+     * 输出一条日志
+     * @param priority 日志优先级，与 android.util.Log 的优先级一致（VERBOSE = 2 ... ERROR = 6）
+     * @param tag   日志 TAG
+     * @param msg   日志内容
+     */
+    void println(int priority, String tag, String msg);
+}
@@ -0,0 +1,241 @@
+package com.qty.log.search;
+
+import com.qty.log.handler.QTLogChannel;
+import com.qty.log.handler.QTLogConfig;
+import com.qty.log.utils.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 日志统计类
+ *
+ * 并行读取日志通道目录下的所有日志文件（每个文件一个任务，使用固定数量的后台线程），统计每个日志级别、TAG 和
+ * 小时的日志数量，以及数量最多的错误日志模板（参见 {@link QTLogErrorTemplate}），用于在设备上直接诊断问题，
+ * 不需要先上传所有日志。
+ * 已经关闭的日志文件（参见 {@link QTLogChannel#isSegmentClosed(File)}）的统计结果会被缓存，
+ * 文件长度、修改时间和日志格式不变时不再读取，所以重复统计时通常只需要读取正在写入的日志文件。
+ */
+public class QTLogAnalyzer {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogAnalyzer.class.getSimpleName();
+    /**
+     * 最多同时读取的日志文件数量
+     */
+    private static final int MAX_THREADS = 4;
+    /**
+     * 空闲线程的存活时间，单位：秒
+     */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * 读取日志文件的线程池
+     */
+    private final ThreadPoolExecutor mExecutor;
+    /**
+     * 已经关闭的日志文件的统计结果，键为文件路径
+     */
+    private final HashMap<String, CacheEntry> mCache = new HashMap<>();
+
+    /**
+     * 单例实现
+     * @return 返回 QTLogAnalyzer 对象
+     */
+    public static QTLogAnalyzer getInstance() {
+        return QTLogAnalyzerInstance.sInstance;
+    }
+
+    /**
+     * 内部构造方法
+     */
+    private QTLogAnalyzer() {
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS));
+        mExecutor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new AnalyzeThreadFactory());
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 统计日志通道的所有日志，会阻塞直到统计完成，不要在主线程中调用
+     * @param channelName 日志通道名称，为 null 时统计默认通道
+     * @param topN 返回的错误日志模板数量
+     * @return 返回统计结果，通道不存在时返回没有日志的统计结果
+     */
+    public synchronized QTLogStats analyze(String channelName, int topN) {
+        QTLogConfig config = QTLogConfig.getInstance();
+        final QTLogLineParser parser = new QTLogLineParser(config.getFileLogFormat(), config.getTimeFormat(),
+                config.isJsonLayout());
+        String format = config.isJsonLayout() + "|" + config.getFileLogFormat() + "|" + config.getTimeFormat();
+        final TimeZone timeZone = TimeZone.getDefault();
+        QTLogFileStats total = new QTLogFileStats();
+        QTLogChannel channel = QTLogSearcher.findChannel(channelName);
+        if (channel == null) {
+            Log.w(TAG, "analyze=>Channel " + channelName + " is not exist.");
+            return total.toStats(topN, 0, 0);
+        }
+        File[] logs = channel.listLogFiles();
+        if (logs == null) {
+            return total.toStats(topN, 0, 0);
+        }
+
+        HashMap<String, CacheEntry> cache = new HashMap<>();
+        ArrayList<File> files = new ArrayList<>();
+        ArrayList<Future<QTLogFileStats>> futures = new ArrayList<>();
+        for (final File log : logs) {
+            final long fileTime = QTLogSearcher.getFileTime(log);
+            if (fileTime < 0) {
+                continue;
+            }
+            files.add(log);
+            CacheEntry entry = mCache.get(log.getAbsolutePath());
+            if (entry != null && entry.isValid(log, format)) {
+                cache.put(log.getAbsolutePath(), entry);
+                futures.add(null);
+                continue;
+            }
+            futures.add(mExecutor.submit(new Callable<QTLogFileStats>() {
+                @Override
+                public QTLogFileStats call() {
+                    return scan(log, fileTime, parser.copy(), timeZone);
+                }
+            }));
+        }
+
+        int scanned = 0;
+        for (int i = 0; i < files.size(); i++) {
+            File log = files.get(i);
+            Future<QTLogFileStats> future = futures.get(i);
+            if (future == null) {
+                total.merge(cache.get(log.getAbsolutePath()).mStats);
+                continue;
+            }
+            scanned++;
+            try {
+                QTLogFileStats stats = future.get();
+                total.merge(stats);
+                // 只缓存已经关闭的日志文件，正在写入的文件每次都重新读取
+                if (channel.isSegmentClosed(log)) {
+                    cache.put(log.getAbsolutePath(), new CacheEntry(log, format, stats));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Log.w(TAG, "analyze=>Interrupted.");
+                break;
+            } catch (ExecutionException e) {
+                Log.e(TAG, "analyze=>Analyze " + log + " error: ", e.getCause());
+            }
+        }
+        // 只保留仍然存在的日志文件的缓存
+        mCache.clear();
+        mCache.putAll(cache);
+        return total.toStats(topN, files.size(), scanned);
+    }
+
+    /**
+     * 读取一个日志文件并统计
+     * @param file 日志文件
+     * @param fileTime 日志文件对应日期的开始时间
+     * @param parser 日志行解析对象，只用于这个文件
+     * @param timeZone 计算小时使用的时区
+     * @return 返回统计结果
+     */
+    private static QTLogFileStats scan(File file, long fileTime, QTLogLineParser parser, TimeZone timeZone) {
+        QTLogFileStats stats = new QTLogFileStats();
+        QTLogFileReader reader = new QTLogFileReader(file, fileTime, parser);
+        if (!reader.open(0)) {
+            return stats;
+        }
+        try {
+            QTLogRecord record;
+            while ((record = reader.read()) != null) {
+                stats.add(record, timeZone);
+            }
+        } finally {
+            reader.close();
+        }
+        return stats;
+    }
+
+    /**
+     * 已经关闭的日志文件的统计结果缓存
+     */
+    private static class CacheEntry {
+        /**
+         * 统计时的文件长度
+         */
+        private final long mLength;
+        /**
+         * 统计时的文件修改时间
+         */
+        private final long mLastModified;
+        /**
+         * 统计时的日志格式
+         */
+        private final String mFormat;
+        /**
+         * 统计结果
+         */
+        private final QTLogFileStats mStats;
+
+        /**
+         * 构造方法
+         * @param file 日志文件
+         * @param format 统计时的日志格式
+         * @param stats 统计结果
+         */
+        CacheEntry(File file, String format, QTLogFileStats stats) {
+            mLength = file.length();
+            mLastModified = file.lastModified();
+            mFormat = format;
+            mStats = stats;
+        }
+
+        /**
+         * 判断缓存是否仍然有效
+         * @param file 日志文件
+         * @param format 当前的日志格式
+         * @return 如果文件和日志格式都没有变化，返回 true；否则返回 false
+         */
+        boolean isValid(File file, String format) {
+            return file.length() == mLength && file.lastModified() == mLastModified && format.equals(mFormat);
+        }
+    }
+
+    /**
+     * 统计线程工厂，创建最低优先级的守护线程
+     */
+    private static class AnalyzeThreadFactory implements ThreadFactory {
+        /**
+         * 线程编号
+         */
+        private final AtomicInteger mNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "QTLog-analyze-" + mNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+
+    /**
+     * 内部类，单例实现
+     */
+    private static class QTLogAnalyzerInstance {
+        private static final QTLogAnalyzer sInstance = new QTLogAnalyzer();
+    }
+}
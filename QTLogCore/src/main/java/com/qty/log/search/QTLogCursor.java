@@ -0,0 +1,181 @@
+package com.qty.log.search;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 日志查询结果
+ *
+ * 按日期顺序逐条读取满足查询条件的日志，只在调用 {@link #hasNext()} 时读取文件。
+ * 同一天可能有多个进程的日志文件，这些文件同时打开，每次返回时间最早的一条日志，合并为按时间排序的结果；
+ * 日志格式不包含时间时按文件顺序读取。每个文件先通过索引定位到查询开始时间附近，读到超过查询结束时间的日志后结束该文件。
+ * 使用完成后需要调用 {@link #close()} 关闭文件。
+ */
+public class QTLogCursor implements Iterator<QTLogRecord>, Closeable {
+
+    /**
+     * 日志时间允许的乱序范围，单位：毫秒。日志时间在打印线程获取，写入顺序与时间顺序可能略有不同
+     */
+    private static final long TIME_SLACK = 1000;
+
+    /**
+     * 查询条件
+     */
+    private final QTLogQuery mQuery;
+    /**
+     * 需要查询的日志文件，按文件名排序，同一天的文件相邻
+     */
+    private final List<File> mFiles;
+    /**
+     * 每个日志文件对应日期的开始时间，日志格式不包含时间时作为日志的时间
+     */
+    private final long[] mFileTimes;
+    /**
+     * 日志行解析对象，每个文件使用它的副本
+     */
+    private final QTLogLineParser mParser;
+    /**
+     * 下一个要打开的文件下标
+     */
+    private int mFileIndex;
+    /**
+     * 当前日期正在读取的文件
+     */
+    private final ArrayList<QTLogFileReader> mReaders = new ArrayList<>();
+    /**
+     * 当前日期每个文件已经读取但还没有返回的日志，为 null 表示该文件已经读完
+     */
+    private final ArrayList<QTLogRecord> mHeads = new ArrayList<>();
+    /**
+     * 是否已经读到超过查询结束时间的日志，之后日期的文件不需要再读取
+     */
+    private boolean isPastEnd;
+    /**
+     * 下一条满足条件的日志
+     */
+    private QTLogRecord mNext;
+
+    /**
+     * 构造方法
+     * @param query 查询条件
+     * @param files 需要查询的日志文件，按文件名排序
+     * @param fileTimes 每个日志文件对应日期的开始时间
+     * @param parser 日志行解析对象
+     */
+    QTLogCursor(QTLogQuery query, List<File> files, long[] fileTimes, QTLogLineParser parser) {
+        mQuery = query;
+        mFiles = files;
+        mFileTimes = fileTimes;
+        mParser = parser;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (mNext == null) {
+            if (mReaders.isEmpty() && !openNextDay()) {
+                return false;
+            }
+            int index = nextReader();
+            if (index < 0) {
+                closeDay();
+                if (isPastEnd) {
+                    close();
+                    return false;
+                }
+                continue;
+            }
+            QTLogRecord record = mHeads.get(index);
+            mHeads.set(index, mReaders.get(index).read());
+            if (mParser.hasTime() && record.getTime() > mQuery.getToTime() + TIME_SLACK) {
+                // 该文件后面的日志都超过了结束时间
+                isPastEnd = true;
+                mReaders.get(index).close();
+                mHeads.set(index, null);
+                continue;
+            }
+            if (mQuery.matches(record, mParser.getTimePrecision())) {
+                mNext = record;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public QTLogRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        QTLogRecord record = mNext;
+        mNext = null;
+        return record;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    @Override
+    public void close() {
+        closeDay();
+        mFileIndex = mFiles.size();
+    }
+
+    /**
+     * 打开下一个日期的所有日志文件，并读取每个文件的第一条日志
+     * @return 如果打开成功，返回 true；如果没有更多文件，返回 false
+     */
+    private boolean openNextDay() {
+        while (mFileIndex < mFiles.size()) {
+            long fileTime = mFileTimes[mFileIndex];
+            while (mFileIndex < mFiles.size() && mFileTimes[mFileIndex] == fileTime) {
+                QTLogFileReader reader = new QTLogFileReader(mFiles.get(mFileIndex), fileTime, mParser.copy());
+                mFileIndex++;
+                if (reader.open(mQuery.getFromTime())) {
+                    mReaders.add(reader);
+                    mHeads.add(reader.read());
+                }
+            }
+            if (!mReaders.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 选择下一条要返回的日志所在的文件
+     * @return 返回文件下标，日志格式包含时间时选择时间最早的日志，否则按文件顺序选择；所有文件都读完时返回 -1
+     */
+    private int nextReader() {
+        int index = -1;
+        for (int i = 0; i < mHeads.size(); i++) {
+            QTLogRecord head = mHeads.get(i);
+            if (head == null) {
+                continue;
+            }
+            if (!mParser.hasTime()) {
+                return i;
+            }
+            if (index < 0 || head.getTime() < mHeads.get(index).getTime()) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 关闭当前日期的所有文件
+     */
+    private void closeDay() {
+        for (int i = 0; i < mReaders.size(); i++) {
+            mReaders.get(i).close();
+        }
+        mReaders.clear();
+        mHeads.clear();
+    }
+}
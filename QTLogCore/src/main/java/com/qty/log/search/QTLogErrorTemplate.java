@@ -0,0 +1,132 @@
+package com.qty.log.search;
+
+/**
+ * 错误日志模板的统计信息
+ *
+ * 错误日志内容的第一行中的数字和十六进制串替换为 '#' 后作为模板，例如 "Connect 10.0.0.1:8080 timeout after 3000ms"
+ * 的模板为 "Connect #.#.#.#:# timeout after #ms"，相同模板的日志合并统计。
+ */
+public class QTLogErrorTemplate {
+
+    /**
+     * 模板
+     */
+    private final String mTemplate;
+    /**
+     * 第一条日志的内容
+     */
+    private String mSample;
+    /**
+     * 日志数量
+     */
+    private long mCount;
+    /**
+     * 第一次出现的时间，单位：毫秒
+     */
+    private long mFirstTime;
+    /**
+     * 最后一次出现的时间，单位：毫秒
+     */
+    private long mLastTime;
+
+    /**
+     * 构造方法
+     * @param template 模板
+     * @param sample 第一条日志的内容
+     * @param time 第一条日志的时间，单位：毫秒
+     */
+    QTLogErrorTemplate(String template, String sample, long time) {
+        mTemplate = template;
+        mSample = sample;
+        mFirstTime = time;
+        mLastTime = time;
+    }
+
+    /**
+     * 复制统计信息，合并多个文件的统计结果时不修改缓存的单个文件的统计结果
+     * @return 返回新的统计信息
+     */
+    QTLogErrorTemplate copy() {
+        QTLogErrorTemplate template = new QTLogErrorTemplate(mTemplate, mSample, mFirstTime);
+        template.mCount = mCount;
+        template.mLastTime = mLastTime;
+        return template;
+    }
+
+    /**
+     * 记录一条日志
+     * @param sample 日志内容
+     * @param time 日志时间，单位：毫秒
+     */
+    void add(String sample, long time) {
+        mCount++;
+        if (time < mFirstTime) {
+            mFirstTime = time;
+            mSample = sample;
+        }
+        if (time > mLastTime) {
+            mLastTime = time;
+        }
+    }
+
+    /**
+     * 合并另一个相同模板的统计信息
+     * @param other 另一个统计信息
+     */
+    void merge(QTLogErrorTemplate other) {
+        mCount += other.mCount;
+        if (other.mFirstTime < mFirstTime) {
+            mFirstTime = other.mFirstTime;
+            mSample = other.mSample;
+        }
+        if (other.mLastTime > mLastTime) {
+            mLastTime = other.mLastTime;
+        }
+    }
+
+    /**
+     * 获取模板
+     * @return 返回模板
+     */
+    public String getTemplate() {
+        return mTemplate;
+    }
+
+    /**
+     * 获取第一条日志的内容（第一行）
+     * @return 返回日志内容
+     */
+    public String getSample() {
+        return mSample;
+    }
+
+    /**
+     * 获取日志数量
+     * @return 返回日志数量
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * 获取第一次出现的时间
+     * @return 返回时间，单位：毫秒
+     */
+    public long getFirstTime() {
+        return mFirstTime;
+    }
+
+    /**
+     * 获取最后一次出现的时间
+     * @return 返回时间，单位：毫秒
+     */
+    public long getLastTime() {
+        return mLastTime;
+    }
+
+    @Override
+    public String toString() {
+        return "template=" + mTemplate + ", count=" + mCount + ", firstTime=" + mFirstTime
+                + ", lastTime=" + mLastTime;
+    }
+}
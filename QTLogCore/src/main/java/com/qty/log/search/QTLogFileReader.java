@@ -0,0 +1,145 @@
+package com.qty.log.search;
+
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.handler.QTLogIndex;
+import com.qty.log.utils.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * 单个日志文件的读取类
+ *
+ * 通过索引定位到开始时间附近，然后逐条读取日志，日志的第一行可以按日志格式解析，后续无法解析的行都属于这条日志。
+ * 每个文件使用独立的日志行解析对象，多个文件可以交替读取。
+ */
+class QTLogFileReader {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogFileReader.class.getSimpleName();
+    /**
+     * UTF-8 编码
+     */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 日志文件
+     */
+    private final File mFile;
+    /**
+     * 日志文件对应日期的开始时间，日志格式不包含时间时作为日志的时间
+     */
+    private final long mFileTime;
+    /**
+     * 日志行解析对象
+     */
+    private final QTLogLineParser mParser;
+    /**
+     * 文件读取对象
+     */
+    private BufferedReader mReader;
+    /**
+     * 已经读取但还没有处理的日志行（下一条日志的第一行）
+     */
+    private String mPendingLine;
+
+    /**
+     * 构造方法
+     * @param file 日志文件
+     * @param fileTime 日志文件对应日期的开始时间
+     * @param parser 日志行解析对象，只用于这个文件
+     */
+    QTLogFileReader(File file, long fileTime, QTLogLineParser parser) {
+        mFile = file;
+        mFileTime = fileTime;
+        mParser = parser;
+        mParser.setDayStart(fileTime);
+    }
+
+    /**
+     * 打开日志文件，并通过索引定位到开始时间附近
+     * @param fromTime 开始时间，单位：毫秒
+     * @return 如果打开成功，返回 true；否则返回 false
+     */
+    boolean open(long fromTime) {
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(mFile);
+            long offset = 0;
+            if (mParser.hasTime()) {
+                offset = QTLogIndex.findOffset(mFile, fromTime - mParser.getTimePrecision() + 1);
+            }
+            if (offset > 0) {
+                in.getChannel().position(offset);
+            }
+            mReader = new BufferedReader(new InputStreamReader(in, UTF_8));
+            mPendingLine = mReader.readLine();
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "open=>Open " + mFile + " error: ", e);
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignore) {}
+            }
+            mReader = null;
+            return false;
+        }
+    }
+
+    /**
+     * 读取一条日志
+     * @return 返回日志，如果文件已经读完，则返回 null
+     */
+    QTLogRecord read() {
+        if (mReader == null) {
+            return null;
+        }
+        try {
+            String line = mPendingLine;
+            mPendingLine = null;
+            while (line != null && !mParser.parse(line)) {
+                line = mReader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+            long time = mParser.hasTime() ? mParser.getTime() : mFileTime;
+            QTLogLevel level = mParser.getLevel();
+            String tag = mParser.getTag();
+            StringBuilder message = new StringBuilder(mParser.getMessage() != null ? mParser.getMessage() : line);
+            StringBuilder text = new StringBuilder(line);
+            while ((line = mReader.readLine()) != null) {
+                if (mParser.parse(line)) {
+                    mPendingLine = line;
+                    break;
+                }
+                message.append('\n').append(line);
+                text.append('\n').append(line);
+            }
+            return new QTLogRecord(time, level, tag, message.toString(), text.toString(), mFile.getAbsolutePath());
+        } catch (IOException e) {
+            Log.e(TAG, "read=>Read " + mFile + " error: ", e);
+            return null;
+        }
+    }
+
+    /**
+     * 关闭文件
+     */
+    void close() {
+        if (mReader != null) {
+            try {
+                mReader.close();
+            } catch (IOException ignore) {}
+            mReader = null;
+        }
+        mPendingLine = null;
+    }
+}
@@ -0,0 +1,263 @@
+package com.qty.log.search;
+
+import com.qty.log.bean.QTLogLevel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * 日志统计的累加对象
+ *
+ * 每个日志文件在一个线程中统计出一个对象，已经关闭的日志文件的统计对象会被缓存，
+ * 合并时累加到新的对象中，不修改被合并的对象。该类不是线程安全的。
+ */
+class QTLogFileStats {
+
+    /**
+     * 一小时的毫秒数
+     */
+    private static final long HOUR = 60 * 60 * 1000;
+    /**
+     * 模板的最大长度，超过的部分截断
+     */
+    private static final int MAX_TEMPLATE_LENGTH = 200;
+    /**
+     * 每个统计对象最多记录的错误日志模板数量，超过后新的模板合并到 {@link #OTHER_TEMPLATE}
+     */
+    private static final int MAX_TEMPLATES = 1000;
+    /**
+     * 模板数量超过上限后使用的模板
+     */
+    static final String OTHER_TEMPLATE = "...";
+
+    /**
+     * 日志总数
+     */
+    long mTotalCount;
+    /**
+     * 第一条日志的时间，没有日志时为 Long.MAX_VALUE
+     */
+    long mFirstTime = Long.MAX_VALUE;
+    /**
+     * 最后一条日志的时间，没有日志时为 Long.MIN_VALUE
+     */
+    long mLastTime = Long.MIN_VALUE;
+    /**
+     * 每个日志级别的数量，下标为日志级别的原始值
+     */
+    final long[] mLevelCounts = new long[QTLogLevel.values().length];
+    /**
+     * 每个 TAG 的数量
+     */
+    final HashMap<String, long[]> mTagCounts = new HashMap<>();
+    /**
+     * 每个小时的数量，键为小时的开始时间
+     */
+    final HashMap<Long, long[]> mHourCounts = new HashMap<>();
+    /**
+     * 错误日志模板
+     */
+    final HashMap<String, QTLogErrorTemplate> mTemplates = new HashMap<>();
+
+    /**
+     * 统计一条日志
+     * @param record 日志
+     * @param timeZone 计算小时使用的时区
+     */
+    void add(QTLogRecord record, TimeZone timeZone) {
+        long time = record.getTime();
+        mTotalCount++;
+        mFirstTime = Math.min(mFirstTime, time);
+        mLastTime = Math.max(mLastTime, time);
+        QTLogLevel level = record.getLevel();
+        if (level != null) {
+            mLevelCounts[level.rawValue()]++;
+        }
+        if (record.getTag() != null) {
+            increment(mTagCounts, record.getTag(), 1);
+        }
+        long offset = timeZone.getOffset(time);
+        long hour = (time + offset) / HOUR * HOUR - offset;
+        increment(mHourCounts, hour, 1);
+        if (level == QTLogLevel.ERROR_LEVEL) {
+            String message = firstLine(record.getMessage());
+            String template = normalize(message);
+            QTLogErrorTemplate stats = mTemplates.get(template);
+            if (stats == null) {
+                if (mTemplates.size() >= MAX_TEMPLATES) {
+                    template = OTHER_TEMPLATE;
+                    stats = mTemplates.get(template);
+                }
+                if (stats == null) {
+                    stats = new QTLogErrorTemplate(template, message, time);
+                    mTemplates.put(template, stats);
+                }
+            }
+            stats.add(message, time);
+        }
+    }
+
+    /**
+     * 合并另一个统计对象
+     * @param other 另一个统计对象，不会被修改
+     */
+    void merge(QTLogFileStats other) {
+        mTotalCount += other.mTotalCount;
+        mFirstTime = Math.min(mFirstTime, other.mFirstTime);
+        mLastTime = Math.max(mLastTime, other.mLastTime);
+        for (int i = 0; i < mLevelCounts.length; i++) {
+            mLevelCounts[i] += other.mLevelCounts[i];
+        }
+        for (Map.Entry<String, long[]> entry : other.mTagCounts.entrySet()) {
+            increment(mTagCounts, entry.getKey(), entry.getValue()[0]);
+        }
+        for (Map.Entry<Long, long[]> entry : other.mHourCounts.entrySet()) {
+            increment(mHourCounts, entry.getKey(), entry.getValue()[0]);
+        }
+        for (QTLogErrorTemplate template : other.mTemplates.values()) {
+            QTLogErrorTemplate stats = mTemplates.get(template.getTemplate());
+            if (stats == null) {
+                mTemplates.put(template.getTemplate(), template.copy());
+            } else {
+                stats.merge(template);
+            }
+        }
+    }
+
+    /**
+     * 生成统计结果
+     * @param topN 返回的错误日志模板数量
+     * @param fileCount 统计的日志文件数量
+     * @param scannedFileCount 重新读取的日志文件数量
+     * @return 返回统计结果
+     */
+    QTLogStats toStats(int topN, int fileCount, int scannedFileCount) {
+        LinkedHashMap<QTLogLevel, Long> levelCounts = new LinkedHashMap<>();
+        for (QTLogLevel level : QTLogLevel.values()) {
+            if (mLevelCounts[level.rawValue()] > 0) {
+                levelCounts.put(level, mLevelCounts[level.rawValue()]);
+            }
+        }
+        HashMap<String, Long> tagCounts = new HashMap<>();
+        for (Map.Entry<String, long[]> entry : mTagCounts.entrySet()) {
+            tagCounts.put(entry.getKey(), entry.getValue()[0]);
+        }
+        TreeMap<Long, Long> hourCounts = new TreeMap<>();
+        for (Map.Entry<Long, long[]> entry : mHourCounts.entrySet()) {
+            hourCounts.put(entry.getKey(), entry.getValue()[0]);
+        }
+        ArrayList<QTLogErrorTemplate> templates = new ArrayList<>(mTemplates.values());
+        Collections.sort(templates, new Comparator<QTLogErrorTemplate>() {
+            @Override
+            public int compare(QTLogErrorTemplate o1, QTLogErrorTemplate o2) {
+                if (o1.getCount() != o2.getCount()) {
+                    return o1.getCount() > o2.getCount() ? -1 : 1;
+                }
+                return o1.getTemplate().compareTo(o2.getTemplate());
+            }
+        });
+        if (templates.size() > topN) {
+            templates = new ArrayList<>(templates.subList(0, Math.max(topN, 0)));
+        }
+        return new QTLogStats(mTotalCount, mTotalCount > 0 ? mFirstTime : 0, mTotalCount > 0 ? mLastTime : 0,
+                levelCounts, tagCounts, hourCounts, templates, fileCount, scannedFileCount);
+    }
+
+    /**
+     * 将计数加到映射中
+     * @param counts 计数映射
+     * @param key 键
+     * @param count 增加的数量
+     * @param <K> 键的类型
+     */
+    private static <K> void increment(HashMap<K, long[]> counts, K key, long count) {
+        long[] value = counts.get(key);
+        if (value == null) {
+            counts.put(key, new long[] {count});
+        } else {
+            value[0] += count;
+        }
+    }
+
+    /**
+     * 获取日志内容的第一行
+     * @param message 日志内容
+     * @return 返回第一行
+     */
+    private static String firstLine(String message) {
+        int index = message.indexOf('\n');
+        return index >= 0 ? message.substring(0, index) : message;
+    }
+
+    /**
+     * 生成日志内容的模板，以字母和数字组成的单词为单位：包含数字的十六进制单词（数字、ID、地址、哈希值，
+     * 可以以 0x 开头）整个替换为 '#'，其他包含数字的单词只将连续的数字替换为 '#'，例如 "boom30" 替换为 "boom#"
+     * @param message 日志内容的第一行
+     * @return 返回模板
+     */
+    static String normalize(String message) {
+        int length = message.length();
+        StringBuilder template = new StringBuilder(Math.min(length, MAX_TEMPLATE_LENGTH));
+        int i = 0;
+        while (i < length && template.length() < MAX_TEMPLATE_LENGTH) {
+            char c = message.charAt(i);
+            if (!isWordChar(c)) {
+                template.append(c);
+                i++;
+                continue;
+            }
+            int end = i;
+            boolean hasDigit = false;
+            boolean isHex = true;
+            while (end < length && isWordChar(message.charAt(end))) {
+                char ch = message.charAt(end);
+                hasDigit |= ch <= '9';
+                // 0x 前缀的 x 不影响是否为十六进制单词
+                if (!isHexChar(ch) && !(end == i + 1 && (ch == 'x' || ch == 'X') && message.charAt(i) == '0')) {
+                    isHex = false;
+                }
+                end++;
+            }
+            if (!hasDigit) {
+                template.append(message, i, end);
+            } else if (isHex) {
+                template.append('#');
+            } else {
+                for (int j = i; j < end; j++) {
+                    char ch = message.charAt(j);
+                    if (ch > '9') {
+                        template.append(ch);
+                    } else if (j == i || message.charAt(j - 1) > '9') {
+                        template.append('#');
+                    }
+                }
+            }
+            i = end;
+        }
+        return template.toString();
+    }
+
+    /**
+     * 判断是否为 ASCII 字母或数字
+     * @param c 字符
+     * @return 如果是，返回 true；否则返回 false
+     */
+    private static boolean isWordChar(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * 判断是否为十六进制字符
+     * @param c 字符
+     * @return 如果是，返回 true；否则返回 false
+     */
+    private static boolean isHexChar(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
@@ -0,0 +1,346 @@
+package com.qty.log.search;
+
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.format.QTJsonLayout;
+import com.qty.log.format.QTLogPattern;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * 日志行解析类
+ *
+ * 按照写入日志时使用的文件日志格式，从一行日志中解析出时间（%d）、级别（%L）、TAG（%T）和日志内容（%m）。
+ * 无法按格式解析的行（例如异常堆栈）属于上一条日志。%n 之后的格式符不参与解析。
+ * JSON Lines 布局的日志每行都是一条完整的日志，从 ts、level、tag 和 msg 属性中解析。
+ * 该类不是线程安全的。
+ * @hide
+ */
+public class QTLogLineParser {
+
+    /**
+     * 参与解析的格式符
+     */
+    private final char[] mTokens;
+    /**
+     * 文件日志格式
+     */
+    private final String mFileFormat;
+    /**
+     * 日志时间格式
+     */
+    private final String mTimeFormat;
+    /**
+     * 每个格式符之前的文字，最后一个元素为最后一个格式符之后的文字
+     */
+    private final String[] mLiterals;
+    /**
+     * 日期解析对象
+     */
+    private final SimpleDateFormat mDateFormat;
+    /**
+     * 日志格式是否包含时间
+     */
+    private final boolean hasTime;
+    /**
+     * 日志时间的精度，单位：毫秒
+     */
+    private final long mTimePrecision;
+    /**
+     * 是否为 JSON Lines 布局
+     */
+    private final boolean isJsonLayout;
+    /**
+     * 日志时间格式是否包含日期
+     */
+    private final boolean hasDate;
+    /**
+     * 日志时间格式不包含日期时使用的日历
+     */
+    private final Calendar mCalendar;
+    /**
+     * 日志时间格式不包含日期时日志所在日期的开始时间，单位：毫秒
+     */
+    private long mDayStart;
+
+    /**
+     * 解析出的时间
+     */
+    private long mTime;
+    /**
+     * 解析出的日志级别
+     */
+    private QTLogLevel mLevel;
+    /**
+     * 解析出的 TAG
+     */
+    private String mTag;
+    /**
+     * 解析出的日志内容
+     */
+    private String mMessage;
+
+    /**
+     * 构造方法
+     * @param fileFormat 文件日志格式
+     * @param timeFormat 日志时间格式
+     */
+    public QTLogLineParser(String fileFormat, String timeFormat) {
+        this(fileFormat, timeFormat, false);
+    }
+
+    /**
+     * 构造方法
+     * @param fileFormat 文件日志格式
+     * @param timeFormat 日志时间格式
+     * @param jsonLayout 是否为 JSON Lines 布局，为 true 时忽略文件日志格式
+     */
+    public QTLogLineParser(String fileFormat, String timeFormat, boolean jsonLayout) {
+        mFileFormat = fileFormat;
+        mTimeFormat = timeFormat;
+        QTLogPattern pattern = QTLogPattern.compile(fileFormat);
+        int count = 0;
+        while (count < pattern.getTokenCount() && pattern.getToken(count) != 'n') {
+            count++;
+        }
+        mTokens = new char[count];
+        mLiterals = new String[count + 1];
+        for (int i = 0; i < count; i++) {
+            mTokens[i] = pattern.getToken(i);
+            mLiterals[i] = pattern.getLiteral(i);
+        }
+        mLiterals[count] = count < pattern.getTokenCount() ? pattern.getLiteral(count) : pattern.getTrailingLiteral();
+        mDateFormat = new SimpleDateFormat(timeFormat);
+        isJsonLayout = jsonLayout;
+        hasTime = jsonLayout || pattern.contains('d');
+        mTimePrecision = jsonLayout ? 1 : getTimePrecision(timeFormat);
+        hasDate = jsonLayout || timeFormat.indexOf('d') >= 0 || timeFormat.indexOf('D') >= 0;
+        mCalendar = hasDate ? null : Calendar.getInstance();
+    }
+
+    /**
+     * 创建一个使用相同格式的解析对象，解析对象保存了解析状态，同时读取多个文件时每个文件需要一个解析对象
+     * @return 返回新的解析对象
+     */
+    public QTLogLineParser copy() {
+        return new QTLogLineParser(mFileFormat, mTimeFormat, isJsonLayout);
+    }
+
+    /**
+     * 设置日志所在日期的开始时间，日志时间格式不包含日期（例如 "HH:mm:ss.SSS"）时，
+     * 解析出的时间为该日期加上日志中的时分秒
+     * @param dayStart 日期的开始时间，单位：毫秒，通常为日志文件名中的日期
+     */
+    public void setDayStart(long dayStart) {
+        mDayStart = dayStart;
+    }
+
+    /**
+     * 根据时间格式计算日志时间的精度，例如 "HH:mm:ss" 格式的精度为 1 秒
+     * @param timeFormat 日志时间格式
+     * @return 返回日志时间的精度，单位：毫秒
+     */
+    private static long getTimePrecision(String timeFormat) {
+        if (timeFormat.indexOf('S') >= 0) {
+            return 1;
+        } else if (timeFormat.indexOf('s') >= 0) {
+            return 1000;
+        } else if (timeFormat.indexOf('m') >= 0) {
+            return 60 * 1000;
+        } else if (timeFormat.indexOf('H') >= 0 || timeFormat.indexOf('h') >= 0
+                || timeFormat.indexOf('k') >= 0 || timeFormat.indexOf('K') >= 0) {
+            return 60 * 60 * 1000;
+        }
+        return 24 * 60 * 60 * 1000;
+    }
+
+    /**
+     * 判断日志格式是否包含时间
+     * @return 如果包含，返回 true；否则返回 false
+     */
+    public boolean hasTime() {
+        return hasTime;
+    }
+
+    /**
+     * 获取日志时间的精度，解析出的时间是日志实际时间按精度截断后的值
+     * @return 返回日志时间的精度，单位：毫秒
+     */
+    public long getTimePrecision() {
+        return mTimePrecision;
+    }
+
+    /**
+     * 解析一行日志
+     * @param line 日志行（不包含换行符）
+     * @return 如果该行是一条日志的开始，返回 true；否则返回 false
+     */
+    public boolean parse(String line) {
+        mTime = 0;
+        mLevel = null;
+        mTag = null;
+        mMessage = null;
+        if (isJsonLayout) {
+            return parseJson(line);
+        }
+        if (mTokens.length == 0) {
+            return false;
+        }
+        int pos = 0;
+        for (int i = 0; i < mTokens.length; i++) {
+            String literal = mLiterals[i];
+            if (!line.startsWith(literal, pos)) {
+                return false;
+            }
+            pos += literal.length();
+            String next = mLiterals[i + 1];
+            int end;
+            if (mTokens[i] == 'd') {
+                // 时间中可能包含与后面文字相同的字符（例如空格），按时间格式解析出实际的结束位置
+                ParsePosition position = new ParsePosition(pos);
+                Date date = mDateFormat.parse(line, position);
+                if (date == null) {
+                    return false;
+                }
+                mTime = hasDate || mDayStart <= 0 ? date.getTime() : withDayStart(date.getTime());
+                pos = position.getIndex();
+                if (i == mTokens.length - 1 && (!line.startsWith(next, pos)
+                        || pos + next.length() != line.length())) {
+                    return false;
+                }
+                continue;
+            }
+            if (i == mTokens.length - 1) {
+                end = line.length() - next.length();
+                if (end < pos || !line.endsWith(next)) {
+                    return false;
+                }
+            } else if (next.isEmpty()) {
+                if (mTokens[i] != 'L' || pos >= line.length()) {
+                    return false;
+                }
+                end = pos + 1;
+            } else {
+                end = line.indexOf(next, pos);
+                if (end < 0) {
+                    return false;
+                }
+            }
+            if (!accept(mTokens[i], line.substring(pos, end))) {
+                return false;
+            }
+            pos = end;
+        }
+        return true;
+    }
+
+    /**
+     * 解析一行 JSON 日志
+     * @param line 日志行
+     * @return 如果该行是一条有效的 JSON 日志，返回 true；否则返回 false
+     */
+    private boolean parseJson(String line) {
+        long time = QTJsonLayout.readLong(line, "ts", -1);
+        if (time < 0) {
+            return false;
+        }
+        String level = QTJsonLayout.readString(line, "level");
+        mTime = time;
+        mLevel = level != null ? getLevel(level) : null;
+        mTag = QTJsonLayout.readString(line, "tag");
+        mMessage = QTJsonLayout.readString(line, "msg");
+        return true;
+    }
+
+    /**
+     * 解析格式符对应的内容
+     * @param token 格式符
+     * @param value 格式符对应的内容
+     * @return 如果内容有效，返回 true；否则返回 false
+     */
+    private boolean accept(char token, String value) {
+        switch (token) {
+            case 'L':
+                mLevel = getLevel(value);
+                return mLevel != null;
+
+            case 'T':
+                mTag = value.trim();
+                return true;
+
+            case 'm':
+                mMessage = value;
+                return true;
+
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 将只包含时分秒的时间移动到日志所在的日期
+     * @param time 按不包含日期的时间格式解析出的时间
+     * @return 返回日志所在日期的时间
+     */
+    private long withDayStart(long time) {
+        mCalendar.setTimeInMillis(time);
+        int hour = mCalendar.get(Calendar.HOUR_OF_DAY);
+        int minute = mCalendar.get(Calendar.MINUTE);
+        int second = mCalendar.get(Calendar.SECOND);
+        int millisecond = mCalendar.get(Calendar.MILLISECOND);
+        mCalendar.setTimeInMillis(mDayStart);
+        mCalendar.set(Calendar.HOUR_OF_DAY, hour);
+        mCalendar.set(Calendar.MINUTE, minute);
+        mCalendar.set(Calendar.SECOND, second);
+        mCalendar.set(Calendar.MILLISECOND, millisecond);
+        return mCalendar.getTimeInMillis();
+    }
+
+    /**
+     * 根据级别名称获取日志级别
+     * @param name 级别名称
+     * @return 返回日志级别，如果名称无效，则返回 null
+     */
+    private static QTLogLevel getLevel(String name) {
+        for (QTLogLevel level : QTLogLevel.values()) {
+            if (level != QTLogLevel.NONE && level.nameValue().equals(name)) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取解析出的时间
+     * @return 返回时间，单位：毫秒，日志格式不包含时间时为 0
+     */
+    public long getTime() {
+        return mTime;
+    }
+
+    /**
+     * 获取解析出的日志级别
+     * @return 返回日志级别
+     */
+    public QTLogLevel getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * 获取解析出的 TAG
+     * @return 返回 TAG
+     */
+    public String getTag() {
+        return mTag;
+    }
+
+    /**
+     * 获取解析出的日志内容
+     * @return 返回日志内容
+     */
+    public String getMessage() {
+        return mMessage;
+    }
+}
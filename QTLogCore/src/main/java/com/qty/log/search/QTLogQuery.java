@@ -0,0 +1,143 @@
+package com.qty.log.search;
+
+import com.qty.log.bean.QTLogLevel;
+
+/**
+ * 日志查询条件
+ *
+ * 例如查询 network 通道最近 10 分钟的警告和错误日志：
+ * <pre>
+ *     long now = System.currentTimeMillis();
+ *     QTLogQuery query = new QTLogQuery(now - 10 * 60 * 1000, now)
+ *             .setLevel(QTLogLevel.WARN_LEVEL)
+ *             .setChannel("network");
+ * </pre>
+ */
+public class QTLogQuery {
+
+    /**
+     * 开始时间（包含），单位：毫秒
+     */
+    private long mFromTime;
+    /**
+     * 结束时间（包含），单位：毫秒
+     */
+    private long mToTime;
+    /**
+     * 最低日志级别，为 null 时不过滤
+     */
+    private QTLogLevel mLevel;
+    /**
+     * 日志 TAG，为 null 时不过滤
+     */
+    private String mTag;
+    /**
+     * 日志通道名称，为 null 时查询默认通道
+     */
+    private String mChannel;
+
+    /**
+     * 构造方法
+     * @param fromTime 开始时间（包含），单位：毫秒
+     * @param toTime   结束时间（包含），单位：毫秒
+     */
+    public QTLogQuery(long fromTime, long toTime) {
+        mFromTime = fromTime;
+        mToTime = toTime;
+    }
+
+    /**
+     * 设置最低日志级别
+     * @param level 最低日志级别，只返回级别不低于该级别的日志
+     * @return 返回当前查询条件
+     */
+    public QTLogQuery setLevel(QTLogLevel level) {
+        mLevel = level;
+        return this;
+    }
+
+    /**
+     * 设置日志 TAG
+     * @param tag 日志 TAG
+     * @return 返回当前查询条件
+     */
+    public QTLogQuery setTag(String tag) {
+        mTag = tag;
+        return this;
+    }
+
+    /**
+     * 设置日志通道
+     * @param channel 日志通道名称
+     * @return 返回当前查询条件
+     */
+    public QTLogQuery setChannel(String channel) {
+        mChannel = channel;
+        return this;
+    }
+
+    /**
+     * 获取开始时间
+     * @return 返回开始时间，单位：毫秒
+     */
+    public long getFromTime() {
+        return mFromTime;
+    }
+
+    /**
+     * 获取结束时间
+     * @return 返回结束时间，单位：毫秒
+     */
+    public long getToTime() {
+        return mToTime;
+    }
+
+    /**
+     * 获取最低日志级别
+     * @return 返回最低日志级别
+     */
+    public QTLogLevel getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * 获取日志 TAG
+     * @return 返回日志 TAG
+     */
+    public String getTag() {
+        return mTag;
+    }
+
+    /**
+     * 获取日志通道名称
+     * @return 返回日志通道名称
+     */
+    public String getChannel() {
+        return mChannel;
+    }
+
+    /**
+     * 判断日志是否满足查询条件
+     * @param record 日志记录
+     * @return 如果满足，返回 true；否则返回 false
+     */
+    public boolean matches(QTLogRecord record) {
+        return matches(record, 1);
+    }
+
+    /**
+     * 判断日志是否满足查询条件
+     * @param record 日志记录
+     * @param precision 日志时间的精度，单位：毫秒。日志时间 t 表示 [t, t + precision) 范围内的时间
+     * @return 如果满足，返回 true；否则返回 false
+     */
+    public boolean matches(QTLogRecord record, long precision) {
+        if (record.getTime() + precision <= mFromTime || record.getTime() > mToTime) {
+            return false;
+        }
+        if (mLevel != null && (record.getLevel() == null || record.getLevel().rawValue() < mLevel.rawValue())) {
+            return false;
+        }
+        return mTag == null || mTag.equals(record.getTag());
+    }
+}
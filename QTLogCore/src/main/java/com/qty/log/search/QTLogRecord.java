@@ -0,0 +1,110 @@
+package com.qty.log.search;
+
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.handler.QTLogChannel;
+
+import java.io.File;
+
+/**
+ * 从日志文件中读取的一条日志
+ */
+public class QTLogRecord {
+
+    /**
+     * 日志时间，单位：毫秒
+     */
+    private long mTime;
+    /**
+     * 日志级别，日志格式中没有 %L 时为 null
+     */
+    private QTLogLevel mLevel;
+    /**
+     * 日志 TAG，日志格式中没有 %T 时为 null
+     */
+    private String mTag;
+    /**
+     * 日志内容（%m 部分，包括后续的异常堆栈行）
+     */
+    private String mMessage;
+    /**
+     * 日志的原始文本（可能有多行）
+     */
+    private String mText;
+    /**
+     * 日志所在的文件路径
+     */
+    private String mFile;
+
+    /**
+     * 构造方法
+     */
+    public QTLogRecord(long time, QTLogLevel level, String tag, String message, String text, String file) {
+        mTime = time;
+        mLevel = level;
+        mTag = tag;
+        mMessage = message;
+        mText = text;
+        mFile = file;
+    }
+
+    /**
+     * 获取日志时间
+     * @return 返回日志时间，单位：毫秒
+     */
+    public long getTime() {
+        return mTime;
+    }
+
+    /**
+     * 获取日志级别
+     * @return 返回日志级别，日志格式中没有 %L 时返回 null
+     */
+    public QTLogLevel getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * 获取日志 TAG
+     * @return 返回日志 TAG，日志格式中没有 %T 时返回 null
+     */
+    public String getTag() {
+        return mTag;
+    }
+
+    /**
+     * 获取日志内容
+     * @return 返回日志内容
+     */
+    public String getMessage() {
+        return mMessage;
+    }
+
+    /**
+     * 获取日志的原始文本
+     * @return 返回日志的原始文本
+     */
+    public String getText() {
+        return mText;
+    }
+
+    /**
+     * 获取日志所在的文件路径
+     * @return 返回文件路径
+     */
+    public String getFile() {
+        return mFile;
+    }
+
+    /**
+     * 获取写入日志的进程名称
+     * @return 返回进程名称，主进程的日志返回 null
+     */
+    public String getProcess() {
+        return QTLogChannel.getLogFileProcess(new File(mFile));
+    }
+
+    @Override
+    public String toString() {
+        return mText;
+    }
+}
@@ -0,0 +1,120 @@
+package com.qty.log.search;
+
+import com.qty.log.handler.QTLogChannel;
+import com.qty.log.handler.QTLogConfig;
+import com.qty.log.handler.QTLogFileManager;
+import com.qty.log.utils.Log;
+
+import java.io.File;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 日志查询类
+ *
+ * 根据查询条件找到时间范围内的日志文件（包括所有进程的日志文件），返回按需读取的查询结果 {@link QTLogCursor}。
+ * 日志按照当前配置的文件日志格式（或 JSON Lines 布局）和时间格式解析。
+ */
+public class QTLogSearcher {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogSearcher.class.getSimpleName();
+    /**
+     * 查询日志
+     * @param query 查询条件
+     * @return 返回查询结果，使用完成后需要关闭
+     */
+    public QTLogCursor search(QTLogQuery query) {
+        QTLogConfig config = QTLogConfig.getInstance();
+        QTLogLineParser parser = new QTLogLineParser(config.getFileLogFormat(), config.getTimeFormat(),
+                config.isJsonLayout());
+        ArrayList<File> files = new ArrayList<>();
+        ArrayList<Long> fileTimes = new ArrayList<>();
+        QTLogChannel channel = findChannel(query.getChannel());
+        if (channel != null) {
+            File[] logs = channel.listLogFiles();
+            if (logs != null) {
+                Arrays.sort(logs, new Comparator<File>() {
+                    @Override
+                    public int compare(File o1, File o2) {
+                        return o1.getName().compareTo(o2.getName());
+                    }
+                });
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+                for (File log : logs) {
+                    long dayStart = getFileTime(sdf, log);
+                    if (dayStart < 0) {
+                        continue;
+                    }
+                    Calendar dayEnd = Calendar.getInstance();
+                    dayEnd.setTimeInMillis(dayStart);
+                    dayEnd.add(Calendar.DAY_OF_MONTH, 1);
+                    if (dayEnd.getTimeInMillis() > query.getFromTime() && dayStart <= query.getToTime()) {
+                        files.add(log);
+                        fileTimes.add(dayStart);
+                    }
+                }
+            }
+        } else {
+            Log.w(TAG, "search=>Channel " + query.getChannel() + " is not exist.");
+        }
+        long[] times = new long[fileTimes.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = fileTimes.get(i);
+        }
+        return new QTLogCursor(query, files, times, parser);
+    }
+
+    /**
+     * 根据名称获取日志通道
+     * @param name 通道名称，为 null 时获取默认通道
+     * @return 返回日志通道，如果不存在，则返回 null
+     */
+    static QTLogChannel findChannel(String name) {
+        if (name == null) {
+            name = QTLogChannel.DEFAULT_CHANNEL;
+        }
+        List<QTLogChannel> channels = QTLogFileManager.getInstance().getChannels();
+        for (int i = 0; i < channels.size(); i++) {
+            if (channels.get(i).getName().equals(name)) {
+                return channels.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取日志文件对应日期的开始时间
+     * @param file 日志文件
+     * @return 返回开始时间，如果文件名不是日期，则返回 -1
+     */
+    public static long getFileTime(File file) {
+        return getFileTime(new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()), file);
+    }
+
+    /**
+     * 获取日志文件对应日期的开始时间
+     * @param sdf 日期格式
+     * @param file 日志文件
+     * @return 返回开始时间，如果文件名不是日期，则返回 -1
+     */
+    private static long getFileTime(SimpleDateFormat sdf, File file) {
+        String date = QTLogChannel.getLogFileDate(file);
+        if (date == null) {
+            return -1;
+        }
+        try {
+            return sdf.parse(date).getTime();
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.qty.log.search;
+
+import com.qty.log.bean.QTLogLevel;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 日志统计结果
+ *
+ * 通过 {@link QTLogAnalyzer#analyze(String, int)} 获取，统计日志通道目录下所有日志文件（包括所有进程的日志文件）。
+ * 日志格式中没有 %L 或 %T 时不统计日志级别或 TAG。
+ */
+public class QTLogStats {
+
+    /**
+     * 日志总数
+     */
+    private final long mTotalCount;
+    /**
+     * 第一条日志的时间，单位：毫秒
+     */
+    private final long mFirstTime;
+    /**
+     * 最后一条日志的时间，单位：毫秒
+     */
+    private final long mLastTime;
+    /**
+     * 每个日志级别的数量
+     */
+    private final Map<QTLogLevel, Long> mLevelCounts;
+    /**
+     * 每个 TAG 的数量
+     */
+    private final Map<String, Long> mTagCounts;
+    /**
+     * 每个小时的数量，按时间排序
+     */
+    private final Map<Long, Long> mHourCounts;
+    /**
+     * 数量最多的错误日志模板
+     */
+    private final List<QTLogErrorTemplate> mTopErrors;
+    /**
+     * 统计的日志文件数量
+     */
+    private final int mFileCount;
+    /**
+     * 重新读取的日志文件数量，其他文件使用缓存的统计结果
+     */
+    private final int mScannedFileCount;
+
+    /**
+     * 构造方法
+     * @param totalCount 日志总数
+     * @param firstTime 第一条日志的时间
+     * @param lastTime 最后一条日志的时间
+     * @param levelCounts 每个日志级别的数量
+     * @param tagCounts 每个 TAG 的数量
+     * @param hourCounts 每个小时的数量
+     * @param topErrors 数量最多的错误日志模板
+     * @param fileCount 统计的日志文件数量
+     * @param scannedFileCount 重新读取的日志文件数量
+     */
+    QTLogStats(long totalCount, long firstTime, long lastTime, Map<QTLogLevel, Long> levelCounts,
+               Map<String, Long> tagCounts, Map<Long, Long> hourCounts, List<QTLogErrorTemplate> topErrors,
+               int fileCount, int scannedFileCount) {
+        mTotalCount = totalCount;
+        mFirstTime = firstTime;
+        mLastTime = lastTime;
+        mLevelCounts = levelCounts;
+        mTagCounts = tagCounts;
+        mHourCounts = hourCounts;
+        mTopErrors = topErrors;
+        mFileCount = fileCount;
+        mScannedFileCount = scannedFileCount;
+    }
+
+    /**
+     * 获取日志总数
+     * @return 返回日志总数
+     */
+    public long getTotalCount() {
+        return mTotalCount;
+    }
+
+    /**
+     * 获取第一条日志的时间
+     * @return 返回时间，单位：毫秒，没有日志时返回 0
+     */
+    public long getFirstTime() {
+        return mFirstTime;
+    }
+
+    /**
+     * 获取最后一条日志的时间
+     * @return 返回时间，单位：毫秒，没有日志时返回 0
+     */
+    public long getLastTime() {
+        return mLastTime;
+    }
+
+    /**
+     * 获取每个日志级别的数量
+     * @return 返回日志级别到数量的映射，按日志级别排列，不包含数量为 0 的级别
+     */
+    public Map<QTLogLevel, Long> getLevelCounts() {
+        return mLevelCounts;
+    }
+
+    /**
+     * 获取每个 TAG 的数量
+     * @return 返回 TAG 到数量的映射
+     */
+    public Map<String, Long> getTagCounts() {
+        return mTagCounts;
+    }
+
+    /**
+     * 获取每个小时的数量
+     * @return 返回小时的开始时间（单位：毫秒）到数量的映射，按时间排序
+     */
+    public Map<Long, Long> getHourCounts() {
+        return mHourCounts;
+    }
+
+    /**
+     * 获取数量最多的错误日志模板
+     * @return 返回错误日志模板，按数量从多到少排序
+     */
+    public List<QTLogErrorTemplate> getTopErrors() {
+        return mTopErrors;
+    }
+
+    /**
+     * 获取统计的日志文件数量
+     * @return 返回日志文件数量
+     */
+    public int getFileCount() {
+        return mFileCount;
+    }
+
+    /**
+     * 获取本次重新读取的日志文件数量，其他已经关闭的日志文件使用缓存的统计结果
+     * @return 返回日志文件数量
+     */
+    public int getScannedFileCount() {
+        return mScannedFileCount;
+    }
+
+    @Override
+    public String toString() {
+        return "total=" + mTotalCount + ", firstTime=" + mFirstTime + ", lastTime=" + mLastTime
+                + ", levels=" + mLevelCounts + ", tags=" + mTagCounts + ", hours=" + mHourCounts
+                + ", topErrors=" + mTopErrors + ", files=" + mFileCount + ", scanned=" + mScannedFileCount;
+    }
+}
@@ -0,0 +1,182 @@
+package com.qty.log.tail;
+
+import com.qty.log.handler.QTLogChannel;
+import com.qty.log.handler.QTLogFilePosition;
+import com.qty.log.handler.QTLogFileManager;
+
+import java.io.File;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * 实时日志分发类
+ *
+ * 写入线程每写完一批日志后调用 {@link #publish(String, File, long, long, String)}，将日志放入各个订阅的缓冲区中。
+ * 没有订阅时写入线程不会做任何额外的工作。
+ * @hide
+ */
+public class QTLogTail {
+
+    /**
+     * 默认订阅缓冲区容量
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * QTLogTail 实例
+     */
+    private static final QTLogTail INSTANCE = QTLogTailInstance.sInstance;
+
+    /**
+     * 订阅数组，修改时复制
+     */
+    private volatile QTLogTailSubscription[] mSubscriptions = new QTLogTailSubscription[0];
+
+    /**
+     * 单例方法
+     * @return 返回 QTLogTail 对象
+     */
+    public static QTLogTail getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 内部构造方法
+     */
+    private QTLogTail() {}
+
+    /**
+     * 订阅日志通道的实时日志
+     * @param channel 日志通道名称，为 null 时订阅默认通道
+     * @param replayFromTime 回放的开始时间，单位：毫秒，会先回放当前日志文件中该时间之后的日志；小于 0 表示不回放
+     * @param capacity 缓冲区容量
+     * @param listener 监听器
+     * @return 返回订阅对象，不再需要时调用 close 取消订阅
+     */
+    public QTLogTailSubscription subscribe(String channel, long replayFromTime, int capacity,
+                                           QTLogTailListener listener) {
+        if (listener == null || capacity <= 0) {
+            throw new IllegalArgumentException("listener = " + listener + ", capacity = " + capacity);
+        }
+        if (channel == null) {
+            channel = QTLogChannel.DEFAULT_CHANNEL;
+        }
+        QTLogTailSubscription subscription = new QTLogTailSubscription(channel, capacity, replayFromTime, listener);
+        add(subscription);
+        File replayFile = null;
+        long replayEnd = 0;
+        if (replayFromTime >= 0) {
+            // 必须在加入分发列表之后获取写入位置，之后写入的日志都会进入订阅的缓冲区
+            QTLogChannel logChannel = findChannel(channel);
+            if (logChannel != null) {
+                QTLogFilePosition position = logChannel.getWrittenPosition();
+                if (position != null) {
+                    replayFile = position.getFile();
+                    replayEnd = position.getOffset();
+                } else {
+                    // 写入线程还没有启动，回放今天已有的日志文件，写入线程启动后从文件末尾追加
+                    replayFile = logChannel.getLogFile(Calendar.getInstance().getTime());
+                    replayEnd = replayFile.length();
+                }
+                if (replayEnd == 0) {
+                    replayFile = null;
+                }
+            }
+        }
+        subscription.start(replayFile, replayEnd);
+        return subscription;
+    }
+
+    /**
+     * 判断是否存在订阅
+     * @return 如果存在，返回 true；否则返回 false
+     */
+    public boolean hasSubscribers() {
+        return mSubscriptions.length > 0;
+    }
+
+    /**
+     * 分发一条已经写入文件的日志，由写入线程调用
+     * @param channel 日志通道名称
+     * @param file 日志文件
+     * @param offset 日志在文件中的偏移
+     * @param time 日志时间，单位：毫秒
+     * @param msg 日志内容
+     */
+    public void publish(String channel, File file, long offset, long time, String msg) {
+        QTLogTailSubscription[] subscriptions = mSubscriptions;
+        QTLogTailEvent event = null;
+        for (QTLogTailSubscription subscription : subscriptions) {
+            if (!subscription.getChannel().equals(channel)) {
+                continue;
+            }
+            if (event == null) {
+                event = new QTLogTailEvent(channel, time, offset, trimLineEnd(msg), false);
+            }
+            subscription.offer(file, event);
+        }
+    }
+
+    /**
+     * 添加订阅
+     * @param subscription 订阅对象
+     */
+    private synchronized void add(QTLogTailSubscription subscription) {
+        QTLogTailSubscription[] old = mSubscriptions;
+        QTLogTailSubscription[] subscriptions = new QTLogTailSubscription[old.length + 1];
+        System.arraycopy(old, 0, subscriptions, 0, old.length);
+        subscriptions[old.length] = subscription;
+        mSubscriptions = subscriptions;
+    }
+
+    /**
+     * 删除订阅
+     * @param subscription 订阅对象
+     */
+    synchronized void remove(QTLogTailSubscription subscription) {
+        QTLogTailSubscription[] old = mSubscriptions;
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] == subscription) {
+                QTLogTailSubscription[] subscriptions = new QTLogTailSubscription[old.length - 1];
+                System.arraycopy(old, 0, subscriptions, 0, i);
+                System.arraycopy(old, i + 1, subscriptions, i, old.length - i - 1);
+                mSubscriptions = subscriptions;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 根据名称获取日志通道
+     * @param name 通道名称
+     * @return 返回日志通道，如果不存在，则返回 null
+     */
+    private static QTLogChannel findChannel(String name) {
+        List<QTLogChannel> channels = QTLogFileManager.getInstance().getChannels();
+        for (int i = 0; i < channels.size(); i++) {
+            if (channels.get(i).getName().equals(name)) {
+                return channels.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 去掉日志末尾的换行符
+     * @param msg 日志内容
+     * @return 返回去掉换行符后的日志内容
+     */
+    private static String trimLineEnd(String msg) {
+        int end = msg.length();
+        while (end > 0 && (msg.charAt(end - 1) == '\n' || msg.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        return end == msg.length() ? msg : msg.substring(0, end);
+    }
+
+    /**
+     * 内部静态类
+     */
+    private static class QTLogTailInstance {
+        private static final QTLogTail sInstance = new QTLogTail();
+    }
+}
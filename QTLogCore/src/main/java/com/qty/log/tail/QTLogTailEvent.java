@@ -0,0 +1,86 @@
+package com.qty.log.tail;
+
+/**
+ * 实时日志事件
+ *
+ * 内容与写入日志文件的内容相同（按文件日志格式或 JSON Lines 布局格式化），一条日志可能包含多行（例如异常堆栈）。
+ */
+public class QTLogTailEvent {
+
+    /**
+     * 日志通道名称
+     */
+    private final String mChannel;
+    /**
+     * 日志时间，单位：毫秒
+     */
+    private final long mTime;
+    /**
+     * 日志在文件中的偏移
+     */
+    private final long mOffset;
+    /**
+     * 日志内容
+     */
+    private final String mText;
+    /**
+     * 是否为从日志文件中回放的日志
+     */
+    private final boolean isReplayed;
+
+    /**
+     * 构造方法
+     * @param channel 日志通道名称
+     * @param time  日志时间
+     * @param offset 日志在文件中的偏移
+     * @param text  日志内容
+     * @param replayed 是否为从日志文件中回放的日志
+     */
+    public QTLogTailEvent(String channel, long time, long offset, String text, boolean replayed) {
+        mChannel = channel;
+        mTime = time;
+        mOffset = offset;
+        mText = text;
+        isReplayed = replayed;
+    }
+
+    /**
+     * 获取日志通道名称
+     * @return 返回日志通道名称
+     */
+    public String getChannel() {
+        return mChannel;
+    }
+
+    /**
+     * 获取日志时间
+     * @return 返回日志时间，单位：毫秒，回放的日志如果无法解析时间，则为 0
+     */
+    public long getTime() {
+        return mTime;
+    }
+
+    /**
+     * 获取日志在文件中的偏移
+     * @return 返回偏移，单位：Byte
+     */
+    public long getOffset() {
+        return mOffset;
+    }
+
+    /**
+     * 获取日志内容
+     * @return 返回日志内容，不包含末尾的换行符
+     */
+    public String getText() {
+        return mText;
+    }
+
+    /**
+     * 判断是否为从日志文件中回放的日志
+     * @return 如果是，返回 true；否则返回 false
+     */
+    public boolean isReplayed() {
+        return isReplayed;
+    }
+}
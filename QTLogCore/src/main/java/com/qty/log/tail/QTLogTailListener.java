@@ -0,0 +1,20 @@
+package com.qty.log.tail;
+
+import java.util.List;
+
+/**
+ * 实时日志监听接口
+ *
+ * 回调在订阅的分发线程中执行，不在打印日志的线程或写入线程中执行。回调执行期间新的日志会缓存在订阅的
+ * 环形缓冲区中，缓冲区满时丢弃最旧的日志，所以回调较慢只会导致丢失日志，不会阻塞日志打印和写入。
+ * 如果需要更新界面，请在回调中切换到主线程。
+ */
+public interface QTLogTailListener {
+
+    /**
+     * 收到一批日志
+     * @param events 日志事件列表，按写入顺序排列，回调返回后不能再使用该列表
+     * @param dropped 上次回调之后因缓冲区已满而丢弃的日志数量
+     */
+    void onEvents(List<QTLogTailEvent> events, long dropped);
+}
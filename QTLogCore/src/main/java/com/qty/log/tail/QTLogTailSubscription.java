@@ -0,0 +1,358 @@
+package com.qty.log.tail;
+
+import com.qty.log.handler.QTLogConfig;
+import com.qty.log.handler.QTLogIndex;
+import com.qty.log.search.QTLogLineParser;
+import com.qty.log.search.QTLogSearcher;
+import com.qty.log.utils.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 实时日志订阅
+ *
+ * 每个订阅有一个有界环形缓冲区和一个分发线程。写入线程将写入文件的日志放入缓冲区后立即返回，
+ * 缓冲区满时覆盖最旧的日志并计数；分发线程批量取出日志并回调监听器，监听器处理完一批后才会取下一批。
+ * 需要回放时，分发线程先从日志文件中读取订阅时已经写入的日志，再切换到缓冲区中的实时日志。
+ * 回放结束位置是订阅加入分发列表之后获取的写入位置，该位置之前的日志是完整的，之后写入的日志一定会进入缓冲区，
+ * 缓冲区中偏移小于该位置的日志已经回放过，会被跳过，所以两部分日志不会重复也不会遗漏。
+ */
+public class QTLogTailSubscription implements Closeable {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogTailSubscription.class.getSimpleName();
+    /**
+     * 每次回调的最大日志数量
+     */
+    private static final int MAX_BATCH_SIZE = 256;
+    /**
+     * 缓冲区为空时分发线程等待的最长时间，单位：毫秒
+     */
+    private static final long WAIT_TIME = 500;
+
+    /**
+     * 日志通道名称
+     */
+    private final String mChannel;
+    /**
+     * 监听器
+     */
+    private final QTLogTailListener mListener;
+    /**
+     * 回放的开始时间，单位：毫秒，小于 0 表示不回放
+     */
+    private final long mReplayFromTime;
+    /**
+     * 环形缓冲区中的日志
+     */
+    private final QTLogTailEvent[] mEvents;
+    /**
+     * 环形缓冲区中日志所在的文件
+     */
+    private final File[] mFiles;
+    /**
+     * 环形缓冲区下标掩码
+     */
+    private final int mMask;
+    /**
+     * 环形缓冲区中第一条日志的下标
+     */
+    private int mHead;
+    /**
+     * 环形缓冲区中的日志数量
+     */
+    private int mSize;
+    /**
+     * 丢弃的日志总数
+     */
+    private long mDropped;
+    /**
+     * 上次回调之后丢弃的日志数量
+     */
+    private long mPendingDropped;
+    /**
+     * 需要回放的日志文件，为 null 表示不回放
+     */
+    private File mReplayFile;
+    /**
+     * 回放结束位置，回放文件中偏移小于该位置的实时日志已经回放过
+     */
+    private long mReplayEnd;
+    /**
+     * 是否已经关闭
+     */
+    private volatile boolean isClosed;
+    /**
+     * 分发线程
+     */
+    private final Thread mThread;
+
+    /**
+     * 构造方法
+     * @param channel 日志通道名称
+     * @param capacity 缓冲区容量，会向上取整为 2 的幂
+     * @param replayFromTime 回放的开始时间，小于 0 表示不回放
+     * @param listener 监听器
+     */
+    QTLogTailSubscription(String channel, int capacity, long replayFromTime, QTLogTailListener listener) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mChannel = channel;
+        mListener = listener;
+        mReplayFromTime = replayFromTime;
+        mEvents = new QTLogTailEvent[size];
+        mFiles = new File[size];
+        mMask = size - 1;
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatch();
+            }
+        }, "QTLog-tail-" + channel);
+        mThread.setDaemon(true);
+    }
+
+    /**
+     * 启动分发线程，需要在订阅加入实时日志分发列表之后调用
+     * @param replayFile 需要回放的日志文件，为 null 表示不回放
+     * @param replayEnd 回放结束位置，为订阅加入分发列表之后获取的写入位置
+     */
+    void start(File replayFile, long replayEnd) {
+        mReplayFile = replayFile;
+        mReplayEnd = replayEnd;
+        mThread.start();
+    }
+
+    /**
+     * 获取日志通道名称
+     * @return 返回日志通道名称
+     */
+    public String getChannel() {
+        return mChannel;
+    }
+
+    /**
+     * 获取丢弃的日志总数
+     * @return 返回丢弃的日志总数
+     */
+    public synchronized long getDroppedCount() {
+        return mDropped;
+    }
+
+    /**
+     * 判断是否已经关闭
+     * @return 如果已经关闭，返回 true；否则返回 false
+     */
+    public boolean isClosed() {
+        return isClosed;
+    }
+
+    /**
+     * 取消订阅，分发线程在当前回调结束后退出
+     */
+    @Override
+    public void close() {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        QTLogTail.getInstance().remove(this);
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * 添加实时日志，缓冲区满时覆盖最旧的日志，不会阻塞
+     * @param file 日志所在的文件
+     * @param event 日志事件
+     */
+    synchronized void offer(File file, QTLogTailEvent event) {
+        if (isClosed) {
+            return;
+        }
+        if (mSize == mEvents.length) {
+            mEvents[mHead] = null;
+            mFiles[mHead] = null;
+            mHead = (mHead + 1) & mMask;
+            mSize--;
+            mDropped++;
+            mPendingDropped++;
+        }
+        int index = (mHead + mSize) & mMask;
+        mEvents[index] = event;
+        mFiles[index] = file;
+        mSize++;
+        if (mSize == 1) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * 分发线程
+     */
+    private void dispatch() {
+        if (mReplayFile != null) {
+            replay();
+        }
+        ArrayList<QTLogTailEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (!isClosed) {
+            long dropped;
+            synchronized (this) {
+                while (mSize == 0 && !isClosed) {
+                    try {
+                        wait(WAIT_TIME);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (isClosed) {
+                    break;
+                }
+                int count = Math.min(mSize, MAX_BATCH_SIZE);
+                for (int i = 0; i < count; i++) {
+                    int index = (mHead + i) & mMask;
+                    QTLogTailEvent event = mEvents[index];
+                    if (!isReplayed(mFiles[index], event)) {
+                        batch.add(event);
+                    }
+                    mEvents[index] = null;
+                    mFiles[index] = null;
+                }
+                mHead = (mHead + count) & mMask;
+                mSize -= count;
+                dropped = mPendingDropped;
+                mPendingDropped = 0;
+            }
+            if (!batch.isEmpty() || dropped > 0) {
+                deliver(batch, dropped);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * 判断实时日志是否已经回放过
+     * @param file 日志所在的文件
+     * @param event 日志事件
+     * @return 如果已经回放过，返回 true；否则返回 false
+     */
+    private boolean isReplayed(File file, QTLogTailEvent event) {
+        return mReplayFile != null && mReplayFile.equals(file) && event.getOffset() < mReplayEnd;
+    }
+
+    /**
+     * 回调监听器
+     * @param events 日志事件列表
+     * @param dropped 丢弃的日志数量
+     */
+    private void deliver(List<QTLogTailEvent> events, long dropped) {
+        try {
+            mListener.onEvents(events, dropped);
+        } catch (Exception e) {
+            Log.e(TAG, "deliver=>Listener error: ", e);
+        }
+    }
+
+    /**
+     * 回放日志文件中从开始时间到回放结束位置的日志，回放结束位置之前的日志都是完整的
+     */
+    private void replay() {
+        File file = mReplayFile;
+        long end = mReplayEnd;
+        QTLogConfig config = QTLogConfig.getInstance();
+        QTLogLineParser parser = new QTLogLineParser(config.getFileLogFormat(), config.getTimeFormat(),
+                config.isJsonLayout());
+        parser.setDayStart(QTLogSearcher.getFileTime(file));
+        long fromTime = mReplayFromTime - parser.getTimePrecision() + 1;
+        long offset = Math.min(QTLogIndex.findOffset(file, fromTime), end);
+        ArrayList<QTLogTailEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        StringBuilder record = null;
+        long recordOffset = offset;
+        long recordTime = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            skipFully(in, offset);
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            long lineOffset = offset;
+            long position = offset;
+            while (position < end && !isClosed) {
+                int b = in.read();
+                if (b < 0) {
+                    break;
+                }
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                String text = line.toString("UTF-8");
+                line.reset();
+                if (text.endsWith("\r")) {
+                    text = text.substring(0, text.length() - 1);
+                }
+                if (parser.parse(text)) {
+                    if (record != null && (!parser.hasTime() || recordTime >= fromTime)) {
+                        addReplayed(batch, recordTime, recordOffset, record);
+                    }
+                    record = new StringBuilder(text);
+                    recordOffset = lineOffset;
+                    recordTime = parser.getTime();
+                } else if (record != null) {
+                    record.append('\n').append(text);
+                }
+                lineOffset = position;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "replay=>Read " + file + " error: ", e);
+        }
+        if (record != null && (!parser.hasTime() || recordTime >= fromTime)) {
+            addReplayed(batch, recordTime, recordOffset, record);
+        }
+        if (!batch.isEmpty()) {
+            deliver(batch, 0);
+        }
+    }
+
+    /**
+     * 添加一条回放的日志，达到批量大小时回调监听器
+     * @param batch 日志事件列表
+     * @param time 日志时间
+     * @param offset 日志在文件中的偏移
+     * @param record 日志内容
+     */
+    private void addReplayed(List<QTLogTailEvent> batch, long time, long offset, StringBuilder record) {
+        batch.add(new QTLogTailEvent(mChannel, time, offset, record.toString(), true));
+        if (batch.size() == MAX_BATCH_SIZE) {
+            deliver(batch, 0);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 跳过指定数量的字节
+     * @param in 输入流
+     * @param count 字节数
+     * @throws IOException 读取失败时抛出
+     */
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            count -= skipped;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.qty.log.upload;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 本地文件上传通道
+ *
+ * 将日志分片保存到指定目录下，文件路径为 目录/通道名/日志文件名.分片下标.gz，重复发送的分片会覆盖之前的文件。
+ * 可以用于测试上传流程，或者将日志导出到其他存储位置。
+ */
+public class QTFileLogTransport implements QTLogTransport {
+
+    /**
+     * 保存分片的目录
+     */
+    private final File mDirectory;
+
+    /**
+     * 构造方法
+     * @param directory 保存分片的目录
+     */
+    public QTFileLogTransport(File directory) {
+        mDirectory = directory;
+    }
+
+    /**
+     * 获取保存分片的目录
+     * @return 返回保存分片的目录
+     */
+    public File getDirectory() {
+        return mDirectory;
+    }
+
+    @Override
+    public void send(QTLogChunk chunk) throws IOException {
+        File dir = new File(mDirectory, chunk.getChannel());
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Unable create directory " + dir);
+        }
+        File tmp = new File(dir, chunk.getSegmentName() + "." + chunk.getIndex() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(chunk.getData());
+            out.getFD().sync();
+        }
+        File file = new File(dir, chunk.getSegmentName() + "." + chunk.getIndex() + ".gz");
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Unable replace file " + file);
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Unable rename " + tmp + " to " + file);
+        }
+    }
+}
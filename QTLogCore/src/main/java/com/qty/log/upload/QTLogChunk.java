@@ -0,0 +1,129 @@
+package com.qty.log.upload;
+
+/**
+ * 日志分片
+ *
+ * 日志文件按原始字节切分为多个分片，每个分片使用 gzip 单独压缩，服务器将各分片解压后按下标顺序拼接即可还原日志文件。
+ */
+public class QTLogChunk {
+
+    /**
+     * 日志通道名称
+     */
+    private final String mChannel;
+    /**
+     * 日志文件名
+     */
+    private final String mSegmentName;
+    /**
+     * 日志文件大小，单位：Byte
+     */
+    private final long mSegmentLength;
+    /**
+     * 分片下标，从 0 开始
+     */
+    private final int mIndex;
+    /**
+     * 分片在日志文件中的偏移
+     */
+    private final long mOffset;
+    /**
+     * 分片压缩前的长度
+     */
+    private final int mLength;
+    /**
+     * 是否为日志文件的最后一个分片
+     */
+    private final boolean isLast;
+    /**
+     * gzip 压缩后的分片数据
+     */
+    private final byte[] mData;
+
+    /**
+     * 构造方法
+     * @param channel   日志通道名称
+     * @param segmentName   日志文件名
+     * @param segmentLength 日志文件大小
+     * @param index 分片下标
+     * @param offset    分片在日志文件中的偏移
+     * @param length    分片压缩前的长度
+     * @param last  是否为最后一个分片
+     * @param data  gzip 压缩后的分片数据
+     */
+    public QTLogChunk(String channel, String segmentName, long segmentLength, int index, long offset, int length,
+                      boolean last, byte[] data) {
+        mChannel = channel;
+        mSegmentName = segmentName;
+        mSegmentLength = segmentLength;
+        mIndex = index;
+        mOffset = offset;
+        mLength = length;
+        isLast = last;
+        mData = data;
+    }
+
+    /**
+     * 获取日志通道名称
+     * @return 返回日志通道名称
+     */
+    public String getChannel() {
+        return mChannel;
+    }
+
+    /**
+     * 获取日志文件名
+     * @return 返回日志文件名，例如 2023-11-15.log
+     */
+    public String getSegmentName() {
+        return mSegmentName;
+    }
+
+    /**
+     * 获取日志文件大小
+     * @return 返回日志文件大小，单位：Byte
+     */
+    public long getSegmentLength() {
+        return mSegmentLength;
+    }
+
+    /**
+     * 获取分片下标
+     * @return 返回分片下标，从 0 开始
+     */
+    public int getIndex() {
+        return mIndex;
+    }
+
+    /**
+     * 获取分片在日志文件中的偏移
+     * @return 返回偏移，单位：Byte
+     */
+    public long getOffset() {
+        return mOffset;
+    }
+
+    /**
+     * 获取分片压缩前的长度
+     * @return 返回长度，单位：Byte
+     */
+    public int getLength() {
+        return mLength;
+    }
+
+    /**
+     * 判断是否为日志文件的最后一个分片
+     * @return 如果是，返回 true；否则返回 false
+     */
+    public boolean isLast() {
+        return isLast;
+    }
+
+    /**
+     * 获取 gzip 压缩后的分片数据
+     * @return 返回分片数据
+     */
+    public byte[] getData() {
+        return mData;
+    }
+}
@@ -0,0 +1,356 @@
+package com.qty.log.upload;
+
+import com.qty.log.handler.QTLogChannel;
+import com.qty.log.handler.QTLogFileManager;
+import com.qty.log.search.QTLogQuery;
+import com.qty.log.search.QTLogSearcher;
+import com.qty.log.utils.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 日志导出类
+ *
+ * 将日志通道中时间范围内的日志文件（包括所有进程的日志文件）导出为一个 tar 或 zip 文件，用于分享日志。例如导出最近一周的日志：
+ * <pre>
+ *     long now = System.currentTimeMillis();
+ *     QTLogQuery query = new QTLogQuery(now - 7 * 24 * 60 * 60 * 1000L, now);
+ *     new QTLogExporter().export(query, new File(cacheDir, "logs.tar"));
+ * </pre>
+ * 导出时不暂停写入线程，每个日志文件只导出开始导出该文件时的长度，之后追加的日志不会被导出。
+ * tar 格式使用 FileChannel.transferTo 直接复制文件内容（输出为文件时由系统在内核中复制），不经过 Java 堆；
+ * zip 格式使用最快的压缩级别压缩日志文件，已经压缩过的文件（.gz、.zip）不再压缩。两种格式都只使用固定大小的缓冲区。
+ * 导出会阻塞直到完成，不要在主线程中调用。查询条件中的日志级别和 TAG 不起作用。
+ */
+public class QTLogExporter {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogExporter.class.getSimpleName();
+    /**
+     * tar 格式
+     */
+    public static final int FORMAT_TAR = 0;
+    /**
+     * zip 格式
+     */
+    public static final int FORMAT_ZIP = 1;
+
+    /**
+     * tar 格式的块大小
+     */
+    private static final int TAR_BLOCK_SIZE = 512;
+    /**
+     * 复制缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * 已经压缩过的文件的后缀
+     */
+    private static final String[] COMPRESSED_SUFFIXES = {".gz", ".zip"};
+
+    /**
+     * 导出日志，根据输出文件的后缀选择格式（.zip 为 zip 格式，其他为 tar 格式），导出失败时删除输出文件
+     * @param query 查询条件，只使用时间范围和日志通道
+     * @param output 输出文件
+     * @return 返回导出的日志文件数量，导出失败时返回 -1
+     */
+    public int export(QTLogQuery query, File output) {
+        int format = output.getName().toLowerCase(Locale.US).endsWith(".zip") ? FORMAT_ZIP : FORMAT_TAR;
+        int count;
+        try (FileOutputStream out = new FileOutputStream(output)) {
+            count = export(query, out, format);
+        } catch (IOException e) {
+            Log.e(TAG, "export=>Open " + output + " error: ", e);
+            count = -1;
+        }
+        if (count < 0) {
+            output.delete();
+        }
+        return count;
+    }
+
+    /**
+     * 导出日志到输出流，不会关闭输出流
+     * @param query 查询条件，只使用时间范围和日志通道
+     * @param out 输出流，为 FileOutputStream 时 tar 格式直接在文件之间复制
+     * @param format 导出格式，{@link #FORMAT_TAR} 或 {@link #FORMAT_ZIP}
+     * @return 返回导出的日志文件数量，导出失败时返回 -1
+     */
+    public int export(QTLogQuery query, OutputStream out, int format) {
+        List<File> files = selectFiles(query);
+        String dir = query.getChannel() != null ? query.getChannel() : QTLogChannel.DEFAULT_CHANNEL;
+        try {
+            if (format == FORMAT_ZIP) {
+                writeZip(files, dir, out);
+            } else {
+                writeTar(files, dir, out);
+            }
+            out.flush();
+            return files.size();
+        } catch (IOException e) {
+            Log.e(TAG, "export=>Export logs error: ", e);
+            return -1;
+        }
+    }
+
+    /**
+     * 找到日志通道中时间范围内的日志文件
+     * @param query 查询条件
+     * @return 返回按文件名排序的日志文件
+     */
+    private static List<File> selectFiles(QTLogQuery query) {
+        ArrayList<File> files = new ArrayList<>();
+        String name = query.getChannel() != null ? query.getChannel() : QTLogChannel.DEFAULT_CHANNEL;
+        List<QTLogChannel> channels = QTLogFileManager.getInstance().getChannels();
+        File[] logs = null;
+        for (int i = 0; i < channels.size(); i++) {
+            if (channels.get(i).getName().equals(name)) {
+                logs = channels.get(i).listLogFiles();
+                break;
+            }
+        }
+        if (logs == null) {
+            Log.w(TAG, "selectFiles=>Channel " + name + " is not exist.");
+            return files;
+        }
+        Arrays.sort(logs, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        for (File log : logs) {
+            long dayStart = QTLogSearcher.getFileTime(log);
+            if (dayStart < 0) {
+                continue;
+            }
+            Calendar dayEnd = Calendar.getInstance();
+            dayEnd.setTimeInMillis(dayStart);
+            dayEnd.add(Calendar.DAY_OF_MONTH, 1);
+            if (dayEnd.getTimeInMillis() > query.getFromTime() && dayStart <= query.getToTime()) {
+                files.add(log);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 写入 tar 格式（ustar），文件内容使用 FileChannel.transferTo 复制
+     * @param files 日志文件
+     * @param dir 压缩包中的目录名
+     * @param out 输出流
+     * @throws IOException 写入失败时抛出
+     */
+    private static void writeTar(List<File> files, String dir, OutputStream out) throws IOException {
+        WritableByteChannel target = out instanceof FileOutputStream
+                ? ((FileOutputStream) out).getChannel() : Channels.newChannel(out);
+        ByteBuffer header = ByteBuffer.allocate(TAR_BLOCK_SIZE);
+        for (File file : files) {
+            try (FileInputStream in = new FileInputStream(file)) {
+                FileChannel source = in.getChannel();
+                // 只导出当前长度，写入线程之后追加的内容不导出
+                long size = source.size();
+                fillTarHeader(header, dir + "/" + file.getName(), size, file.lastModified());
+                writeFully(target, header);
+                long position = 0;
+                while (position < size) {
+                    long count = source.transferTo(position, size - position, target);
+                    if (count <= 0) {
+                        break;
+                    }
+                    position += count;
+                }
+                // 文件在导出过程中被截断时补 0，保证 tar 格式正确
+                writePadding(target, size - position + padding(size));
+            }
+        }
+        // tar 文件以两个全 0 的块结束
+        writePadding(target, TAR_BLOCK_SIZE * 2);
+    }
+
+    /**
+     * 生成 tar 文件头
+     * @param header 文件头缓冲区
+     * @param name 文件名
+     * @param size 文件长度
+     * @param lastModified 文件修改时间，单位：毫秒
+     * @throws IOException 文件名过长时抛出
+     */
+    private static void fillTarHeader(ByteBuffer header, String name, long size, long lastModified)
+            throws IOException {
+        byte[] nameBytes = name.getBytes("UTF-8");
+        if (nameBytes.length > 100) {
+            throw new IOException("File name is too long: " + name);
+        }
+        byte[] block = header.array();
+        Arrays.fill(block, (byte) 0);
+        System.arraycopy(nameBytes, 0, block, 0, nameBytes.length);
+        putOctal(block, 100, 8, 0644);
+        putOctal(block, 108, 8, 0);
+        putOctal(block, 116, 8, 0);
+        putOctal(block, 124, 12, size);
+        putOctal(block, 136, 12, lastModified / 1000);
+        block[156] = '0';
+        System.arraycopy("ustar\u000000".getBytes("US-ASCII"), 0, block, 257, 8);
+        // 计算校验和时校验和字段按 8 个空格计算
+        Arrays.fill(block, 148, 156, (byte) ' ');
+        long checksum = 0;
+        for (byte b : block) {
+            checksum += b & 0xff;
+        }
+        putOctal(block, 148, 7, checksum);
+        header.clear();
+    }
+
+    /**
+     * 以八进制写入 tar 文件头中的数字字段，以 '\0' 结束
+     * @param block 文件头
+     * @param offset 字段开始位置
+     * @param length 字段长度
+     * @param value 数值
+     */
+    private static void putOctal(byte[] block, int offset, int length, long value) {
+        int index = offset + length - 1;
+        block[index--] = 0;
+        while (index >= offset) {
+            block[index--] = (byte) ('0' + (value & 7));
+            value >>>= 3;
+        }
+    }
+
+    /**
+     * 计算补齐到 tar 块大小需要的字节数
+     * @param size 文件长度
+     * @return 返回需要补齐的字节数
+     */
+    private static long padding(long size) {
+        long remainder = size % TAR_BLOCK_SIZE;
+        return remainder == 0 ? 0 : TAR_BLOCK_SIZE - remainder;
+    }
+
+    /**
+     * 写入指定数量的 0
+     * @param target 输出通道
+     * @param count 字节数
+     * @throws IOException 写入失败时抛出
+     */
+    private static void writePadding(WritableByteChannel target, long count) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate(TAR_BLOCK_SIZE);
+        while (count > 0) {
+            zeros.clear();
+            zeros.limit((int) Math.min(count, TAR_BLOCK_SIZE));
+            count -= zeros.remaining();
+            writeFully(target, zeros);
+        }
+    }
+
+    /**
+     * 写入缓冲区中的所有数据
+     * @param target 输出通道
+     * @param buffer 缓冲区
+     * @throws IOException 写入失败时抛出
+     */
+    private static void writeFully(WritableByteChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    /**
+     * 写入 zip 格式，日志文件使用最快的压缩级别压缩，已经压缩过的文件直接存储
+     * @param files 日志文件
+     * @param dir 压缩包中的目录名
+     * @param out 输出流
+     * @throws IOException 写入失败时抛出
+     */
+    private static void writeZip(List<File> files, String dir, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(Deflater.BEST_SPEED);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (File file : files) {
+            try (FileInputStream in = new FileInputStream(file)) {
+                FileChannel source = in.getChannel();
+                long size = source.size();
+                ZipEntry entry = new ZipEntry(dir + "/" + file.getName());
+                entry.setTime(file.lastModified());
+                if (isCompressed(file)) {
+                    // 直接存储需要预先知道长度和 CRC
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(size);
+                    entry.setCompressedSize(size);
+                    entry.setCrc(crc(in, size, buffer));
+                    source.position(0);
+                }
+                zip.putNextEntry(entry);
+                long remaining = size;
+                while (remaining > 0) {
+                    int count = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (count < 0) {
+                        throw new IOException(file + " was truncated while exporting");
+                    }
+                    zip.write(buffer, 0, count);
+                    remaining -= count;
+                }
+                zip.closeEntry();
+            }
+        }
+        zip.finish();
+    }
+
+    /**
+     * 判断文件是否已经压缩过
+     * @param file 文件
+     * @return 如果已经压缩过，返回 true；否则返回 false
+     */
+    private static boolean isCompressed(File file) {
+        String name = file.getName().toLowerCase(Locale.US);
+        for (String suffix : COMPRESSED_SUFFIXES) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 计算文件前 size 个字节的 CRC
+     * @param in 文件输入流
+     * @param size 长度
+     * @param buffer 读取缓冲区
+     * @return 返回 CRC
+     * @throws IOException 读取失败时抛出
+     */
+    private static long crc(FileInputStream in, long size, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        long remaining = size;
+        while (remaining > 0) {
+            int count = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (count < 0) {
+                throw new IOException("File was truncated while exporting");
+            }
+            crc.update(buffer, 0, count);
+            remaining -= count;
+        }
+        return crc.getValue();
+    }
+}
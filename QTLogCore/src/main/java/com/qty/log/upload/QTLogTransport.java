@@ -0,0 +1,20 @@
+package com.qty.log.upload;
+
+import java.io.IOException;
+
+/**
+ * 日志上传通道接口
+ *
+ * 由使用者实现，将日志分片发送到服务器。send 方法正常返回表示服务器已经确认收到该分片，
+ * 抛出异常表示发送失败，上传器会在退避之后从该分片重新发送，所以同一个分片可能被发送多次，
+ * 服务器需要按（通道名，日志文件名，分片下标）去重。send 方法会在上传器的工作线程中调用，可能被多个线程同时调用。
+ */
+public interface QTLogTransport {
+
+    /**
+     * 发送日志分片
+     * @param chunk 日志分片
+     * @throws IOException 发送失败或服务器没有确认时抛出
+     */
+    void send(QTLogChunk chunk) throws IOException;
+}
@@ -0,0 +1,510 @@
+package com.qty.log.upload;
+
+import com.qty.log.QTLogEngine;
+import com.qty.log.handler.QTLogChannel;
+import com.qty.log.handler.QTLogFileManager;
+import com.qty.log.handler.QTLogIndex;
+import com.qty.log.platform.QTLogDirectoryProvider;
+import com.qty.log.utils.FileUtils;
+import com.qty.log.utils.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 日志上传器
+ *
+ * 定期扫描所有日志通道中已经关闭的日志文件（早于今天并且写入线程不再写入的文件，参见
+ * {@link QTLogChannel#isSegmentClosed(File)}），按原始字节切分为分片，每个分片使用 gzip 压缩后通过
+ * {@link QTLogTransport} 发送。每个分片确认后记录上传进度，上传中断后从下一个未确认的分片继续；
+ * 所有分片都确认后才删除日志文件及其索引。发送失败的日志文件按指数退避重试，同时上传的日志文件数量有上限。
+ * 上传器只读取已经关闭的日志文件，不会与写入线程竞争，工作线程使用最低优先级。
+ * <pre>
+ *     QTLogUploader uploader = new QTLogUploader(transport);
+ *     uploader.start(15 * 60 * 1000);
+ * </pre>
+ * 上传进度保存在日志根目录的 upload/通道名/ 目录下。多进程应用中所有进程的日志文件都会被上传，
+ * 上传器只需要在一个进程（通常是主进程）中启动。
+ */
+public class QTLogUploader {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = QTLogUploader.class.getSimpleName();
+    /**
+     * 默认分片大小（压缩前），默认：256KB
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    /**
+     * 默认最多同时上传的日志文件数量
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_UPLOADS = 2;
+    /**
+     * 默认第一次重试前的等待时间，默认：5 秒
+     */
+    public static final long DEFAULT_INITIAL_BACKOFF = 5 * 1000;
+    /**
+     * 默认最长重试等待时间，默认：30 分钟
+     */
+    public static final long DEFAULT_MAX_BACKOFF = 30 * 60 * 1000;
+    /**
+     * 上传进度目录名称
+     */
+    private static final String STATE_DIRECTORY = "upload";
+    /**
+     * 上传进度文件后缀
+     */
+    private static final String STATE_FILE_SUFFIX = ".state";
+    /**
+     * 工作线程空闲后的存活时间，单位：秒
+     */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * 日志上传通道
+     */
+    private final QTLogTransport mTransport;
+    /**
+     * 上传线程池
+     */
+    private final ThreadPoolExecutor mExecutor;
+    /**
+     * 日志文件的重试信息，键为日志文件路径
+     */
+    private final HashMap<String, Backoff> mBackoffs = new HashMap<>();
+    /**
+     * 正在上传的日志文件路径
+     */
+    private final HashSet<String> mUploading = new HashSet<>();
+    /**
+     * 分片大小（压缩前）
+     */
+    private volatile int mChunkSize = DEFAULT_CHUNK_SIZE;
+    /**
+     * 第一次重试前的等待时间
+     */
+    private volatile long mInitialBackoff = DEFAULT_INITIAL_BACKOFF;
+    /**
+     * 最长重试等待时间
+     */
+    private volatile long mMaxBackoff = DEFAULT_MAX_BACKOFF;
+    /**
+     * 定时上传定时器
+     */
+    private Timer mTimer;
+
+    /**
+     * 构造方法
+     * @param transport 日志上传通道
+     */
+    public QTLogUploader(QTLogTransport transport) {
+        this(transport, DEFAULT_MAX_CONCURRENT_UPLOADS);
+    }
+
+    /**
+     * 构造方法
+     * @param transport 日志上传通道
+     * @param maxConcurrentUploads 最多同时上传的日志文件数量
+     */
+    public QTLogUploader(QTLogTransport transport, int maxConcurrentUploads) {
+        if (transport == null || maxConcurrentUploads <= 0) {
+            throw new IllegalArgumentException("transport = " + transport
+                    + ", maxConcurrentUploads = " + maxConcurrentUploads);
+        }
+        mTransport = transport;
+        mExecutor = new ThreadPoolExecutor(maxConcurrentUploads, maxConcurrentUploads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new UploadThreadFactory());
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 设置分片大小
+     * @param chunkSize 分片大小（压缩前），单位：Byte
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize > 0) {
+            mChunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * 设置重试等待时间，每次失败后等待时间加倍，直到最长等待时间
+     * @param initialBackoff 第一次重试前的等待时间，单位：毫秒
+     * @param maxBackoff 最长重试等待时间，单位：毫秒
+     */
+    public void setBackoff(long initialBackoff, long maxBackoff) {
+        if (initialBackoff > 0 && maxBackoff >= initialBackoff) {
+            mInitialBackoff = initialBackoff;
+            mMaxBackoff = maxBackoff;
+        }
+    }
+
+    /**
+     * 启动定时上传，立即执行第一次上传
+     * @param intervalMillis 上传间隔，单位：毫秒
+     */
+    public synchronized void start(long intervalMillis) {
+        stop();
+        mTimer = new Timer("QTLog-upload-timer", true);
+        mTimer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                uploadNow();
+            }
+        }, 0, intervalMillis);
+    }
+
+    /**
+     * 停止定时上传，正在上传的分片会继续完成
+     */
+    public synchronized void stop() {
+        if (mTimer != null) {
+            mTimer.cancel();
+            mTimer = null;
+        }
+    }
+
+    /**
+     * 立即上传所有已经关闭的日志文件，在调用线程中等待上传结束
+     * @return 返回本次完成上传并删除的日志文件数量
+     */
+    public int uploadNow() {
+        if (!QTLogEngine.getInstance().isInited()) {
+            Log.e(TAG, "uploadNow=>QTLogEngine is not inited.");
+            return 0;
+        }
+        ArrayList<Future<Boolean>> futures = new ArrayList<>();
+        List<QTLogChannel> channels = QTLogFileManager.getInstance().getChannels();
+        for (int i = 0; i < channels.size(); i++) {
+            final QTLogChannel channel = channels.get(i);
+            File[] files = channel.listLogFiles();
+            if (files == null) {
+                continue;
+            }
+            Arrays.sort(files, new Comparator<File>() {
+                @Override
+                public int compare(File o1, File o2) {
+                    return o1.getName().compareTo(o2.getName());
+                }
+            });
+            for (final File file : files) {
+                if (!channel.isSegmentClosed(file) || !acquire(file)) {
+                    continue;
+                }
+                futures.add(mExecutor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        try {
+                            return uploadSegment(channel, file);
+                        } finally {
+                            release(file);
+                        }
+                    }
+                }));
+            }
+            clearOrphanStateFiles(channel);
+        }
+        int count = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                if (futures.get(i).get()) {
+                    count++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                Log.e(TAG, "uploadNow=>Upload error: ", e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 标记日志文件开始上传
+     * @param file 日志文件
+     * @return 如果日志文件没有在上传并且不在退避等待中，返回 true；否则返回 false
+     */
+    private boolean acquire(File file) {
+        String key = file.getAbsolutePath();
+        synchronized (mUploading) {
+            if (mUploading.contains(key)) {
+                return false;
+            }
+            Backoff backoff = mBackoffs.get(key);
+            if (backoff != null && System.currentTimeMillis() < backoff.mNextTime) {
+                return false;
+            }
+            mUploading.add(key);
+            return true;
+        }
+    }
+
+    /**
+     * 标记日志文件上传结束
+     * @param file 日志文件
+     */
+    private void release(File file) {
+        synchronized (mUploading) {
+            mUploading.remove(file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * 上传一个日志文件
+     * @param channel 日志通道
+     * @param file 日志文件
+     * @return 如果上传完成并删除了日志文件，返回 true；否则返回 false
+     */
+    private boolean uploadSegment(QTLogChannel channel, File file) {
+        File stateFile = getStateFile(channel, file);
+        if (stateFile == null) {
+            return false;
+        }
+        long length = file.length();
+        long[] state = readState(stateFile);
+        long offset = state[0];
+        int index = (int) state[1];
+        if (offset > length) {
+            Log.w(TAG, "uploadSegment=>" + file + " is smaller than uploaded offset, upload again.");
+            offset = 0;
+            index = 0;
+        }
+        if (offset < length) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                byte[] buffer = new byte[mChunkSize];
+                while (offset < length) {
+                    int size = (int) Math.min(buffer.length, length - offset);
+                    raf.seek(offset);
+                    raf.readFully(buffer, 0, size);
+                    QTLogChunk chunk = new QTLogChunk(channel.getName(), file.getName(), length, index, offset,
+                            size, offset + size >= length, compress(buffer, size));
+                    mTransport.send(chunk);
+                    offset += size;
+                    index++;
+                    writeState(stateFile, offset, index);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "uploadSegment=>Upload " + file + " error: ", e);
+                onFailure(file);
+                return false;
+            }
+        }
+        onSuccess(file);
+        if (!channel.isSegmentClosed(file)) {
+            // 上传期间日志文件被重新打开，等待下次上传
+            return false;
+        }
+        file.delete();
+        QTLogIndex.getIndexFile(file).delete();
+        stateFile.delete();
+        Log.i(TAG, "uploadSegment=>Uploaded " + channel.getName() + "/" + file.getName());
+        return true;
+    }
+
+    /**
+     * 上传失败，计算下次重试时间
+     * @param file 日志文件
+     */
+    private void onFailure(File file) {
+        String key = file.getAbsolutePath();
+        synchronized (mUploading) {
+            Backoff backoff = mBackoffs.get(key);
+            long delay = backoff == null ? mInitialBackoff : Math.min(backoff.mDelay * 2, mMaxBackoff);
+            // 增加随机抖动，避免大量设备同时重试
+            long jitter = (long) (Math.random() * delay / 2);
+            mBackoffs.put(key, new Backoff(delay, System.currentTimeMillis() + delay + jitter));
+        }
+    }
+
+    /**
+     * 上传成功，清除重试信息
+     * @param file 日志文件
+     */
+    private void onSuccess(File file) {
+        synchronized (mUploading) {
+            mBackoffs.remove(file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * 获取上传进度文件
+     * @param channel 日志通道
+     * @param file 日志文件
+     * @return 返回上传进度文件，如果无法创建目录，则返回 null
+     */
+    private File getStateFile(QTLogChannel channel, File file) {
+        File dir = getStateDirectory(channel);
+        if (dir == null || (!dir.exists() && !dir.mkdirs())) {
+            Log.e(TAG, "getStateFile=>Unable create upload state directory " + dir);
+            return null;
+        }
+        return new File(dir, file.getName() + STATE_FILE_SUFFIX);
+    }
+
+    /**
+     * 获取通道的上传进度目录
+     * @param channel 日志通道
+     * @return 返回上传进度目录，未初始化时返回 null
+     */
+    private File getStateDirectory(QTLogChannel channel) {
+        QTLogDirectoryProvider provider = QTLogEngine.getInstance().getDirectoryProvider();
+        File base = provider != null ? provider.getBaseDirectory() : null;
+        if (base == null) {
+            return null;
+        }
+        return new File(new File(base, STATE_DIRECTORY), channel.getName());
+    }
+
+    /**
+     * 删除日志文件已经不存在（例如被过期清理删除）的上传进度文件
+     * @param channel 日志通道
+     */
+    private void clearOrphanStateFiles(QTLogChannel channel) {
+        File dir = getStateDirectory(channel);
+        if (dir == null || !dir.exists()) {
+            return;
+        }
+        File[] states = FileUtils.listFiles(dir, STATE_FILE_SUFFIX);
+        if (states == null) {
+            return;
+        }
+        for (File state : states) {
+            String name = state.getName();
+            File segment = new File(channel.getDirectory(),
+                    name.substring(0, name.length() - STATE_FILE_SUFFIX.length()));
+            if (!segment.exists()) {
+                synchronized (mUploading) {
+                    if (!mUploading.contains(segment.getAbsolutePath())) {
+                        state.delete();
+                        mBackoffs.remove(segment.getAbsolutePath());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取上传进度
+     * @param stateFile 上传进度文件
+     * @return 返回 {已确认的偏移, 下一个分片下标}，进度文件不存在或已损坏时返回 {0, 0}
+     */
+    private static long[] readState(File stateFile) {
+        if (!stateFile.isFile()) {
+            return new long[] {0, 0};
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(stateFile))) {
+            long offset = in.readLong();
+            int index = in.readInt();
+            if (offset < 0 || index < 0) {
+                return new long[] {0, 0};
+            }
+            return new long[] {offset, index};
+        } catch (IOException e) {
+            Log.w(TAG, "readState=>Invalid upload state file " + stateFile);
+            return new long[] {0, 0};
+        }
+    }
+
+    /**
+     * 保存上传进度，先写入临时文件再重命名，避免进度文件写入一半
+     * @param stateFile 上传进度文件
+     * @param offset 已确认的偏移
+     * @param index 下一个分片下标
+     * @throws IOException 写入失败时抛出
+     */
+    private static void writeState(File stateFile, long offset, int index) throws IOException {
+        File tmp = new File(stateFile.getParentFile(), stateFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            out.writeLong(offset);
+            out.writeInt(index);
+        }
+        if (stateFile.exists() && !stateFile.delete()) {
+            throw new IOException("Unable replace upload state file " + stateFile);
+        }
+        if (!tmp.renameTo(stateFile)) {
+            throw new IOException("Unable rename " + tmp + " to " + stateFile);
+        }
+    }
+
+    /**
+     * 使用 gzip 压缩数据
+     * @param data 数据
+     * @param length 数据长度
+     * @return 返回压缩后的数据
+     * @throws IOException 压缩失败时抛出
+     */
+    private static byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(64, length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+            gzip.write(data, 0, length);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * 重试信息
+     */
+    private static class Backoff {
+        /**
+         * 本次等待时间
+         */
+        private final long mDelay;
+        /**
+         * 下次允许上传的时间
+         */
+        private final long mNextTime;
+
+        /**
+         * 构造方法
+         * @param delay 本次等待时间
+         * @param nextTime 下次允许上传的时间
+         */
+        Backoff(long delay, long nextTime) {
+            mDelay = delay;
+            mNextTime = nextTime;
+        }
+    }
+
+    /**
+     * 上传线程工厂，创建最低优先级的守护线程
+     */
+    private static class UploadThreadFactory implements ThreadFactory {
+        /**
+         * 线程编号
+         */
+        private final AtomicInteger mNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "QTLog-upload-" + mNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.qty.log.utils;
+
+import com.qty.log.platform.QTLogDirectoryProvider;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+/**
+ * 文件工具类
+ * @hide
+ */
+public class FileUtils {
+
+    /**
+     * TAG
+     */
+    private static final String TAG = FileUtils.class.getSimpleName();
+    /**
+     * 用于存放日志文件的目录名称
+     */
+    private static final String LOG_DIR_NAME = "logs";
+
+    /**
+     * 获取日志文件存储目录
+     * @param directoryProvider 日志目录提供对象
+     * @return 返回日志文件存储的目录路径，如果获取失败，则返回 null
+     */
+    public static String getLogFileDirectory(QTLogDirectoryProvider directoryProvider) {
+        File file = directoryProvider.getBaseDirectory();
+        if (file == null) {
+            Log.e(TAG, "getLogFileDirectory=>Can't get log base directory.");
+            return null;
+        }
+        file = new File(file.getAbsolutePath() + File.separator + LOG_DIR_NAME);
+        if (!file.exists() || !file.isDirectory()) {
+            try {
+                file.mkdirs();
+            } catch (Exception e) {
+                Log.e(TAG, "getLogFileDirectory=>error: ", e);
+                return null;
+            }
+        }
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * 获取目录下指定后缀的文件（不包括子目录）
+     * @param dir   目录
+     * @param suffix    文件后缀
+     * @return 返回文件数组，如果目录无法访问，则返回 null
+     */
+    public static File[] listFiles(File dir, final String suffix) {
+        return dir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(suffix);
+            }
+        });
+    }
+
+    /**
+     * 获取文件夹空间大小
+     * @param file 文件夹路径
+     */
+    public static long getTotalSizeOfFilesInDir(final File file) {
+        if (file.isFile())
+            return file.length();
+        final File[] children = file.listFiles();
+        long total = 0;
+        if (children != null)
+            for (final File child : children)
+                total += getTotalSizeOfFilesInDir(child);
+        return total;
+    }
+
+    /**
+     * 获取字符串按 UTF-8 编码后的字节数
+     * @param str 字符串
+     * @return 返回字节数
+     */
+    public static long getUtf8Length(CharSequence str) {
+        long length = 0;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < str.length()
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 尝试获取文件锁，用于多个进程之间互斥，不会阻塞
+     * @param file 锁文件，不存在时自动创建
+     * @return 返回文件锁，如果已经被其他进程（或本进程）持有或者获取失败，则返回 null
+     */
+    public static FileLock tryLock(File file) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            FileLock lock = raf.getChannel().tryLock();
+            if (lock != null) {
+                return lock;
+            }
+        } catch (IOException | OverlappingFileLockException e) {
+            Log.w(TAG, "tryLock=>Lock " + file + " fail: " + e);
+        }
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException ignore) {}
+        }
+        return null;
+    }
+
+    /**
+     * 释放文件锁，并关闭对应的文件
+     * @param lock 文件锁，可以为 null
+     */
+    public static void unlock(FileLock lock) {
+        if (lock == null) {
+            return;
+        }
+        try {
+            lock.release();
+        } catch (IOException ignore) {}
+        try {
+            lock.channel().close();
+        } catch (IOException ignore) {}
+    }
+}
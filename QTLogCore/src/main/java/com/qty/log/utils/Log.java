@@ -0,0 +1,71 @@
+package com.qty.log.utils;
+
+import com.qty.log.QTLogEngine;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * 日志库内部使用的日志输出类，替代 android.util.Log
+ *
+ * 接口与 android.util.Log 保持一致，日志输出到 QTLogEngine 当前的 QTLogSink。
+ * @hide
+ */
+public final class Log {
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    private Log() {}
+
+    public static void println(int priority, String tag, String msg) {
+        QTLogEngine.getInstance().getSink().println(priority, tag, msg);
+    }
+
+    public static void v(String tag, String msg) {
+        println(VERBOSE, tag, msg);
+    }
+
+    public static void d(String tag, String msg) {
+        println(DEBUG, tag, msg);
+    }
+
+    public static void i(String tag, String msg) {
+        println(INFO, tag, msg);
+    }
+
+    public static void w(String tag, String msg) {
+        println(WARN, tag, msg);
+    }
+
+    public static void w(String tag, String msg, Throwable tr) {
+        println(WARN, tag, msg + '\n' + getStackTraceString(tr));
+    }
+
+    public static void e(String tag, String msg) {
+        println(ERROR, tag, msg);
+    }
+
+    public static void e(String tag, String msg, Throwable tr) {
+        println(ERROR, tag, msg + '\n' + getStackTraceString(tr));
+    }
+
+    /**
+     * 获取异常的堆栈信息
+     * @param tr 异常对象
+     * @return 返回堆栈信息，如果 tr 为 null，返回空字符串
+     */
+    public static String getStackTraceString(Throwable tr) {
+        if (tr == null) {
+            return "";
+        }
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        tr.printStackTrace(pw);
+        pw.flush();
+        return sw.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.qty.log.utils;
+
+/**
+ * 字符串工具类，替代 android.text.TextUtils
+ * @hide
+ */
+public class TextUtils {
+
+    /**
+     * 判断字符串是否为空
+     * @param str 字符串
+     * @return 如果字符串为 null 或者长度为 0，返回 true；否则返回 false
+     */
+    public static boolean isEmpty(CharSequence str) {
+        return str == null || str.length() == 0;
+    }
+}
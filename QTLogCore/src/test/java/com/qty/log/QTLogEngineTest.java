@@ -0,0 +1,126 @@
+package com.qty.log;
+
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.handler.QTLogFileManager;
+import com.qty.log.platform.QTFileDirectoryProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 在纯 Java 环境中初始化日志引擎并写入日志文件
+ */
+public class QTLogEngineTest {
+
+    private File mRoot;
+
+    @Before
+    public void setUp() throws IOException {
+        mRoot = File.createTempFile("qtlog", "");
+        assertTrue(mRoot.delete() && mRoot.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        delete(mRoot);
+    }
+
+    @Test
+    public void writesLogFileWithoutAndroid() throws Exception {
+        QTLogEngine.getInstance().init(new QTFileDirectoryProvider(mRoot), "com.qty.test", "TEST",
+                QTLogLevel.ALL_LEVEL);
+        assertTrue(QTLogEngine.getInstance().isInited());
+
+        QTLog log = new QTLog(QTLogEngineTest.class);
+        log.i("engine test info");
+        log.d("engine test debug");
+        awaitWritten();
+
+        String content = readLogFiles(mRoot);
+        assertTrue(content, content.contains("engine test info"));
+        assertTrue(content, content.contains("engine test debug"));
+        assertTrue(content, content.contains("com.qty.test"));
+    }
+
+    @Test
+    public void levelBelowThresholdIsNotWritten() throws Exception {
+        QTLogEngine.getInstance().init(new QTFileDirectoryProvider(mRoot), "com.qty.test", "TEST",
+                QTLogLevel.INFO_LEVEL);
+
+        QTLog log = new QTLog(QTLogEngineTest.class);
+        log.d("filtered debug");
+        log.w("kept warn");
+        awaitWritten();
+
+        String content = readLogFiles(mRoot);
+        assertTrue(content, content.contains("kept warn"));
+        assertFalse(content, content.contains("filtered debug"));
+    }
+
+    /**
+     * 等待所有通道的日志队列写入文件
+     */
+    static void awaitWritten() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!QTLogFileManager.getInstance().isLogQueueEmpty()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Log queue is not drained.");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 读取目录下所有日志文件的内容
+     */
+    static String readLogFiles(File directory) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (File file : listLogFiles(directory, new ArrayList<File>())) {
+            try (Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8")) {
+                char[] buffer = new char[4096];
+                int count;
+                while ((count = reader.read(buffer)) > 0) {
+                    sb.append(buffer, 0, count);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<File> listLogFiles(File directory, List<File> files) {
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    listLogFiles(child, files);
+                } else if (child.getName().endsWith(".log")) {
+                    files.add(child);
+                }
+            }
+        }
+        return files;
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,57 @@
+package com.qty.log;
+
+import com.qty.log.bean.QTLogLevel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 初始化完成之前的日志缓冲区测试
+ */
+public class QTLogPreInitBufferTest {
+
+    @Test
+    public void acceptsRecordsUntilDrainedEmpty() {
+        QTLogPreInitBuffer buffer = new QTLogPreInitBuffer(4);
+        QTLogPreInitBuffer.Record first = record("first");
+        assertTrue(buffer.add(first));
+
+        QTLogPreInitBuffer.Record[] records = buffer.drain();
+        assertEquals(1, records.length);
+        assertSame(first, records[0]);
+
+        // 重新打印期间打印的日志继续保存，下一次取出
+        QTLogPreInitBuffer.Record second = record("second");
+        assertTrue(buffer.add(second));
+        records = buffer.drain();
+        assertEquals(1, records.length);
+        assertSame(second, records[0]);
+
+        assertEquals(0, buffer.drain().length);
+        assertFalse(buffer.add(record("third")));
+        assertEquals(0, buffer.drain().length);
+    }
+
+    @Test
+    public void dropsOldestRecordWhenFull() {
+        QTLogPreInitBuffer buffer = new QTLogPreInitBuffer(2);
+        buffer.add(record("1"));
+        buffer.add(record("2"));
+        buffer.add(record("3"));
+
+        QTLogPreInitBuffer.Record[] records = buffer.drain();
+        assertEquals(2, records.length);
+        assertEquals("2", records[0].mMessage);
+        assertEquals("3", records[1].mMessage);
+        assertEquals(1, buffer.getDropped());
+    }
+
+    private static QTLogPreInitBuffer.Record record(String msg) {
+        return new QTLogPreInitBuffer.Record(null, QTLogLevel.INFO_LEVEL, msg, null, null, null,
+                System.currentTimeMillis(), "main", null);
+    }
+}
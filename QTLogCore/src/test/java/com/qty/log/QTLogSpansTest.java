@@ -0,0 +1,61 @@
+package com.qty.log;
+
+import com.qty.log.metrics.QTHistogramSnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 耗时统计区间汇总的名称数量限制测试
+ */
+public class QTLogSpansTest {
+
+    private QTLogSpans mSpans;
+
+    @Before
+    public void setUp() {
+        mSpans = QTLogSpans.getInstance();
+        mSpans.setReportInterval(0);
+        // 连续汇总两次，清除其他测试留下的名称
+        mSpans.report();
+        mSpans.report();
+    }
+
+    @Test
+    public void removesNamesWithoutRecordsInLastPeriod() {
+        mSpans.record("test.idle", 1000);
+        mSpans.record("test.busy", 1000);
+        mSpans.report();
+        assertTrue(mSpans.snapshot().containsKey("test.idle"));
+
+        mSpans.record("test.busy", 2000);
+        mSpans.report();
+        Map<String, QTHistogramSnapshot> snapshots = mSpans.snapshot();
+        assertFalse(snapshots.containsKey("test.idle"));
+        assertTrue(snapshots.containsKey("test.busy"));
+    }
+
+    @Test
+    public void recordsNewNamesUnderOverflowNameWhenFull() {
+        for (int i = 0; i < QTLogSpans.MAX_NAMES + 10; i++) {
+            mSpans.record("test.name." + i, 1000);
+        }
+        Map<String, QTHistogramSnapshot> snapshots = mSpans.snapshot();
+        assertEquals(QTLogSpans.MAX_NAMES + 1, snapshots.size());
+        assertEquals(10, snapshots.get(QTLogSpans.OVERFLOW_NAME).getCount());
+
+        // 已经统计的名称继续单独累计
+        mSpans.record("test.name.0", 1000);
+        assertEquals(2, mSpans.snapshot().get("test.name.0").getCount());
+
+        mSpans.report();
+        mSpans.report();
+        assertTrue(mSpans.snapshot().isEmpty());
+    }
+}
@@ -0,0 +1,77 @@
+package com.qty.log.filter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多关键字匹配器测试
+ */
+public class QTKeywordMatcherTest {
+
+    @Test
+    public void matchesKeywordsOverlappingThroughFailLinks() {
+        QTKeywordMatcher matcher = new QTKeywordMatcher(Arrays.asList("he", "she", "hers"));
+        assertTrue(matcher.matches("ushers"));
+        assertEquals(1, matchedIndex(matcher, "ushe"));
+        assertEquals(2, matchedIndex(matcher, "ushers"));
+        assertTrue(matcher.matches("ahe"));
+        assertFalse(matcher.matches("sh"));
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    public void matchesKeywordThatIsOnlyASuffixOfTheCurrentState() {
+        // "he" 是 "hers" 的前缀，匹配 "e" 只能通过失败转移
+        QTKeywordMatcher matcher = new QTKeywordMatcher(Arrays.asList("hers", "e"));
+        assertTrue(matcher.matches("he"));
+        assertEquals(1, matchedIndex(matcher, "he"));
+        assertFalse(matcher.matches("hrs"));
+    }
+
+    @Test
+    public void matchesNonAsciiKeywords() {
+        QTKeywordMatcher matcher = new QTKeywordMatcher(Arrays.asList("密码", "пароль"));
+        assertTrue(matcher.matches("用户密码错误"));
+        assertTrue(matcher.matches("неверный пароль"));
+        assertFalse(matcher.matches("密"));
+        assertFalse(matcher.matches("密钥码"));
+        assertFalse(matcher.matches("парол"));
+        assertEquals(0, matchedIndex(matcher, "用户密码"));
+    }
+
+    @Test
+    public void ignoresEmptyKeyword() {
+        QTKeywordMatcher matcher = new QTKeywordMatcher(Arrays.asList("", "abc"));
+        assertFalse(matcher.matches("xyz"));
+        assertTrue(matcher.matches("xabcx"));
+        assertEquals(1, matchedIndex(matcher, "abc"));
+        assertFalse(new QTKeywordMatcher(Arrays.asList("")).matches("anything"));
+    }
+
+    @Test
+    public void matchesKeywordsSharingAPrefix() {
+        QTKeywordMatcher matcher = new QTKeywordMatcher(Arrays.asList("abcd", "abce"));
+        assertFalse(matcher.matches("abcx"));
+        assertFalse(matcher.matches("abc"));
+        assertEquals(1, matchedIndex(matcher, "xabce"));
+        // 不匹配后从 "abc" 的后缀重新开始
+        assertEquals(0, matchedIndex(matcher, "abcabcd"));
+    }
+
+    /**
+     * 逐个字符读入文本，返回最后一个状态匹配的关键字
+     */
+    private static int matchedIndex(QTKeywordMatcher matcher, String text) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = matcher.next(state, text.charAt(i));
+        }
+        return matcher.matchedIndex(state);
+    }
+}
@@ -0,0 +1,117 @@
+package com.qty.log.filter;
+
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.bean.QTLogRedactRule;
+import com.qty.log.format.QTJsonLayout;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 日志脱敏器测试，分别覆盖文本布局和 JSON Lines 布局
+ */
+public class QTLogRedactorTest {
+
+    @Test
+    public void masksPhoneNumbersInTextLayout() {
+        QTLogRedactor redactor = newRedactor(phone());
+        assertEquals("call *** now", redact(redactor, "call 13800000000 now"));
+        assertEquals("call *** now", redact(redactor, "call 138-0000-0000 now"));
+        assertEquals("office ***", redact(redactor, "office 010-12345678"));
+        assertEquals("intl ***", redact(redactor, "intl +8613800000000"));
+        assertEquals("手机号***", redact(redactor, "手机号13800000000"));
+    }
+
+    @Test
+    public void keepsOrdinaryNumbersInTextLayout() {
+        QTLogRedactor redactor = newRedactor(phone());
+        String[] lines = {
+                "2023-11-15 06:13:20.020 I/TAG main MainActivity.java:25 done",
+                "count=1234567 bytes=987654321 ts=1700000000000 seconds=1700000000",
+                "order 23800000000 version 1.3800000000",
+                "id 013800000000"
+        };
+        for (String line : lines) {
+            assertEquals(line, redact(redactor, line));
+        }
+    }
+
+    @Test
+    public void matchesKeysOnlyAtWordBoundary() {
+        QTLogRedactor redactor = newRedactor(key("id"), key("token"));
+        assertEquals("paid=100 uuid=abc id=***", redact(redactor, "paid=100 uuid=abc id=42"));
+        assertEquals("user_id=5 (id: ***)", redact(redactor, "user_id=5 (id: 7)"));
+        assertEquals("Token=*** accessToken=x", redact(redactor, "Token=abc accessToken=x"));
+        assertEquals("token=***", redact(redactor, "token=abc"));
+    }
+
+    @Test
+    public void masksEmailInTextLayout() {
+        QTLogRedactor redactor = newRedactor(new QTLogRedactRule(QTLogRedactRule.TYPE_EMAIL, null));
+        assertEquals("mail *** sent", redact(redactor, "mail someone.x@example.com sent"));
+        assertEquals("not a@b", redact(redactor, "not a@b"));
+    }
+
+    @Test
+    public void keepsJsonNumbersAndFixedFields() {
+        QTLogRedactor redactor = newRedactor(phone(), key("token"));
+        StringBuilder sb = new StringBuilder();
+        QTJsonLayout.append(sb, 1700000000000L, 13800000000L, "2023-11-15 06:13:20.020", QTLogLevel.INFO_LEVEL,
+                "TAG", "com.qty.sample", "main",
+                new StackTraceElement("com.qty.sample.MainActivity", "onCreate", "MainActivity.java", 1380000),
+                "call 13800000000 token=abc", null, null, null);
+        String line = sb.toString();
+        String expected = line.replace("call 13800000000 token=abc", "call *** token=***");
+        assertEquals(expected, redact(redactor, line));
+
+        String numbers = "{\"ts\":1700000000000,\"seq\":1234567,\"msg\":\"x\",\"phone\":13800000000}";
+        assertEquals(numbers, redact(redactor, numbers));
+    }
+
+    @Test
+    public void quotesMaskedJsonValuesWithoutQuotes() {
+        QTLogRedactor redactor = newRedactor(key("token"), key("userId"), key("secret"));
+        String line = "{\"ts\":1700000000000,\"msg\":\"x\",\"token\":12345,\"userId\":\"u1\","
+                + "\"mdc\":{\"secret\":true},\"obj\":{\"token\":{\"a\":\"}\",\"b\":[1,2]}},\"paid\":1}";
+        String expected = "{\"ts\":1700000000000,\"msg\":\"x\",\"token\":\"***\",\"userId\":\"***\","
+                + "\"mdc\":{\"secret\":\"***\"},\"obj\":{\"token\":\"***\"},\"paid\":1}";
+        assertEquals(expected, redact(redactor, line));
+    }
+
+    @Test
+    public void masksKeysInsideJsonStringsWithoutQuoting() {
+        QTLogRedactor redactor = newRedactor(key("token"));
+        String line = "{\"ts\":1700000000000,\"msg\":\"login token=abc and token=\\\"def\\\"\"}";
+        String expected = "{\"ts\":1700000000000,\"msg\":\"login token=*** and token=\\\"***\\\"\"}";
+        assertEquals(expected, redact(redactor, line));
+    }
+
+    private static QTLogRedactRule phone() {
+        return new QTLogRedactRule(QTLogRedactRule.TYPE_PHONE, null);
+    }
+
+    private static QTLogRedactRule key(String key) {
+        return new QTLogRedactRule(QTLogRedactRule.TYPE_KEY, key);
+    }
+
+    private static QTLogRedactor newRedactor(QTLogRedactRule... rules) {
+        List<QTLogRedactRule> list = new ArrayList<>();
+        for (QTLogRedactRule rule : rules) {
+            list.add(rule);
+        }
+        return new QTLogRedactor(list);
+    }
+
+    private static String redact(QTLogRedactor redactor, String line) {
+        QTLogRedactor.Buffer out = new QTLogRedactor.Buffer();
+        char[] chars = line.toCharArray();
+        if (!redactor.redact(chars, chars.length, out)) {
+            return line;
+        }
+        return new String(out.getChars(), 0, out.length());
+    }
+}
@@ -0,0 +1,73 @@
+package com.qty.log.handler;
+
+import com.qty.log.QTLogContext;
+import com.qty.log.QTLogEngine;
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.filter.QTLogFilter;
+import com.qty.log.platform.QTFileDirectoryProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 日志配置文件解析测试
+ */
+public class QTLogConfigTest {
+
+    private File mRoot;
+
+    @Before
+    public void setUp() throws IOException {
+        mRoot = File.createTempFile("qtlog", "");
+        assertTrue(mRoot.delete() && mRoot.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        QTLogContext.clear();
+        delete(mRoot);
+    }
+
+    @Test
+    public void acceptsFilterValuesContainingEquals() throws Exception {
+        writeConfig("LOG_FILTER=keyword:token=\n"
+                + "LOG_FILTER=context:k:a=b\n");
+        QTLogEngine.getInstance().init(new QTFileDirectoryProvider(mRoot), "com.qty.test", "TEST",
+                QTLogLevel.ALL_LEVEL);
+
+        QTLogFilter filter = QTLogConfig.getInstance().getFilter();
+        assertTrue(filter.isFiltered("TEST", "main", "request token=abc", null));
+        assertFalse(filter.isFiltered("TEST", "main", "request token abc", null));
+
+        QTLogContext.put("k", "a=b");
+        assertTrue(filter.isFiltered("TEST", "main", "message", QTLogContext.current()));
+        QTLogContext.put("k", "a");
+        assertFalse(filter.isFiltered("TEST", "main", "message", QTLogContext.current()));
+    }
+
+    private void writeConfig(String content) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(mRoot, "log.config")), "UTF-8")) {
+            writer.write(content);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,239 @@
+package com.qty.log.upload;
+
+import com.qty.log.QTLogEngine;
+import com.qty.log.bean.QTLogLevel;
+import com.qty.log.handler.QTLogChannel;
+import com.qty.log.handler.QTLogFileManager;
+import com.qty.log.platform.QTFileDirectoryProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 使用内存中的上传通道测试日志上传器的断点续传、退避重试、删除时机和未关闭日志文件的处理
+ */
+public class QTLogUploaderTest {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final int SEGMENT_SIZE = 10 * CHUNK_SIZE + 100;
+
+    private File mRoot;
+    private QTLogChannel mChannel;
+
+    @Before
+    public void setUp() throws IOException {
+        mRoot = File.createTempFile("qtlog", "");
+        assertTrue(mRoot.delete() && mRoot.mkdirs());
+        QTLogEngine.getInstance().init(new QTFileDirectoryProvider(mRoot), "com.qty.test", "TEST",
+                QTLogLevel.ALL_LEVEL);
+        mChannel = QTLogFileManager.getInstance().getChannels().get(0);
+    }
+
+    @After
+    public void tearDown() {
+        delete(mRoot);
+    }
+
+    @Test
+    public void resumesFromStateFileAfterFailureInTheMiddleOfAFile() throws Exception {
+        byte[] content = content(SEGMENT_SIZE);
+        File segment = createSegment(3, content, true);
+        FakeTransport transport = new FakeTransport();
+        transport.mFailAtIndex = 4;
+        QTLogUploader uploader = newUploader(transport);
+        uploader.setBackoff(20, 20);
+
+        assertEquals(0, uploader.uploadNow());
+        assertTrue(segment.exists());
+        assertEquals(4, transport.mAcked.size());
+        assertTrue(getStateFile(segment).exists());
+
+        transport.mFailAtIndex = -1;
+        Thread.sleep(100);
+        assertEquals(1, uploader.uploadNow());
+        // 第二次上传从第一个没有确认的分片开始，不重新发送已经确认的分片
+        assertEquals(4, transport.mAttempts.get(5).getIndex());
+        assertEquals(4L * CHUNK_SIZE, transport.mAttempts.get(5).getOffset());
+        assertEquals(11, transport.mAcked.size());
+        for (int i = 0; i < transport.mAcked.size(); i++) {
+            assertEquals(i, transport.mAcked.get(i).getIndex());
+        }
+        assertArrayEquals(content, transport.received());
+        assertFalse(segment.exists());
+        assertFalse(getStateFile(segment).exists());
+    }
+
+    @Test
+    public void doesNotRetryBeforeBackoffExpires() throws Exception {
+        File segment = createSegment(3, content(SEGMENT_SIZE), true);
+        FakeTransport transport = new FakeTransport();
+        transport.mFailAtIndex = 0;
+        QTLogUploader uploader = newUploader(transport);
+        uploader.setBackoff(60 * 1000, 60 * 1000);
+
+        assertEquals(0, uploader.uploadNow());
+        assertEquals(1, transport.mAttempts.size());
+
+        transport.mFailAtIndex = -1;
+        assertEquals(0, uploader.uploadNow());
+        assertEquals(1, transport.mAttempts.size());
+        assertTrue(segment.exists());
+    }
+
+    @Test
+    public void deletesSegmentOnlyAfterLastChunkIsAcknowledged() throws Exception {
+        byte[] content = content(SEGMENT_SIZE);
+        final File segment = createSegment(3, content, true);
+        FakeTransport transport = new FakeTransport() {
+            @Override
+            public void send(QTLogChunk chunk) throws IOException {
+                assertTrue("Segment deleted before chunk " + chunk.getIndex() + " was acknowledged",
+                        segment.exists());
+                super.send(chunk);
+            }
+        };
+        transport.mFailAtIndex = 10;
+        QTLogUploader uploader = newUploader(transport);
+        uploader.setBackoff(20, 20);
+
+        assertEquals(0, uploader.uploadNow());
+        assertTrue(segment.exists());
+        assertEquals(10, transport.mAcked.size());
+
+        transport.mFailAtIndex = -1;
+        Thread.sleep(100);
+        assertEquals(1, uploader.uploadNow());
+        assertFalse(segment.exists());
+        for (int i = 0; i < transport.mAcked.size(); i++) {
+            assertEquals(i == transport.mAcked.size() - 1, transport.mAcked.get(i).isLast());
+        }
+        assertArrayEquals(content, transport.received());
+    }
+
+    @Test
+    public void skipsSegmentsThatAreNotClosed() throws Exception {
+        File today = createSegment(0, content(SEGMENT_SIZE), true);
+        File recentlyModified = createSegment(1, content(SEGMENT_SIZE), false);
+        File closed = createSegment(2, content(SEGMENT_SIZE), true);
+        FakeTransport transport = new FakeTransport();
+        QTLogUploader uploader = newUploader(transport);
+
+        assertEquals(1, uploader.uploadNow());
+        for (QTLogChunk chunk : transport.mAttempts) {
+            assertEquals(closed.getName(), chunk.getSegmentName());
+        }
+        assertTrue(today.exists());
+        assertTrue(recentlyModified.exists());
+        assertFalse(closed.exists());
+    }
+
+    private QTLogUploader newUploader(QTLogTransport transport) {
+        QTLogUploader uploader = new QTLogUploader(transport, 1);
+        uploader.setChunkSize(CHUNK_SIZE);
+        return uploader;
+    }
+
+    /**
+     * 创建通道目录下指定天数之前的日志文件
+     * @param daysAgo 天数，0 表示今天
+     * @param closed 是否将修改时间设置为 10 分钟之前，否则为当前时间
+     */
+    private File createSegment(int daysAgo, byte[] content, boolean closed) throws IOException {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_MONTH, -daysAgo);
+        File file = mChannel.getLogFile(calendar.getTime());
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        if (closed) {
+            assertTrue(file.setLastModified(System.currentTimeMillis() - 10 * 60 * 1000));
+        }
+        return file;
+    }
+
+    private File getStateFile(File segment) {
+        return new File(new File(new File(mRoot, "upload"), mChannel.getName()), segment.getName() + ".state");
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        return content;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * 在内存中记录分片的上传通道，可以在指定下标的分片上失败
+     */
+    private static class FakeTransport implements QTLogTransport {
+
+        /**
+         * 所有发送过的分片，包括失败的分片
+         */
+        final List<QTLogChunk> mAttempts = new ArrayList<>();
+        /**
+         * 已经确认的分片
+         */
+        final List<QTLogChunk> mAcked = new ArrayList<>();
+        /**
+         * 发送失败的分片下标，小于 0 表示不失败
+         */
+        volatile int mFailAtIndex = -1;
+
+        @Override
+        public synchronized void send(QTLogChunk chunk) throws IOException {
+            mAttempts.add(chunk);
+            if (chunk.getIndex() == mFailAtIndex) {
+                throw new IOException("Fake failure at chunk " + chunk.getIndex());
+            }
+            mAcked.add(chunk);
+        }
+
+        /**
+         * 按顺序解压所有已经确认的分片
+         */
+        synchronized byte[] received() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (QTLogChunk chunk : mAcked) {
+                assertEquals(out.size(), chunk.getOffset());
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(chunk.getData()))) {
+                    byte[] buffer = new byte[4096];
+                    int count;
+                    while ((count = in.read(buffer)) > 0) {
+                        out.write(buffer, 0, count);
+                    }
+                }
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.qty.log.plugin;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * 日志调用改写类
+ *
+ * 将 QTLog 的 e()、w()、i()、d()、v() 调用改写为 QTLog.printAt()，将 QTLogEvent.log() 调用改写为
+ * QTLogEvent.logAt()，调用位置（完整类名、方法名、文件名、行号）作为常量传入：
+ * <pre>
+ *     mLog.i(msg);
+ *     // 改写为
+ *     mLog.printAt(msg, null, 4, "com.qty.sample.MainActivity", "onCreate", "MainActivity.java", 25);
+ * </pre>
+ * 只在原有参数之后追加常量参数，不改变控制流，所以不需要重新计算栈帧。
+ */
+public class QTLogClassRewriter {
+
+    /**
+     * QTLog 类的内部名称
+     */
+    private static final String LOG_CLASS = "com/qty/log/QTLog";
+    /**
+     * QTLogEvent 类的内部名称
+     */
+    private static final String EVENT_CLASS = "com/qty/log/QTLogEvent";
+    /**
+     * 只有日志信息的打印方法描述
+     */
+    private static final String PRINT_DESC = "(Ljava/lang/String;)V";
+    /**
+     * 带错误跟踪对象的打印方法描述
+     */
+    private static final String PRINT_THROWABLE_DESC = "(Ljava/lang/String;Ljava/lang/Throwable;)V";
+    /**
+     * QTLog.printAt 方法描述
+     */
+    private static final String PRINT_AT_DESC =
+            "(Ljava/lang/String;Ljava/lang/Throwable;ILjava/lang/String;Ljava/lang/String;Ljava/lang/String;I)V";
+    /**
+     * QTLogEvent.logAt 方法描述
+     */
+    private static final String LOG_AT_DESC =
+            "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;I)V";
+
+    /**
+     * 私有构造方法
+     */
+    private QTLogClassRewriter() {}
+
+    /**
+     * 判断类是否需要改写，QTLog 和 QTLogEvent 自身不改写
+     * @param className 类的内部名称，例如 com/qty/sample/MainActivity
+     * @return 如果需要改写，返回 true；否则返回 false
+     */
+    public static boolean isRewritable(String className) {
+        return !LOG_CLASS.equals(className) && !EVENT_CLASS.equals(className)
+                && !className.startsWith("android/") && !className.startsWith("androidx/")
+                && !className.startsWith("kotlin/") && !className.startsWith("java/");
+    }
+
+    /**
+     * 改写类文件
+     * @param bytes 类文件内容
+     * @return 返回改写后的类文件内容，没有日志调用或者无法解析（例如 ASM 不支持的类文件版本）时返回原内容
+     */
+    public static byte[] rewrite(byte[] bytes) {
+        ClassReader reader;
+        try {
+            reader = new ClassReader(bytes);
+        } catch (IllegalArgumentException e) {
+            return bytes;
+        }
+        if (!isRewritable(reader.getClassName())) {
+            return bytes;
+        }
+        ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+        LocationClassVisitor visitor = new LocationClassVisitor(writer);
+        reader.accept(visitor, 0);
+        return visitor.isChanged ? writer.toByteArray() : bytes;
+    }
+
+    /**
+     * 根据方法名获取日志级别的原始值，与 QTLogLevel.rawValue() 一致
+     * @param name 方法名
+     * @return 返回日志级别的原始值，不是打印方法时返回 -1
+     */
+    private static int getLevel(String name) {
+        switch (name) {
+            case "v":
+                return 2;
+            case "d":
+                return 3;
+            case "i":
+                return 4;
+            case "w":
+                return 5;
+            case "e":
+                return 6;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * 记录类名和源文件名的类访问对象
+     */
+    private static class LocationClassVisitor extends ClassVisitor {
+
+        /**
+         * 完整类名
+         */
+        private String mClassName;
+        /**
+         * 源文件名，没有调试信息时为 null
+         */
+        private String mSourceFile;
+        /**
+         * 是否改写了日志调用
+         */
+        private boolean isChanged;
+
+        /**
+         * 构造方法
+         * @param cv 下一个类访问对象
+         */
+        LocationClassVisitor(ClassVisitor cv) {
+            super(Opcodes.ASM9, cv);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName,
+                          String[] interfaces) {
+            mClassName = name.replace('/', '.');
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public void visitSource(String source, String debug) {
+            mSourceFile = source;
+            super.visitSource(source, debug);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                         String[] exceptions) {
+            MethodVisitor mv = super.visitMethod(access, name, descriptor, signature, exceptions);
+            return new LocationMethodVisitor(this, mv, name);
+        }
+    }
+
+    /**
+     * 改写日志调用的方法访问对象
+     */
+    private static class LocationMethodVisitor extends MethodVisitor {
+
+        /**
+         * 所在的类访问对象
+         */
+        private final LocationClassVisitor mOwner;
+        /**
+         * 方法名
+         */
+        private final String mMethodName;
+        /**
+         * 当前指令的行号，没有行号信息时为 -1
+         */
+        private int mLine = -1;
+
+        /**
+         * 构造方法
+         * @param owner 所在的类访问对象
+         * @param mv 下一个方法访问对象
+         * @param methodName 方法名
+         */
+        LocationMethodVisitor(LocationClassVisitor owner, MethodVisitor mv, String methodName) {
+            super(Opcodes.ASM9, mv);
+            mOwner = owner;
+            mMethodName = methodName;
+        }
+
+        @Override
+        public void visitLineNumber(int line, Label start) {
+            mLine = line;
+            super.visitLineNumber(line, start);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            if (opcode == Opcodes.INVOKEVIRTUAL && LOG_CLASS.equals(owner)) {
+                int level = getLevel(name);
+                if (level > 0 && (PRINT_DESC.equals(descriptor) || PRINT_THROWABLE_DESC.equals(descriptor))) {
+                    if (PRINT_DESC.equals(descriptor)) {
+                        super.visitInsn(Opcodes.ACONST_NULL);
+                    }
+                    pushInt(level);
+                    pushLocation();
+                    super.visitMethodInsn(Opcodes.INVOKEVIRTUAL, LOG_CLASS, "printAt", PRINT_AT_DESC, false);
+                    mOwner.isChanged = true;
+                    return;
+                }
+            } else if (opcode == Opcodes.INVOKEVIRTUAL && EVENT_CLASS.equals(owner)
+                    && "log".equals(name) && PRINT_DESC.equals(descriptor)) {
+                pushLocation();
+                super.visitMethodInsn(Opcodes.INVOKEVIRTUAL, EVENT_CLASS, "logAt", LOG_AT_DESC, false);
+                mOwner.isChanged = true;
+                return;
+            }
+            super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+        }
+
+        /**
+         * 将调用位置常量压入操作数栈：类名、方法名、文件名、行号
+         */
+        private void pushLocation() {
+            super.visitLdcInsn(mOwner.mClassName);
+            super.visitLdcInsn(mMethodName);
+            if (mOwner.mSourceFile != null) {
+                super.visitLdcInsn(mOwner.mSourceFile);
+            } else {
+                super.visitInsn(Opcodes.ACONST_NULL);
+            }
+            pushInt(mLine);
+        }
+
+        /**
+         * 将整数常量压入操作数栈
+         * @param value 整数
+         */
+        private void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                super.visitInsn(Opcodes.ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                super.visitIntInsn(Opcodes.BIPUSH, value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                super.visitIntInsn(Opcodes.SIPUSH, value);
+            } else {
+                super.visitLdcInsn(value);
+            }
+        }
+    }
+}
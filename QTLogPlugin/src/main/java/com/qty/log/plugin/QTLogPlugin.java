@@ -0,0 +1,31 @@
+package com.qty.log.plugin;
+
+import com.android.build.gradle.AppExtension;
+import com.android.build.gradle.BaseExtension;
+import com.android.build.gradle.LibraryExtension;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+
+/**
+ * QTLog 编译插件
+ *
+ * 在 Android 应用或库模块中注册 {@link QTLogTransform}，编译时为 QTLog 的调用生成调用位置。
+ * 需要在 com.android.application 或 com.android.library 插件之后应用。
+ */
+public class QTLogPlugin implements Plugin<Project> {
+
+    @Override
+    public void apply(Project project) {
+        BaseExtension android = project.getExtensions().findByType(BaseExtension.class);
+        if (android instanceof AppExtension) {
+            android.registerTransform(new QTLogTransform(false));
+        } else if (android instanceof LibraryExtension) {
+            android.registerTransform(new QTLogTransform(true));
+        } else {
+            throw new GradleException("QTLogPlugin requires the com.android.application or "
+                    + "com.android.library plugin to be applied first.");
+        }
+    }
+}
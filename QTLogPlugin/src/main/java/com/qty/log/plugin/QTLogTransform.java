@@ -0,0 +1,250 @@
+package com.qty.log.plugin;
+
+import com.android.build.api.transform.DirectoryInput;
+import com.android.build.api.transform.Format;
+import com.android.build.api.transform.JarInput;
+import com.android.build.api.transform.QualifiedContent;
+import com.android.build.api.transform.Status;
+import com.android.build.api.transform.Transform;
+import com.android.build.api.transform.TransformException;
+import com.android.build.api.transform.TransformInput;
+import com.android.build.api.transform.TransformInvocation;
+import com.android.build.api.transform.TransformOutputProvider;
+import com.android.build.gradle.internal.pipeline.TransformManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * QTLog 调用位置注入
+ *
+ * 遍历编译生成的类文件和依赖的 jar，使用 {@link QTLogClassRewriter} 改写其中的日志调用，支持增量编译。
+ * 应用模块处理整个工程（包括依赖库），库模块只处理自身的类。
+ */
+public class QTLogTransform extends Transform {
+
+    /**
+     * 类文件后缀
+     */
+    private static final String CLASS_SUFFIX = ".class";
+    /**
+     * 多版本 jar 中各 Java 版本类文件所在的目录，这些类文件按原样复制
+     */
+    private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+    /**
+     * 是否为库模块
+     */
+    private final boolean isLibrary;
+
+    /**
+     * 构造方法
+     * @param library 是否为库模块
+     */
+    public QTLogTransform(boolean library) {
+        isLibrary = library;
+    }
+
+    @Override
+    public String getName() {
+        return "qtlogLocation";
+    }
+
+    @Override
+    public Set<QualifiedContent.ContentType> getInputTypes() {
+        return TransformManager.CONTENT_CLASS;
+    }
+
+    @Override
+    public Set<? super QualifiedContent.Scope> getScopes() {
+        return isLibrary ? TransformManager.PROJECT_ONLY : TransformManager.SCOPE_FULL_PROJECT;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    public void transform(TransformInvocation invocation) throws TransformException, InterruptedException,
+            IOException {
+        TransformOutputProvider outputProvider = invocation.getOutputProvider();
+        boolean incremental = invocation.isIncremental();
+        if (!incremental) {
+            outputProvider.deleteAll();
+        }
+        for (TransformInput input : invocation.getInputs()) {
+            for (DirectoryInput directoryInput : input.getDirectoryInputs()) {
+                File output = outputProvider.getContentLocation(directoryInput.getName(),
+                        directoryInput.getContentTypes(), directoryInput.getScopes(), Format.DIRECTORY);
+                transformDirectory(directoryInput, output, incremental);
+            }
+            for (JarInput jarInput : input.getJarInputs()) {
+                File output = outputProvider.getContentLocation(jarInput.getName(),
+                        jarInput.getContentTypes(), jarInput.getScopes(), Format.JAR);
+                Status status = incremental ? jarInput.getStatus() : Status.ADDED;
+                if (status == Status.REMOVED) {
+                    delete(output);
+                } else if (status != Status.NOTCHANGED) {
+                    transformJar(jarInput.getFile(), output);
+                }
+            }
+        }
+    }
+
+    /**
+     * 处理类文件目录
+     * @param input 输入目录
+     * @param output 输出目录
+     * @param incremental 是否为增量编译
+     * @throws IOException 读写失败时抛出
+     */
+    private void transformDirectory(DirectoryInput input, File output, boolean incremental) throws IOException {
+        File root = input.getFile();
+        if (!incremental) {
+            transformTree(root, root, output);
+            return;
+        }
+        for (Map.Entry<File, Status> entry : input.getChangedFiles().entrySet()) {
+            File file = entry.getKey();
+            File target = new File(output, root.toURI().relativize(file.toURI()).getPath());
+            switch (entry.getValue()) {
+                case ADDED:
+                case CHANGED:
+                    if (file.isFile()) {
+                        transformFile(file, target);
+                    }
+                    break;
+
+                case REMOVED:
+                    delete(target);
+                    break;
+
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 递归处理目录下的所有文件
+     * @param root 输入根目录
+     * @param dir 当前目录
+     * @param output 输出根目录
+     * @throws IOException 读写失败时抛出
+     */
+    private void transformTree(File root, File dir, File output) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                transformTree(root, file, output);
+            } else {
+                transformFile(file, new File(output, root.toURI().relativize(file.toURI()).getPath()));
+            }
+        }
+    }
+
+    /**
+     * 处理单个文件，类文件改写后写入，其他文件直接复制
+     * @param file 输入文件
+     * @param target 输出文件
+     * @throws IOException 读写失败时抛出
+     */
+    private void transformFile(File file, File target) throws IOException {
+        byte[] bytes;
+        try (InputStream in = new FileInputStream(file)) {
+            bytes = readFully(in);
+        }
+        if (isRewritableEntry(file.getPath().replace(File.separatorChar, '/'))) {
+            bytes = QTLogClassRewriter.rewrite(bytes);
+        }
+        File parent = target.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable create directory " + parent);
+        }
+        try (OutputStream out = new FileOutputStream(target)) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 处理 jar 文件，改写其中的类文件，其他条目直接复制
+     * @param input 输入 jar
+     * @param output 输出 jar
+     * @throws IOException 读写失败时抛出
+     */
+    private void transformJar(File input, File output) throws IOException {
+        File parent = output.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable create directory " + parent);
+        }
+        try (ZipInputStream in = new ZipInputStream(new FileInputStream(input));
+             ZipOutputStream out = new ZipOutputStream(new FileOutputStream(output))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                byte[] bytes = readFully(in);
+                if (isRewritableEntry(entry.getName())) {
+                    bytes = QTLogClassRewriter.rewrite(bytes);
+                }
+                ZipEntry target = new ZipEntry(entry.getName());
+                target.setTime(entry.getTime());
+                out.putNextEntry(target);
+                out.write(bytes);
+                out.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * 判断文件或 jar 条目是否需要改写，只改写类文件，多版本 jar 中 META-INF/versions/ 下的类文件不改写
+     * @param path 使用 '/' 分隔的路径
+     * @return 如果需要改写，返回 true；否则返回 false
+     */
+    private static boolean isRewritableEntry(String path) {
+        return path.endsWith(CLASS_SUFFIX) && !path.startsWith(VERSIONS_PREFIX)
+                && !path.contains("/" + VERSIONS_PREFIX);
+    }
+
+    /**
+     * 读取输入流中的所有数据
+     * @param in 输入流
+     * @return 返回读取的数据
+     * @throws IOException 读取失败时抛出
+     */
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) > 0) {
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 删除文件
+     * @param file 文件
+     * @throws IOException 删除失败时抛出
+     */
+    private static void delete(File file) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Unable delete " + file);
+        }
+    }
+}
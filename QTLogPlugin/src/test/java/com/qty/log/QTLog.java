@@ -0,0 +1,34 @@
+package com.qty.log;
+
+/**
+ * 测试用的 QTLog，只包含改写涉及的方法，记录 printAt 收到的参数
+ */
+public class QTLog {
+
+    public static String sMsg;
+    public static Throwable sThrowable;
+    public static int sLevel;
+    public static String sClassName;
+    public static String sMethodName;
+    public static String sFileName;
+    public static int sLineNumber;
+
+    public void i(String msg) {
+        throw new AssertionError("QTLog.i was not rewritten");
+    }
+
+    public void e(String msg, Throwable tr) {
+        throw new AssertionError("QTLog.e was not rewritten");
+    }
+
+    public void printAt(String msg, Throwable tr, int level, String className, String methodName,
+                        String fileName, int lineNumber) {
+        sMsg = msg;
+        sThrowable = tr;
+        sLevel = level;
+        sClassName = className;
+        sMethodName = methodName;
+        sFileName = fileName;
+        sLineNumber = lineNumber;
+    }
+}
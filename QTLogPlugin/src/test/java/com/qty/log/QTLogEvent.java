@@ -0,0 +1,25 @@
+package com.qty.log;
+
+/**
+ * 测试用的 QTLogEvent，只包含改写涉及的方法，记录 logAt 收到的参数
+ */
+public class QTLogEvent {
+
+    public static String sMsg;
+    public static String sClassName;
+    public static String sMethodName;
+    public static String sFileName;
+    public static int sLineNumber;
+
+    public void log(String msg) {
+        throw new AssertionError("QTLogEvent.log was not rewritten");
+    }
+
+    public void logAt(String msg, String className, String methodName, String fileName, int lineNumber) {
+        sMsg = msg;
+        sClassName = className;
+        sMethodName = methodName;
+        sFileName = fileName;
+        sLineNumber = lineNumber;
+    }
+}
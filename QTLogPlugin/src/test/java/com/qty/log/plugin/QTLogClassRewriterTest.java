@@ -0,0 +1,134 @@
+package com.qty.log.plugin;
+
+import com.qty.log.QTLog;
+import com.qty.log.QTLogEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 改写编译好的 {@link QTLogRewriterFixture}，加载改写后的类并检查日志调用收到的位置参数
+ */
+public class QTLogClassRewriterTest {
+
+    private static final String FIXTURE = QTLogRewriterFixture.class.getName();
+
+    private Class<?> mRewritten;
+
+    @Before
+    public void setUp() throws Exception {
+        byte[] original = readFixture();
+        byte[] rewritten = QTLogClassRewriter.rewrite(original);
+        assertNotSame(original, rewritten);
+        mRewritten = new FixtureClassLoader(rewritten).loadClass(FIXTURE);
+    }
+
+    @Test
+    public void rewritesPrintWithMessageOnly() throws Exception {
+        invoke("info", new Class<?>[] {QTLog.class}, new QTLog());
+        assertEquals("info", QTLog.sMsg);
+        assertNull(QTLog.sThrowable);
+        assertEquals(4, QTLog.sLevel);
+        assertLocation(QTLog.sClassName, QTLog.sMethodName, QTLog.sFileName, "info");
+        assertEquals(mRewritten.getField("sInfoLine").getInt(null), QTLog.sLineNumber);
+    }
+
+    @Test
+    public void rewritesPrintWithThrowable() throws Exception {
+        Throwable tr = new IllegalStateException();
+        invoke("error", new Class<?>[] {QTLog.class, Throwable.class}, new QTLog(), tr);
+        assertEquals("error", QTLog.sMsg);
+        assertSame(tr, QTLog.sThrowable);
+        assertEquals(6, QTLog.sLevel);
+        assertLocation(QTLog.sClassName, QTLog.sMethodName, QTLog.sFileName, "error");
+        assertEquals(mRewritten.getField("sErrorLine").getInt(null), QTLog.sLineNumber);
+    }
+
+    @Test
+    public void rewritesEventLog() throws Exception {
+        invoke("event", new Class<?>[] {QTLogEvent.class}, new QTLogEvent());
+        assertEquals("event", QTLogEvent.sMsg);
+        assertLocation(QTLogEvent.sClassName, QTLogEvent.sMethodName, QTLogEvent.sFileName, "event");
+        assertEquals(mRewritten.getField("sEventLine").getInt(null), QTLogEvent.sLineNumber);
+    }
+
+    @Test
+    public void returnsUnsupportedClassFileUnchanged() throws Exception {
+        byte[] bytes = readFixture();
+        // 将主版本号改为 ASM 不支持的版本
+        bytes[6] = (byte) 0x7f;
+        bytes[7] = (byte) 0xff;
+        assertSame(bytes, QTLogClassRewriter.rewrite(bytes));
+    }
+
+    @Test
+    public void returnsLogClassUnchanged() throws Exception {
+        byte[] bytes = readClass(QTLog.class);
+        assertSame(bytes, QTLogClassRewriter.rewrite(bytes));
+    }
+
+    private void invoke(String name, Class<?>[] types, Object... args) throws Exception {
+        Method method = mRewritten.getMethod(name, types);
+        method.invoke(null, args);
+    }
+
+    private static void assertLocation(String className, String methodName, String fileName, String method) {
+        assertEquals(FIXTURE, className);
+        assertEquals(method, methodName);
+        assertEquals("QTLogRewriterFixture.java", fileName);
+    }
+
+    private static byte[] readFixture() throws IOException {
+        return readClass(QTLogRewriterFixture.class);
+    }
+
+    private static byte[] readClass(Class<?> cls) throws IOException {
+        String name = cls.getName().replace('.', '/') + ".class";
+        try (InputStream in = cls.getClassLoader().getResourceAsStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 使用改写后的内容定义测试类，其他类交给上级类加载器
+     */
+    private static class FixtureClassLoader extends ClassLoader {
+
+        private final byte[] mBytes;
+
+        FixtureClassLoader(byte[] bytes) {
+            super(QTLogClassRewriterTest.class.getClassLoader());
+            mBytes = bytes;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!FIXTURE.equals(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> cls = findLoadedClass(name);
+                if (cls == null) {
+                    cls = defineClass(name, mBytes, 0, mBytes.length);
+                }
+                return cls;
+            }
+        }
+    }
+}
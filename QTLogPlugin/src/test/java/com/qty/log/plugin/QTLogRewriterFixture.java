@@ -0,0 +1,30 @@
+package com.qty.log.plugin;
+
+import com.qty.log.QTLog;
+import com.qty.log.QTLogEvent;
+
+/**
+ * 改写测试使用的类，每个日志调用和记录行号的调用写在同一行
+ */
+public class QTLogRewriterFixture {
+
+    public static int sInfoLine;
+    public static int sErrorLine;
+    public static int sEventLine;
+
+    public static void info(QTLog log) {
+        sInfoLine = line(); log.i("info");
+    }
+
+    public static void error(QTLog log, Throwable tr) {
+        sErrorLine = line(); log.e("error", tr);
+    }
+
+    public static void event(QTLogEvent event) {
+        sEventLine = line(); event.log("event");
+    }
+
+    private static int line() {
+        return new Throwable().getStackTrace()[1].getLineNumber();
+    }
+}